@@ -1,24 +1,47 @@
 package com.securevault;
 
+import com.securevault.audit.AuditReport;
+import com.securevault.audit.BreachCorpus;
+import com.securevault.audit.PasswordAuditEngine;
+import com.securevault.audit.PasswordReuseFilter;
+import com.securevault.composite.CredentialCategorizer;
 import com.securevault.composite.FolderComposite;
 import com.securevault.composite.VaultComponent;
+import com.securevault.composite.VaultTree;
 import com.securevault.factory.CredentialFactory;
 import com.securevault.model.Credential;
+import com.securevault.observer.BackpressurePolicy;
 import com.securevault.observer.VaultNotificationService;
+import com.securevault.repository.CredentialHistory;
 import com.securevault.repository.VaultRepository;
+import com.securevault.repository.VaultSnapshot;
 import com.securevault.security.CryptoManager;
 import com.securevault.security.EncryptionStrategy;
 import com.securevault.security.MasterPasswordManager;
+import com.securevault.security.SecretStore;
+import com.securevault.service.FolderTreeStore;
 import com.securevault.service.SecureStorageService;
+import com.securevault.service.VaultEventStore;
+import com.securevault.util.BloomFilter;
 import com.securevault.util.CSVExportTask;
 import com.securevault.util.InputSanitizer;
 import com.securevault.util.LogConfig;
 import com.securevault.util.ReflectionUtil;
 
 import javax.crypto.SecretKey;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import java.util.Scanner;
 import java.util.logging.FileHandler;
 import java.util.logging.Logger;
@@ -63,6 +86,17 @@ public class MainApp {
     private static final String STORAGE_PATH = "vault.enc";    // File credenziali cifrate
     private static final String KEY_PATH = "vault.key";       // File chiave crittografica
     private static final String MASTER_PATH = "master.hash";  // File hash master password
+    private static final String BLOOM_PATH = "vault.bloom";   // Filtro di Bloom del riuso password
+    private static final String BLOOM_FPP_PROPERTY = "bloom.false.positive.rate";  // Tasso di falsi positivi
+    private static final String HISTORY_MAX_VERSIONS_PROPERTY = "history.max.versions";  // Retention storico
+    private static final String BREACH_CORPUS_PROPERTY = "breach.corpus.path";  // Corpus password compromesse (opzionale)
+    private static final String EVENTS_PATH = "vault-events";  // Log eventi cifrato + snapshot
+    private static final String TREE_PATH = "vault.tree";     // Gerarchia cartelle cifrata (+ journal)
+    private static final String CATEGORY_DEFAULT_PROPERTY = "category.default";  // Cartella senza regole corrispondenti
+    private static final String SNAPSHOT_INTERVAL_PROPERTY = "events.snapshot.interval";  // Eventi tra due snapshot
+    private static final String OBSERVER_QUEUE_PROPERTY = "observer.queue.capacity";  // Coda degli observer asincroni
+    private static final String OBSERVER_POLICY_PROPERTY = "observer.backpressure";  // BLOCK | DROP | COALESCE
+    private static final int DEFAULT_OBSERVER_QUEUE = 1024;
 
     /**
      * METODO PRINCIPALE - Orchestrazione completa del sistema
@@ -146,6 +180,10 @@ public class MainApp {
                 logger.info("Nuova chiave crittografica generata e salvata");
             }
 
+            // SECRET STORE: password in memoria diretta, azzerabili (fuori dall'heap e dal GC)
+            SecretStore secrets = new SecretStore();
+            storage.setSecretStore(secrets);
+
             // === STRATEGY PATTERN: Caricamento dinamico algoritmo crittografia ===
             SecretKey vaultKey = storage.getEncryptionKey();
             
@@ -160,48 +198,96 @@ public class MainApp {
             VaultRepository repository = new VaultRepository();
             
             // OBSERVER PATTERN: Setup sistema notifiche real-time
+            // La stampa su console non deve rallentare le scritture: observer asincrono
+            int queueCapacity = readPositiveInt(OBSERVER_QUEUE_PROPERTY, DEFAULT_OBSERVER_QUEUE);
+            repository.enableAsyncDispatch(queueCapacity, readBackpressurePolicy());
             VaultNotificationService notificationService = new VaultNotificationService();
-            repository.addObserver(notificationService);  // Registra observer
+            repository.addAsyncObserver(notificationService);  // Registra observer
+            
+            // AUDIT: analisi incrementale della salute delle password (Observer)
+            PasswordAuditEngine auditEngine = new PasswordAuditEngine();
+            repository.addObserver(auditEngine);
+            
+            // STORICO: versioni precedenti come delta compatti (Observer)
+            int maxVersions = readPositiveInt(HISTORY_MAX_VERSIONS_PROPERTY, CredentialHistory.DEFAULT_MAX_VERSIONS);
+            CredentialHistory history = new CredentialHistory(maxVersions, null, secrets, Clock.systemUTC());
+            repository.addObserver(history);
             System.out.println("🔔 Sistema di notificazioni attivato\n");
             logger.info("Sistema di notificazioni Observer attivato");
             
             // === FASE 5: CARICAMENTO DATI ESISTENTI ===
             
-            // Carica credenziali dal file cifrato e popola repository
-            List<Credential> stored = storage.loadCredentials();
-            logger.info("Caricate " + stored.size() + " credenziali dal vault");
-            
-            // Popola repository (questo triggera eventi Observer)
-            for (Credential c : stored) {
-                repository.addCredential("Default", c);
+            // EVENT SOURCING: ultimo snapshot + coda del log eventi, se presenti
+            int snapshotInterval = readPositiveInt(SNAPSHOT_INTERVAL_PROPERTY, VaultEventStore.DEFAULT_SNAPSHOT_INTERVAL);
+            VaultEventStore eventStore = new VaultEventStore(Path.of(EVENTS_PATH), cryptoManager, snapshotInterval);
+            List<Credential> stored;
+            if (eventStore.exists()) {
+                eventStore.restore(repository, secrets);
+                stored = repository.getByCategory("Default");
+                logger.info("Ripristinate " + stored.size() + " credenziali dal log eventi");
+            } else {
+                // Primo avvio (o migrazione): carica dal file cifrato, che da qui in poi
+                // non viene più scritto: il log eventi è la fonte di verità del vault
+                // Dizionario del repository: servizi/username ripetuti condividono la stessa String
+                stored = storage.loadCredentials(repository.getDictionary());
+                logger.info("Caricate " + stored.size() + " credenziali dal vault");
+                
+                // Popola repository con un caricamento massivo (un solo evento Observer)
+                repository.addAll("Default", stored);
             }
+            eventStore.attach(repository);  // Da qui ogni modifica finisce nel log
+
+            // BLOOM FILTER: pre-filtro del riuso password, persistito accanto al vault
+            // (ricostruito solo se assente o non allineato alla sequenza del log eventi)
+            double bloomFalsePositiveRate = readPositiveDouble(BLOOM_FPP_PROPERTY,
+                PasswordReuseFilter.DEFAULT_FALSE_POSITIVE_RATE, 1.0);
+            PasswordReuseFilter reuseFilter = new PasswordReuseFilter(vaultKey, bloomFalsePositiveRate, stored.size());
+            if (!reuseFilter.load(Path.of(BLOOM_PATH), eventStore.getSequence())) {
+                try (VaultSnapshot snapshot = repository.snapshot()) {
+                    reuseFilter.rebuild(snapshot);
+                }
+            }
+            repository.addObserver(reuseFilter);  // Manutenzione incrementale
 
             // === COMPOSITE PATTERN: Setup struttura ad albero ===
             
-            // Crea gerarchia cartelle: Root -> Social/Work
-            FolderComposite root = new FolderComposite("Vault");
-            FolderComposite social = new FolderComposite("Social");
-            FolderComposite work = new FolderComposite("Work");
+            // Albero indicizzato: percorso -> cartella, credenziale -> cartella
+            VaultTree tree = new VaultTree("Vault");
+            FolderComposite root = tree.getRoot();
             
-            // ALGORITMO DI CATEGORIZZAZIONE: Distribuisci credenziali per tipo
-            for (Credential c : stored) {
-                // Logic: se contiene "book" va in Social, altrimenti Work
-                if (c.getService().toLowerCase().contains("book")) {
-                    social.add(c);
-                } else {
-                    work.add(c);
-                }
-            }
+            // PERSISTENZA GERARCHIA: le cartelle scelte dall'utente sopravvivono al riavvio
+            FolderTreeStore treeStore = new FolderTreeStore(Path.of(TREE_PATH), cryptoManager);
+            List<Credential> unplaced = treeStore.exists() ? treeStore.load(tree, stored) : stored;
             
-            // Costruisci albero: Root contiene Social e Work
-            root.add(social);
-            root.add(work);
+            // Crea gerarchia cartelle: Root -> Social/Work (se non già ripristinate)
+            FolderComposite social = tree.mkdirs("Social");
+            FolderComposite work = tree.mkdirs("Work");
+            
+            // CATEGORIZZAZIONE A REGOLE (config: category.rule.N): solo le credenziali senza cartella salvata
+            CredentialCategorizer categorizer = loadCategorizer();
+            for (Credential c : unplaced) {
+                tree.add(categorizer.categorize(c), c);
+            }
+            // Da qui le modifiche all'albero finiscono nel journal; quelle fatte
+            // finora vengono scritte in un solo snapshot, non un fsync per credenziale
+            treeStore.attach(tree);
 
             // === FACTORY PATTERN: Setup factory per creazione credenziali ===
-            CredentialFactory factory = new CredentialFactory();
+            CredentialFactory factory = new CredentialFactory(secrets);
+
+            // BREACH CHECK: corpus locale opzionale (config: breach.corpus.path)
+            BreachCorpus breachCorpus = openBreachCorpus(bloomFalsePositiveRate);
+            if (breachCorpus != null) {
+                factory.setBreachCheck(breachCorpus, c -> System.out.println(
+                    "⚠️ Attenzione: la password per " + c.getService() + " compare in un data breach noto."));
+                auditEngine.setBreachCorpus(breachCorpus);
+            }
             
             // === FASE 6: MAIN APPLICATION LOOP ===
             
+            // Export CSV in corso: leggono le password off-heap, il lock li attende
+            List<Thread> exports = new ArrayList<>();
+
             boolean running = true;
             while (running) {
                 
@@ -215,6 +301,7 @@ public class MainApp {
                 System.out.println("6. Modifica credenziali");      // Factory + Observer
                 System.out.println("7. Cambia master password");    // Security Management
                 System.out.println("8. Esci");                      // Cleanup + Statistics
+                System.out.println("9. Audit password");           // Parallel Streams + Observer
                 System.out.print("Scelta: ");
                 String choice = scanner.nextLine().trim();
 
@@ -235,24 +322,38 @@ public class MainApp {
 
                             // FACTORY PATTERN: Creazione oggetto tramite factory
                             Credential cred = (Credential) factory.create(service, user, pass);
+
+                            // RIUSO: il filtro di Bloom evita la scansione del vault nel caso comune
+                            char[] passChars = pass.toCharArray();
+                            List<Credential> reuses;
+                            try (VaultSnapshot snapshot = repository.snapshot()) {
+                                reuses = reuseFilter.findReuses(passChars, snapshot);
+                            }
+                            Arrays.fill(passChars, '\0');
+                            if (!reuses.isEmpty()) {
+                                System.out.println("⚠️ Password già usata per: " + reuses.stream()
+                                    .map(Credential::getService)
+                                    .collect(Collectors.joining(", ")));
+                            }
                             
                             // REPOSITORY + OBSERVER: Aggiunta con notifica automatica
+                            // PERSISTENCE: il log eventi (observer) registra l'aggiunta cifrata
                             repository.addCredential("Default", cred);
                             
-                            // PERSISTENCE: Salvataggio sicuro con crittografia
-                            storage.saveCredential(cred);
-                            
                             // DEMO CRITTOGRAFIA: Mostra password cifrata (educational)
                             System.out.println("Password cifrata: " + cryptoManager.encrypt(pass));
                             logger.info("Nuova credenziale aggiunta: " + service);
 
                             // COMPOSITE PATTERN: Aggiunta alla struttura ad albero
-                            System.out.println("In quale cartella? 1) Social  2) Work");
+                            String suggested = categorizer.categorize(cred);
+                            System.out.println("In quale cartella? 1) Social  2) Work  (Invio = " + suggested + ")");
                             String folder = scanner.nextLine().trim();
-                            if ("2".equals(folder)) {
+                            if ("1".equals(folder)) {
+                                social.add(cred);  // Aggiunge a cartella Social
+                            } else if ("2".equals(folder)) {
                                 work.add(cred);  // Aggiunge a cartella Work
                             } else {
-                                social.add(cred);  // Default: cartella Social
+                                tree.add(suggested, cred);  // Default: cartella proposta dalle regole
                             }
                             
                         } catch (IllegalArgumentException e) {
@@ -290,14 +391,11 @@ public class MainApp {
                             Credential toRemove = all.get(idx - 1);  // Convert to 0-based
                             
                             // REPOSITORY + OBSERVER: Rimozione con notifica
+                            // PERSISTENCE: registrata dal log eventi (observer)
                             repository.removeCredential("Default", toRemove);
                             
-                            // PERSISTENCE: Aggiornamento file storage
-                            storage.overwriteAll(repository.getByCategory("Default"));
-                            
-                            // COMPOSITE PATTERN: Rimozione da struttura ad albero
-                            social.remove(toRemove);
-                            work.remove(toRemove);
+                            // COMPOSITE PATTERN: Rimozione in O(1) tramite l'indice inverso
+                            tree.remove(toRemove);
                             
                             System.out.println("Credenziale rimossa.");
                             logger.info("Credenziale rimossa: " + toRemove.getService());
@@ -333,6 +431,8 @@ public class MainApp {
                         // COMPOSITE PATTERN DEMO: Visualizzazione gerarchica
                         System.out.println("\n🔗 Struttura ad albero:");
                         root.print(0);  // Stampa ricorsiva dell'albero
+                        System.out.printf("(%d cartelle, %d credenziali)%n",
+                            root.getFolderCount(), root.getCredentialCount());  // Aggregati in cache: O(1)
 
                         // ITERATOR PATTERN DEMO: Attraversamento con enhanced for-loop
                         System.out.println("\n🔍 Tutti i componenti:");
@@ -350,13 +450,26 @@ public class MainApp {
                             String fileName = InputSanitizer.sanitize(scanner.nextLine());
                             if (!fileName.endsWith(".csv")) fileName += ".csv";
                             
-                            List<Credential> creds = repository.getByCategory("Default");
+                            // MVCC: il thread di export lavora su uno snapshot consistente,
+                            // le modifiche successive dal menu non lo influenzano
+                            // (lo snapshot resta aperto fino a fine export: le password non vengono azzerate)
+                            VaultSnapshot snapshot = repository.snapshot();
+                            List<Credential> creds = snapshot.getByCategory("Default");
                             if (creds.isEmpty()) {
+                                snapshot.close();
                                 System.out.println("Vault vuoto.");
                             } else {
                                 // MULTITHREADING: Export asincrono in background
                                 // Evita di bloccare UI durante I/O intensive operations
-                                new Thread(new CSVExportTask(creds, fileName, cryptoManager)).start();
+                                CSVExportTask task = new CSVExportTask(creds, fileName, cryptoManager);
+                                Thread export = new Thread(() -> {
+                                    try (snapshot) {
+                                        task.run();
+                                    }
+                                });
+                                exports.removeIf(t -> !t.isAlive());
+                                exports.add(export);
+                                export.start();
                                 System.out.println("Export avviato in background...");
                                 logger.info("Export CSV avviato: " + fileName);
                             }
@@ -385,6 +498,14 @@ public class MainApp {
                                 .filter(c -> c.getService().toLowerCase().contains(query))  // Lambda predicate
                                 .collect(Collectors.toList());  // Terminal operation
 
+                            // FUZZY FALLBACK: tollera errori di battitura (BK-tree)
+                            if (filtered.isEmpty()) {
+                                filtered = repository.fuzzySearchByService(query, 2);
+                                if (!filtered.isEmpty()) {
+                                    System.out.println("Nessun risultato esatto, forse cercavi:");
+                                }
+                            }
+
                             if (filtered.isEmpty()) {
                                 System.out.println("Nessun risultato trovato.");
                             } else {
@@ -404,7 +525,9 @@ public class MainApp {
                                         Credential selected = filtered.get(pos - 1);
                                         
                                         // SECURITY FEATURE: Temporary password display
-                                        System.out.println("Password: " + selected.getPassword());
+                                        // Nessuna String: array temporaneo azzerato dopo la stampa
+                                        System.out.print("Password: ");
+                                        selected.readPassword(System.out::println);
                                         System.out.println("La password sarà nascosta tra 5 secondi...");
                                         
                                         // AUTO-HIDE: Timer + screen clear per sicurezza
@@ -468,22 +591,22 @@ public class MainApp {
                             // INPUT: Nuova password (opzionale)
                             System.out.print("Nuova password (vuoto = mantieni): ");
                             String np = scanner.nextLine().trim();
-                            if (np.isEmpty()) {
-                                np = old.getPassword();  // Mantieni esistente
-                            }
 
                             // FACTORY PATTERN: Crea nuova credenziale con dati aggiornati
-                            Credential upd = (Credential) factory.create(old.getService(), nu, np);
+                            // (password mantenuta: copiata tra handle off-heap, senza String in chiaro)
+                            Credential upd = np.isEmpty()
+                                    ? (Credential) factory.withUsername(old, nu)
+                                    : (Credential) factory.create(old.getService(), nu, np);
                             
                             // REPOSITORY + OBSERVER: Modifica con notifica automatica
                             repository.modifyCredential("Default", old, upd);
+                            // PERSISTENCE: registrata dal log eventi (observer)
+                            System.out.println("Versioni precedenti conservate: " + history.versionCount(upd));
                             
-                            // PERSISTENCE: Salvataggio modifiche
-                            storage.overwriteAll(repository.getByCategory("Default"));
-                            
-                            // COMPOSITE PATTERN: Aggiornamento struttura ad albero
-                            social.remove(old); 
-                            social.add(upd);
+                            // COMPOSITE PATTERN: Aggiornamento nella stessa cartella e posizione
+                            if (!tree.replace(old, upd)) {
+                                social.add(upd);
+                            }
                             
                             System.out.println("Credenziale aggiornata.");
                             
@@ -544,13 +667,44 @@ public class MainApp {
                     case "8" -> {
                         running = false;  // Termina main loop
                         
-                        // OBSERVER PATTERN: Mostra statistiche dalla sessione
+                        // OBSERVER PATTERN: consegna gli eventi in coda, poi mostra le statistiche
+                        repository.shutdownAsyncDispatch();
                         notificationService.showStatistics();
+                        
+                        // BLOOM FILTER: persistenza per il prossimo avvio
+                        try {
+                            reuseFilter.save(Path.of(BLOOM_PATH), eventStore.getSequence());
+                        } catch (IOException e) {
+                            logger.warning("Filtro di riuso non salvato: " + e.getMessage());
+                        }
+                        
+                        // LOCK: azzeramento di tutte le password off-heap,
+                        // dopo la fine degli export che le stanno ancora leggendo
+                        awaitExports(exports);
+                        eventStore.close();
+                        treeStore.close();
+                        secrets.close();
+                        if (breachCorpus != null) {
+                            breachCorpus.close();
+                        }
                         System.out.println("Chiusura applicazione.");
                     }
 
+                    // === CASE 9: AUDIT PASSWORD ===
+                    // Dimostra: Parallel Streams, Observer Pattern (audit incrementale)
+                    case "9" -> {
+                        AuditReport report = auditEngine.report();
+                        System.out.println(report.summary());
+                        
+                        // Solo le credenziali con problemi, dalla più debole
+                        report.getFindings().stream()
+                                .filter(f -> !f.isHealthy())
+                                .limit(10)
+                                .forEach(f -> System.out.println(" - " + f));
+                    }
+
                     // === DEFAULT: INPUT NON VALIDO ===
-                    default -> System.out.println("Scelta non valida. Inserire un numero da 1 a 8.");
+                    default -> System.out.println("Scelta non valida. Inserire un numero da 1 a 9.");
                 }
             }
 
@@ -597,6 +751,171 @@ public class MainApp {
         return index;  // Caller dovrà sottrarre 1 per 0-based array access
     }
 
+    /**
+     * Attende la fine dei thread di export CSV prima del blocco del vault.
+     * Un'interruzione non abbrevia l'attesa (lo SecretStore non può essere
+     * chiuso sotto un export in corso) ma viene ripristinata alla fine.
+     * 
+     * @param exports thread di export avviati
+     */
+    private static void awaitExports(List<Thread> exports) {
+        boolean interrupted = false;
+        for (Thread export : exports) {
+            while (export.isAlive()) {
+                try {
+                    export.join();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * SETUP METHOD - Breach Corpus
+     * 
+     * Apre il corpus locale di password compromesse indicato dalla proprietà
+     * breach.corpus.path di config.properties (file di digest SHA-1 ordinati).
+     * Funzionalità opzionale: senza configurazione o con file mancante
+     * l'applicazione prosegue senza controllo.
+     * 
+     * Il filtro di Bloom del corpus viene salvato in un file ".bloom" accanto
+     * al corpus e ricostruito solo se il corpus cambia.
+     * 
+     * @param falsePositiveRate tasso di falsi positivi del pre-filtro
+     * @return corpus mappato in memoria o null
+     */
+    private static BreachCorpus openBreachCorpus(double falsePositiveRate) {
+        String path = ReflectionUtil.getConfigProperty(BREACH_CORPUS_PROPERTY, "").trim();
+        if (path.isEmpty()) {
+            return null;
+        }
+        try {
+            Path corpusPath = Path.of(path);
+            BreachCorpus corpus = BreachCorpus.open(corpusPath);
+            
+            // PRE-FILTRO: caricamento o ricostruzione (una scansione del corpus)
+            Path filterPath = Path.of(path + ".bloom");
+            long tag = BloomFilter.fileTag(corpusPath);
+            BloomFilter prefilter = null;
+            if (Files.exists(filterPath)) {
+                try (InputStream in = new BufferedInputStream(Files.newInputStream(filterPath))) {
+                    prefilter = BloomFilter.readFrom(in);
+                } catch (IOException e) {
+                    logger.warning("Pre-filtro del corpus non leggibile: " + e.getMessage());
+                }
+            }
+            if (prefilter == null || prefilter.getTag() != tag) {
+                prefilter = corpus.buildPrefilter(falsePositiveRate);
+                prefilter.setTag(tag);
+                try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(filterPath))) {
+                    prefilter.writeTo(out);
+                }
+            }
+            corpus.setPrefilter(prefilter);
+            return corpus;
+        } catch (IOException e) {
+            // GRACEFUL FALLBACK: controllo breach disattivato
+            logger.warning("Corpus breach non disponibile (" + path + "): " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * SETUP METHOD - Auto-Categorization Rules
+     * 
+     * Compila le regole category.rule.N da config.properties; senza regole
+     * (o con regole non valide) usa la regola storica "service:book -> Social".
+     * 
+     * @return categorizzatore compilato
+     */
+    private static CredentialCategorizer loadCategorizer() {
+        String defaultFolder = ReflectionUtil.getConfigProperty(CATEGORY_DEFAULT_PROPERTY, "Work").trim();
+        Map<String, String> rules = ReflectionUtil.getConfigProperties(CredentialCategorizer.RULE_PREFIX);
+        if (!rules.isEmpty()) {
+            try {
+                CredentialCategorizer categorizer = CredentialCategorizer.fromProperties(rules, defaultFolder);
+                logger.info("Regole di categorizzazione caricate: " + categorizer.getRules().size());
+                return categorizer;
+            } catch (IllegalArgumentException e) {
+                // GRACEFUL FALLBACK: regola storica
+                logger.warning("Regole di categorizzazione non valide: " + e.getMessage());
+            }
+        }
+        return new CredentialCategorizer(
+            List.of(CredentialCategorizer.Rule.contains(CredentialCategorizer.Field.SERVICE, "book", "Social")),
+            defaultFolder);
+    }
+
+    /**
+     * Legge observer.backpressure da config.properties (comportamento a coda
+     * piena), con fallback a COALESCE.
+     * 
+     * @return politica di backpressure
+     */
+    private static BackpressurePolicy readBackpressurePolicy() {
+        String value = ReflectionUtil.getConfigProperty(OBSERVER_POLICY_PROPERTY,
+            BackpressurePolicy.COALESCE.name());
+        try {
+            return BackpressurePolicy.valueOf(value.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            logger.warning("observer.backpressure non valido: " + value + ", uso COALESCE");
+            return BackpressurePolicy.COALESCE;
+        }
+    }
+
+    /**
+     * SETUP METHOD - Numeric Configuration
+     * 
+     * Legge un intero positivo da config.properties (es. history.max.versions),
+     * con fallback al default se assente o non valido.
+     * 
+     * @param key chiave della proprietà
+     * @param defaultValue valore se la chiave manca o non è valida
+     * @return valore configurato o default
+     */
+    private static int readPositiveInt(String key, int defaultValue) {
+        String value = ReflectionUtil.getConfigProperty(key, String.valueOf(defaultValue));
+        try {
+            int parsed = Integer.parseInt(value.trim());
+            if (parsed > 0) {
+                return parsed;
+            }
+        } catch (NumberFormatException e) {
+            // Gestito sotto con il default
+        }
+        logger.warning(key + " non valido: " + value + ", uso il default");
+        return defaultValue;
+    }
+
+    /**
+     * SETUP METHOD - Numeric Configuration
+     * 
+     * Legge un numero reale da config.properties (es. bloom.false.positive.rate),
+     * con fallback al default se assente o fuori da (0, upperBound).
+     * 
+     * @param key chiave della proprietà
+     * @param defaultValue valore se la chiave manca o non è valida
+     * @param upperBound limite superiore escluso
+     * @return valore configurato o default
+     */
+    private static double readPositiveDouble(String key, double defaultValue, double upperBound) {
+        String value = ReflectionUtil.getConfigProperty(key, String.valueOf(defaultValue));
+        try {
+            double parsed = Double.parseDouble(value.trim());
+            if (parsed > 0 && parsed < upperBound) {
+                return parsed;
+            }
+        } catch (NumberFormatException e) {
+            // Gestito sotto con il default
+        }
+        logger.warning(key + " non valido: " + value + ", uso il default");
+        return defaultValue;
+    }
+
     /**
      * SETUP METHOD - Application-specific Logger Configuration
      * 
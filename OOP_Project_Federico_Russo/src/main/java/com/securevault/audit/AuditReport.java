@@ -0,0 +1,94 @@
+package com.securevault.audit;
+
+import java.time.Instant;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Risultato di un audit del vault: un finding per credenziale, dalla più debole.
+ */
+public final class AuditReport {
+    private final Instant generatedAt;
+    private final List<CredentialFinding> findings;
+    private final int reanalyzed;
+    private final Map<CredentialFinding.Issue, Integer> issueCounts;
+
+    AuditReport(Instant generatedAt, List<CredentialFinding> findings, int reanalyzed) {
+        this.generatedAt = generatedAt;
+        this.findings = List.copyOf(findings);
+        this.reanalyzed = reanalyzed;
+        this.issueCounts = new EnumMap<>(CredentialFinding.Issue.class);
+        for (CredentialFinding.Issue issue : CredentialFinding.Issue.values()) {
+            issueCounts.put(issue, 0);
+        }
+        for (CredentialFinding finding : findings) {
+            for (CredentialFinding.Issue issue : finding.getIssues()) {
+                issueCounts.merge(issue, 1, Integer::sum);
+            }
+        }
+    }
+
+    public Instant getGeneratedAt() {
+        return generatedAt;
+    }
+
+    /**
+     * @return finding ordinati per entropia crescente
+     */
+    public List<CredentialFinding> getFindings() {
+        return findings;
+    }
+
+    /**
+     * @param issue problema cercato
+     * @return finding che presentano il problema
+     */
+    public List<CredentialFinding> getFindings(CredentialFinding.Issue issue) {
+        return findings.stream()
+                .filter(f -> f.hasIssue(issue))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * @param issue problema
+     * @return numero di credenziali con il problema
+     */
+    public int count(CredentialFinding.Issue issue) {
+        return issueCounts.get(issue);
+    }
+
+    /**
+     * @return numero di credenziali analizzate
+     */
+    public int size() {
+        return findings.size();
+    }
+
+    /**
+     * @return credenziali effettivamente ri-analizzate per questo report (audit incrementale)
+     */
+    public int getReanalyzed() {
+        return reanalyzed;
+    }
+
+    /**
+     * @return entropia media in bit (0 se il vault è vuoto)
+     */
+    public double getAverageEntropy() {
+        return findings.stream()
+                .mapToDouble(CredentialFinding::getEntropyBits)
+                .average()
+                .orElse(0.0);
+    }
+
+    /**
+     * @return riepilogo testuale per la console
+     */
+    public String summary() {
+        return String.format("Audit di %d credenziali: %d deboli, %d riutilizzate, %d datate, %d compromesse (entropia media %.1f bit)",
+                size(), count(CredentialFinding.Issue.WEAK), count(CredentialFinding.Issue.REUSED),
+                count(CredentialFinding.Issue.STALE), count(CredentialFinding.Issue.BREACHED), getAverageEntropy());
+    }
+}
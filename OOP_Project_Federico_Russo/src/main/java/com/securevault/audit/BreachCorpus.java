@@ -0,0 +1,292 @@
+package com.securevault.audit;
+
+import com.securevault.model.Credential;
+import com.securevault.repository.VaultSnapshot;
+import com.securevault.util.BloomFilter;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
+
+/**
+ * Corpus locale di password compromesse (nessun accesso alla rete).
+ *
+ * Il file contiene digest SHA-1 (delle password in UTF-8) ordinati, a
+ * larghezza fissa e senza separatori: 20 byte per record, oppure un prefisso
+ * troncato (es. 8 byte) per ridurre lo spazio su disco a fronte di rari falsi positivi.
+ *
+ * Il file viene mappato in memoria a blocchi (un MappedByteBuffer è limitato
+ * a 2 GB) e non viene mai caricato sull'heap: centinaia di milioni di record
+ * restano nella page cache del sistema operativo.
+ *
+ * All'apertura si costruisce un indice di 65536 bucket sui primi due byte del
+ * digest (65536 ricerche binarie, nessuna scansione del file). Un lookup
+ * restringe la ricerca binaria al solo bucket: circa log2(n / 65536) accessi,
+ * pochi microsecondi. Le letture sono assolute e quindi thread-safe.
+ *
+ * Un filtro di Bloom opzionale ({@link #buildPrefilter}) risponde alle
+ * password assenti (la quasi totalità) con pochi accessi in memoria, senza
+ * toccare le pagine del file mappato.
+ */
+public class BreachCorpus implements AutoCloseable {
+    private static final Logger logger = Logger.getLogger(BreachCorpus.class.getName());
+
+    public static final int SHA1_BYTES = 20;
+    private static final int BUCKETS = 1 << 16;
+
+    private final FileChannel channel;
+    private final MappedByteBuffer[] chunks;
+    private final int recordBytes;
+    private final long recordsPerChunk;
+    private final long records;
+    private final long[] bucketStart;     // BUCKETS + 1 confini: bucket b = [start[b], start[b+1])
+    private volatile BloomFilter prefilter;   // null = solo ricerca binaria
+
+    private final ThreadLocal<MessageDigest> digests = ThreadLocal.withInitial(BreachCorpus::newDigest);
+
+    private BreachCorpus(FileChannel channel, int recordBytes) throws IOException {
+        this.channel = channel;
+        this.recordBytes = recordBytes;
+        long bytes = channel.size();
+        if (bytes % recordBytes != 0) {
+            throw new IOException("Dimensione del corpus non multipla di " + recordBytes + " byte");
+        }
+        this.records = bytes / recordBytes;
+        this.recordsPerChunk = Integer.MAX_VALUE / recordBytes;   // Ogni record sta in un solo blocco
+        int chunkCount = (int) ((records + recordsPerChunk - 1) / recordsPerChunk);
+        this.chunks = new MappedByteBuffer[chunkCount];
+        for (int i = 0; i < chunkCount; i++) {
+            long first = i * recordsPerChunk;
+            long count = Math.min(recordsPerChunk, records - first);
+            chunks[i] = channel.map(FileChannel.MapMode.READ_ONLY, first * recordBytes, count * recordBytes);
+        }
+        this.bucketStart = buildBucketIndex();
+    }
+
+    /**
+     * Apre un corpus di digest SHA-1 completi.
+     * @param path file del corpus
+     * @return corpus mappato in memoria
+     * @throws IOException se il file non è leggibile o malformato
+     */
+    public static BreachCorpus open(Path path) throws IOException {
+        return open(path, SHA1_BYTES);
+    }
+
+    /**
+     * Apre un corpus di digest SHA-1 troncati a recordBytes.
+     * @param path file del corpus
+     * @param recordBytes byte per record (2..20)
+     * @return corpus mappato in memoria
+     * @throws IOException se il file non è leggibile o malformato
+     */
+    public static BreachCorpus open(Path path, int recordBytes) throws IOException {
+        if (recordBytes < 2 || recordBytes > SHA1_BYTES) {
+            throw new IllegalArgumentException("Larghezza record non valida: " + recordBytes);
+        }
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            BreachCorpus corpus = new BreachCorpus(channel, recordBytes);
+            logger.info("Corpus breach aperto: " + corpus.records + " record da " + path);
+            return corpus;
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    // === LOOKUP ===
+
+    /**
+     * @param password caratteri della password (non modificati)
+     * @return true se la password compare nel corpus
+     */
+    public boolean contains(char[] password) {
+        byte[] digest = sha1(password);
+        return containsDigest(digest);
+    }
+
+    /**
+     * @param sha1 digest SHA-1 (almeno recordBytes byte)
+     * @return true se il digest (troncato alla larghezza del record) compare nel corpus
+     */
+    public boolean containsDigest(byte[] sha1) {
+        BloomFilter filter = prefilter;
+        if (filter != null && !filter.mightContain(prefilterKey(sha1))) {
+            return false;    // Sicuramente assente: nessun accesso al file
+        }
+        int bucket = ((sha1[0] & 0xFF) << 8) | (sha1[1] & 0xFF);
+        long low = bucketStart[bucket];
+        long high = bucketStart[bucket + 1] - 1;
+        while (low <= high) {
+            long mid = (low + high) >>> 1;
+            int cmp = compareRecord(mid, sha1);
+            if (cmp == 0) return true;
+            if (cmp < 0) low = mid + 1;
+            else high = mid - 1;
+        }
+        return false;
+    }
+
+    /**
+     * Verifica in parallelo tutte le credenziali dello snapshot.
+     * @param snapshot stato del vault
+     * @return credenziali con password compromessa
+     */
+    public List<Credential> scan(VaultSnapshot snapshot) {
+        return snapshot.stream()
+                .parallel()
+                .filter(this::isBreached)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * @param credential credenziale da verificare
+     * @return true se la password compare nel corpus (false se già azzerata)
+     */
+    public boolean isBreached(Credential credential) {
+        boolean[] found = new boolean[1];
+        return credential.tryReadPassword(chars -> found[0] = contains(chars)) && found[0];
+    }
+
+    // === PRE-FILTRO ===
+
+    /**
+     * Costruisce un filtro di Bloom su tutti i record (una scansione sequenziale del file).
+     * Il filtro può essere salvato e riattaccato con {@link #setPrefilter}.
+     * @param falsePositiveRate tasso di falsi positivi del filtro
+     * @return filtro standard sui record del corpus
+     */
+    public BloomFilter buildPrefilter(double falsePositiveRate) {
+        BloomFilter filter = BloomFilter.create(records, falsePositiveRate);
+        byte[] record = new byte[recordBytes];
+        for (long r = 0; r < records; r++) {
+            ByteBuffer chunk = chunks[(int) (r / recordsPerChunk)];
+            chunk.get((int) (r % recordsPerChunk) * recordBytes, record);
+            filter.add(prefilterKey(record));
+        }
+        return filter;
+    }
+
+    /**
+     * @param filter filtro costruito da {@link #buildPrefilter} su questo corpus (null = rimuove)
+     */
+    public void setPrefilter(BloomFilter filter) {
+        this.prefilter = filter;
+    }
+
+    /**
+     * @return numero di record del corpus
+     */
+    public long size() {
+        return records;
+    }
+
+    /**
+     * Chiude il file. Le mappature vengono rilasciate dal GC (Java non
+     * espone l'unmap esplicito dei MappedByteBuffer).
+     */
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    // === IMPLEMENTAZIONE ===
+
+    /**
+     * Digest SHA-1 dell'UTF-8 della password, senza creare String.
+     */
+    byte[] sha1(char[] password) {
+        ByteBuffer utf8;
+        try {
+            utf8 = StandardCharsets.UTF_8.newEncoder().encode(CharBuffer.wrap(password));
+        } catch (CharacterCodingException e) {
+            throw new IllegalArgumentException("Password non codificabile in UTF-8", e);
+        }
+        MessageDigest digest = digests.get();
+        digest.reset();
+        digest.update(utf8.duplicate());
+        byte[] result = digest.digest();
+        if (utf8.hasArray()) {
+            Arrays.fill(utf8.array(), (byte) 0);
+        }
+        return result;
+    }
+
+    /**
+     * Chiave a 64 bit: i primi (fino a 8) byte del digest, già uniformi.
+     */
+    private long prefilterKey(byte[] digest) {
+        long key = 0;
+        for (int i = 0; i < Math.min(Long.BYTES, recordBytes); i++) {
+            key = (key << 8) | (digest[i] & 0xFF);
+        }
+        return key;
+    }
+
+    private long[] buildBucketIndex() {
+        long[] start = new long[BUCKETS + 1];
+        byte[] probe = new byte[2];
+        for (int b = 0; b < BUCKETS; b++) {
+            probe[0] = (byte) (b >>> 8);
+            probe[1] = (byte) b;
+            start[b] = lowerBound(probe, b == 0 ? 0 : start[b - 1]);
+        }
+        start[BUCKETS] = records;
+        return start;
+    }
+
+    /**
+     * Primo record con prefisso di 2 byte >= probe, cercando da from.
+     */
+    private long lowerBound(byte[] probe, long from) {
+        long low = from;
+        long high = records;
+        while (low < high) {
+            long mid = (low + high) >>> 1;
+            if (comparePrefix(mid, probe) < 0) low = mid + 1;
+            else high = mid;
+        }
+        return low;
+    }
+
+    private int comparePrefix(long record, byte[] probe) {
+        ByteBuffer chunk = chunks[(int) (record / recordsPerChunk)];
+        int base = (int) (record % recordsPerChunk) * recordBytes;
+        for (int i = 0; i < probe.length; i++) {
+            int cmp = Integer.compare(chunk.get(base + i) & 0xFF, probe[i] & 0xFF);
+            if (cmp != 0) return cmp;
+        }
+        return 0;
+    }
+
+    private int compareRecord(long record, byte[] digest) {
+        ByteBuffer chunk = chunks[(int) (record / recordsPerChunk)];
+        int base = (int) (record % recordsPerChunk) * recordBytes;
+        for (int i = 0; i < recordBytes; i++) {
+            int cmp = Integer.compare(chunk.get(base + i) & 0xFF, digest[i] & 0xFF);
+            if (cmp != 0) return cmp;
+        }
+        return 0;
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-1");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-1 non disponibile", e);
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package com.securevault.audit;
+
+import com.securevault.model.Credential;
+
+import java.time.Instant;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * Esito dell'audit per una singola credenziale.
+ */
+public final class CredentialFinding {
+
+    /**
+     * Problemi rilevabili su una password.
+     */
+    public enum Issue {
+        WEAK,      // Entropia sotto la soglia FAIR
+        REUSED,    // Stessa password usata da altre credenziali
+        STALE,     // Password non cambiata da troppo tempo
+        BREACHED   // Password presente nel corpus di password compromesse
+    }
+
+    private final String category;
+    private final Credential credential;
+    private final double entropyBits;
+    private final PasswordStrengthEstimator.Strength strength;
+    private final int reuseCount;
+    private final Instant lastChanged;
+    private final Set<Issue> issues;
+
+    CredentialFinding(String category, Credential credential, double entropyBits,
+                      PasswordStrengthEstimator.Strength strength, int reuseCount,
+                      Instant lastChanged, EnumSet<Issue> issues) {
+        this.category = category;
+        this.credential = credential;
+        this.entropyBits = entropyBits;
+        this.strength = strength;
+        this.reuseCount = reuseCount;
+        this.lastChanged = lastChanged;
+        this.issues = Collections.unmodifiableSet(issues);
+    }
+
+    public String getCategory() {
+        return category;
+    }
+
+    public Credential getCredential() {
+        return credential;
+    }
+
+    public double getEntropyBits() {
+        return entropyBits;
+    }
+
+    public PasswordStrengthEstimator.Strength getStrength() {
+        return strength;
+    }
+
+    /**
+     * @return numero di credenziali (inclusa questa) che condividono la password
+     */
+    public int getReuseCount() {
+        return reuseCount;
+    }
+
+    /**
+     * @return ultimo cambio password noto all'audit
+     */
+    public Instant getLastChanged() {
+        return lastChanged;
+    }
+
+    public Set<Issue> getIssues() {
+        return issues;
+    }
+
+    public boolean hasIssue(Issue issue) {
+        return issues.contains(issue);
+    }
+
+    /**
+     * @return true se nessun problema è stato rilevato
+     */
+    public boolean isHealthy() {
+        return issues.isEmpty();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s | %s | %.0f bit (%s) | riuso: %d | %s",
+                credential.getService(), credential.getUsername(), entropyBits, strength, reuseCount,
+                issues.isEmpty() ? "OK" : issues);
+    }
+}
@@ -0,0 +1,352 @@
+package com.securevault.audit;
+
+import com.securevault.model.Credential;
+import com.securevault.observer.VaultObserver;
+import com.securevault.repository.VaultSnapshot;
+
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
+
+/**
+ * Motore di audit della salute delle password del vault.
+ *
+ * Per ogni credenziale calcola:
+ * - robustezza (entropia con penalità sui pattern, vedi {@link PasswordStrengthEstimator})
+ * - riuso: indice impronta della password -> numero di credenziali
+ * - età: tempo dall'ultimo cambio password osservato
+ * - compromissione: presenza nel {@link BreachCorpus} locale, se configurato
+ *
+ * L'analisi è incrementale: registrato come {@link VaultObserver}, il motore
+ * mette in coda solo le credenziali aggiunte o modificate e aggiorna subito
+ * l'indice di riuso sulle rimozioni. {@link #report()} analizza in parallelo
+ * (parallel stream sul ForkJoinPool comune, dimensionato sui core disponibili)
+ * solo le voci in coda.
+ *
+ * Le impronte sono SHA-256 salate con un sale casuale per istanza: l'indice
+ * non è un dizionario di hash delle password riutilizzabile fuori dal processo.
+ * Le password vengono lette tramite {@link Credential#readPassword}, senza String.
+ */
+public class PasswordAuditEngine implements VaultObserver {
+    private static final Logger logger = Logger.getLogger(PasswordAuditEngine.class.getName());
+
+    public static final Duration DEFAULT_STALE_AFTER = Duration.ofDays(365);
+
+    private final PasswordStrengthEstimator estimator = new PasswordStrengthEstimator();
+    private final Duration staleAfter;
+    private final Clock clock;
+    private final byte[] salt = new byte[16];
+    private final ThreadLocal<MessageDigest> digests = ThreadLocal.withInitial(PasswordAuditEngine::newDigest);
+
+    // === STATO INCREMENTALE ===
+    private final Map<Key, Entry> entries = new HashMap<>();
+    private final Set<Key> pending = new HashSet<>();           // Da (ri)analizzare
+    private final Map<Long, Integer> reuseIndex = new HashMap<>(); // Impronta -> credenziali
+    private BreachCorpus breachCorpus;                          // null = nessun controllo
+
+    public PasswordAuditEngine() {
+        this(DEFAULT_STALE_AFTER, Clock.systemUTC());
+    }
+
+    /**
+     * @param staleAfter età oltre la quale una password è considerata datata
+     * @param clock orologio per età e timestamp (iniettabile nei test)
+     */
+    public PasswordAuditEngine(Duration staleAfter, Clock clock) {
+        this.staleAfter = Objects.requireNonNull(staleAfter, "staleAfter");
+        this.clock = Objects.requireNonNull(clock, "clock");
+        new SecureRandom().nextBytes(salt);
+    }
+
+    // === API ===
+
+    /**
+     * Riparte da zero sul contenuto dello snapshot (audit completo al prossimo report).
+     * Da usare quando il motore viene registrato su un vault già popolato.
+     * @param snapshot stato del vault
+     */
+    public synchronized void seed(VaultSnapshot snapshot) {
+        clearState();
+        for (String category : snapshot.getCategories()) {
+            for (Credential credential : snapshot.getByCategory(category)) {
+                track(category, credential, clock.instant());
+            }
+        }
+    }
+
+    /**
+     * Attiva il controllo sul corpus di password compromesse. Tutte le
+     * credenziali vengono rimesse in coda per la ri-analisi.
+     * @param corpus corpus locale (null = disattiva)
+     */
+    public synchronized void setBreachCorpus(BreachCorpus corpus) {
+        this.breachCorpus = corpus;
+        pending.addAll(entries.keySet());
+    }
+
+    /**
+     * Analizza le credenziali in coda e produce il report aggiornato.
+     * @return report con un finding per credenziale
+     */
+    public synchronized AuditReport report() {
+        List<Key> toAnalyze = new ArrayList<>(pending);
+        pending.clear();
+
+        // FASE PARALLELA: entropia e impronta, senza stato condiviso
+        List<Analysis> results = toAnalyze.parallelStream()
+                .map(key -> analyze(key.credential))
+                .collect(Collectors.toList());
+
+        // FASE SEQUENZIALE: applicazione all'indice di riuso
+        int reanalyzed = 0;
+        for (int i = 0; i < toAnalyze.size(); i++) {
+            Entry entry = entries.get(toAnalyze.get(i));
+            Analysis analysis = results.get(i);
+            if (entry == null || analysis == null) {
+                continue;    // Rimossa nel frattempo o password già azzerata
+            }
+            unindex(entry);
+            entry.analysis = analysis;
+            reuseIndex.merge(analysis.fingerprint, entry.count, Integer::sum);
+            reanalyzed++;
+        }
+
+        Instant now = clock.instant();
+        List<CredentialFinding> findings = entries.entrySet().parallelStream()
+                .filter(e -> e.getValue().analysis != null)
+                .map(e -> toFinding(e.getKey(), e.getValue(), now))
+                .sorted(Comparator.comparingDouble(CredentialFinding::getEntropyBits))
+                .collect(Collectors.toList());
+        logger.info("Audit completato: " + findings.size() + " credenziali, " + reanalyzed + " ri-analizzate");
+        return new AuditReport(now, findings, reanalyzed);
+    }
+
+    /**
+     * Imposta la data dell'ultimo cambio password (es. da uno storico persistito).
+     * Senza questa informazione l'età parte dal momento in cui il motore vede la credenziale.
+     * @param category categoria
+     * @param credential credenziale
+     * @param lastChanged istante dell'ultimo cambio
+     */
+    public synchronized void setLastChanged(String category, Credential credential, Instant lastChanged) {
+        Entry entry = entries.get(new Key(category, credential));
+        if (entry != null) {
+            entry.lastChanged = lastChanged;
+        }
+    }
+
+    /**
+     * @return credenziali in attesa di analisi
+     */
+    public synchronized int pendingCount() {
+        return pending.size();
+    }
+
+    // === OBSERVER ===
+
+    @Override
+    public synchronized void onCredentialAdded(Credential credential, String category) {
+        track(category, credential, clock.instant());
+    }
+
+    @Override
+    public synchronized void onCredentialsAdded(List<Credential> credentials, String category) {
+        Instant now = clock.instant();
+        for (Credential credential : credentials) {
+            track(category, credential, now);
+        }
+    }
+
+    @Override
+    public synchronized void onCredentialRemoved(Credential credential, String category) {
+        untrack(category, credential);
+    }
+
+    @Override
+    public synchronized void onCredentialModified(Credential oldCredential, Credential newCredential, String category) {
+        Entry old = entries.get(new Key(category, oldCredential));
+        Instant lastChanged = clock.instant();
+        // Cambio del solo username: l'età della password non riparte
+        // (la vecchia password è ancora leggibile: l'azzeramento avviene dopo la notifica)
+        if (old != null && samePassword(oldCredential, newCredential)) {
+            lastChanged = old.lastChanged;
+        }
+        untrack(category, oldCredential);
+        track(category, newCredential, lastChanged);
+    }
+
+    @Override
+    public synchronized void onVaultCleared() {
+        clearState();
+    }
+
+    // === IMPLEMENTAZIONE ===
+
+    private void track(String category, Credential credential, Instant lastChanged) {
+        Key key = new Key(category, credential);
+        Entry entry = entries.get(key);
+        if (entry != null) {
+            // Duplicato identico: stessa analisi, una occorrenza in più
+            entry.count++;
+            if (entry.analysis != null) {
+                reuseIndex.merge(entry.analysis.fingerprint, 1, Integer::sum);
+            }
+            return;
+        }
+        entries.put(key, new Entry(lastChanged));
+        pending.add(key);
+    }
+
+    private void untrack(String category, Credential credential) {
+        Key key = new Key(category, credential);
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            return;
+        }
+        if (entry.analysis != null) {
+            reuseIndex.merge(entry.analysis.fingerprint, -1, Integer::sum);
+            reuseIndex.remove(entry.analysis.fingerprint, 0);
+        }
+        if (--entry.count == 0) {
+            entries.remove(key);
+            pending.remove(key);
+        }
+    }
+
+    private void unindex(Entry entry) {
+        if (entry.analysis != null) {
+            reuseIndex.merge(entry.analysis.fingerprint, -entry.count, Integer::sum);
+            reuseIndex.remove(entry.analysis.fingerprint, 0);
+        }
+    }
+
+    private void clearState() {
+        entries.clear();
+        pending.clear();
+        reuseIndex.clear();
+    }
+
+    private Analysis analyze(Credential credential) {
+        Analysis[] result = new Analysis[1];
+        // Null per password off-heap già azzerata
+        credential.tryReadPassword(chars -> {
+            double entropy = estimator.entropyBits(chars);
+            boolean breached = breachCorpus != null && breachCorpus.contains(chars);
+            result[0] = new Analysis(entropy, estimator.classify(entropy), fingerprint(chars), breached);
+        });
+        return result[0];
+    }
+
+    private boolean samePassword(Credential a, Credential b) {
+        long[] fingerprints = new long[2];
+        return a.tryReadPassword(chars -> fingerprints[0] = fingerprint(chars))
+                && b.tryReadPassword(chars -> fingerprints[1] = fingerprint(chars))
+                && fingerprints[0] == fingerprints[1];
+    }
+
+    private long fingerprint(char[] chars) {
+        MessageDigest digest = digests.get();
+        digest.reset();
+        digest.update(salt);
+        byte[] bytes = new byte[chars.length * Character.BYTES];
+        ByteBuffer.wrap(bytes).asCharBuffer().put(chars);
+        digest.update(bytes);
+        Arrays.fill(bytes, (byte) 0);
+        return ByteBuffer.wrap(digest.digest()).getLong();
+    }
+
+    private CredentialFinding toFinding(Key key, Entry entry, Instant now) {
+        Analysis analysis = entry.analysis;
+        int reuse = reuseIndex.getOrDefault(analysis.fingerprint, 0);
+        EnumSet<CredentialFinding.Issue> issues = EnumSet.noneOf(CredentialFinding.Issue.class);
+        if (analysis.strength.compareTo(PasswordStrengthEstimator.Strength.FAIR) < 0) {
+            issues.add(CredentialFinding.Issue.WEAK);
+        }
+        if (reuse > 1) {
+            issues.add(CredentialFinding.Issue.REUSED);
+        }
+        if (entry.lastChanged.plus(staleAfter).isBefore(now)) {
+            issues.add(CredentialFinding.Issue.STALE);
+        }
+        if (analysis.breached) {
+            issues.add(CredentialFinding.Issue.BREACHED);
+        }
+        return new CredentialFinding(key.category, key.credential, analysis.entropy, analysis.strength,
+                reuse, entry.lastChanged, issues);
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 non disponibile", e);
+        }
+    }
+
+    /**
+     * Chiave per valore (categoria, credenziale), coerente con Credential.equals.
+     * L'uguaglianza delle password off-heap non cambia con l'azzeramento: la
+     * voce di un duplicato rimosso resta raggiungibile dalle copie ancora nel vault.
+     */
+    private static final class Key {
+        final String category;
+        final Credential credential;
+
+        Key(String category, Credential credential) {
+            this.category = category;
+            this.credential = credential;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key that)) return false;
+            return category.equals(that.category) && credential.equals(that.credential);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * category.hashCode() + credential.hashCode();
+        }
+    }
+
+    private static final class Entry {
+        int count = 1;           // Occorrenze identiche nella categoria
+        Instant lastChanged;
+        Analysis analysis;       // null finché in coda
+
+        Entry(Instant lastChanged) {
+            this.lastChanged = lastChanged;
+        }
+    }
+
+    private static final class Analysis {
+        final double entropy;
+        final PasswordStrengthEstimator.Strength strength;
+        final long fingerprint;
+        final boolean breached;
+
+        Analysis(double entropy, PasswordStrengthEstimator.Strength strength, long fingerprint, boolean breached) {
+            this.entropy = entropy;
+            this.strength = strength;
+            this.fingerprint = fingerprint;
+            this.breached = breached;
+        }
+    }
+}
@@ -0,0 +1,204 @@
+package com.securevault.audit;
+
+import com.securevault.model.Credential;
+import com.securevault.observer.VaultObserver;
+import com.securevault.repository.VaultSnapshot;
+import com.securevault.util.BloomFilter;
+
+import javax.crypto.Mac;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.GeneralSecurityException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
+
+/**
+ * Pre-filtro per il riuso delle password nel vault.
+ *
+ * Un filtro di Bloom counting sulle password del vault, mantenuto
+ * incrementalmente come {@link VaultObserver}: prima di confrontare una nuova
+ * password con tutte le credenziali (scansione esatta O(n)), il filtro
+ * risponde "sicuramente non usata" con pochi accessi in memoria.
+ *
+ * Le chiavi sono HMAC-SHA256 della password con la chiave del vault: il file
+ * persistito accanto a vault.enc non permette attacchi a dizionario offline
+ * senza la chiave.
+ */
+public class PasswordReuseFilter implements VaultObserver {
+    private static final Logger logger = Logger.getLogger(PasswordReuseFilter.class.getName());
+
+    public static final double DEFAULT_FALSE_POSITIVE_RATE = 0.01;
+    private static final int MIN_CAPACITY = 1024;
+
+    private final Mac mac;
+    private final double falsePositiveRate;
+    private BloomFilter filter;
+    private long capacity;
+
+    /**
+     * @param vaultKey chiave del vault, usata come chiave HMAC
+     * @param falsePositiveRate tasso di falsi positivi desiderato
+     * @param expectedCredentials dimensione prevista del vault
+     */
+    public PasswordReuseFilter(SecretKey vaultKey, double falsePositiveRate, long expectedCredentials) {
+        this.mac = newMac(vaultKey);
+        this.falsePositiveRate = falsePositiveRate;
+        this.capacity = Math.max(MIN_CAPACITY, expectedCredentials * 2);
+        this.filter = BloomFilter.createCounting(capacity, falsePositiveRate);
+    }
+
+    // === API ===
+
+    /**
+     * Verifica se la password è già usata da una credenziale del vault.
+     * La scansione esatta dello snapshot avviene solo se il filtro risponde "forse".
+     * @param password caratteri della password (non modificati)
+     * @param snapshot stato corrente del vault
+     * @return credenziali che usano la stessa password
+     */
+    public synchronized List<Credential> findReuses(char[] password, VaultSnapshot snapshot) {
+        if (filter.count() > capacity) {
+            rebuild(snapshot);    // Oltre la capacità il tasso di falsi positivi degrada
+        }
+        if (!filter.mightContain(key(password))) {
+            return List.of();     // Caso comune: nessuna scansione
+        }
+        return snapshot.stream()
+                .filter(c -> samePassword(c, password))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Ricostruisce il filtro dallo snapshot (dimensionato sul doppio del vault).
+     * @param snapshot stato del vault
+     */
+    public synchronized void rebuild(VaultSnapshot snapshot) {
+        capacity = Math.max(MIN_CAPACITY, (long) snapshot.countAll() * 2);
+        filter = BloomFilter.createCounting(capacity, falsePositiveRate);
+        for (Credential credential : snapshot) {
+            add(credential);
+        }
+        logger.info("Filtro di riuso ricostruito su " + snapshot.countAll() + " credenziali");
+    }
+
+    /**
+     * @return numero di password nel filtro
+     */
+    public synchronized long size() {
+        return filter.count();
+    }
+
+    // === PERSISTENZA ===
+
+    /**
+     * Salva il filtro. Il tag identifica lo stato del vault (vedi {@link BloomFilter#fileTag}).
+     * @param path file di destinazione (es. vault.bloom)
+     * @param tag identificativo dello stato del vault
+     * @throws IOException in caso di errore di scrittura
+     */
+    public synchronized void save(Path path, long tag) throws IOException {
+        filter.setTag(tag);
+        try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(path))) {
+            filter.writeTo(out);
+        }
+    }
+
+    /**
+     * Carica il filtro salvato se corrisponde allo stato del vault.
+     * @param path file del filtro
+     * @param tag identificativo atteso dello stato del vault
+     * @return true se caricato; false se assente, non aggiornato o illeggibile (serve rebuild)
+     */
+    public synchronized boolean load(Path path, long tag) {
+        if (!Files.exists(path)) {
+            return false;
+        }
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(path))) {
+            BloomFilter loaded = BloomFilter.readFrom(in);
+            if (!loaded.isCounting() || loaded.getTag() != tag) {
+                return false;
+            }
+            filter = loaded;
+            capacity = Math.max(capacity, loaded.count() * 2);
+            return true;
+        } catch (IOException e) {
+            logger.warning("Filtro di riuso non leggibile, verrà ricostruito: " + e.getMessage());
+            return false;
+        }
+    }
+
+    // === OBSERVER ===
+
+    @Override
+    public synchronized void onCredentialAdded(Credential credential, String category) {
+        add(credential);
+    }
+
+    @Override
+    public synchronized void onCredentialsAdded(List<Credential> credentials, String category) {
+        for (Credential credential : credentials) {
+            add(credential);
+        }
+    }
+
+    @Override
+    public synchronized void onCredentialRemoved(Credential credential, String category) {
+        remove(credential);
+    }
+
+    @Override
+    public synchronized void onCredentialModified(Credential oldCredential, Credential newCredential, String category) {
+        remove(oldCredential);
+        add(newCredential);
+    }
+
+    @Override
+    public synchronized void onVaultCleared() {
+        filter.clear();
+    }
+
+    // === IMPLEMENTAZIONE ===
+
+    private void add(Credential credential) {
+        // Password off-heap già azzerata: nulla da indicizzare
+        credential.tryReadPassword(chars -> filter.add(key(chars)));
+    }
+
+    private void remove(Credential credential) {
+        // Password già azzerata: il contatore resta (solo un possibile falso positivo)
+        credential.tryReadPassword(chars -> filter.remove(key(chars)));
+    }
+
+    private long key(char[] password) {
+        byte[] bytes = new byte[password.length * Character.BYTES];
+        ByteBuffer.wrap(bytes).asCharBuffer().put(password);
+        byte[] digest = mac.doFinal(bytes);
+        Arrays.fill(bytes, (byte) 0);
+        return ByteBuffer.wrap(digest).getLong();
+    }
+
+    private static boolean samePassword(Credential credential, char[] password) {
+        boolean[] same = new boolean[1];
+        return credential.tryReadPassword(chars -> same[0] = Arrays.equals(chars, password)) && same[0];
+    }
+
+    private static Mac newMac(SecretKey vaultKey) {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(new SecretKeySpec(vaultKey.getEncoded(), "HmacSHA256"));
+            return mac;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HMAC-SHA256 non disponibile", e);
+        }
+    }
+}
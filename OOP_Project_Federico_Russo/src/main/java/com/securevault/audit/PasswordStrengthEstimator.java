@@ -0,0 +1,214 @@
+package com.securevault.audit;
+
+import java.util.Arrays;
+import java.util.stream.Stream;
+
+/**
+ * Stima della robustezza di una password in bit di entropia.
+ *
+ * Ogni carattere vale log2(dimensione dell'alfabeto usato), poi i pattern
+ * prevedibili vengono penalizzati:
+ * - ripetizioni (aaaa) e sequenze (abcd, 4321)
+ * - caratteri adiacenti sulla tastiera (qwerty, asdf)
+ * - parole comuni, anche con sostituzioni leet (p4ssw0rd)
+ * - anni 19xx/20xx
+ *
+ * Lavora su char[] per essere usabile con le password off-heap senza creare String.
+ * Stateless e thread-safe.
+ */
+public class PasswordStrengthEstimator {
+
+    /**
+     * Classi di robustezza, dalla più debole.
+     */
+    public enum Strength {
+        VERY_WEAK, WEAK, FAIR, STRONG, VERY_STRONG
+    }
+
+    // Bit assegnati ad un carattere che continua un pattern
+    private static final double PATTERN_CHAR_BITS = 1.0;
+    // Bit per un anno (circa 100 valori plausibili)
+    private static final double YEAR_BITS = 7.0;
+
+    private static final String[] KEYBOARD_ROWS = {
+        "1234567890", "qwertyuiop", "asdfghjkl", "zxcvbnm"
+    };
+
+    // Confrontate come char[]: nessuna String con frammenti della password
+    private static final char[][] COMMON_WORDS = Stream.of(
+        "password", "passw", "admin", "qwerty", "letmein", "welcome", "iloveyou",
+        "monkey", "dragon", "master", "login", "abc", "football", "baseball",
+        "sunshine", "princess", "shadow", "superman", "trustno", "secret", "ciao",
+        "amore", "juventus", "inter", "milan", "napoli", "roma"
+    ).map(String::toCharArray).toArray(char[][]::new);
+    private static final double WORD_BITS = log2(COMMON_WORDS.length);
+
+    /**
+     * @param password caratteri della password (non modificati)
+     * @return entropia stimata in bit
+     */
+    public double entropyBits(char[] password) {
+        int length = password.length;
+        if (length == 0) {
+            return 0.0;
+        }
+        double charBits = log2(poolSize(password));
+        double[] bits = new double[length];
+        Arrays.fill(bits, charBits);
+
+        char[] folded = fold(password);
+        try {
+            markRepeatsAndSequences(folded, bits);
+            markKeyboardRuns(folded, bits);
+            markYears(folded, bits);
+            markCommonWords(folded, bits);
+        } finally {
+            Arrays.fill(folded, '\0');
+        }
+
+        double total = 0.0;
+        for (double b : bits) {
+            total += b;
+        }
+        return total;
+    }
+
+    /**
+     * @param entropyBits entropia stimata
+     * @return classe di robustezza
+     */
+    public Strength classify(double entropyBits) {
+        if (entropyBits < 28) return Strength.VERY_WEAK;
+        if (entropyBits < 36) return Strength.WEAK;
+        if (entropyBits < 60) return Strength.FAIR;
+        if (entropyBits < 128) return Strength.STRONG;
+        return Strength.VERY_STRONG;
+    }
+
+    // === ALFABETO ===
+
+    private static int poolSize(char[] password) {
+        boolean lower = false, upper = false, digit = false, symbol = false, other = false;
+        for (char c : password) {
+            if (c >= 'a' && c <= 'z') lower = true;
+            else if (c >= 'A' && c <= 'Z') upper = true;
+            else if (c >= '0' && c <= '9') digit = true;
+            else if (c >= 0x20 && c < 0x7F) symbol = true;
+            else other = true;
+        }
+        int pool = 0;
+        if (lower) pool += 26;
+        if (upper) pool += 26;
+        if (digit) pool += 10;
+        if (symbol) pool += 33;
+        if (other) pool += 100;
+        return Math.max(pool, 2);
+    }
+
+    /**
+     * Copia in minuscolo per il riconoscimento dei pattern (azzerata dal chiamante).
+     */
+    private static char[] fold(char[] password) {
+        char[] folded = new char[password.length];
+        for (int i = 0; i < password.length; i++) {
+            folded[i] = Character.toLowerCase(password[i]);
+        }
+        return folded;
+    }
+
+    private static char unleet(char c) {
+        return switch (c) {
+            case '0' -> 'o';
+            case '1', '!' -> 'i';
+            case '3' -> 'e';
+            case '4', '@' -> 'a';
+            case '5', '$' -> 's';
+            case '7' -> 't';
+            default -> c;
+        };
+    }
+
+    // === PATTERN ===
+
+    private static void markRepeatsAndSequences(char[] chars, double[] bits) {
+        for (int i = 1; i < chars.length; i++) {
+            int delta = chars[i] - chars[i - 1];
+            if (delta == 0 || delta == 1 || delta == -1) {
+                bits[i] = Math.min(bits[i], PATTERN_CHAR_BITS);
+            }
+        }
+    }
+
+    private static void markKeyboardRuns(char[] chars, double[] bits) {
+        for (int i = 1; i < chars.length; i++) {
+            if (adjacentOnKeyboard(chars[i - 1], chars[i])) {
+                bits[i] = Math.min(bits[i], PATTERN_CHAR_BITS);
+            }
+        }
+    }
+
+    private static boolean adjacentOnKeyboard(char a, char b) {
+        for (String row : KEYBOARD_ROWS) {
+            int ia = row.indexOf(a);
+            if (ia >= 0) {
+                int ib = row.indexOf(b);
+                return ib >= 0 && Math.abs(ia - ib) == 1;
+            }
+        }
+        return false;
+    }
+
+    private static void markYears(char[] chars, double[] bits) {
+        for (int i = 0; i + 4 <= chars.length; i++) {
+            boolean century = (chars[i] == '1' && chars[i + 1] == '9') || (chars[i] == '2' && chars[i + 1] == '0');
+            if (century && Character.isDigit(chars[i + 2]) && Character.isDigit(chars[i + 3])) {
+                spread(bits, i, 4, YEAR_BITS);
+                i += 3;
+            }
+        }
+    }
+
+    private static void markCommonWords(char[] chars, double[] bits) {
+        for (int i = 0; i < chars.length; i++) {
+            // Parola più lunga che inizia in i
+            int best = 0;
+            for (char[] word : COMMON_WORDS) {
+                if (word.length > best && matchesAt(chars, i, word)) {
+                    best = word.length;
+                }
+            }
+            if (best > 0) {
+                spread(bits, i, best, WORD_BITS);
+                i += best - 1;
+            }
+        }
+    }
+
+    private static boolean matchesAt(char[] chars, int from, char[] word) {
+        if (from + word.length > chars.length) {
+            return false;
+        }
+        for (int k = 0; k < word.length; k++) {
+            if (unleet(chars[from + k]) != word[k]) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Sostituisce i bit dei caratteri [from, from+len) con un totale fisso ripartito.
+     */
+    private static void spread(double[] bits, int from, int len, double totalBits) {
+        double current = 0.0;
+        for (int k = from; k < from + len; k++) current += bits[k];
+        if (current <= totalBits) {
+            return;
+        }
+        for (int k = from; k < from + len; k++) {
+            bits[k] = totalBits / len;
+        }
+    }
+
+    private static double log2(double value) {
+        return Math.log(value) / Math.log(2);
+    }
+}
@@ -1,21 +1,25 @@
 package com.securevault.composite;
 
+import java.util.ArrayDeque;
+import java.util.Deque;
 import java.util.Iterator;
 import java.util.NoSuchElementException;
-import java.util.Stack;
 
 /**
  * Iterator per attraversamento in profondità (depth-first) del Composite Pattern.
- * Utilizza uno Stack per mantenere lo stato dell'attraversamento.
+ * Utilizza uno stack (ArrayDeque, non sincronizzato) di iterator per mantenere
+ * lo stato dell'attraversamento.
  * Permette di navigare tutto l'albero senza conoscere la struttura interna.
+ *
+ * Si scende solo nei Composite ({@link VaultComponent#isComposite()}): le foglie
+ * non allocano iterator e non si usano eccezioni per il controllo di flusso.
  */
 public class CompositeIterator implements Iterator<VaultComponent> {
     // Stack di iterator per gestire l'attraversamento ricorsivo
-    private final Stack<Iterator<VaultComponent>> stack = new Stack<>();
+    private final Deque<Iterator<VaultComponent>> stack = new ArrayDeque<>();
     
     // Cache per il prossimo elemento (lazy evaluation)
     private VaultComponent next = null;
-    private boolean hasNextCached = false;
 
     /**
      * Costruttore che inizializza l'iterator con l'iterator della radice.
@@ -34,13 +38,9 @@ public class CompositeIterator implements Iterator<VaultComponent> {
      */
     @Override
     public boolean hasNext() {
-        if (hasNextCached) {
-            return next != null;
+        if (next == null) {
+            next = findNext();    // null anche a fine attraversamento: ricalcolo senza costo
         }
-        
-        // Cerca il prossimo elemento e lo mette in cache
-        next = findNext();
-        hasNextCached = true;
         return next != null;
     }
 
@@ -57,42 +57,35 @@ public class CompositeIterator implements Iterator<VaultComponent> {
         
         VaultComponent result = next;
         next = null;              // Reset cache
-        hasNextCached = false;    // Invalidate cache
         return result;
     }
 
     /**
-     * Algoritmo di attraversamento depth-first usando Stack.
+     * Algoritmo di attraversamento depth-first usando lo stack.
      * Logica core dell'iterator che gestisce la navigazione ricorsiva.
      * @return prossimo VaultComponent o null se finito
      */
     private VaultComponent findNext() {
-        while (!stack.isEmpty()) {
-            Iterator<VaultComponent> currentIterator = stack.peek();
-            
+        Iterator<VaultComponent> currentIterator;
+        while ((currentIterator = stack.peek()) != null) {
             if (currentIterator.hasNext()) {
                 VaultComponent component = currentIterator.next();
                 
-                // Se il componente ha figli, aggiungi il suo iterator allo stack
-                // Questo implementa l'attraversamento depth-first
-                try {
+                // Solo i Composite hanno figli: depth-first senza toccare le foglie
+                if (component.isComposite()) {
                     Iterator<VaultComponent> childIterator = component.iterator();
-                    if (childIterator != null && childIterator.hasNext()) {
+                    if (childIterator.hasNext()) {
                         stack.push(childIterator);
                     }
-                } catch (UnsupportedOperationException e) {
-                    // Componente foglia (Credential) - ignora l'eccezione
-                    // Questo è il comportamento atteso per le foglie
                 }
                 
                 return component;
-            } else {
-                // Iterator corrente esaurito, rimuovilo dallo stack
-                // Continua con l'iterator del livello superiore
-                stack.pop();
             }
+            // Iterator corrente esaurito, rimuovilo dallo stack
+            // Continua con l'iterator del livello superiore
+            stack.pop();
         }
         
         return null; // Attraversamento completato
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,139 @@
+package com.securevault.composite;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+/**
+ * Spliterator depth-first su un sottoalbero del Composite, per stream paralleli.
+ *
+ * Lo stato è composto da:
+ * - head: cartella già raggiunta ma non ancora emessa (dopo una discesa)
+ * - stack: iterator dei sottoalberi in corso di visita (come CompositeIterator)
+ * - range: intervallo [index, fence) di fratelli non ancora visitati (i null,
+ *   figli rimossi di FolderComposite, vengono saltati)
+ *
+ * trySplit cede il prefisso (head, stack e prima metà del range) e tiene la
+ * seconda metà, così l'ordine di incontro resta quello depth-first. Quando il
+ * range contiene una sola cartella lo spliterator scende nei suoi figli e
+ * continua a dividere.
+ *
+ * La dimensione non è nota senza visitare l'albero: la stima parte da
+ * Long.MAX_VALUE e si dimezza ad ogni divisione (come gli spliterator del JDK
+ * a dimensione ignota), limitando il numero di task paralleli.
+ */
+final class CompositeSpliterator implements Spliterator<VaultComponent> {
+    private VaultComponent head;
+    private Deque<Iterator<VaultComponent>> stack;
+    private List<VaultComponent> siblings;
+    private int index;
+    private int fence;
+    private long estimate;
+
+    /**
+     * @param siblings figli della cartella radice del sottoalbero
+     */
+    CompositeSpliterator(List<VaultComponent> siblings) {
+        this(null, new ArrayDeque<>(), siblings, 0, siblings.size(), Long.MAX_VALUE);
+    }
+
+    private CompositeSpliterator(VaultComponent head, Deque<Iterator<VaultComponent>> stack,
+                                 List<VaultComponent> siblings, int index, int fence, long estimate) {
+        this.head = head;
+        this.stack = stack;
+        this.siblings = siblings;
+        this.index = index;
+        this.fence = fence;
+        this.estimate = estimate;
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super VaultComponent> action) {
+        VaultComponent component = nextComponent();
+        if (component == null) {
+            return false;
+        }
+        action.accept(component);
+        return true;
+    }
+
+    @Override
+    public void forEachRemaining(Consumer<? super VaultComponent> action) {
+        VaultComponent component;
+        while ((component = nextComponent()) != null) {
+            action.accept(component);
+        }
+    }
+
+    @Override
+    public Spliterator<VaultComponent> trySplit() {
+        if (fence - index == 1 && head == null && stack.isEmpty()
+                && siblings.get(index) != null && siblings.get(index).isComposite()) {
+            // Una sola cartella: la si trattiene come head e si dividono i suoi figli
+            VaultComponent folder = siblings.get(index);
+            head = folder;
+            siblings = ((FolderComposite) folder).children();
+            index = 0;
+            fence = siblings.size();
+        }
+        if (fence - index < 2) {
+            return null;
+        }
+        // Cede il prefisso [index, mid) insieme a head e stack correnti
+        int mid = (index + fence) >>> 1;
+        estimate >>>= 1;
+        CompositeSpliterator prefix = new CompositeSpliterator(head, stack, siblings, index, mid, estimate);
+        head = null;
+        stack = new ArrayDeque<>();
+        index = mid;
+        return prefix;
+    }
+
+    @Override
+    public long estimateSize() {
+        return estimate;
+    }
+
+    @Override
+    public int characteristics() {
+        return ORDERED | NONNULL;
+    }
+
+    /**
+     * Prossimo componente in ordine depth-first: head, poi lo stack, poi il range.
+     */
+    private VaultComponent nextComponent() {
+        if (head != null) {
+            VaultComponent component = head;
+            head = null;
+            return component;
+        }
+        Iterator<VaultComponent> current;
+        while ((current = stack.peek()) != null) {
+            if (current.hasNext()) {
+                return descend(current.next());
+            }
+            stack.pop();
+        }
+        while (index < fence) {
+            VaultComponent component = siblings.get(index++);
+            if (component != null) {    // null = figlio rimosso (tombstone)
+                return descend(component);
+            }
+        }
+        return null;
+    }
+
+    private VaultComponent descend(VaultComponent component) {
+        if (component.isComposite()) {
+            Iterator<VaultComponent> children = component.iterator();
+            if (children.hasNext()) {
+                stack.push(children);
+            }
+        }
+        return component;
+    }
+}
@@ -0,0 +1,234 @@
+package com.securevault.composite;
+
+import com.securevault.factory.CredentialInterface;
+import com.securevault.query.AhoCorasick;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * Categorizzazione automatica delle credenziali in cartelle, guidata da regole.
+ *
+ * Ogni regola associa un pattern su servizio o username a un percorso di cartella:
+ * - {@code service:book -> Social}: sottostringa, maiuscole ignorate
+ * - {@code username~@azienda\.it$ -> Work}: espressione regolare (find)
+ *
+ * L'ordine delle regole è la priorità: vince la prima che corrisponde.
+ * Le sottostringhe di tutte le regole sono compilate in un automa di
+ * Aho-Corasick per campo, così ogni credenziale viene classificata con una
+ * sola scansione di servizio e username, indipendentemente dal numero di regole;
+ * le regex (precompilate) vengono valutate solo se precedono la migliore
+ * regola già trovata.
+ *
+ * Immutabile e quindi utilizzabile da più thread (es. import paralleli).
+ */
+public class CredentialCategorizer {
+    public static final String RULE_PREFIX = "category.rule.";
+    private static final String ARROW = "->";
+
+    /**
+     * Campo della credenziale su cui si applica una regola.
+     */
+    public enum Field { SERVICE, USERNAME }
+
+    /**
+     * Regola di categorizzazione (immutabile).
+     */
+    public static final class Rule {
+        private final Field field;
+        private final String literal;    // null per le regole regex
+        private final Pattern regex;     // null per le regole a sottostringa
+        private final String folder;
+
+        private Rule(Field field, String literal, Pattern regex, String folder) {
+            this.field = field;
+            this.literal = literal;
+            this.regex = regex;
+            this.folder = folder;
+        }
+
+        /**
+         * Regola a sottostringa (maiuscole ignorate).
+         * @param field campo
+         * @param text sottostringa cercata
+         * @param folder percorso della cartella di destinazione
+         * @return regola
+         */
+        public static Rule contains(Field field, String text, String folder) {
+            if (text.isEmpty()) {
+                throw new IllegalArgumentException("Sottostringa vuota nella regola per " + folder);
+            }
+            return new Rule(field, text, null, folder);
+        }
+
+        /**
+         * Regola con espressione regolare (maiuscole ignorate, match parziale).
+         * @param field campo
+         * @param regex espressione regolare
+         * @param folder percorso della cartella di destinazione
+         * @return regola
+         * @throws IllegalArgumentException se la regex non è valida
+         */
+        public static Rule matches(Field field, String regex, String folder) {
+            try {
+                return new Rule(field, null, Pattern.compile(regex, Pattern.CASE_INSENSITIVE), folder);
+            } catch (PatternSyntaxException e) {
+                throw new IllegalArgumentException("Regex non valida: " + regex, e);
+            }
+        }
+
+        /**
+         * Interpreta una regola nel formato {@code campo:testo -> cartella}
+         * oppure {@code campo~regex -> cartella}.
+         * @param spec testo della regola
+         * @return regola
+         * @throws IllegalArgumentException se il formato non è valido
+         */
+        public static Rule parse(String spec) {
+            int arrow = spec.lastIndexOf(ARROW);
+            if (arrow < 0) {
+                throw new IllegalArgumentException("Regola senza '" + ARROW + "': " + spec);
+            }
+            String condition = spec.substring(0, arrow).trim();
+            String folder = spec.substring(arrow + ARROW.length()).trim();
+            int colon = condition.indexOf(':');
+            int tilde = condition.indexOf('~');
+            boolean regex = tilde >= 0 && (colon < 0 || tilde < colon);
+            int separator = regex ? tilde : colon;
+            if (separator < 0 || folder.isEmpty()) {
+                throw new IllegalArgumentException("Regola non valida: " + spec);
+            }
+            Field field = parseField(condition.substring(0, separator).trim());
+            String pattern = condition.substring(separator + 1).trim();
+            return regex ? matches(field, pattern, folder) : contains(field, pattern, folder);
+        }
+
+        private static Field parseField(String name) {
+            return switch (name.toLowerCase()) {
+                case "service" -> Field.SERVICE;
+                case "username" -> Field.USERNAME;
+                default -> throw new IllegalArgumentException("Campo sconosciuto: " + name);
+            };
+        }
+
+        public String getFolder() {
+            return folder;
+        }
+
+        @Override
+        public String toString() {
+            return field.name().toLowerCase() + (regex != null ? "~" + regex.pattern() : ":" + literal)
+                    + " " + ARROW + " " + folder;
+        }
+    }
+
+    private final List<Rule> rules;
+    private final String defaultFolder;
+    private final AhoCorasick serviceMatcher;
+    private final AhoCorasick usernameMatcher;
+    private final int[] serviceRule;     // Id pattern nell'automa -> indice della regola
+    private final int[] usernameRule;
+    private final int[] regexRules;      // Indici delle regole regex, in ordine
+
+    /**
+     * Compila le regole.
+     * @param rules regole in ordine di priorità
+     * @param defaultFolder cartella per le credenziali senza regole corrispondenti
+     */
+    public CredentialCategorizer(List<Rule> rules, String defaultFolder) {
+        this.rules = List.copyOf(rules);
+        this.defaultFolder = defaultFolder;
+
+        List<String> servicePatterns = new ArrayList<>();
+        List<String> usernamePatterns = new ArrayList<>();
+        List<Integer> serviceIds = new ArrayList<>();
+        List<Integer> usernameIds = new ArrayList<>();
+        List<Integer> regexIds = new ArrayList<>();
+        for (int i = 0; i < this.rules.size(); i++) {
+            Rule rule = this.rules.get(i);
+            if (rule.regex != null) {
+                regexIds.add(i);
+            } else if (rule.field == Field.SERVICE) {
+                servicePatterns.add(rule.literal);
+                serviceIds.add(i);
+            } else {
+                usernamePatterns.add(rule.literal);
+                usernameIds.add(i);
+            }
+        }
+        this.serviceMatcher = new AhoCorasick(servicePatterns);
+        this.usernameMatcher = new AhoCorasick(usernamePatterns);
+        this.serviceRule = serviceIds.stream().mapToInt(Integer::intValue).toArray();
+        this.usernameRule = usernameIds.stream().mapToInt(Integer::intValue).toArray();
+        this.regexRules = regexIds.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    /**
+     * Costruisce il categorizzatore dalle proprietà {@code category.rule.N},
+     * ordinate per N.
+     * @param properties mappa suffisso numerico -> regola (vedi ReflectionUtil.getConfigProperties)
+     * @param defaultFolder cartella di default
+     * @return categorizzatore compilato
+     * @throws IllegalArgumentException se una regola non è valida
+     */
+    public static CredentialCategorizer fromProperties(Map<String, String> properties, String defaultFolder) {
+        List<Map.Entry<String, String>> entries = new ArrayList<>(properties.entrySet());
+        entries.sort(Comparator.comparingInt(e -> parseOrder(e.getKey())));
+        List<Rule> rules = new ArrayList<>();
+        for (Map.Entry<String, String> entry : entries) {
+            rules.add(Rule.parse(entry.getValue()));
+        }
+        return new CredentialCategorizer(rules, defaultFolder);
+    }
+
+    /**
+     * Classifica una credenziale con una sola scansione dei suoi campi.
+     * @param credential credenziale da classificare
+     * @return percorso della cartella di destinazione
+     */
+    public String categorize(CredentialInterface credential) {
+        int[] best = {Integer.MAX_VALUE};
+        serviceMatcher.match(credential.getService(), id -> best[0] = Math.min(best[0], serviceRule[id]));
+        usernameMatcher.match(credential.getUsername(), id -> best[0] = Math.min(best[0], usernameRule[id]));
+
+        // Le regex servono solo se possono battere la regola migliore trovata
+        for (int index : regexRules) {
+            if (index >= best[0]) {
+                break;
+            }
+            Rule rule = rules.get(index);
+            String value = rule.field == Field.SERVICE ? credential.getService() : credential.getUsername();
+            if (rule.regex.matcher(value).find()) {
+                best[0] = index;
+                break;
+            }
+        }
+        return best[0] == Integer.MAX_VALUE ? defaultFolder : rules.get(best[0]).folder;
+    }
+
+    /**
+     * @return regole in ordine di priorità
+     */
+    public List<Rule> getRules() {
+        return rules;
+    }
+
+    /**
+     * @return cartella di default
+     */
+    public String getDefaultFolder() {
+        return defaultFolder;
+    }
+
+    private static int parseOrder(String suffix) {
+        try {
+            return Integer.parseInt(suffix.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Numero di regola non valido: " + suffix, e);
+        }
+    }
+}
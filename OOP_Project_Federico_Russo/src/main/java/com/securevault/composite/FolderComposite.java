@@ -1,24 +1,64 @@
 package com.securevault.composite;
 
+import java.time.Clock;
+import java.time.Instant;
 import java.util.ArrayList;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
 
 /**
  * Classe Composite del Composite Pattern.
  * Rappresenta una cartella che può contenere altre cartelle o credenziali.
  * Gestisce una collezione di VaultComponent figli.
+ *
+ * Ogni cartella conosce la cartella padre e la posizione di ogni figlio
+ * (indice per identità): la rimozione lascia un tombstone nella lista invece
+ * di scorrere gli elementi successivi, e la lista viene compattata quando i
+ * tombstone superano la metà. L'ordine di inserimento è preservato.
+ *
+ * Se la cartella appartiene a un {@link VaultTree}, ogni modifica aggiorna
+ * gli indici dell'albero (percorsi e cartella di ogni credenziale).
+ *
+ * Ogni cartella mantiene in cache gli aggregati del proprio sottoalbero
+ * (credenziali, cartelle, ultima modifica), aggiornati risalendo la catena dei
+ * padri ad ogni add/remove: leggerli costa O(1), aggiornarli O(profondità).
  */
 public class FolderComposite implements VaultComponent {
+    private static final int MIN_TOMBSTONES_TO_COMPACT = 16;
+
     private final String name;                              // Nome della cartella
-    private final List<VaultComponent> children = new ArrayList<>();  // Lista dei componenti figli
+    private final List<VaultComponent> children = new ArrayList<>();  // Figli (null = tombstone)
+    private final Map<VaultComponent, Integer> positions = new IdentityHashMap<>();  // Figlio -> indice
+    private int tombstones = 0;
+    private FolderComposite parent;                         // null per la radice o cartelle staccate
+    private VaultTree tree;                                 // Albero indicizzato di appartenenza (opzionale)
+    private final Clock clock;
+
+    // === AGGREGATI DEL SOTTOALBERO (cache) ===
+    private int credentialCount = 0;                        // Credenziali discendenti
+    private int folderCount = 0;                            // Cartelle discendenti (esclusa questa)
+    private long lastModified;                              // Ultima modifica nel sottoalbero (epoch ms)
 
     /**
      * Costruttore della cartella.
      * @param name nome della cartella
      */
     public FolderComposite(String name) {
+        this(name, Clock.systemUTC());
+    }
+
+    /**
+     * @param name nome della cartella
+     * @param clock orologio per i tempi di modifica
+     */
+    public FolderComposite(String name, Clock clock) {
         this.name = name;
+        this.clock = clock;
+        this.lastModified = clock.millis();
     }
 
     /**
@@ -30,23 +70,151 @@ public class FolderComposite implements VaultComponent {
         return name; 
     }
 
+    /**
+     * @return sempre true: la cartella può contenere figli
+     */
+    @Override
+    public boolean isComposite() {
+        return true;
+    }
+
+    /**
+     * @return cartella padre, null per la radice o una cartella non collegata
+     */
+    public FolderComposite getParent() {
+        return parent;
+    }
+
+    /**
+     * @return numero di figli diretti
+     */
+    public int childCount() {
+        beforeChildAccess();
+        return positions.size();
+    }
+
+    /**
+     * @return numero di credenziali nel sottoalbero (O(1))
+     */
+    public int getCredentialCount() {
+        return credentialCount;
+    }
+
+    /**
+     * @return numero di cartelle nel sottoalbero, esclusa questa (O(1))
+     */
+    public int getFolderCount() {
+        return folderCount;
+    }
+
+    /**
+     * @return istante dell'ultima aggiunta o rimozione nel sottoalbero (O(1))
+     */
+    public Instant getLastModified() {
+        return Instant.ofEpochMilli(lastModified);
+    }
+
+    /**
+     * Verifica in O(1) se il componente (stessa istanza) è un figlio diretto.
+     * @param component componente cercato
+     * @return true se è figlio di questa cartella
+     */
+    public boolean containsChild(VaultComponent component) {
+        beforeChildAccess();
+        return positions.containsKey(component);
+    }
+
     /**
      * Override del metodo di default - aggiunge un figlio alla cartella.
      * Questa è l'operazione principale dei Composite.
+     * Una cartella già collegata altrove viene spostata qui; aggiungere di
+     * nuovo lo stesso figlio non ha effetto.
      * @param component componente da aggiungere (cartella o credenziale)
+     * @throws IllegalArgumentException se l'aggiunta creerebbe un ciclo
      */
     @Override
     public void add(VaultComponent component) {
+        beforeChildAccess();
+        if (positions.containsKey(component)) {
+            return;
+        }
+        FolderComposite folder = component instanceof FolderComposite f ? f : null;
+        if (folder != null && folder.isAncestorOf(this)) {
+            throw new IllegalArgumentException("Una cartella non può contenere se stessa o un suo antenato");
+        }
+        if (tree != null) {
+            tree.checkAttach(component, this);
+        }
+
+        // Spostamento: prima si stacca dalla posizione precedente
+        if (folder != null && folder.parent != null) {
+            folder.parent.remove(folder);
+        } else if (folder == null && tree != null) {
+            FolderComposite owner = tree.folderOf(component);
+            if (owner != null) {
+                owner.remove(component);
+            }
+        }
+
+        positions.put(component, children.size());
         children.add(component);
+        if (folder != null) {
+            folder.parent = this;
+            propagate(folder.credentialCount, folder.folderCount + 1);
+        } else {
+            propagate(1, 0);
+        }
+        if (tree != null) {
+            tree.attached(component, this);
+        }
     }
 
     /**
      * Override del metodo di default - rimuove un figlio dalla cartella.
+     * O(1) per la stessa istanza; per un componente solo uguale per valore
+     * si ricade su una scansione lineare.
      * @param component componente da rimuovere
      */
     @Override
     public void remove(VaultComponent component) {
-        children.remove(component);
+        beforeChildAccess();
+        Integer position = positions.get(component);
+        if (position == null) {
+            position = indexOfEqual(component);
+            if (position < 0) {
+                return;
+            }
+        }
+        detachAt(position);
+        if (tombstones >= MIN_TOMBSTONES_TO_COMPACT && tombstones * 2 > children.size()) {
+            compact();
+        }
+    }
+
+    /**
+     * Sostituisce un figlio mantenendone la posizione.
+     * @param current figlio attuale (stessa istanza o uguale per valore)
+     * @param replacement nuovo componente
+     * @return true se current era un figlio
+     */
+    public boolean replace(VaultComponent current, VaultComponent replacement) {
+        beforeChildAccess();
+        Integer position = positions.get(current);
+        if (position == null) {
+            position = indexOfEqual(current);
+            if (position < 0) {
+                return false;
+            }
+        }
+        if (positions.containsKey(replacement)) {
+            remove(children.get(position));    // Già figlio: resta solo la rimozione
+            return true;
+        }
+        // Tombstone senza compattazione, poi il nuovo figlio viene riportato nello slot
+        detachAt(position);
+        add(replacement);
+        moveLast(position);
+        return true;
     }
 
     /**
@@ -56,22 +224,235 @@ public class FolderComposite implements VaultComponent {
      */
     @Override
     public Iterator<VaultComponent> iterator() {
-        return children.iterator();
+        beforeChildAccess();
+        return new Iterator<>() {
+            private int next = advance(0);
+
+            private int advance(int from) {
+                while (from < children.size() && children.get(from) == null) from++;
+                return from;
+            }
+
+            @Override
+            public boolean hasNext() {
+                return next < children.size();
+            }
+
+            @Override
+            public VaultComponent next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException("No more elements");
+                }
+                VaultComponent component = children.get(next);
+                next = advance(next + 1);
+                return component;
+            }
+        };
+    }
+
+    /**
+     * Spliterator depth-first su tutti i discendenti (la cartella esclusa),
+     * divisibile per l'elaborazione parallela:
+     * {@code StreamSupport.stream(folder.subtreeSpliterator(), true)}.
+     * L'albero non deve essere modificato durante l'attraversamento.
+     * @return spliterator sul sottoalbero
+     */
+    public Spliterator<VaultComponent> subtreeSpliterator() {
+        beforeChildAccess();
+        return new CompositeSpliterator(children);
+    }
+
+    /**
+     * Accesso diretto ai figli per gli attraversamenti del package (nessuna copia).
+     * @return lista dei figli, con null al posto dei figli rimossi
+     */
+    List<VaultComponent> children() {
+        beforeChildAccess();
+        return children;
+    }
+
+    /**
+     * Figli già in memoria, senza innescare caricamenti (per gli indici dell'albero).
+     * @return lista dei figli, con null al posto dei figli rimossi
+     */
+    List<VaultComponent> loadedChildren() {
+        return children;
+    }
+
+    /**
+     * Aggancio per le sottoclassi, invocato prima di ogni accesso ai figli
+     * (iterazione, conteggio, modifica). Le cartelle a caricamento pigro lo
+     * usano per leggere i figli dalla memoria persistente.
+     */
+    protected void beforeChildAccess() {
+    }
+
+    // === CARICAMENTO E SCARICAMENTO (cartelle pigre) ===
+
+    /**
+     * Inserisce figli letti dalla memoria persistente: nessun listener e nessun
+     * aggiornamento degli aggregati, già inclusi nei valori caricati.
+     */
+    void attachLoaded(List<VaultComponent> loaded) {
+        for (VaultComponent component : loaded) {
+            positions.put(component, children.size());
+            children.add(component);
+            if (component instanceof FolderComposite folder) {
+                folder.parent = this;
+            }
+        }
+        if (tree != null) {
+            tree.indexLoaded(this, loaded);
+        }
+    }
+
+    /**
+     * Rilascia i figli dalla memoria (eviction): nessun listener, aggregati invariati.
+     * @return figli rilasciati
+     */
+    List<VaultComponent> detachLoaded() {
+        List<VaultComponent> live = new ArrayList<>(positions.size());
+        for (VaultComponent child : children) {
+            if (child != null) {
+                live.add(child);
+            }
+        }
+        if (tree != null) {
+            tree.unindexLoaded(this, live);
+        }
+        for (VaultComponent child : live) {
+            if (child instanceof FolderComposite folder) {
+                folder.parent = null;
+            }
+        }
+        children.clear();
+        positions.clear();
+        tombstones = 0;
+        return live;
+    }
+
+    /**
+     * Imposta gli aggregati noti senza caricare i figli.
+     */
+    void initAggregates(int credentials, int folders, long modified) {
+        this.credentialCount = credentials;
+        this.folderCount = folders;
+        this.lastModified = modified;
+    }
+
+    /**
+     * Collega la cartella (non i figli) all'albero indicizzato.
+     */
+    void setTree(VaultTree tree) {
+        this.tree = tree;
+    }
+
+    VaultTree getTree() {
+        return tree;
+    }
+
+    /**
+     * Visita sequenziale: combina i risultati dei figli nell'ordine, poi visitFolder.
+     * Per il parallelo si usa {@link ParallelVisitorExecutor}.
+     * @param visitor visitor da applicare
+     * @param <R> tipo del risultato
+     * @return risultato della visita
+     */
+    @Override
+    public <R> R accept(VaultVisitor<R> visitor) {
+        R result = visitor.identity();
+        for (VaultComponent child : this) {
+            result = visitor.combine(result, child.accept(visitor));
+        }
+        return visitor.visitFolder(this, result);
     }
 
     /**
      * Stampa la cartella e tutti i suoi figli con indentazione gerarchica.
-     * Implementa la ricorsione tipica del Composite Pattern.
+     * La visita e l'output bufferizzato sono delegati a {@link TreeRenderer}
+     * (stesso formato: "+ nome" per le cartelle, rientro di 2 spazi per livello).
      * @param indent livello di indentazione corrente
      */
     @Override
     public void print(int indent) {
-        // Stampa il nome della cartella con simbolo "+"
-        System.out.printf("%s+ %s%n", " ".repeat(indent * 2), name);
-        
-        // Ricorsivamente stampa tutti i figli con indentazione incrementata
-        for (VaultComponent child : children) {
-            child.print(indent + 1);
+        new TreeRenderer().print(this, indent);
+    }
+
+    // === SUPPORTO ===
+
+    private boolean isAncestorOf(FolderComposite folder) {
+        for (FolderComposite f = folder; f != null; f = f.parent) {
+            if (f == this) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Lascia un tombstone in position e scollega il figlio (padre e indici).
+     */
+    private void detachAt(int position) {
+        VaultComponent removed = children.set(position, null);
+        positions.remove(removed);
+        tombstones++;
+        if (tree != null) {
+            tree.detached(removed, this);     // Prima di azzerare il padre: serve il percorso
+        }
+        if (removed instanceof FolderComposite folder) {
+            folder.parent = null;
+            propagate(-folder.credentialCount, -(folder.folderCount + 1));
+        } else {
+            propagate(-1, 0);
+        }
+    }
+
+    /**
+     * Aggiorna gli aggregati di questa cartella e di tutti gli antenati.
+     */
+    private void propagate(int credentialDelta, int folderDelta) {
+        long now = clock.millis();
+        for (FolderComposite f = this; f != null; f = f.parent) {
+            f.credentialCount += credentialDelta;
+            f.folderCount += folderDelta;
+            f.lastModified = Math.max(f.lastModified, now);
+        }
+    }
+
+    private int indexOfEqual(VaultComponent component) {
+        for (int i = 0; i < children.size(); i++) {
+            VaultComponent child = children.get(i);
+            if (child != null && child.equals(component)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Porta l'ultimo figlio nello slot libero position (tombstone).
+     */
+    private void moveLast(int position) {
+        int last = children.size() - 1;
+        if (position >= last || children.get(position) != null) {
+            return;
+        }
+        VaultComponent moved = children.remove(last);
+        children.set(position, moved);
+        positions.put(moved, position);
+        tombstones--;
+    }
+
+    private void compact() {
+        int target = 0;
+        for (int i = 0; i < children.size(); i++) {
+            VaultComponent child = children.get(i);
+            if (child == null) continue;
+            children.set(target, child);
+            positions.put(child, target);
+            target++;
         }
+        children.subList(target, children.size()).clear();
+        tombstones = 0;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,108 @@
+package com.securevault.composite;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Budget di memoria per le cartelle pigre: tiene traccia delle cartelle
+ * caricate in ordine di ultimo accesso (LRU) e, quando i nodi residenti
+ * superano il budget, rilascia le meno usate.
+ *
+ * Non vengono mai rilasciate la cartella appena caricata, i suoi antenati e le
+ * cartelle con discendenti pigri ancora caricati (prima si rilasciano quelli).
+ * Non è thread-safe, come l'albero.
+ */
+public class LazyFolderCache {
+    private final int nodeBudget;
+    private final Map<LazyFolderComposite, Integer> resident = new LinkedHashMap<>(16, 0.75f, true);
+    private int residentNodes = 0;
+
+    /**
+     * @param nodeBudget numero massimo indicativo di figli residenti (somma su tutte le cartelle)
+     */
+    public LazyFolderCache(int nodeBudget) {
+        if (nodeBudget <= 0) {
+            throw new IllegalArgumentException("Il budget deve essere positivo");
+        }
+        this.nodeBudget = nodeBudget;
+    }
+
+    /**
+     * Mette la cartella sotto la gestione della cache.
+     * @param folder cartella pigra
+     */
+    public void register(LazyFolderComposite folder) {
+        folder.setCache(this);
+    }
+
+    /**
+     * @return figli residenti nelle cartelle caricate
+     */
+    public int residentNodes() {
+        return residentNodes;
+    }
+
+    /**
+     * @return cartelle pigre attualmente caricate
+     */
+    public int residentFolders() {
+        return resident.size();
+    }
+
+    void loaded(LazyFolderComposite folder) {
+        int nodes = folder.loadedChildren().size();
+        Integer previous = resident.put(folder, nodes);
+        residentNodes += nodes - (previous == null ? 0 : previous);
+        evictOverBudget(folder);
+    }
+
+    void released(LazyFolderComposite folder) {
+        Integer nodes = resident.remove(folder);
+        if (nodes != null) {
+            residentNodes -= nodes;
+        }
+    }
+
+    void touched(LazyFolderComposite folder) {
+        resident.get(folder);    // Aggiorna l'ordine di accesso
+    }
+
+    private void evictOverBudget(LazyFolderComposite current) {
+        boolean progress = true;
+        while (residentNodes > nodeBudget && progress) {
+            progress = false;
+            List<LazyFolderComposite> candidates = new ArrayList<>(resident.keySet());  // Meno recenti prima
+            for (LazyFolderComposite candidate : candidates) {
+                if (residentNodes <= nodeBudget) {
+                    break;
+                }
+                if (isAncestorOrSelf(candidate, current) || hasResidentDescendant(candidate)) {
+                    continue;
+                }
+                if (candidate.evict()) {     // Notifica released: contatori aggiornati
+                    progress = true;
+                }
+            }
+        }
+    }
+
+    private boolean hasResidentDescendant(LazyFolderComposite folder) {
+        for (LazyFolderComposite other : resident.keySet()) {
+            if (other != folder && isAncestorOrSelf(folder, other)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isAncestorOrSelf(FolderComposite ancestor, FolderComposite folder) {
+        for (FolderComposite f = folder; f != null; f = f.getParent()) {
+            if (f == ancestor) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
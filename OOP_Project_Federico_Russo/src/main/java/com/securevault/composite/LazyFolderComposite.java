@@ -0,0 +1,152 @@
+package com.securevault.composite;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Cartella i cui figli vengono letti dalla memoria persistente solo al primo
+ * accesso (iterazione, espansione, modifica).
+ *
+ * Gli aggregati del sottoalbero (credenziali, cartelle, ultima modifica) sono
+ * noti fin dalla creazione: conteggi e statistiche degli antenati sono
+ * corretti senza caricare nulla. Una cartella caricata può essere rilasciata
+ * ({@link #evict()}), di norma da una {@link LazyFolderCache} con budget di
+ * memoria; se è stata modificata viene prima salvata tramite il loader, e
+ * resta in memoria se il loader non lo consente.
+ */
+public class LazyFolderComposite extends FolderComposite {
+    private final String storageKey;
+    private final SubtreeLoader loader;
+    private LazyFolderCache cache;
+    private boolean loaded = false;
+    private boolean loading = false;
+    private boolean dirty = false;
+
+    /**
+     * @param name nome della cartella
+     * @param storageKey chiave dei figli nella memoria persistente (interpretata dal loader)
+     * @param loader sorgente dei figli
+     * @param credentialCount credenziali nel sottoalbero
+     * @param folderCount cartelle nel sottoalbero
+     * @param lastModified ultima modifica nel sottoalbero
+     */
+    public LazyFolderComposite(String name, String storageKey, SubtreeLoader loader,
+                               int credentialCount, int folderCount, Instant lastModified) {
+        super(name);
+        this.storageKey = storageKey;
+        this.loader = loader;
+        initAggregates(credentialCount, folderCount, lastModified.toEpochMilli());
+    }
+
+    /**
+     * @return chiave dei figli nella memoria persistente
+     */
+    public String getStorageKey() {
+        return storageKey;
+    }
+
+    /**
+     * @return true se i figli sono in memoria
+     */
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    /**
+     * @return true se modificata dopo l'ultimo caricamento o salvataggio
+     */
+    public boolean isDirty() {
+        return dirty;
+    }
+
+    /**
+     * Carica i figli se non sono in memoria.
+     */
+    public void expand() {
+        beforeChildAccess();
+    }
+
+    /**
+     * Rilascia i figli dalla memoria, salvandoli prima se modificati.
+     * @return true se rilasciata; false se non caricata o non salvabile
+     */
+    public boolean evict() {
+        if (!loaded) {
+            return false;
+        }
+        if (dirty) {
+            List<VaultComponent> current = new ArrayList<>();
+            for (VaultComponent child : loadedChildren()) {
+                if (child != null) current.add(child);
+            }
+            if (!loader.save(this, current)) {
+                return false;
+            }
+            dirty = false;
+        }
+        detachLoaded();
+        loaded = false;
+        if (cache != null) {
+            cache.released(this);
+        }
+        return true;
+    }
+
+    /**
+     * Associa la cache che gestisce il budget di memoria (ereditata dalle
+     * sottocartelle pigre caricate).
+     * @param cache cache di appartenenza
+     */
+    public void setCache(LazyFolderCache cache) {
+        this.cache = cache;
+    }
+
+    @Override
+    public void add(VaultComponent component) {
+        super.add(component);
+        dirty = true;
+    }
+
+    @Override
+    public void remove(VaultComponent component) {
+        super.remove(component);
+        dirty = true;
+    }
+
+    @Override
+    public boolean replace(VaultComponent current, VaultComponent replacement) {
+        boolean replaced = super.replace(current, replacement);
+        dirty |= replaced;
+        return replaced;
+    }
+
+    @Override
+    protected void beforeChildAccess() {
+        if (loaded) {
+            if (cache != null) {
+                cache.touched(this);
+            }
+            return;
+        }
+        if (loading) {
+            return;     // Accesso dal loader stesso durante il caricamento
+        }
+        loading = true;
+        try {
+            List<VaultComponent> children = loader.load(this);
+            for (VaultComponent child : children) {
+                if (child instanceof LazyFolderComposite lazy && lazy.cache == null) {
+                    lazy.cache = cache;
+                }
+            }
+            attachLoaded(children);
+            loaded = true;
+        } finally {
+            loading = false;
+        }
+        if (cache != null) {
+            cache.loaded(this);
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package com.securevault.composite;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Esecuzione parallela di un {@link VaultVisitor} con il framework fork/join.
+ *
+ * Il lavoro viene diviso ai confini delle cartelle: una cartella il cui
+ * sottoalbero supera la soglia (aggregati in cache, O(1)) diventa un task a
+ * sé; le cartelle più piccole e le foglie vengono visitate in sequenza dal
+ * task corrente. I risultati sono combinati nell'ordine dei figli, quindi
+ * identici a quelli della visita sequenziale.
+ *
+ * L'albero non deve essere modificato durante l'esecuzione e le cartelle
+ * pigre dovrebbero essere già caricate (il caricamento non è thread-safe).
+ */
+public class ParallelVisitorExecutor {
+    public static final int DEFAULT_THRESHOLD = 1024;
+
+    private final ForkJoinPool pool;
+    private final int threshold;
+
+    /**
+     * Executor sul pool comune con la soglia di default.
+     */
+    public ParallelVisitorExecutor() {
+        this(ForkJoinPool.commonPool(), DEFAULT_THRESHOLD);
+    }
+
+    /**
+     * @param pool pool fork/join
+     * @param threshold nodi del sottoalbero oltre i quali una cartella diventa un task
+     */
+    public ParallelVisitorExecutor(ForkJoinPool pool, int threshold) {
+        if (threshold <= 0) {
+            throw new IllegalArgumentException("La soglia deve essere positiva");
+        }
+        this.pool = pool;
+        this.threshold = threshold;
+    }
+
+    /**
+     * Visita il componente e il suo sottoalbero usando tutti i worker del pool.
+     * @param root componente di partenza
+     * @param visitor visitor thread-safe
+     * @param <R> tipo del risultato
+     * @return risultato della visita
+     */
+    public <R> R execute(VaultComponent root, VaultVisitor<R> visitor) {
+        if (!(root instanceof FolderComposite folder) || size(folder) <= threshold) {
+            return root.accept(visitor);
+        }
+        return pool.invoke(new VisitTask<>(folder, visitor));
+    }
+
+    private static int size(FolderComposite folder) {
+        return folder.getCredentialCount() + folder.getFolderCount();
+    }
+
+    private final class VisitTask<R> extends RecursiveTask<R> {
+        private static final long serialVersionUID = 1L;
+
+        private final FolderComposite folder;
+        private final VaultVisitor<R> visitor;
+
+        VisitTask(FolderComposite folder, VaultVisitor<R> visitor) {
+            this.folder = folder;
+            this.visitor = visitor;
+        }
+
+        @Override
+        protected R compute() {
+            // Prima si avviano i sottoalberi grandi (null = figlio visitato da questo task)
+            List<VisitTask<R>> forked = new ArrayList<>();
+            for (VaultComponent child : folder) {
+                VisitTask<R> task = null;
+                if (child instanceof FolderComposite sub && size(sub) > threshold) {
+                    task = new VisitTask<>(sub, visitor);
+                    task.fork();
+                }
+                forked.add(task);
+            }
+
+            // Poi si lavora sul resto e si combinano i risultati nell'ordine dei figli
+            R result = visitor.identity();
+            int i = 0;
+            for (VaultComponent child : folder) {
+                VisitTask<R> task = forked.get(i++);
+                R childResult = task == null ? child.accept(visitor) : task.join();
+                result = visitor.combine(result, childResult);
+            }
+            return visitor.visitFolder(folder, result);
+        }
+    }
+}
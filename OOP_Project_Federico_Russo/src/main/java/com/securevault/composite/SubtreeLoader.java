@@ -0,0 +1,27 @@
+package com.securevault.composite;
+
+import java.util.List;
+
+/**
+ * Sorgente persistente dei figli di una {@link LazyFolderComposite}.
+ */
+public interface SubtreeLoader {
+
+    /**
+     * Legge i figli diretti della cartella. Le sottocartelle possono essere
+     * a loro volta pigre (caricamento livello per livello).
+     * @param folder cartella da caricare
+     * @return figli nell'ordine salvato
+     */
+    List<VaultComponent> load(LazyFolderComposite folder);
+
+    /**
+     * Salva i figli di una cartella modificata, per poterla rilasciare.
+     * @param folder cartella modificata
+     * @param children figli correnti
+     * @return true se salvati; false (default) se la sorgente è in sola lettura
+     */
+    default boolean save(LazyFolderComposite folder, List<VaultComponent> children) {
+        return false;
+    }
+}
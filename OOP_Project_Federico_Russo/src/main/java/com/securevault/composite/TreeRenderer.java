@@ -0,0 +1,184 @@
+package com.securevault.composite;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.Iterator;
+
+/**
+ * Renderer testuale dell'albero con output bufferizzato.
+ *
+ * Produce lo stesso formato di {@link VaultComponent#print(int)}
+ * ("+ nome" per le cartelle con rientro di 2 spazi per livello, nome per le
+ * credenziali con rientro di 1 spazio per livello), ma:
+ * - visita l'albero una sola volta, iterativamente (nessuna ricorsione)
+ * - scrive in un unico StringBuilder riusato, svuotato verso il sink a blocchi
+ *   (una scrittura per blocco invece di una printf sincronizzata per nodo)
+ * - prende i rientri da un array di spazi condiviso, senza " ".repeat per riga
+ * - rispetta limiti di profondità e di nodi, riassumendo la parte omessa con
+ *   gli aggregati in cache delle cartelle
+ *
+ * Non è thread-safe (il buffer è riusato tra le chiamate).
+ */
+public final class TreeRenderer {
+    public static final int UNLIMITED = Integer.MAX_VALUE;
+    public static final int DEFAULT_CHUNK_SIZE = 8192;
+
+    private static final String NEWLINE = System.lineSeparator();
+
+    private final int maxDepth;
+    private final int maxNodes;
+    private final int chunkSize;
+    private final StringBuilder buffer;
+    private char[] spaces = new char[64];     // Rientri: prefisso di questo array, cresce se serve
+
+    /**
+     * Renderer senza limiti.
+     */
+    public TreeRenderer() {
+        this(UNLIMITED, UNLIMITED, DEFAULT_CHUNK_SIZE);
+    }
+
+    /**
+     * @param maxDepth livelli mostrati sotto la radice (UNLIMITED = tutti)
+     * @param maxNodes nodi mostrati al massimo (UNLIMITED = tutti)
+     * @param chunkSize caratteri accumulati prima di scrivere sul sink
+     */
+    public TreeRenderer(int maxDepth, int maxNodes, int chunkSize) {
+        if (maxDepth < 0 || maxNodes <= 0 || chunkSize <= 0) {
+            throw new IllegalArgumentException("Limiti del renderer non validi");
+        }
+        this.maxDepth = maxDepth;
+        this.maxNodes = maxNodes;
+        this.chunkSize = chunkSize;
+        this.buffer = new StringBuilder(Math.min(chunkSize, DEFAULT_CHUNK_SIZE) + 256);
+        Arrays.fill(spaces, ' ');
+    }
+
+    /**
+     * Scrive l'albero sul sink.
+     * @param root radice da rappresentare
+     * @param indent livello di rientro della radice
+     * @param sink destinazione (Writer, PrintStream, StringBuilder...)
+     * @return numero di nodi scritti
+     * @throws IOException se il sink fallisce
+     */
+    public int render(VaultComponent root, int indent, Appendable sink) throws IOException {
+        buffer.setLength(0);
+        int rendered = 0;
+        line(root, indent);
+        rendered++;
+
+        Deque<Iterator<VaultComponent>> stack = new ArrayDeque<>();
+        if (root.isComposite()) {
+            if (maxDepth == 0) {
+                summarize(root, indent + 1);
+            } else {
+                stack.push(root.iterator());
+            }
+        }
+        while (!stack.isEmpty()) {
+            Iterator<VaultComponent> children = stack.peek();
+            if (!children.hasNext()) {
+                stack.pop();
+                continue;
+            }
+            if (rendered >= maxNodes) {
+                omitted(root, rendered, indent + 1);
+                break;
+            }
+            VaultComponent component = children.next();
+            int depth = stack.size();
+            line(component, indent + depth);
+            rendered++;
+            if (component.isComposite()) {
+                if (depth < maxDepth) {
+                    stack.push(component.iterator());
+                } else {
+                    summarize(component, indent + depth + 1);
+                }
+            }
+            if (buffer.length() >= chunkSize) {
+                flush(sink);
+            }
+        }
+        flush(sink);
+        return rendered;
+    }
+
+    /**
+     * Scrive l'albero su System.out con una scrittura per blocco.
+     * @param root radice da rappresentare
+     * @param indent livello di rientro della radice
+     */
+    public void print(VaultComponent root, int indent) {
+        try {
+            render(root, indent, System.out);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);   // PrintStream non lancia IOException
+        }
+        System.out.flush();
+    }
+
+    /**
+     * @param root radice da rappresentare
+     * @return rappresentazione testuale dell'albero
+     */
+    public String renderToString(VaultComponent root) {
+        StringBuilder out = new StringBuilder();
+        try {
+            render(root, 0, out);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);   // StringBuilder non lancia IOException
+        }
+        return out.toString();
+    }
+
+    // === FORMATO ===
+
+    private void line(VaultComponent component, int indent) {
+        if (component.isComposite()) {
+            indent(indent * 2).append("+ ");
+        } else {
+            indent(indent);
+        }
+        buffer.append(component.getName()).append(NEWLINE);
+    }
+
+    /**
+     * Riassume i figli di una cartella oltre il limite di profondità.
+     */
+    private void summarize(VaultComponent folder, int indent) {
+        if (folder instanceof FolderComposite f && f.getCredentialCount() + f.getFolderCount() > 0) {
+            indent(indent * 2).append("... (").append(f.getCredentialCount()).append(" credenziali, ")
+                    .append(f.getFolderCount()).append(" cartelle)").append(NEWLINE);
+        }
+    }
+
+    private void omitted(VaultComponent root, int rendered, int indent) {
+        indent(indent * 2).append("...");
+        if (root instanceof FolderComposite f) {
+            // Totale dagli aggregati: nessuna visita del resto dell'albero
+            int total = 1 + f.getCredentialCount() + f.getFolderCount();
+            buffer.append(" (altri ").append(total - rendered).append(" elementi)");
+        }
+        buffer.append(NEWLINE);
+    }
+
+    private StringBuilder indent(int width) {
+        if (width > spaces.length) {
+            spaces = new char[Math.max(width, spaces.length * 2)];
+            Arrays.fill(spaces, ' ');
+        }
+        return buffer.append(spaces, 0, width);
+    }
+
+    private void flush(Appendable sink) throws IOException {
+        if (buffer.length() > 0) {
+            sink.append(buffer);
+            buffer.setLength(0);
+        }
+    }
+}
@@ -21,6 +21,26 @@ public interface VaultComponent extends Iterable<VaultComponent> {
      */
     void print(int indent);
 
+    /**
+     * Distingue i Composite dalle foglie senza instanceof né eccezioni:
+     * usato dagli attraversamenti per decidere se scendere nel nodo.
+     * @return true se il componente può contenere figli
+     */
+    default boolean isComposite() {
+        return false;
+    }
+
+    /**
+     * Visita sequenziale (depth-first) del componente con un {@link VaultVisitor}.
+     * Le foglie producono visitLeaf; FolderComposite combina i figli.
+     * @param visitor visitor da applicare
+     * @param <R> tipo del risultato
+     * @return risultato della visita
+     */
+    default <R> R accept(VaultVisitor<R> visitor) {
+        return visitor.visitLeaf(this);
+    }
+
     /**
      * Operazione di default per aggiunta figli - appropriata solo per Composite.
      * Le foglie (Credential) lanciano UnsupportedOperationException.
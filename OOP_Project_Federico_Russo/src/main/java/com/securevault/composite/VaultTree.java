@@ -0,0 +1,319 @@
+package com.securevault.composite;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Albero di cartelle indicizzato.
+ *
+ * Mantiene, aggiornati ad ogni add/remove delle sue cartelle:
+ * - indice percorso -> cartella ("Social/Giochi"), per la ricerca in O(1)
+ * - indice inverso credenziale -> cartella (per identità), per rimozione e
+ *   spostamento in O(1) senza chiedere la rimozione a ogni cartella
+ *
+ * Insieme ai puntatori al padre di {@link FolderComposite}, il percorso di un
+ * nodo si ricostruisce in O(profondità). I percorsi sono relativi alla radice
+ * (la radice ha percorso vuoto); i nomi fratelli devono essere distinti.
+ * Ogni credenziale appartiene ad una sola cartella dell'albero.
+ */
+public class VaultTree {
+    public static final String SEPARATOR = "/";
+
+    private final FolderComposite root;
+    private final Map<String, FolderComposite> foldersByPath = new HashMap<>();
+    private final Map<VaultComponent, FolderComposite> owners = new IdentityHashMap<>();
+    private final List<VaultTreeListener> listeners = new ArrayList<>();
+
+    /**
+     * @param rootName nome della cartella radice
+     */
+    public VaultTree(String rootName) {
+        this.root = new FolderComposite(rootName);
+        root.setTree(this);
+        foldersByPath.put("", root);
+    }
+
+    /**
+     * @return cartella radice
+     */
+    public FolderComposite getRoot() {
+        return root;
+    }
+
+    /**
+     * Registra un listener delle modifiche strutturali.
+     * @param listener listener da registrare
+     */
+    public void addListener(VaultTreeListener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * @param listener listener da rimuovere
+     */
+    public void removeListener(VaultTreeListener listener) {
+        listeners.remove(listener);
+    }
+
+    // === RICERCA ===
+
+    /**
+     * @param path percorso relativo alla radice ("" per la radice)
+     * @return cartella o null se assente
+     */
+    public FolderComposite getFolder(String path) {
+        return foldersByPath.get(path);
+    }
+
+    /**
+     * @param component credenziale (stessa istanza inserita nell'albero)
+     * @return cartella che la contiene o null
+     */
+    public FolderComposite folderOf(VaultComponent component) {
+        if (component instanceof FolderComposite folder) {
+            return folder.getTree() == this ? folder.getParent() : null;
+        }
+        return owners.get(component);
+    }
+
+    /**
+     * @param component componente cercato (stessa istanza)
+     * @return true se appartiene all'albero
+     */
+    public boolean contains(VaultComponent component) {
+        if (component instanceof FolderComposite folder) {
+            return folder.getTree() == this;
+        }
+        return owners.containsKey(component);
+    }
+
+    /**
+     * Ricostruisce il percorso risalendo i puntatori al padre: O(profondità).
+     * @param folder cartella dell'albero
+     * @return percorso relativo alla radice
+     */
+    public String pathOf(FolderComposite folder) {
+        if (folder.getTree() != this) {
+            throw new IllegalArgumentException("Cartella non appartenente all'albero: " + folder.getName());
+        }
+        if (folder == root) {
+            return "";
+        }
+        StringBuilder path = new StringBuilder(folder.getName());
+        for (FolderComposite f = folder.getParent(); f != root; f = f.getParent()) {
+            path.insert(0, SEPARATOR).insert(0, f.getName());
+        }
+        return path.toString();
+    }
+
+    /**
+     * @return numero di cartelle (radice inclusa)
+     */
+    public int folderCount() {
+        return foldersByPath.size();
+    }
+
+    /**
+     * @return numero di credenziali nell'albero
+     */
+    public int credentialCount() {
+        return owners.size();
+    }
+
+    // === MODIFICHE ===
+
+    /**
+     * Restituisce la cartella del percorso, creando quelle mancanti.
+     * @param path percorso relativo alla radice
+     * @return cartella esistente o appena creata
+     */
+    public FolderComposite mkdirs(String path) {
+        FolderComposite folder = foldersByPath.get(path);
+        if (folder != null) {
+            return folder;
+        }
+        int slash = path.lastIndexOf(SEPARATOR);
+        FolderComposite parent = slash < 0 ? root : mkdirs(path.substring(0, slash));
+        String name = path.substring(slash + 1);
+        if (name.isEmpty()) {
+            throw new IllegalArgumentException("Percorso non valido: " + path);
+        }
+        folder = new FolderComposite(name);
+        parent.add(folder);
+        return folder;
+    }
+
+    /**
+     * Aggiunge un componente alla cartella del percorso (creata se manca).
+     * Una credenziale già presente altrove viene spostata.
+     * @param path percorso della cartella
+     * @param component componente da aggiungere
+     */
+    public void add(String path, VaultComponent component) {
+        mkdirs(path).add(component);
+    }
+
+    /**
+     * Rimuove un componente dall'albero in O(1) (per le credenziali).
+     * @param component componente da rimuovere
+     * @return true se era presente
+     */
+    public boolean remove(VaultComponent component) {
+        FolderComposite folder = folderOf(component);
+        if (folder == null) {
+            return false;
+        }
+        folder.remove(component);
+        return true;
+    }
+
+    /**
+     * Sposta un componente nella cartella del percorso.
+     * @param component componente dell'albero
+     * @param targetPath percorso di destinazione (creato se manca)
+     * @return true se il componente era presente
+     */
+    public boolean move(VaultComponent component, String targetPath) {
+        if (!contains(component) || component == root) {
+            return false;
+        }
+        mkdirs(targetPath).add(component);
+        return true;
+    }
+
+    /**
+     * Sostituisce un componente mantenendo cartella e posizione (es. dopo una modifica).
+     * @param current componente presente nell'albero
+     * @param replacement nuovo componente
+     * @return true se current era presente
+     */
+    public boolean replace(VaultComponent current, VaultComponent replacement) {
+        FolderComposite folder = folderOf(current);
+        return folder != null && folder.replace(current, replacement);
+    }
+
+    // === AGGANCI DA FolderComposite ===
+
+    /**
+     * Verifica, prima di qualsiasi modifica, che i percorsi del sottoalbero
+     * in arrivo non collidano con quelli esistenti.
+     */
+    void checkAttach(VaultComponent component, FolderComposite parent) {
+        if (!(component instanceof FolderComposite folder)) {
+            return;
+        }
+        Set<String> incoming = new HashSet<>();
+        checkPaths(folder, join(pathOf(parent), folder.getName()), incoming);
+    }
+
+    private void checkPaths(FolderComposite folder, String path, Set<String> incoming) {
+        FolderComposite existing = foldersByPath.get(path);
+        if ((existing != null && existing != folder) || !incoming.add(path)) {
+            throw new IllegalArgumentException("Percorso già esistente: " + path);
+        }
+        for (VaultComponent child : folder.loadedChildren()) {
+            if (child instanceof FolderComposite sub) {
+                checkPaths(sub, join(path, sub.getName()), incoming);
+            }
+        }
+    }
+
+    /**
+     * Indicizza il componente appena aggiunto (l'intero sottoalbero per le cartelle).
+     */
+    void attached(VaultComponent component, FolderComposite parent) {
+        if (component instanceof FolderComposite folder) {
+            index(folder, join(pathOf(parent), folder.getName()));
+        } else {
+            owners.put(component, parent);
+        }
+        for (VaultTreeListener listener : listeners) {
+            listener.onAttached(component, parent);
+        }
+    }
+
+    /**
+     * Rimuove dagli indici il componente staccato (l'intero sottoalbero per le cartelle).
+     */
+    void detached(VaultComponent component, FolderComposite parent) {
+        for (VaultTreeListener listener : listeners) {
+            listener.onDetached(component, parent);
+        }
+        if (component instanceof FolderComposite folder) {
+            unindex(folder, pathOf(folder));
+        } else {
+            owners.remove(component);
+        }
+    }
+
+    /**
+     * Indicizza i figli caricati da una cartella pigra (nessun listener).
+     */
+    void indexLoaded(FolderComposite parent, List<VaultComponent> loaded) {
+        String path = pathOf(parent);
+        for (VaultComponent child : loaded) {
+            if (child instanceof FolderComposite sub) {
+                index(sub, join(path, sub.getName()));
+            } else {
+                owners.put(child, parent);
+            }
+        }
+    }
+
+    /**
+     * Rimuove dagli indici i figli rilasciati da una cartella pigra (nessun listener).
+     */
+    void unindexLoaded(FolderComposite parent, List<VaultComponent> released) {
+        String path = pathOf(parent);
+        for (VaultComponent child : released) {
+            if (child instanceof FolderComposite sub) {
+                unindex(sub, join(path, sub.getName()));
+            } else {
+                owners.remove(child);
+            }
+        }
+    }
+
+    private void index(FolderComposite folder, String path) {
+        folder.setTree(this);
+        foldersByPath.put(path, folder);
+        for (VaultComponent child : folder.loadedChildren()) {
+            if (child == null) {
+                continue;
+            }
+            if (child instanceof FolderComposite sub) {
+                index(sub, join(path, sub.getName()));
+            } else {
+                FolderComposite previous = owners.put(child, folder);
+                if (previous != null && previous != folder) {
+                    previous.remove(child);     // Una sola cartella per credenziale
+                    owners.put(child, folder);
+                }
+            }
+        }
+    }
+
+    private void unindex(FolderComposite folder, String path) {
+        folder.setTree(null);
+        foldersByPath.remove(path);
+        for (VaultComponent child : folder.loadedChildren()) {
+            if (child == null) {
+                continue;
+            }
+            if (child instanceof FolderComposite sub) {
+                unindex(sub, join(path, sub.getName()));
+            } else {
+                owners.remove(child);
+            }
+        }
+    }
+
+    private static String join(String parentPath, String name) {
+        return parentPath.isEmpty() ? name : parentPath + SEPARATOR + name;
+    }
+}
@@ -0,0 +1,23 @@
+package com.securevault.composite;
+
+/**
+ * Listener delle modifiche strutturali di un {@link VaultTree}
+ * (analogo di VaultObserver per l'albero delle cartelle).
+ * Uno spostamento arriva come distacco seguito da aggancio.
+ */
+public interface VaultTreeListener {
+
+    /**
+     * Chiamato dopo l'aggancio di un componente (per una cartella, con tutto il suo sottoalbero).
+     * @param component componente agganciato
+     * @param parent cartella di destinazione
+     */
+    void onAttached(VaultComponent component, FolderComposite parent);
+
+    /**
+     * Chiamato prima del distacco di un componente, quando il percorso è ancora valido.
+     * @param component componente staccato
+     * @param parent cartella di provenienza
+     */
+    void onDetached(VaultComponent component, FolderComposite parent);
+}
@@ -0,0 +1,77 @@
+package com.securevault.composite;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Predicate;
+
+/**
+ * Visitor dell'albero del vault in forma map/reduce: ogni foglia produce un
+ * risultato, i risultati dei figli vengono combinati e ogni cartella può
+ * rielaborare la combinazione dei propri figli.
+ *
+ * La stessa definizione funziona in sequenza ({@link VaultComponent#accept})
+ * e in parallelo ({@link ParallelVisitorExecutor}): per il parallelo
+ * visitLeaf e visitFolder devono essere thread-safe e combine associativa.
+ * L'ordine di combinazione è sempre quello dei figli.
+ *
+ * @param <R> tipo del risultato
+ */
+public interface VaultVisitor<R> {
+
+    /**
+     * @return risultato neutro (cartella vuota)
+     */
+    R identity();
+
+    /**
+     * @param leaf foglia (credenziale)
+     * @return risultato della foglia
+     */
+    R visitLeaf(VaultComponent leaf);
+
+    /**
+     * Combina due risultati nell'ordine dei figli.
+     * @param left risultato dei figli precedenti
+     * @param right risultato del figlio successivo
+     * @return combinazione
+     */
+    R combine(R left, R right);
+
+    /**
+     * @param folder cartella visitata
+     * @param childrenResult combinazione dei risultati dei figli
+     * @return risultato della cartella (default: quello dei figli)
+     */
+    default R visitFolder(FolderComposite folder, R childrenResult) {
+        return childrenResult;
+    }
+
+    /**
+     * Ricerca: raccoglie, in ordine depth-first, le foglie che soddisfano il predicato.
+     * @param predicate condizione sulle foglie (thread-safe per l'uso parallelo)
+     * @return visitor di ricerca
+     */
+    static VaultVisitor<List<VaultComponent>> search(Predicate<? super VaultComponent> predicate) {
+        return new VaultVisitor<>() {
+            @Override
+            public List<VaultComponent> identity() {
+                return new ArrayList<>();
+            }
+
+            @Override
+            public List<VaultComponent> visitLeaf(VaultComponent leaf) {
+                List<VaultComponent> result = new ArrayList<>(1);
+                if (predicate.test(leaf)) {
+                    result.add(leaf);
+                }
+                return result;
+            }
+
+            @Override
+            public List<VaultComponent> combine(List<VaultComponent> left, List<VaultComponent> right) {
+                left.addAll(right);    // Liste sempre nuove: nessuna condivisione tra task
+                return left;
+            }
+        };
+    }
+}
@@ -1,6 +1,11 @@
 package com.securevault.factory;
 
+import com.securevault.audit.BreachCorpus;
 import com.securevault.model.Credential;
+import com.securevault.security.SecretHandle;
+import com.securevault.security.SecretStore;
+
+import java.util.function.Consumer;
 
 /**
  * Concrete Factory che crea istanze di Credential.
@@ -8,6 +13,33 @@ import com.securevault.model.Credential;
  * Il client dipende solo dall'interfaccia CredentialInterface, non dalla classe concreta.
  */
 public class CredentialFactory extends AbstractCredentialFactory {
+    private final SecretStore secrets;   // null = password su heap
+    private BreachCorpus breachCorpus;   // null = nessun controllo
+    private Consumer<CredentialInterface> breachListener;
+
+    public CredentialFactory() {
+        this(null);
+    }
+
+    /**
+     * Factory che conserva le password fuori dall'heap.
+     * @param secrets store off-heap per le password (null = password su heap)
+     */
+    public CredentialFactory(SecretStore secrets) {
+        this.secrets = secrets;
+    }
+
+    /**
+     * Attiva il controllo automatico delle nuove password sul corpus locale
+     * di password compromesse. La credenziale viene comunque creata: il
+     * listener decide come avvisare l'utente.
+     * @param corpus corpus di password compromesse (null = disattiva)
+     * @param listener invocato per ogni credenziale creata con password compromessa
+     */
+    public void setBreachCheck(BreachCorpus corpus, Consumer<CredentialInterface> listener) {
+        this.breachCorpus = corpus;
+        this.breachListener = listener;
+    }
 
     /**
      * Crea una nuova credenziale standard.
@@ -19,7 +51,32 @@ public class CredentialFactory extends AbstractCredentialFactory {
      */
     @Override
     public CredentialInterface create(String service, String username, String password) {
-        // Per ora crea solo Credential standard, ma la struttura è estendibile
-        return new Credential(service, username, password);
+        // Con uno SecretStore la password viene copiata off-heap
+        Credential credential = secrets != null
+                ? new Credential(service, username, secrets.store(password))
+                : new Credential(service, username, password);
+
+        // CONTROLLO BREACH: lookup locale di pochi microsecondi
+        if (breachCorpus != null && breachListener != null && breachCorpus.isBreached(credential)) {
+            breachListener.accept(credential);
+        }
+        return credential;
+    }
+
+    /**
+     * Crea una copia della credenziale con un nuovo username e la stessa password.
+     * Con uno SecretStore la password viene copiata da handle a handle tramite
+     * un array azzerato, senza creare String in chiaro sull'heap.
+     * @param source credenziale di partenza
+     * @param username nuovo username
+     * @return nuova istanza di Credential
+     */
+    public CredentialInterface withUsername(Credential source, String username) {
+        if (secrets == null) {
+            return new Credential(source.getService(), username, source.getPassword());
+        }
+        SecretHandle[] copy = new SecretHandle[1];
+        source.readPassword(chars -> copy[0] = secrets.store(chars));
+        return new Credential(source.getService(), username, copy[0]);
     }
 }
@@ -2,19 +2,39 @@ package com.securevault.model;
 
 import com.securevault.composite.VaultComponent;
 import com.securevault.factory.CredentialInterface;
+import com.securevault.security.SecretHandle;
+import com.securevault.security.SecretStore;
+import com.securevault.util.StringDictionary;
 
+import java.util.Arrays;
 import java.util.Iterator;
 import java.util.Objects;
+import java.util.function.Consumer;
 
 public class Credential implements VaultComponent, CredentialInterface {
     private final String service;
     private final String username;
-    private final String password;
+    private final String password;        // null se la password è off-heap
+    private final SecretHandle secret;    // null se la password è sull'heap
 
     public Credential(String service, String username, String password) {
         this.service = service;
         this.username = username;
         this.password = password;
+        this.secret = null;
+    }
+
+    /**
+     * Credenziale con password conservata fuori dall'heap in un {@link SecretStore}.
+     * @param service nome del servizio
+     * @param username username
+     * @param secret handle sulla password
+     */
+    public Credential(String service, String username, SecretHandle secret) {
+        this.service = service;
+        this.username = username;
+        this.password = null;
+        this.secret = Objects.requireNonNull(secret, "secret");
     }
 
     public String getService() {
@@ -25,8 +45,71 @@ public class Credential implements VaultComponent, CredentialInterface {
         return username;
     }
 
+    /**
+     * Per password off-heap crea una String temporanea: preferire
+     * {@link #readPassword(Consumer)} dove possibile.
+     * @return password in chiaro
+     */
     public String getPassword() {
-        return password;
+        return secret != null ? secret.apply(String::new) : password;
+    }
+
+    /**
+     * Accesso controllato alla password tramite array azzerato dopo l'uso.
+     * @param reader consumatore dei caratteri (non deve conservare l'array)
+     */
+    public void readPassword(Consumer<char[]> reader) {
+        if (secret != null) {
+            secret.read(reader);
+            return;
+        }
+        char[] chars = password.toCharArray();
+        try {
+            reader.accept(chars);
+        } finally {
+            Arrays.fill(chars, '\0');
+        }
+    }
+
+    /**
+     * Come {@link #readPassword(Consumer)}, ma per una password off-heap già
+     * azzerata restituisce false invece di lanciare eccezione. Le eccezioni
+     * lanciate dal reader si propagano invariate.
+     * @param reader consumatore dei caratteri (non deve conservare l'array)
+     * @return true se il reader è stato invocato
+     */
+    public boolean tryReadPassword(Consumer<char[]> reader) {
+        boolean[] read = new boolean[1];
+        try {
+            readPassword(chars -> {
+                read[0] = true;
+                reader.accept(chars);
+            });
+        } catch (IllegalStateException e) {
+            if (read[0]) {
+                throw e;
+            }
+            return false;    // Password off-heap già azzerata
+        }
+        return true;
+    }
+
+    /**
+     * @return true se la password è conservata in un SecretStore
+     */
+    public boolean isOffHeap() {
+        return secret != null;
+    }
+
+    /**
+     * Azzera la password off-heap (nessun effetto sulle password su heap,
+     * che non possono essere cancellate). Dopo l'azzeramento getPassword
+     * lancia IllegalStateException.
+     */
+    public void zeroize() {
+        if (secret != null) {
+            secret.destroy();
+        }
     }
 
     @Override
@@ -59,13 +142,45 @@ public class Credential implements VaultComponent, CredentialInterface {
     }
 
     public String serialize() {
+        if (secret != null) {
+            return secret.apply(chars -> new StringBuilder(service.length() + username.length() + chars.length + 2)
+                    .append(service).append(',').append(username).append(',').append(chars)
+                    .toString());
+        }
         return service + "," + username + "," + password;
     }
 
     public static Credential deserialize(String line) {
+        return deserialize(line, null);
+    }
+
+    /**
+     * Deserializza usando le istanze canoniche del dizionario per servizio e
+     * username, così i valori ripetuti non restano duplicati in memoria.
+     * @param line riga serializzata
+     * @param dictionary dizionario di deduplicazione (null = nessuna deduplicazione)
+     * @return credenziale deserializzata
+     */
+    public static Credential deserialize(String line, StringDictionary dictionary) {
+        return deserialize(line, dictionary, null);
+    }
+
+    /**
+     * Deserializza deduplicando servizio/username e spostando la password off-heap.
+     * @param line riga serializzata
+     * @param dictionary dizionario di deduplicazione (null = nessuna deduplicazione)
+     * @param secrets store per la password (null = password su heap)
+     * @return credenziale deserializzata
+     */
+    public static Credential deserialize(String line, StringDictionary dictionary, SecretStore secrets) {
         String[] parts = line.split(",", 3);
         if (parts.length != 3) throw new IllegalArgumentException("Formato non valido");
-        return new Credential(parts[0], parts[1], parts[2]);
+        String service = dictionary != null ? dictionary.canonical(parts[0]) : parts[0];
+        String username = dictionary != null ? dictionary.canonical(parts[1]) : parts[1];
+        if (secrets != null) {
+            return new Credential(service, username, secrets.store(parts[2]));
+        }
+        return new Credential(service, username, parts[2]);
     }
 
     @Override
@@ -74,11 +189,22 @@ public class Credential implements VaultComponent, CredentialInterface {
         if (!(o instanceof Credential that)) return false;
         return Objects.equals(service, that.service) &&
                Objects.equals(username, that.username) &&
-               Objects.equals(password, that.password);
+               passwordEquals(that);
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(service, username, password);
+        // contentHash coincide con String.hashCode: stesso hash per password su heap e off-heap
+        return Objects.hash(service, username, secret != null ? secret.contentHash() : password);
+    }
+
+    private boolean passwordEquals(Credential that) {
+        if (secret == null && that.secret == null) {
+            return Objects.equals(password, that.password);
+        }
+        if (secret != null && that.secret != null) {
+            return secret.contentEquals(that.secret);
+        }
+        return secret != null ? secret.contentEquals(that.password) : that.secret.contentEquals(password);
     }
 }
\ No newline at end of file
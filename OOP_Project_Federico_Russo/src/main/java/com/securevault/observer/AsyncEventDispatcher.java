@@ -0,0 +1,323 @@
+package com.securevault.observer;
+
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Coda limitata di consegne verso gli observer asincroni, svuotata da un
+ * unico thread dedicato.
+ *
+ * Più thread produttori (chi modifica il vault), un solo consumatore: le
+ * consegne avvengono nell'ordine di accodamento, quindi ogni observer vede
+ * gli eventi nello stesso ordine in cui sono stati applicati. Un observer
+ * che lancia eccezione viene registrato nel log senza interrompere gli altri.
+ *
+ * Oltre agli eventi la coda accetta azioni ({@link #submitAfter}) eseguite
+ * solo dopo tutte le consegne precedenti: il repository le usa per azzerare
+ * le password off-heap delle credenziali rimosse quando nessun observer
+ * asincrono può più leggerle.
+ *
+ * Dopo {@link #close()} le consegne non vengono rifiutate: il chiamante
+ * attende la fine del thread di dispatch e le esegue in modo sincrono.
+ */
+final class AsyncEventDispatcher implements AutoCloseable {
+
+    private static final Logger logger = Logger.getLogger(AsyncEventDispatcher.class.getName());
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notEmpty = lock.newCondition();
+    private final Condition notFull = lock.newCondition();
+    private final Condition idle = lock.newCondition();
+    private final ArrayDeque<Delivery> queue = new ArrayDeque<>();
+    private final int capacity;
+    private final BackpressurePolicy policy;
+    private final Thread thread;
+
+    // === STATO (protetto da lock) ===
+    private boolean busy = false;         // Una consegna è in corso fuori dal lock
+    private boolean closed = false;
+    private long dropped = 0;
+    private long coalesced = 0;
+
+    /**
+     * @param capacity numero massimo di consegne in coda
+     * @param policy comportamento a coda piena
+     */
+    AsyncEventDispatcher(int capacity, BackpressurePolicy policy) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("La capacità della coda deve essere positiva");
+        }
+        this.capacity = capacity;
+        this.policy = policy;
+        this.thread = new Thread(this::run, "vault-event-dispatcher");
+        this.thread.setDaemon(true);       // Non impedisce l'uscita della JVM
+        this.thread.start();
+    }
+
+    // === PRODUTTORI ===
+
+    /**
+     * Accoda un singolo evento (l'unico tipo di consegna che può essere fuso).
+     * @param observers destinatari (array immutabile condiviso)
+     * @param event evento da consegnare
+     */
+    void submit(VaultObserver[] observers, VaultEvent event) {
+        enqueue(new Delivery(observers, event, null, null), policy);
+    }
+
+    /**
+     * Accoda una callback generica (blocchi, caricamenti massivi).
+     * @param observers destinatari (array immutabile condiviso)
+     * @param callback invocazione da eseguire su ciascun observer
+     */
+    void submit(VaultObserver[] observers, Consumer<VaultObserver> callback) {
+        enqueue(new Delivery(observers, null, callback, null), policy);
+    }
+
+    /**
+     * Accoda un'azione da eseguire dopo tutte le consegne già in coda.
+     * Non viene mai scartata: a coda piena si attende come con BLOCK.
+     * @param action azione da eseguire sul thread di dispatch
+     */
+    void submitAfter(Runnable action) {
+        enqueue(new Delivery(null, null, null, action), BackpressurePolicy.BLOCK);
+    }
+
+    private void enqueue(Delivery delivery, BackpressurePolicy onFull) {
+        boolean reentrant = Thread.currentThread() == thread;
+        lock.lock();
+        try {
+            // Dopo la chiusura il thread di dispatch svuota ancora la coda: i suoi rientri vi finiscono
+            if (!closed || reentrant) {
+                // RIENTRO: un observer che modifica il vault non può attendere sé stesso
+                if (!reentrant && queue.size() >= capacity) {
+                    if (onFull == BackpressurePolicy.DROP) {
+                        dropped++;
+                        return;
+                    }
+                    if (onFull == BackpressurePolicy.COALESCE && delivery.event != null && coalesce(delivery)) {
+                        return;
+                    }
+                    while (queue.size() >= capacity && !closed) {
+                        notFull.awaitUninterruptibly();
+                    }
+                }
+                if (!closed || reentrant) {
+                    queue.addLast(delivery);
+                    notEmpty.signal();
+                    return;
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+        // CHIUSO: la mutazione è già applicata, la consegna non va persa.
+        // Sincrona, dopo quelle rimaste in coda per non alterarne l'ordine
+        awaitTermination();
+        delivery.deliver();
+    }
+
+    private void awaitTermination() {
+        boolean interrupted = false;
+        while (thread.isAlive()) {
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();  // Restore interrupt status
+        }
+    }
+
+    /**
+     * Cerca dalla coda verso la testa l'ultimo evento sulla stessa credenziale
+     * e vi fonde quello nuovo. La ricerca si ferma alle consegne non fondibili
+     * (blocchi, svuotamenti) per non alterare l'ordine relativo.
+     */
+    private boolean coalesce(Delivery delivery) {
+        VaultEvent next = delivery.event;
+        if (next.getType() == VaultEvent.Type.CLEARED) {
+            return false;
+        }
+        Iterator<Delivery> it = queue.descendingIterator();
+        while (it.hasNext()) {
+            Delivery pending = it.next();
+            if (pending.action != null) {
+                continue;                  // Le azioni restano dopo l'evento già in coda
+            }
+            if (pending.event == null || pending.event.getType() == VaultEvent.Type.CLEARED
+                    || pending.observers != delivery.observers) {
+                return false;
+            }
+            if (pending.event.continues(next)) {
+                VaultEvent merged = pending.event.followedBy(next);
+                if (merged == null) {
+                    it.remove();           // ADDED + REMOVED: nessun evento
+                    notFull.signal();
+                } else {
+                    pending.event = merged;
+                }
+                coalesced++;
+                return true;
+            }
+            if (sameCredential(pending.event, next)) {
+                return false;              // Storia non fondibile: non scavalcarla
+            }
+        }
+        return false;
+    }
+
+    private static boolean sameCredential(VaultEvent pending, VaultEvent next) {
+        return pending.getCredential().equals(next.getCredential())
+                || (next.getPrevious() != null && pending.getCredential().equals(next.getPrevious()));
+    }
+
+    // === CONSUMATORE ===
+
+    private void run() {
+        while (true) {
+            Delivery next;
+            lock.lock();
+            try {
+                while (queue.isEmpty() && !closed) {
+                    notEmpty.awaitUninterruptibly();
+                }
+                if (queue.isEmpty()) {
+                    return;                // Chiuso e svuotato
+                }
+                next = queue.pollFirst();
+                busy = true;
+                notFull.signal();
+            } finally {
+                lock.unlock();
+            }
+
+            next.deliver();
+
+            lock.lock();
+            try {
+                busy = false;
+                if (queue.isEmpty()) {
+                    idle.signalAll();
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    // === SINCRONIZZAZIONE ===
+
+    /**
+     * Attende che tutte le consegne accodate finora siano state eseguite.
+     * @throws IllegalStateException se invocato da un observer asincrono
+     */
+    void drain() {
+        if (Thread.currentThread() == thread) {
+            throw new IllegalStateException("drain() non può essere invocato dal thread di dispatch");
+        }
+        lock.lock();
+        try {
+            while (!queue.isEmpty() || busy) {
+                idle.awaitUninterruptibly();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Consegna quanto resta in coda e termina il thread di dispatch.
+     */
+    @Override
+    public void close() {
+        lock.lock();
+        try {
+            closed = true;
+            notEmpty.signal();
+            notFull.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        if (Thread.currentThread() == thread) {
+            return;
+        }
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();  // Restore interrupt status
+        }
+    }
+
+    /**
+     * @return eventi scartati con la politica DROP
+     */
+    long getDroppedCount() {
+        lock.lock();
+        try {
+            return dropped;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return eventi fusi con uno già in coda (politica COALESCE)
+     */
+    long getCoalescedCount() {
+        lock.lock();
+        try {
+            return coalesced;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Elemento della coda: un evento singolo, una callback generica oppure un'azione.
+     */
+    private static final class Delivery {
+        private final VaultObserver[] observers;
+        private VaultEvent event;                          // Sostituito dalla coalescenza
+        private final Consumer<VaultObserver> callback;
+        private final Runnable action;
+
+        Delivery(VaultObserver[] observers, VaultEvent event, Consumer<VaultObserver> callback, Runnable action) {
+            this.observers = observers;
+            this.event = event;
+            this.callback = callback;
+            this.action = action;
+        }
+
+        void deliver() {
+            if (action != null) {
+                runSafely(action);
+                return;
+            }
+            for (VaultObserver observer : observers) {
+                runSafely(() -> {
+                    if (event != null) {
+                        event.dispatchTo(observer);
+                    } else {
+                        callback.accept(observer);
+                    }
+                });
+            }
+        }
+
+        private static void runSafely(Runnable task) {
+            try {
+                task.run();
+            } catch (RuntimeException e) {
+                logger.log(Level.WARNING, "Observer asincrono fallito", e);
+            }
+        }
+    }
+}
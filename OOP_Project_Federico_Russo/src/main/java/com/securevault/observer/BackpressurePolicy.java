@@ -0,0 +1,26 @@
+package com.securevault.observer;
+
+/**
+ * Comportamento della coda di dispatch asincrono quando è piena
+ * (l'observer più lento non tiene il passo con le modifiche).
+ */
+public enum BackpressurePolicy {
+    /**
+     * Il thread che modifica il vault attende che si liberi un posto:
+     * nessun evento perso, la latenza torna a dipendere dall'observer.
+     */
+    BLOCK,
+
+    /**
+     * L'evento viene scartato e conteggiato: la scrittura non attende mai.
+     * Adatto a observer puramente informativi (console, metriche).
+     */
+    DROP,
+
+    /**
+     * L'evento viene fuso con uno in coda sulla stessa credenziale
+     * (es. più modifiche consecutive diventano una sola); se non c'è nulla
+     * da fondere si attende come con {@link #BLOCK}.
+     */
+    COALESCE
+}
@@ -0,0 +1,255 @@
+package com.securevault.observer;
+
+import com.securevault.model.Credential;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Decoratore che raccoglie gli eventi in finestre e li consegna all'observer
+ * avvolto con una sola chiamata a {@link VaultObserver#onBatch}.
+ *
+ * Una finestra si chiude quando raggiunge {@code maxBatchSize} eventi oppure
+ * dopo {@code maxDelay} dal primo evento raccolto (o con {@link #flush()}).
+ * Dentro la finestra gli eventi successivi sulla stessa credenziale vengono
+ * fusi ({@link VaultEvent#followedBy}): una credenziale aggiunta e modificata
+ * più volte arriva come una sola ADDED, una aggiunta e poi rimossa non arriva
+ * affatto. Gli svuotamenti (CLEARED) non vengono mai fusi e fanno da barriera.
+ *
+ * Le consegne sono serializzate ma possono avvenire sul thread del timer:
+ * l'observer avvolto non deve dipendere dal thread chiamante. Combinato con
+ * {@link VaultSubject#addAsyncObserver} la raccolta avviene sul thread di
+ * dispatch e la scrittura non attende mai l'observer.
+ * Le password off-heap delle credenziali rimosse o sostituite possono essere
+ * già azzerate al momento della consegna: degli eventi REMOVED e della
+ * versione precedente dei MODIFIED vanno usati solo servizio e username.
+ */
+public class BatchingObserver implements VaultObserver, AutoCloseable {
+
+    private static final Logger logger = Logger.getLogger(BatchingObserver.class.getName());
+
+    private final VaultObserver delegate;
+    private final int maxBatchSize;
+    private final long maxDelayNanos;
+    private final ScheduledExecutorService timer;       // Null senza finestra temporale
+    private final Object deliveryLock = new Object();   // Una consegna alla volta, in ordine
+
+    // === FINESTRA CORRENTE (protetta da this) ===
+    private List<VaultEvent> pending = new ArrayList<>();
+    private int live = 0;                                // Eventi non annullati in pending
+    // Categoria -> credenziale risultante -> posizione dell'ultimo evento che l'ha prodotta
+    private final Map<String, Map<Credential, Integer>> producers = new HashMap<>();
+    private boolean flushScheduled = false;
+    private boolean closed = false;
+
+    /**
+     * @param delegate observer che riceve i blocchi
+     * @param maxBatchSize eventi (dopo la coalescenza) che chiudono la finestra
+     * @param maxDelay attesa massima dal primo evento; zero = solo per dimensione o flush()
+     */
+    public BatchingObserver(VaultObserver delegate, int maxBatchSize, Duration maxDelay) {
+        if (maxBatchSize <= 0) {
+            throw new IllegalArgumentException("maxBatchSize deve essere positivo");
+        }
+        if (maxDelay.isNegative()) {
+            throw new IllegalArgumentException("maxDelay non può essere negativo");
+        }
+        this.delegate = Objects.requireNonNull(delegate);
+        this.maxBatchSize = maxBatchSize;
+        this.maxDelayNanos = maxDelay.toNanos();
+        this.timer = maxDelay.isZero() ? null : Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "vault-batch-flush");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    // === CALLBACK DELL'OBSERVER ===
+
+    @Override
+    public void onCredentialAdded(Credential credential, String category) {
+        collect(List.of(VaultEvent.added(category, credential)));
+    }
+
+    @Override
+    public void onCredentialsAdded(List<Credential> credentials, String category) {
+        List<VaultEvent> events = new ArrayList<>(credentials.size());
+        for (Credential credential : credentials) {
+            events.add(VaultEvent.added(category, credential));
+        }
+        collect(events);
+    }
+
+    @Override
+    public void onCredentialRemoved(Credential credential, String category) {
+        collect(List.of(VaultEvent.removed(category, credential)));
+    }
+
+    @Override
+    public void onCredentialModified(Credential oldCredential, Credential newCredential, String category) {
+        collect(List.of(VaultEvent.modified(category, oldCredential, newCredential)));
+    }
+
+    @Override
+    public void onVaultCleared() {
+        collect(List.of(VaultEvent.cleared()));
+    }
+
+    @Override
+    public void onBatch(List<VaultEvent> events) {
+        collect(events);
+    }
+
+    // === FINESTRA ===
+
+    private void collect(List<VaultEvent> events) {
+        boolean full = false;
+        boolean direct;
+        synchronized (this) {
+            direct = closed;
+            if (!direct) {
+                for (VaultEvent event : events) {
+                    append(event);
+                }
+                full = live >= maxBatchSize;
+                if (!full && live > 0 && timer != null && !flushScheduled) {
+                    flushScheduled = true;
+                    timer.schedule(this::flushQuietly, maxDelayNanos, TimeUnit.NANOSECONDS);
+                }
+            }
+        }
+        if (direct) {
+            deliverDirectly(events);
+        } else if (full) {
+            flush();
+        }
+    }
+
+    /**
+     * Dopo la chiusura la mutazione è già applicata: l'evento non va perso né
+     * fatto fallire sul thread dello scrittore. Consegna dopo quanto resta nella finestra.
+     */
+    private void deliverDirectly(List<VaultEvent> events) {
+        synchronized (deliveryLock) {
+            flush();
+            delegate.onBatch(Collections.unmodifiableList(new ArrayList<>(events)));
+        }
+    }
+
+    /**
+     * Aggiunge l'evento alla finestra, fondendolo con quello che ha prodotto
+     * la stessa credenziale se la storia prosegue. O(1) per evento.
+     */
+    private void append(VaultEvent event) {
+        if (event.getType() == VaultEvent.Type.CLEARED) {
+            producers.clear();                 // Barriera: niente fusioni attraverso lo svuotamento
+            add(event);
+            return;
+        }
+        Credential target = switch (event.getType()) {
+            case MODIFIED -> event.getPrevious();
+            case REMOVED -> event.getCredential();
+            default -> null;
+        };
+        if (target != null) {
+            Map<Credential, Integer> byCredential = producers.get(event.getCategory());
+            Integer position = byCredential == null ? null : byCredential.remove(target);
+            if (position != null && pending.get(position).continues(event)) {
+                VaultEvent merged = pending.get(position).followedBy(event);
+                pending.set(position, merged);
+                if (merged == null) {
+                    live--;                    // ADDED + REMOVED: la credenziale non è mai esistita
+                } else {
+                    track(merged, position);
+                }
+                return;
+            }
+        }
+        add(event);
+    }
+
+    private void add(VaultEvent event) {
+        pending.add(event);
+        live++;
+        track(event, pending.size() - 1);
+    }
+
+    private void track(VaultEvent event, int position) {
+        if (event.getType() == VaultEvent.Type.ADDED || event.getType() == VaultEvent.Type.MODIFIED) {
+            producers.computeIfAbsent(event.getCategory(), c -> new HashMap<>())
+                    .put(event.getCredential(), position);
+        }
+    }
+
+    /**
+     * Consegna subito la finestra corrente (se non vuota).
+     */
+    public void flush() {
+        synchronized (deliveryLock) {
+            List<VaultEvent> batch;
+            synchronized (this) {
+                flushScheduled = false;
+                if (live == 0) {
+                    pending.clear();
+                    producers.clear();
+                    return;
+                }
+                batch = new ArrayList<>(live);
+                for (VaultEvent event : pending) {
+                    if (event != null) {
+                        batch.add(event);
+                    }
+                }
+                pending = new ArrayList<>();
+                live = 0;
+                producers.clear();
+            }
+            // Fuori dal lock della finestra: gli eventi successivi continuano ad accumularsi
+            delegate.onBatch(Collections.unmodifiableList(batch));
+        }
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            logger.log(Level.WARNING, "Consegna del blocco di eventi fallita", e);
+        }
+    }
+
+    /**
+     * @return eventi in attesa nella finestra corrente (dopo la coalescenza)
+     */
+    public synchronized int pendingCount() {
+        return live;
+    }
+
+    /**
+     * Consegna la finestra corrente e ferma il timer. Gli eventi successivi
+     * (es. una mutazione concorrente alla chiusura) vengono consegnati subito
+     * all'observer avvolto, uno per blocco.
+     */
+    @Override
+    public void close() {
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+        }
+        if (timer != null) {
+            timer.shutdownNow();
+        }
+        flush();
+    }
+}
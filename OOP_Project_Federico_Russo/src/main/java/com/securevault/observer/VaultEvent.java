@@ -0,0 +1,139 @@
+package com.securevault.observer;
+
+import com.securevault.model.Credential;
+
+import java.util.Objects;
+
+/**
+ * Evento del vault come valore: rappresenta una singola callback di
+ * {@link VaultObserver} e permette di consegnare più modifiche in un solo
+ * blocco ({@link VaultObserver#onBatch}).
+ */
+public final class VaultEvent {
+
+    /**
+     * Tipo di evento, uno per callback dell'observer.
+     */
+    public enum Type {
+        ADDED, REMOVED, MODIFIED, CLEARED
+    }
+
+    private final Type type;
+    private final String category;
+    private final Credential credential;          // Per MODIFIED: la nuova versione
+    private final Credential previous;            // Solo per MODIFIED
+
+    private VaultEvent(Type type, String category, Credential credential, Credential previous) {
+        this.type = type;
+        this.category = category;
+        this.credential = credential;
+        this.previous = previous;
+    }
+
+    public static VaultEvent added(String category, Credential credential) {
+        return new VaultEvent(Type.ADDED, Objects.requireNonNull(category), Objects.requireNonNull(credential), null);
+    }
+
+    public static VaultEvent removed(String category, Credential credential) {
+        return new VaultEvent(Type.REMOVED, Objects.requireNonNull(category), Objects.requireNonNull(credential), null);
+    }
+
+    public static VaultEvent modified(String category, Credential oldCredential, Credential newCredential) {
+        return new VaultEvent(Type.MODIFIED, Objects.requireNonNull(category),
+                Objects.requireNonNull(newCredential), Objects.requireNonNull(oldCredential));
+    }
+
+    public static VaultEvent cleared() {
+        return new VaultEvent(Type.CLEARED, null, null, null);
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    /**
+     * @return categoria (null per CLEARED)
+     */
+    public String getCategory() {
+        return category;
+    }
+
+    /**
+     * @return credenziale aggiunta/rimossa, o la nuova versione per MODIFIED (null per CLEARED)
+     */
+    public Credential getCredential() {
+        return credential;
+    }
+
+    /**
+     * @return versione precedente per MODIFIED, altrimenti null
+     */
+    public Credential getPrevious() {
+        return previous;
+    }
+
+    /**
+     * Consegna l'evento all'observer tramite la callback corrispondente.
+     * @param observer destinatario
+     */
+    public void dispatchTo(VaultObserver observer) {
+        switch (type) {
+            case ADDED -> observer.onCredentialAdded(credential, category);
+            case REMOVED -> observer.onCredentialRemoved(credential, category);
+            case MODIFIED -> observer.onCredentialModified(previous, credential, category);
+            case CLEARED -> observer.onVaultCleared();
+        }
+    }
+
+    // === COALESCENZA ===
+
+    /**
+     * Verifica se next prosegue la storia della stessa credenziale: la
+     * credenziale su cui agisce next è quella prodotta da questo evento
+     * (ADDED/MODIFIED seguito da MODIFIED/REMOVED, stessa categoria).
+     * @param next evento successivo
+     * @return true se i due eventi possono essere fusi con {@link #followedBy}
+     */
+    public boolean continues(VaultEvent next) {
+        if (type != Type.ADDED && type != Type.MODIFIED) {
+            return false;
+        }
+        Credential target = switch (next.type) {
+            case MODIFIED -> next.previous;
+            case REMOVED -> next.credential;
+            default -> null;
+        };
+        return target != null && category.equals(next.category) && credential.equals(target);
+    }
+
+    /**
+     * Fonde questo evento con il successivo sulla stessa credenziale:
+     * - ADDED(c) + MODIFIED(c→d) = ADDED(d)
+     * - MODIFIED(a→c) + MODIFIED(c→d) = MODIFIED(a→d)
+     * - ADDED(c) + REMOVED(c) = nessun evento
+     * - MODIFIED(a→c) + REMOVED(c) = REMOVED(a)
+     * @param next evento successivo, per cui {@link #continues} è true
+     * @return evento equivalente ai due, o null se si annullano
+     */
+    public VaultEvent followedBy(VaultEvent next) {
+        if (!continues(next)) {
+            throw new IllegalArgumentException("Eventi non consecutivi sulla stessa credenziale: " + this + ", " + next);
+        }
+        if (next.type == Type.MODIFIED) {
+            return type == Type.ADDED
+                    ? added(category, next.credential)
+                    : modified(category, previous, next.credential);
+        }
+        return type == Type.ADDED ? null : removed(category, previous);
+    }
+
+    @Override
+    public String toString() {
+        return switch (type) {
+            case ADDED -> "ADDED " + credential.getName() + " in " + category;
+            case REMOVED -> "REMOVED " + credential.getName() + " da " + category;
+            case MODIFIED -> "MODIFIED " + previous.getName() + " -> " + credential.getName() + " in " + category;
+            case CLEARED -> "CLEARED";
+        };
+    }
+}
@@ -3,6 +3,7 @@ package com.securevault.observer;
 import com.securevault.model.Credential;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.List;
 import java.util.logging.Logger;
 
 /**
@@ -14,7 +15,7 @@ public class VaultNotificationService implements VaultObserver {
     private static final Logger logger = Logger.getLogger(VaultNotificationService.class.getName());
     private static final DateTimeFormatter formatter = DateTimeFormatter.ofPattern("HH:mm:ss");
     private boolean consoleOutput = true;
-    private int eventCount = 0;
+    private volatile int eventCount = 0;   // Scritto dal thread di dispatch se registrato come asincrono
 
     public VaultNotificationService() {
         this(true);
@@ -37,6 +38,34 @@ public class VaultNotificationService implements VaultObserver {
         logger.info("Credential added: " + credential.getService() + " in " + category);
     }
 
+    @Override
+    public void onCredentialsAdded(List<Credential> credentials, String category) {
+        // Un solo messaggio e un solo record di log per l'intero blocco
+        eventCount++;
+        String timestamp = LocalDateTime.now().format(formatter);
+        String message = String.format("[%s] ✅ Aggiunte %d credenziali in categoria '%s'", 
+                                     timestamp, credentials.size(), category);
+        
+        if (consoleOutput) {
+            System.out.println(message);
+        }
+        logger.info("Credentials bulk-added: " + credentials.size() + " in " + category);
+    }
+
+    @Override
+    public void onBatch(List<VaultEvent> events) {
+        // Una transazione è un solo evento, con il riepilogo delle operazioni
+        eventCount++;
+        String timestamp = LocalDateTime.now().format(formatter);
+        String message = String.format("[%s] 📦 Transazione applicata: %d operazioni", 
+                                     timestamp, events.size());
+        
+        if (consoleOutput) {
+            System.out.println(message);
+        }
+        logger.info("Batch applied: " + events.size() + " events");
+    }
+
     @Override
     public void onCredentialRemoved(Credential credential, String category) {
         eventCount++;
@@ -2,6 +2,8 @@ package com.securevault.observer;
 
 import com.securevault.model.Credential;
 
+import java.util.List;
+
 /**
  * Interfaccia Observer del Pattern Observer.
  * Definisce i metodi che gli observer devono implementare per ricevere notifiche.
@@ -15,6 +17,19 @@ public interface VaultObserver {
      * @param category categoria in cui è stata aggiunta
      */
     void onCredentialAdded(Credential credential, String category);
+
+    /**
+     * Notifica quando viene aggiunto un blocco di credenziali (caricamento massivo).
+     * L'implementazione di default inoltra un evento per credenziale: gli observer
+     * che vogliono gestire il blocco in un solo passaggio possono fare override.
+     * @param credentials credenziali aggiunte
+     * @param category categoria in cui sono state aggiunte
+     */
+    default void onCredentialsAdded(List<Credential> credentials, String category) {
+        for (Credential credential : credentials) {
+            onCredentialAdded(credential, category);
+        }
+    }
     
     /**
      * Notifica quando viene rimossa una credenziale.
@@ -35,4 +50,16 @@ public interface VaultObserver {
      * Notifica quando il vault viene completamente svuotato.
      */
     void onVaultCleared();
-}
\ No newline at end of file
+
+    /**
+     * Notifica un blocco di modifiche applicate atomicamente (transazione).
+     * L'implementazione di default consegna gli eventi uno alla volta, nell'ordine:
+     * gli observer che possono aggiornarsi in un solo passaggio fanno override.
+     * @param events eventi nell'ordine di applicazione
+     */
+    default void onBatch(List<VaultEvent> events) {
+        for (VaultEvent event : events) {
+            event.dispatchTo(this);
+        }
+    }
+}
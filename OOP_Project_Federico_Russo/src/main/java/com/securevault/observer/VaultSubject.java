@@ -1,34 +1,143 @@
 package com.securevault.observer;
 
 import com.securevault.model.Credential;
-import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 
 /**
  * Classe Subject (Observable) del Pattern Observer.
  * Gestisce la lista degli observer e fornisce metodi per notificarli.
  * È abstract per permettere alle sottoclassi di decidere quando notificare.
+ *
+ * Gli observer registrati con {@link #addObserver} vengono notificati in modo
+ * sincrono, sul thread che modifica il vault. Quelli registrati con
+ * {@link #addAsyncObserver} ricevono gli eventi da un thread dedicato tramite
+ * una coda limitata (vedi {@link #enableAsyncDispatch}): un observer lento
+ * (console, log, audit) non pesa più sulla latenza delle scritture.
+ * Gli observer che devono leggere il repository nello stesso istante
+ * dell'evento (es. per scriverne uno snapshot) restano sincroni.
  */
 public abstract class VaultSubject {
-    // Lista degli observer registrati
-    private final List<VaultObserver> observers = new ArrayList<>();
+    private static final VaultObserver[] NONE = new VaultObserver[0];
+
+    // Array immutabili sostituiti ad ogni registrazione: la notifica non copia e non alloca
+    private volatile VaultObserver[] observers = NONE;
+    private volatile VaultObserver[] asyncObservers = NONE;
+    private volatile AsyncEventDispatcher dispatcher;
 
     /**
      * Registra un nuovo observer.
      * @param observer observer da registrare
      */
-    public void addObserver(VaultObserver observer) {
-        observers.add(observer);
+    public synchronized void addObserver(VaultObserver observer) {
+        observers = with(observers, observer);
     }
 
     /**
-     * Rimuove un observer dalla lista.
+     * Rimuove un observer dalla lista (sincrono o asincrono).
      * @param observer observer da rimuovere
      */
-    public void removeObserver(VaultObserver observer) {
-        observers.remove(observer);
+    public synchronized void removeObserver(VaultObserver observer) {
+        observers = without(observers, observer);
+        asyncObservers = without(asyncObservers, observer);
     }
 
+    // === DISPATCH ASINCRONO ===
+
+    /**
+     * Attiva il dispatch asincrono: una coda limitata svuotata da un thread dedicato.
+     * @param capacity consegne massime in coda
+     * @param policy comportamento a coda piena
+     * @throws IllegalStateException se il dispatch asincrono è già attivo
+     */
+    public synchronized void enableAsyncDispatch(int capacity, BackpressurePolicy policy) {
+        if (dispatcher != null) {
+            throw new IllegalStateException("Dispatch asincrono già attivo");
+        }
+        dispatcher = new AsyncEventDispatcher(capacity, policy);
+    }
+
+    /**
+     * Registra un observer notificato dal thread di dispatch.
+     * Ogni observer asincrono riceve gli eventi nell'ordine in cui sono stati
+     * applicati, ma dopo il ritorno del metodo che li ha generati: non deve
+     * invocare metodi sincronizzati del repository (con BLOCK lo scrittore può
+     * attendere la coda tenendo il lock).
+     * @param observer observer da registrare
+     * @throws IllegalStateException se il dispatch asincrono non è attivo
+     */
+    public synchronized void addAsyncObserver(VaultObserver observer) {
+        if (dispatcher == null) {
+            throw new IllegalStateException("Dispatch asincrono non attivo: invocare enableAsyncDispatch");
+        }
+        asyncObservers = with(asyncObservers, observer);
+    }
+
+    /**
+     * Attende che tutti gli eventi già generati siano stati consegnati agli
+     * observer asincroni (da invocare prima di leggerne lo stato o in chiusura).
+     */
+    public void drain() {
+        AsyncEventDispatcher current = dispatcher;
+        if (current != null) {
+            current.drain();
+        }
+    }
+
+    /**
+     * Consegna gli eventi in coda, ferma il thread di dispatch e rimuove gli
+     * observer asincroni. Le notifiche successive tornano solo sincrone; una
+     * notifica concorrente alla chiusura viene consegnata sul thread chiamante.
+     */
+    public void shutdownAsyncDispatch() {
+        AsyncEventDispatcher current;
+        synchronized (this) {
+            current = dispatcher;
+            dispatcher = null;
+            asyncObservers = NONE;
+        }
+        // Fuori dal lock: gli observer in coda possono ancora leggere il repository
+        if (current != null) {
+            current.close();
+        }
+    }
+
+    /**
+     * @return eventi scartati dalla coda asincrona (politica DROP)
+     */
+    public long getDroppedEvents() {
+        AsyncEventDispatcher current = dispatcher;
+        return current == null ? 0 : current.getDroppedCount();
+    }
+
+    /**
+     * @return eventi fusi con uno già in coda (politica COALESCE)
+     */
+    public long getCoalescedEvents() {
+        AsyncEventDispatcher current = dispatcher;
+        return current == null ? 0 : current.getCoalescedCount();
+    }
+
+    /**
+     * Esegue l'azione dopo che gli observer asincroni hanno ricevuto gli eventi
+     * già generati; senza dispatch asincrono la esegue subito.
+     * Serve a rilasciare risorse (es. azzerare password) che gli eventi in coda
+     * referenziano ancora.
+     * @param action azione da eseguire
+     */
+    protected void afterDelivery(Runnable action) {
+        AsyncEventDispatcher current = dispatcher;
+        if (current == null || asyncObservers.length == 0) {
+            action.run();
+        } else {
+            current.submitAfter(action);
+        }
+    }
+
+    // === NOTIFICHE ===
+
     /**
      * Notifica tutti gli observer dell'aggiunta di una credenziale.
      * Metodo protected per essere chiamato dalle sottoclassi.
@@ -40,6 +149,19 @@ public abstract class VaultSubject {
         for (VaultObserver observer : observers) {
             observer.onCredentialAdded(credential, category);
         }
+        publish(() -> VaultEvent.added(category, credential));
+    }
+
+    /**
+     * Notifica tutti gli observer dell'aggiunta di un blocco di credenziali.
+     * @param credentials credenziali aggiunte
+     * @param category categoria di aggiunta
+     */
+    protected void notifyCredentialsAdded(List<Credential> credentials, String category) {
+        for (VaultObserver observer : observers) {
+            observer.onCredentialsAdded(credentials, category);
+        }
+        publishCallback(observer -> observer.onCredentialsAdded(credentials, category));
     }
 
     /**
@@ -51,6 +173,7 @@ public abstract class VaultSubject {
         for (VaultObserver observer : observers) {
             observer.onCredentialRemoved(credential, category);
         }
+        publish(() -> VaultEvent.removed(category, credential));
     }
 
     /**
@@ -63,6 +186,7 @@ public abstract class VaultSubject {
         for (VaultObserver observer : observers) {
             observer.onCredentialModified(oldCredential, newCredential, category);
         }
+        publish(() -> VaultEvent.modified(category, oldCredential, newCredential));
     }
 
     /**
@@ -72,5 +196,56 @@ public abstract class VaultSubject {
         for (VaultObserver observer : observers) {
             observer.onVaultCleared();
         }
+        publish(VaultEvent::cleared);
+    }
+
+    /**
+     * Notifica tutti gli observer di un blocco di modifiche (una sola consegna per observer).
+     * @param events eventi nell'ordine di applicazione
+     */
+    protected void notifyBatch(List<VaultEvent> events) {
+        for (VaultObserver observer : observers) {
+            observer.onBatch(events);
+        }
+        publishCallback(observer -> observer.onBatch(events));
+    }
+
+    // === SUPPORTO ===
+
+    /**
+     * Accoda l'evento per gli observer asincroni (creato solo se ce ne sono).
+     */
+    private void publish(Supplier<VaultEvent> event) {
+        VaultObserver[] targets = asyncObservers;
+        AsyncEventDispatcher current = dispatcher;
+        if (targets.length > 0 && current != null) {
+            current.submit(targets, event.get());
+        }
+    }
+
+    private void publishCallback(Consumer<VaultObserver> callback) {
+        VaultObserver[] targets = asyncObservers;
+        AsyncEventDispatcher current = dispatcher;
+        if (targets.length > 0 && current != null) {
+            current.submit(targets, callback);
+        }
+    }
+
+    private static VaultObserver[] with(VaultObserver[] current, VaultObserver observer) {
+        VaultObserver[] updated = Arrays.copyOf(current, current.length + 1);
+        updated[current.length] = observer;
+        return updated;
+    }
+
+    private static VaultObserver[] without(VaultObserver[] current, VaultObserver observer) {
+        for (int i = 0; i < current.length; i++) {
+            if (current[i].equals(observer)) {
+                VaultObserver[] updated = new VaultObserver[current.length - 1];
+                System.arraycopy(current, 0, updated, 0, i);
+                System.arraycopy(current, i + 1, updated, i, current.length - i - 1);
+                return updated;
+            }
+        }
+        return current;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,175 @@
+package com.securevault.query;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntConsumer;
+
+/**
+ * Automa di Aho-Corasick per la ricerca simultanea di molti pattern
+ * (sottostringhe, maiuscole/minuscole ignorate).
+ *
+ * Il trie dei pattern viene compilato in un automa deterministico completo:
+ * una tabella di transizione int[stato * alfabeto], dove l'alfabeto contiene
+ * i soli caratteri presenti nei pattern (un carattere esterno riporta alla
+ * radice). La scansione di un testo costa quindi un accesso a tabella per
+ * carattere, indipendentemente dal numero di pattern, più il numero di match.
+ *
+ * Per ogni stato l'elenco dei pattern riconosciuti include già quelli dei
+ * suffissi (link di fallimento risolti in compilazione).
+ * L'automa è immutabile: può essere usato da più thread.
+ */
+public final class AhoCorasick {
+    private static final int ROOT = 0;
+    private static final int ABSENT = -1;
+    private static final int[] NO_MATCHES = new int[0];
+
+    private final int[] asciiAlphabet = new int[128];      // Carattere ASCII -> indice nell'alfabeto
+    private final Map<Character, Integer> otherAlphabet = new HashMap<>();
+    private final int alphabetSize;
+    private final int[] delta;                             // stato * alphabetSize + simbolo -> stato
+    private final int[][] outputs;                         // Pattern riconosciuti per stato
+    private final int patternCount;
+
+    /**
+     * Compila l'automa.
+     * @param patterns pattern non vuoti; l'indice nella lista è l'id riportato nei match
+     */
+    public AhoCorasick(List<String> patterns) {
+        this.patternCount = patterns.size();
+        Arrays.fill(asciiAlphabet, ABSENT);
+        int symbols = 0;
+        int maxStates = 1;
+        for (String pattern : patterns) {
+            if (pattern.isEmpty()) {
+                throw new IllegalArgumentException("Pattern vuoto non ammesso");
+            }
+            maxStates += pattern.length();
+            for (int i = 0; i < pattern.length(); i++) {
+                char c = Character.toLowerCase(pattern.charAt(i));
+                if (symbolOf(c) == ABSENT) {
+                    if (c < 128) {
+                        asciiAlphabet[c] = symbols++;
+                    } else {
+                        otherAlphabet.put(c, symbols++);
+                    }
+                }
+            }
+        }
+        this.alphabetSize = Math.max(symbols, 1);
+
+        // === 1. TRIE (ABSENT = transizione mancante) ===
+        int[] trie = new int[maxStates * alphabetSize];
+        Arrays.fill(trie, ABSENT);
+        int[][] terminal = new int[maxStates][];
+        int states = 1;
+        for (int id = 0; id < patterns.size(); id++) {
+            String pattern = patterns.get(id);
+            int state = ROOT;
+            for (int i = 0; i < pattern.length(); i++) {
+                int slot = state * alphabetSize + symbolOf(Character.toLowerCase(pattern.charAt(i)));
+                if (trie[slot] == ABSENT) {
+                    trie[slot] = states++;
+                }
+                state = trie[slot];
+            }
+            terminal[state] = append(terminal[state], id);
+        }
+
+        // === 2. FALLIMENTI IN AMPIEZZA: completa la tabella e unisce gli output ===
+        this.delta = Arrays.copyOf(trie, states * alphabetSize);
+        this.outputs = new int[states][];
+        int[] fail = new int[states];
+        ArrayDeque<Integer> queue = new ArrayDeque<>();
+        outputs[ROOT] = terminal[ROOT] == null ? NO_MATCHES : terminal[ROOT];
+        for (int s = 0; s < alphabetSize; s++) {
+            int next = delta[s];
+            if (next == ABSENT) {
+                delta[s] = ROOT;
+            } else {
+                fail[next] = ROOT;
+                queue.add(next);
+            }
+        }
+        while (!queue.isEmpty()) {
+            int state = queue.poll();
+            outputs[state] = merge(terminal[state], outputs[fail[state]]);
+            for (int s = 0; s < alphabetSize; s++) {
+                int slot = state * alphabetSize + s;
+                int next = delta[slot];
+                if (next == ABSENT) {
+                    delta[slot] = delta[fail[state] * alphabetSize + s];
+                } else {
+                    fail[next] = delta[fail[state] * alphabetSize + s];
+                    queue.add(next);
+                }
+            }
+        }
+    }
+
+    /**
+     * @return numero di pattern compilati
+     */
+    public int patternCount() {
+        return patternCount;
+    }
+
+    /**
+     * Scandisce il testo una sola volta riportando ogni occorrenza di ogni pattern.
+     * @param text testo da analizzare
+     * @param onMatch riceve l'id del pattern per ogni occorrenza
+     */
+    public void match(CharSequence text, IntConsumer onMatch) {
+        int state = ROOT;
+        for (int i = 0; i < text.length(); i++) {
+            int symbol = symbolOf(Character.toLowerCase(text.charAt(i)));
+            state = symbol == ABSENT ? ROOT : delta[state * alphabetSize + symbol];
+            for (int id : outputs[state]) {
+                onMatch.accept(id);
+            }
+        }
+    }
+
+    /**
+     * @param text testo da analizzare
+     * @return true se almeno un pattern compare nel testo
+     */
+    public boolean matchesAny(CharSequence text) {
+        int state = ROOT;
+        for (int i = 0; i < text.length(); i++) {
+            int symbol = symbolOf(Character.toLowerCase(text.charAt(i)));
+            state = symbol == ABSENT ? ROOT : delta[state * alphabetSize + symbol];
+            if (outputs[state].length > 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private int symbolOf(char c) {
+        return c < 128 ? asciiAlphabet[c] : otherAlphabet.getOrDefault(c, ABSENT);
+    }
+
+    private static int[] append(int[] ids, int id) {
+        if (ids == null) {
+            return new int[] {id};
+        }
+        int[] grown = Arrays.copyOf(ids, ids.length + 1);
+        grown[ids.length] = id;
+        return grown;
+    }
+
+    private static int[] merge(int[] own, int[] inherited) {
+        if (own == null) {
+            return inherited;      // Condiviso: gli array non vengono mai modificati
+        }
+        if (inherited.length == 0) {
+            return own;
+        }
+        int[] merged = Arrays.copyOf(own, own.length + inherited.length);
+        System.arraycopy(inherited, 0, merged, own.length, inherited.length);
+        return merged;
+    }
+}
@@ -0,0 +1,316 @@
+package com.securevault.query;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * BK-tree (Burkhard-Keller) sui nomi di servizio normalizzati, per ricerche
+ * tolleranti agli errori di battitura.
+ *
+ * Ogni nodo indicizza i figli per distanza dal nodo stesso. Per la
+ * disuguaglianza triangolare, cercando entro distanza k da una query che dista
+ * d dal nodo basta visitare i figli con etichetta in [d - k, d + k]: per k
+ * piccoli si esamina solo una frazione dell'albero invece di calcolare la
+ * distanza di edit con ogni servizio.
+ *
+ * Distanze: l'albero è indicizzato sulla Damerau-Levenshtein non ristretta,
+ * che è una metrica (la potatura richiede la disuguaglianza triangolare, che
+ * la variante ristretta OSA non rispetta: "ca" -> "abc" vale 3 in OSA ma
+ * "ca" -> "ac" -> "abc" vale 1 + 1). Poiché la distanza non ristretta non
+ * supera mai la OSA, l'intervallo [d - k, d + k] non perde candidati; i
+ * risultati sono poi filtrati e ordinati con la OSA (con limite e uscita
+ * anticipata), che non ammette modifiche dentro una trasposizione.
+ *
+ * Ogni nome conserva un contatore di occorrenze (popolarità) aggiornato in modo
+ * incrementale; i nomi che scendono a zero restano come nodi "spenti" finché
+ * non superano la metà dell'albero, poi l'albero viene ricostruito.
+ */
+public class BkTree {
+
+    /**
+     * Risultato di una ricerca fuzzy.
+     */
+    public static final class Match {
+        private final String term;
+        private final int distance;
+        private final int popularity;
+
+        Match(String term, int distance, int popularity) {
+            this.term = term;
+            this.distance = distance;
+            this.popularity = popularity;
+        }
+
+        /** @return nome di servizio normalizzato */
+        public String getTerm() {
+            return term;
+        }
+
+        /** @return distanza di edit dalla query */
+        public int getDistance() {
+            return distance;
+        }
+
+        /** @return numero di credenziali con questo servizio */
+        public int getPopularity() {
+            return popularity;
+        }
+    }
+
+    // Ordinamento dei risultati: più vicini prima, poi più popolari, poi alfabetico
+    private static final Comparator<Match> RANKING = Comparator.comparingInt(Match::getDistance)
+            .thenComparing(Comparator.comparingInt(Match::getPopularity).reversed())
+            .thenComparing(Match::getTerm);
+
+    private static final class Node {
+        final String term;
+        int count;
+        final Map<Integer, Node> children = new HashMap<>(4);
+
+        Node(String term) {
+            this.term = term;
+        }
+    }
+
+    private Node root;
+    private final Map<String, Node> nodes = new HashMap<>();   // Accesso O(1) per add/remove
+    private int liveTerms = 0;
+
+    // === MANUTENZIONE INCREMENTALE ===
+
+    /**
+     * Registra una occorrenza del termine.
+     * @param term nome di servizio (non normalizzato)
+     */
+    public void add(String term) {
+        String key = normalize(term);
+        Node node = nodes.get(key);
+        if (node == null) {
+            node = insert(key);
+        }
+        if (node.count++ == 0) {
+            liveTerms++;
+        }
+    }
+
+    /**
+     * Rimuove una occorrenza del termine.
+     * @param term nome di servizio (non normalizzato)
+     */
+    public void remove(String term) {
+        Node node = nodes.get(normalize(term));
+        if (node == null || node.count == 0) {
+            return;
+        }
+        if (--node.count == 0) {
+            liveTerms--;
+            // Troppi nodi spenti rallentano le ricerche: ricostruzione ammortizzata
+            if (nodes.size() > 16 && liveTerms * 2 < nodes.size()) {
+                rebuild();
+            }
+        }
+    }
+
+    /**
+     * Svuota l'albero.
+     */
+    public void clear() {
+        root = null;
+        nodes.clear();
+        liveTerms = 0;
+    }
+
+    // === RICERCA ===
+
+    /**
+     * Cerca i termini entro la distanza massima, ordinati per distanza e popolarità.
+     * @param query testo cercato (non normalizzato)
+     * @param maxDistance distanza di edit massima ammessa (>= 0)
+     * @return termini trovati in ordine di rilevanza
+     */
+    public List<Match> search(String query, int maxDistance) {
+        if (maxDistance < 0) {
+            throw new IllegalArgumentException("La distanza massima non può essere negativa");
+        }
+        List<Match> result = new ArrayList<>();
+        if (root == null) {
+            return result;
+        }
+        String needle = normalize(query);
+
+        // Visita iterativa per non dipendere dalla profondità dell'albero
+        Deque<Node> pending = new ArrayDeque<>();
+        pending.push(root);
+        while (!pending.isEmpty()) {
+            Node node = pending.pop();
+            int d = metricDistance(needle, node.term);
+            if (d <= maxDistance && node.count > 0) {
+                // Metrica <= OSA: la OSA decide l'ammissione e il ranking
+                int osa = distance(needle, node.term, maxDistance);
+                if (osa <= maxDistance) {
+                    result.add(new Match(node.term, osa, node.count));
+                }
+            }
+            int low = d - maxDistance;
+            int high = d + maxDistance;
+            for (Map.Entry<Integer, Node> child : node.children.entrySet()) {
+                int edge = child.getKey();
+                if (edge >= low && edge <= high) {
+                    pending.push(child.getValue());
+                }
+            }
+        }
+        result.sort(RANKING);
+        return result;
+    }
+
+    /**
+     * @return numero di termini distinti con almeno una occorrenza
+     */
+    public int size() {
+        return liveTerms;
+    }
+
+    // === IMPLEMENTAZIONE ===
+
+    private Node insert(String key) {
+        Node created = new Node(key);
+        nodes.put(key, created);
+        if (root == null) {
+            root = created;
+            return created;
+        }
+        Node current = root;
+        while (true) {
+            int d = metricDistance(key, current.term);
+            Node next = current.children.get(d);
+            if (next == null) {
+                current.children.put(d, created);
+                return created;
+            }
+            current = next;
+        }
+    }
+
+    private void rebuild() {
+        List<Node> live = new ArrayList<>(liveTerms);
+        for (Node node : nodes.values()) {
+            if (node.count > 0) live.add(node);
+        }
+        clear();
+        for (Node old : live) {
+            insert(old.term).count = old.count;
+        }
+        liveTerms = live.size();
+    }
+
+    private static String normalize(String term) {
+        return term.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Distanza Damerau-Levenshtein non ristretta (Lowrance-Wagner), metrica
+     * usata per le etichette dell'albero. Per ogni carattere ricorda l'ultima
+     * riga in cui compare, così una trasposizione può includere modifiche tra
+     * i due caratteri scambiati. O(n * m).
+     *
+     * @param a prima stringa
+     * @param b seconda stringa
+     * @return distanza esatta
+     */
+    static int metricDistance(String a, String b) {
+        int n = a.length();
+        int m = b.length();
+        if (n == 0) return m;
+        if (m == 0) return n;
+
+        int infinity = n + m;
+        int[][] h = new int[n + 2][m + 2];
+        h[0][0] = infinity;
+        for (int i = 0; i <= n; i++) {
+            h[i + 1][0] = infinity;
+            h[i + 1][1] = i;
+        }
+        for (int j = 0; j <= m; j++) {
+            h[0][j + 1] = infinity;
+            h[1][j + 1] = j;
+        }
+        Map<Character, Integer> lastRow = new HashMap<>();
+        for (int i = 1; i <= n; i++) {
+            char ca = a.charAt(i - 1);
+            int lastMatchColumn = 0;
+            for (int j = 1; j <= m; j++) {
+                char cb = b.charAt(j - 1);
+                int k = lastRow.getOrDefault(cb, 0);    // Ultima riga con cb in a
+                int l = lastMatchColumn;                // Ultima colonna con ca in b
+                int cost = 1;
+                if (ca == cb) {
+                    cost = 0;
+                    lastMatchColumn = j;
+                }
+                h[i + 1][j + 1] = Math.min(Math.min(h[i][j] + cost, h[i + 1][j] + 1),
+                        Math.min(h[i][j + 1] + 1, h[k][l] + (i - k - 1) + 1 + (j - l - 1)));
+            }
+            lastRow.put(ca, i);
+        }
+        return h[n + 1][m + 1];
+    }
+
+    /**
+     * Distanza Damerau-Levenshtein (OSA) con limite.
+     * Usa tre righe della matrice di programmazione dinamica e si ferma appena
+     * il minimo di una riga supera il limite.
+     *
+     * @param a prima stringa
+     * @param b seconda stringa
+     * @param bound limite superiore di interesse
+     * @return distanza esatta se <= bound, altrimenti un valore > bound
+     */
+    static int distance(String a, String b, int bound) {
+        int n = a.length();
+        int m = b.length();
+        if (Math.abs(n - m) > bound) {
+            return bound + 1;   // La differenza di lunghezza è già un limite inferiore
+        }
+        if (n == 0) return m;
+        if (m == 0) return n;
+
+        int[] prevPrev = new int[m + 1];
+        int[] prev = new int[m + 1];
+        int[] curr = new int[m + 1];
+        for (int j = 0; j <= m; j++) {
+            prev[j] = j;
+        }
+
+        for (int i = 1; i <= n; i++) {
+            curr[0] = i;
+            int rowMin = curr[0];
+            char ca = a.charAt(i - 1);
+            for (int j = 1; j <= m; j++) {
+                char cb = b.charAt(j - 1);
+                int cost = ca == cb ? 0 : 1;
+                int value = Math.min(Math.min(prev[j] + 1, curr[j - 1] + 1), prev[j - 1] + cost);
+                // Trasposizione di due caratteri adiacenti
+                if (i > 1 && j > 1 && ca == b.charAt(j - 2) && a.charAt(i - 2) == cb) {
+                    value = Math.min(value, prevPrev[j - 2] + 1);
+                }
+                curr[j] = value;
+                rowMin = Math.min(rowMin, value);
+            }
+            if (rowMin > bound) {
+                return bound + 1;   // Uscita anticipata: nessun allineamento può rientrare
+            }
+            int[] recycled = prevPrev;
+            prevPrev = prev;
+            prev = curr;
+            curr = recycled;
+        }
+        return prev[m];
+    }
+}
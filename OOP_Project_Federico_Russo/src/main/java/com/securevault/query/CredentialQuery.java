@@ -0,0 +1,345 @@
+package com.securevault.query;
+
+import com.securevault.model.Credential;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+
+/**
+ * Query componibile sulle credenziali (alternativa "trasparente" ai Predicate).
+ * A differenza di una lambda, la struttura della query è ispezionabile:
+ * il planner può quindi scegliere un indice per ogni foglia e valutare con una
+ * scansione solo il predicato residuo.
+ *
+ * Foglie disponibili: uguaglianza, prefisso e sottostringa su servizio/username
+ * (case-insensitive, come searchByService) e appartenenza a una categoria
+ * (case-sensitive, come getByCategory). Combinatori: AND, OR, NOT.
+ *
+ * Esempio:
+ * <pre>
+ *   CredentialQuery q = CredentialQuery.inCategory("Work")
+ *       .and(CredentialQuery.fieldStartsWith(Field.SERVICE, "git"));
+ *   List&lt;Credential&gt; result = repository.query(q);
+ * </pre>
+ */
+public abstract class CredentialQuery {
+
+    /**
+     * Campi testuali interrogabili.
+     */
+    public enum Field {
+        SERVICE("service") {
+            @Override
+            String valueOf(Credential credential) {
+                return credential.getService();
+            }
+        },
+        USERNAME("username") {
+            @Override
+            String valueOf(Credential credential) {
+                return credential.getUsername();
+            }
+        };
+
+        private final String label;
+
+        Field(String label) {
+            this.label = label;
+        }
+
+        abstract String valueOf(Credential credential);
+
+        @Override
+        public String toString() {
+            return label;
+        }
+    }
+
+    // Costruttore package-private: la gerarchia è chiusa (solo i nodi di questo file)
+    CredentialQuery() {
+    }
+
+    /**
+     * Valuta la query su una singola credenziale.
+     * @param credential credenziale da verificare
+     * @param category categoria in cui si trova la credenziale
+     * @return true se la credenziale soddisfa la query
+     */
+    public abstract boolean matches(Credential credential, String category);
+
+    /**
+     * Miglior percorso di accesso tramite indici per questa (sotto)query.
+     * @param indexes indici disponibili
+     * @return accesso con eventuale residuo, o null se serve una scansione completa
+     */
+    abstract IndexAccess access(QueryIndexes indexes);
+
+    // === COMBINATORI FLUENT ===
+
+    public CredentialQuery and(CredentialQuery other) {
+        return allOf(this, other);
+    }
+
+    public CredentialQuery or(CredentialQuery other) {
+        return anyOf(this, other);
+    }
+
+    public CredentialQuery negate() {
+        return not(this);
+    }
+
+    // === FACTORY METHODS ===
+
+    public static CredentialQuery fieldEquals(Field field, String value) {
+        return new FieldMatch(field, Op.EQUALS, value);
+    }
+
+    public static CredentialQuery fieldStartsWith(Field field, String prefix) {
+        return new FieldMatch(field, Op.PREFIX, prefix);
+    }
+
+    public static CredentialQuery fieldContains(Field field, String substring) {
+        return new FieldMatch(field, Op.CONTAINS, substring);
+    }
+
+    public static CredentialQuery inCategory(String category) {
+        return new CategoryMatch(category);
+    }
+
+    public static CredentialQuery allOf(CredentialQuery... queries) {
+        return new And(Arrays.asList(queries));
+    }
+
+    public static CredentialQuery anyOf(CredentialQuery... queries) {
+        return new Or(Arrays.asList(queries));
+    }
+
+    public static CredentialQuery not(CredentialQuery query) {
+        return new Not(query);
+    }
+
+    /**
+     * Normalizzazione usata sia dagli indici sia dalle query.
+     * @param value valore originale
+     * @return valore in minuscolo (locale-indipendente)
+     */
+    static String normalize(String value) {
+        return value.toLowerCase(Locale.ROOT);
+    }
+
+    // === NODI DELL'ALBERO DELLA QUERY ===
+
+    private enum Op { EQUALS, PREFIX, CONTAINS }
+
+    private static final class FieldMatch extends CredentialQuery {
+        private final Field field;
+        private final Op op;
+        private final String value;     // Già normalizzato
+
+        FieldMatch(Field field, Op op, String value) {
+            this.field = Objects.requireNonNull(field);
+            this.op = op;
+            this.value = normalize(Objects.requireNonNull(value));
+        }
+
+        @Override
+        public boolean matches(Credential credential, String category) {
+            String actual = normalize(field.valueOf(credential));
+            return switch (op) {
+                case EQUALS -> actual.equals(value);
+                case PREFIX -> actual.startsWith(value);
+                case CONTAINS -> actual.contains(value);
+            };
+        }
+
+        @Override
+        IndexAccess access(QueryIndexes indexes) {
+            switch (op) {
+                case EQUALS -> {
+                    Postings postings = indexes.hash(field).lookup(value);
+                    String description = "HashIndex(" + this + ")";
+                    return postings == null
+                            ? IndexAccess.empty(description)
+                            : IndexAccess.of(description, List.of(postings), null);
+                }
+                case PREFIX -> {
+                    return IndexAccess.of("SortedIndex(" + this + ")", indexes.sorted(field).prefix(value), null);
+                }
+                default -> {
+                    // Sottostringhe troppo corte non hanno trigrammi: scansione
+                    if (value.length() < TrigramIndex.GRAM) {
+                        return null;
+                    }
+                    Postings postings = indexes.trigram(field).narrowest(value);
+                    String description = "TrigramIndex(" + this + ")";
+                    // I trigrammi danno un superset: la foglia resta come residuo
+                    return postings == null
+                            ? IndexAccess.empty(description)
+                            : IndexAccess.of(description, List.of(postings), this);
+                }
+            }
+        }
+
+        @Override
+        public String toString() {
+            String symbol = switch (op) {
+                case EQUALS -> "=";
+                case PREFIX -> "^=";
+                case CONTAINS -> "~";
+            };
+            return field + " " + symbol + " '" + value + "'";
+        }
+    }
+
+    private static final class CategoryMatch extends CredentialQuery {
+        private final String category;
+
+        CategoryMatch(String category) {
+            this.category = Objects.requireNonNull(category);
+        }
+
+        @Override
+        public boolean matches(Credential credential, String actualCategory) {
+            return category.equals(actualCategory);
+        }
+
+        @Override
+        IndexAccess access(QueryIndexes indexes) {
+            Postings postings = indexes.categories().lookup(category);
+            String description = "CategoryIndex(" + this + ")";
+            return postings == null
+                    ? IndexAccess.empty(description)
+                    : IndexAccess.of(description, List.of(postings), null);
+        }
+
+        @Override
+        public String toString() {
+            return "category = '" + category + "'";
+        }
+    }
+
+    private static final class And extends CredentialQuery {
+        private final List<CredentialQuery> children;
+
+        And(List<CredentialQuery> children) {
+            this.children = List.copyOf(children);
+        }
+
+        @Override
+        public boolean matches(Credential credential, String category) {
+            for (CredentialQuery child : children) {
+                if (!child.matches(credential, category)) return false;
+            }
+            return true;
+        }
+
+        @Override
+        IndexAccess access(QueryIndexes indexes) {
+            // Sceglie il figlio indicizzabile più selettivo
+            IndexAccess best = null;
+            int bestIndex = -1;
+            for (int i = 0; i < children.size(); i++) {
+                IndexAccess candidate = children.get(i).access(indexes);
+                if (candidate != null && (best == null || candidate.estimate() < best.estimate())) {
+                    best = candidate;
+                    bestIndex = i;
+                }
+            }
+            if (best == null) {
+                return null;
+            }
+
+            // Residuo: gli altri figli più l'eventuale residuo del figlio scelto
+            List<CredentialQuery> rest = new ArrayList<>();
+            if (best.residual() != null) {
+                rest.add(best.residual());
+            }
+            for (int i = 0; i < children.size(); i++) {
+                if (i != bestIndex) rest.add(children.get(i));
+            }
+            CredentialQuery residual = switch (rest.size()) {
+                case 0 -> null;
+                case 1 -> rest.get(0);
+                default -> new And(rest);
+            };
+            return best.withResidual(residual);
+        }
+
+        @Override
+        public String toString() {
+            return join(children, " AND ");
+        }
+    }
+
+    private static final class Or extends CredentialQuery {
+        private final List<CredentialQuery> children;
+
+        Or(List<CredentialQuery> children) {
+            this.children = List.copyOf(children);
+        }
+
+        @Override
+        public boolean matches(Credential credential, String category) {
+            for (CredentialQuery child : children) {
+                if (child.matches(credential, category)) return true;
+            }
+            return false;
+        }
+
+        @Override
+        IndexAccess access(QueryIndexes indexes) {
+            // Un OR è indicizzabile solo se lo sono tutti i rami
+            List<IndexAccess> parts = new ArrayList<>();
+            boolean exact = true;
+            for (CredentialQuery child : children) {
+                IndexAccess part = child.access(indexes);
+                if (part == null) {
+                    return null;
+                }
+                exact &= part.isExact();
+                parts.add(part);
+            }
+            return IndexAccess.union(parts, exact ? null : this);
+        }
+
+        @Override
+        public String toString() {
+            return join(children, " OR ");
+        }
+    }
+
+    private static final class Not extends CredentialQuery {
+        private final CredentialQuery child;
+
+        Not(CredentialQuery child) {
+            this.child = Objects.requireNonNull(child);
+        }
+
+        @Override
+        public boolean matches(Credential credential, String category) {
+            return !child.matches(credential, category);
+        }
+
+        @Override
+        IndexAccess access(QueryIndexes indexes) {
+            return null;  // Il complemento non è indicizzabile: resta come residuo
+        }
+
+        @Override
+        public String toString() {
+            return "NOT " + child;
+        }
+    }
+
+    private static String join(List<CredentialQuery> children, String separator) {
+        StringBuilder sb = new StringBuilder("(");
+        for (int i = 0; i < children.size(); i++) {
+            if (i > 0) sb.append(separator);
+            sb.append(children.get(i));
+        }
+        return sb.append(')').toString();
+    }
+}
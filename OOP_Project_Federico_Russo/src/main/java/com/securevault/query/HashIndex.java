@@ -0,0 +1,42 @@
+package com.securevault.query;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Indice hash per uguaglianza esatta su una chiave (campo normalizzato o categoria).
+ * Lookup O(1) indipendente dalla dimensione del vault.
+ */
+final class HashIndex {
+    private final Map<String, Postings> buckets = new HashMap<>();
+
+    void add(String key, IndexedCredential entry) {
+        buckets.computeIfAbsent(key, k -> new Postings()).add(entry);
+    }
+
+    void remove(String key, IndexedCredential entry) {
+        Postings postings = buckets.get(key);
+        if (postings != null && postings.remove(entry) && postings.isEmpty()) {
+            buckets.remove(key);   // CLEANUP: niente bucket vuoti
+        }
+    }
+
+    void clear() {
+        buckets.clear();
+    }
+
+    /**
+     * @param key chiave esatta
+     * @return posting list della chiave o null se assente
+     */
+    Postings lookup(String key) {
+        return buckets.get(key);
+    }
+
+    /**
+     * @return vista sui bucket (usata per la scansione completa)
+     */
+    Iterable<Postings> all() {
+        return buckets.values();
+    }
+}
@@ -0,0 +1,110 @@
+package com.securevault.query;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * Percorso di accesso scelto dal planner: un insieme di candidati ottenuto da
+ * uno o più indici, la sua cardinalità stimata e il predicato residuo che
+ * i candidati devono ancora soddisfare (null se l'accesso è già esatto).
+ */
+final class IndexAccess {
+    private final String description;
+    private final int estimate;
+    private final CredentialQuery residual;
+    private final Supplier<List<Postings>> sources;   // Lazy: materializzato solo se scelto
+
+    private IndexAccess(String description, int estimate, CredentialQuery residual,
+                        Supplier<List<Postings>> sources) {
+        this.description = description;
+        this.estimate = estimate;
+        this.residual = residual;
+        this.sources = sources;
+    }
+
+    /**
+     * Accesso su posting list disgiunte (un bucket hash, un range del TreeMap, un trigramma).
+     */
+    static IndexAccess of(String description, List<Postings> postings, CredentialQuery residual) {
+        int estimate = postings.stream().mapToInt(Postings::size).sum();
+        return new IndexAccess(description, estimate, residual, () -> postings);
+    }
+
+    /**
+     * Accesso che non produce candidati (es. chiave assente dall'indice).
+     */
+    static IndexAccess empty(String description) {
+        return new IndexAccess(description, 0, null, Collections::emptyList);
+    }
+
+    /**
+     * Unione (OR) di più accessi. Una voce che soddisfa più rami compare una
+     * sola volta con tutte le sue istanze, come in una scansione completa.
+     * La stima è il limite superiore (somma delle stime).
+     */
+    static IndexAccess union(List<IndexAccess> parts, CredentialQuery residual) {
+        int estimate = parts.stream().mapToInt(IndexAccess::estimate).sum();
+        StringBuilder description = new StringBuilder("Union(");
+        for (int i = 0; i < parts.size(); i++) {
+            if (i > 0) description.append(", ");
+            description.append(parts.get(i).description());
+        }
+        description.append(')');
+
+        return new IndexAccess(description.toString(), estimate, residual, () -> {
+            // Ogni indice contiene tutte le istanze di un valore: basta il gruppo più grande
+            Map<IndexedCredential, List<IndexedCredential>> merged = new HashMap<>();
+            for (IndexAccess part : parts) {
+                part.forEachGroup(group -> merged.merge(group.get(0), group,
+                        (a, b) -> a.size() >= b.size() ? a : b));
+            }
+            Postings postings = new Postings();
+            merged.values().forEach(postings::addGroup);
+            return List.of(postings);
+        });
+    }
+
+    /**
+     * @return copia dell'accesso con un diverso predicato residuo
+     */
+    IndexAccess withResidual(CredentialQuery newResidual) {
+        return new IndexAccess(description, estimate, newResidual, sources);
+    }
+
+    String description() {
+        return description;
+    }
+
+    int estimate() {
+        return estimate;
+    }
+
+    CredentialQuery residual() {
+        return residual;
+    }
+
+    boolean isExact() {
+        return residual == null;
+    }
+
+    /**
+     * Visita i candidati raggruppati per valore.
+     */
+    void forEachGroup(Consumer<List<IndexedCredential>> action) {
+        for (Postings postings : sources.get()) {
+            postings.forEachGroup(action);
+        }
+    }
+
+    /**
+     * Stream lazy dei candidati raggruppati per valore.
+     */
+    Stream<List<IndexedCredential>> stream() {
+        return sources.get().stream().flatMap(Postings::stream);
+    }
+}
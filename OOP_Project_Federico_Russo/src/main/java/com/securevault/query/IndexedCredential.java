@@ -0,0 +1,41 @@
+package com.securevault.query;
+
+import com.securevault.model.Credential;
+
+import java.util.Objects;
+
+/**
+ * Voce di un indice: coppia (categoria, credenziale).
+ * La categoria è necessaria per valutare i predicati residui sui candidati
+ * restituiti da un indice, che non conosce la struttura del repository.
+ */
+final class IndexedCredential {
+    private final String category;
+    private final Credential credential;
+
+    IndexedCredential(String category, Credential credential) {
+        this.category = category;
+        this.credential = credential;
+    }
+
+    String getCategory() {
+        return category;
+    }
+
+    Credential getCredential() {
+        return credential;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof IndexedCredential that)) return false;
+        return Objects.equals(category, that.category) &&
+               Objects.equals(credential, that.credential);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(category, credential);
+    }
+}
@@ -0,0 +1,85 @@
+package com.securevault.query;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Posting list di un indice: multiset di voci raggruppate per valore.
+ * Il repository ammette credenziali identiche nella stessa categoria,
+ * quindi ogni valore conserva le istanze effettivamente memorizzate (non solo
+ * un contatore): i risultati restituiscono le istanze del vault e la rimozione
+ * toglie proprio l'istanza uscita dal repository.
+ * Inserimento O(1), rimozione O(duplicati dello stesso valore).
+ */
+final class Postings {
+    private final Map<IndexedCredential, List<IndexedCredential>> groups = new HashMap<>();
+    private int size = 0;
+
+    void add(IndexedCredential entry) {
+        groups.computeIfAbsent(entry, k -> new ArrayList<>(1)).add(entry);
+        size++;
+    }
+
+    /**
+     * Aggiunge tutte le istanze di un gruppo di voci uguali.
+     * @param group istanze con lo stesso valore (non vuoto)
+     */
+    void addGroup(List<IndexedCredential> group) {
+        groups.computeIfAbsent(group.get(0), k -> new ArrayList<>(group.size())).addAll(group);
+        size += group.size();
+    }
+
+    /**
+     * Rimuove una occorrenza della voce: l'istanza indicata se presente,
+     * altrimenti un'altra istanza con lo stesso valore.
+     * @return true se la voce era presente
+     */
+    boolean remove(IndexedCredential entry) {
+        List<IndexedCredential> group = groups.get(entry);
+        if (group == null) return false;
+        int index = group.size() - 1;
+        for (int i = 0; i < group.size(); i++) {
+            if (group.get(i).getCredential() == entry.getCredential()) {
+                index = i;
+                break;
+            }
+        }
+        group.remove(index);
+        if (group.isEmpty()) {
+            groups.remove(entry);
+        }
+        size--;
+        return true;
+    }
+
+    /**
+     * @return numero totale di occorrenze (con molteplicità)
+     */
+    int size() {
+        return size;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Visita ogni gruppo di istanze con lo stesso valore.
+     * @param action consumer del gruppo (da non modificare)
+     */
+    void forEachGroup(Consumer<List<IndexedCredential>> action) {
+        groups.values().forEach(action);
+    }
+
+    /**
+     * Stream lazy dei gruppi di istanze uguali (permette short-circuit).
+     * @return stream di gruppi non vuoti
+     */
+    Stream<List<IndexedCredential>> stream() {
+        return groups.values().stream();
+    }
+}
@@ -0,0 +1,141 @@
+package com.securevault.query;
+
+import com.securevault.model.Credential;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Insieme degli indici secondari mantenuti dal repository e planner delle query.
+ *
+ * Indici per ciascun campo testuale (servizio, username):
+ * - HashIndex: uguaglianza esatta
+ * - SortedIndex: prefisso
+ * - TrigramIndex: sottostringa (almeno 3 caratteri)
+ * più un indice hash per categoria, che serve anche come sorgente per la
+ * scansione completa quando nessun indice è applicabile.
+ *
+ * Il repository chiama add/remove/clear ad ogni mutazione, così gli indici
+ * restano sempre allineati ai dati. Le mutazioni avvengono sotto il lock del
+ * proprietario: i piani eseguono sotto lo stesso lock e restituiscono
+ * risultati materializzati, mai viste sulle strutture vive.
+ */
+public class QueryIndexes {
+    private final Map<CredentialQuery.Field, HashIndex> hashIndexes = new EnumMap<>(CredentialQuery.Field.class);
+    private final Map<CredentialQuery.Field, SortedIndex> sortedIndexes = new EnumMap<>(CredentialQuery.Field.class);
+    private final Map<CredentialQuery.Field, TrigramIndex> trigramIndexes = new EnumMap<>(CredentialQuery.Field.class);
+    private final HashIndex categoryIndex = new HashIndex();
+    private final Object lock;     // Monitor che protegge gli indici
+    private int size = 0;
+
+    public QueryIndexes() {
+        this(null);
+    }
+
+    /**
+     * @param lock monitor sotto cui il proprietario modifica gli indici (null = questo oggetto)
+     */
+    public QueryIndexes(Object lock) {
+        this.lock = lock != null ? lock : this;
+        for (CredentialQuery.Field field : CredentialQuery.Field.values()) {
+            hashIndexes.put(field, new HashIndex());
+            sortedIndexes.put(field, new SortedIndex());
+            trigramIndexes.put(field, new TrigramIndex());
+        }
+    }
+
+    // === MANUTENZIONE INCREMENTALE ===
+
+    /**
+     * Indicizza una credenziale appena aggiunta.
+     * @param category categoria della credenziale
+     * @param credential credenziale aggiunta
+     */
+    public void add(String category, Credential credential) {
+        IndexedCredential entry = new IndexedCredential(category, credential);
+        categoryIndex.add(category, entry);
+        for (CredentialQuery.Field field : CredentialQuery.Field.values()) {
+            String key = CredentialQuery.normalize(field.valueOf(credential));
+            hashIndexes.get(field).add(key, entry);
+            sortedIndexes.get(field).add(key, entry);
+            trigramIndexes.get(field).add(key, entry);
+        }
+        size++;
+    }
+
+    /**
+     * Rimuove dagli indici una occorrenza della credenziale.
+     * @param category categoria della credenziale
+     * @param credential credenziale rimossa
+     */
+    public void remove(String category, Credential credential) {
+        IndexedCredential entry = new IndexedCredential(category, credential);
+        categoryIndex.remove(category, entry);
+        for (CredentialQuery.Field field : CredentialQuery.Field.values()) {
+            String key = CredentialQuery.normalize(field.valueOf(credential));
+            hashIndexes.get(field).remove(key, entry);
+            sortedIndexes.get(field).remove(key, entry);
+            trigramIndexes.get(field).remove(key, entry);
+        }
+        size--;
+    }
+
+    /**
+     * Svuota tutti gli indici.
+     */
+    public void clear() {
+        categoryIndex.clear();
+        hashIndexes.values().forEach(HashIndex::clear);
+        sortedIndexes.values().forEach(SortedIndex::clear);
+        trigramIndexes.values().forEach(TrigramIndex::clear);
+        size = 0;
+    }
+
+    // === PLANNING ===
+
+    /**
+     * Sceglie il piano di esecuzione per la query.
+     * Usa il percorso di accesso con la cardinalità stimata minore;
+     * se nessun indice è applicabile ripiega sulla scansione completa.
+     *
+     * Da invocare sotto il lock degli indici.
+     *
+     * @param query query da pianificare
+     * @return piano eseguibile e descrivibile
+     */
+    public QueryPlan plan(CredentialQuery query) {
+        IndexAccess access = query.access(this);
+        if (access == null || access.estimate() >= size) {
+            // Un indice che non riduce i candidati non conviene
+            IndexAccess fullScan = IndexAccess.of("FullScan", snapshotOfCategories(), query);
+            return new QueryPlan(query, fullScan, false, lock);
+        }
+        return new QueryPlan(query, access, true, lock);
+    }
+
+    // === ACCESSO AGLI INDICI (package-private, usato dai nodi della query) ===
+
+    HashIndex hash(CredentialQuery.Field field) {
+        return hashIndexes.get(field);
+    }
+
+    SortedIndex sorted(CredentialQuery.Field field) {
+        return sortedIndexes.get(field);
+    }
+
+    TrigramIndex trigram(CredentialQuery.Field field) {
+        return trigramIndexes.get(field);
+    }
+
+    HashIndex categories() {
+        return categoryIndex;
+    }
+
+    private List<Postings> snapshotOfCategories() {
+        List<Postings> all = new ArrayList<>();
+        categoryIndex.all().forEach(all::add);
+        return all;
+    }
+}
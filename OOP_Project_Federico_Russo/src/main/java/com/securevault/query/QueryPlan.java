@@ -0,0 +1,116 @@
+package com.securevault.query;
+
+import com.securevault.model.Credential;
+
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Piano di esecuzione prodotto da {@link QueryIndexes#plan(CredentialQuery)}.
+ * Descrive il percorso di accesso scelto (indice o scansione completa) e il
+ * predicato residuo applicato ai soli candidati.
+ *
+ * Il piano legge le posting list vive degli indici: l'esecuzione avviene
+ * sotto il lock degli indici e il risultato viene materializzato prima di
+ * rilasciarlo. Un piano conservato resta sicuro da eseguire, ma i percorsi
+ * di accesso sono quelli scelti alla pianificazione: per vedere le modifiche
+ * successive va ripianificato.
+ */
+public class QueryPlan {
+    private final CredentialQuery query;
+    private final IndexAccess access;
+    private final boolean indexed;
+    private final Object lock;
+
+    QueryPlan(CredentialQuery query, IndexAccess access, boolean indexed, Object lock) {
+        this.query = query;
+        this.access = access;
+        this.indexed = indexed;
+        this.lock = lock;
+    }
+
+    /**
+     * @return true se il piano usa almeno un indice invece della scansione completa
+     */
+    public boolean usesIndex() {
+        return indexed;
+    }
+
+    /**
+     * @return numero stimato di candidati da esaminare
+     */
+    public int estimatedCandidates() {
+        return access.estimate();
+    }
+
+    /**
+     * Descrizione leggibile del piano, es.
+     * {@code HashIndex(service = 'gmail') [~3] -> Filter(category = 'Work')}
+     * @return piano scelto in forma testuale
+     */
+    public String explain() {
+        StringBuilder sb = new StringBuilder(access.description())
+                .append(" [~").append(access.estimate()).append(']');
+        if (access.residual() != null) {
+            sb.append(" -> Filter").append(wrap(access.residual()));
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Esegue il piano materializzando il risultato.
+     * @return credenziali che soddisfano la query
+     */
+    public List<Credential> execute() {
+        synchronized (lock) {
+            return candidates().collect(Collectors.toList());
+        }
+    }
+
+    /**
+     * @return stream sul risultato materializzato dell'esecuzione
+     */
+    public Stream<Credential> stream() {
+        return execute().stream();
+    }
+
+    /**
+     * Verifica se esiste almeno un risultato, fermandosi al primo.
+     * @return true se almeno una credenziale soddisfa la query
+     */
+    public boolean hasAny() {
+        synchronized (lock) {
+            return candidates().findAny().isPresent();
+        }
+    }
+
+    /**
+     * Candidati filtrati in modo lazy sulle strutture vive (solo sotto il lock).
+     */
+    private Stream<Credential> candidates() {
+        CredentialQuery residual = access.residual();
+        // Il predicato è valutato una volta per valore, poi si emettono tutte le istanze
+        return access.stream()
+                .filter(group -> residual == null
+                        || residual.matches(group.get(0).getCredential(), group.get(0).getCategory()))
+                .flatMap(group -> group.stream().map(IndexedCredential::getCredential));
+    }
+
+    /**
+     * @return query originale
+     */
+    public CredentialQuery getQuery() {
+        return query;
+    }
+
+    @Override
+    public String toString() {
+        return explain();
+    }
+
+    private static String wrap(CredentialQuery q) {
+        String text = q.toString();
+        return text.startsWith("(") ? text : "(" + text + ")";
+    }
+}
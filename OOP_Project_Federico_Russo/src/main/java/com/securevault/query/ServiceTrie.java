@@ -0,0 +1,244 @@
+package com.securevault.query;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Trie compatto per l'autocompletamento dei nomi di servizio.
+ *
+ * I nodi non sono oggetti: ogni campo è un array primitivo indicizzato per id
+ * del nodo (etichetta, primo figlio, fratello successivo, padre, contatore).
+ * Ogni nodo mantiene in cache i migliori N completamenti del suo sottoalbero
+ * (in un unico array int di N slot per nodo), ordinati per numero di
+ * credenziali e poi alfabeticamente. Un lookup costa quindi O(lunghezza del
+ * prefisso) e non richiede né visite del sottoalbero né ordinamenti.
+ *
+ * Le cache vengono aggiornate lungo il solo cammino radice-terminale del
+ * termine modificato: O(lunghezza * N) per inserimento, O(lunghezza * figli * N)
+ * nel caso peggiore di una rimozione.
+ */
+public class ServiceTrie {
+    public static final int DEFAULT_TOP_N = 10;
+
+    private static final int NONE = -1;
+    private static final int ROOT = 0;
+
+    private final int topN;
+
+    // === STRUTTURA A ARRAY PARALLELI ===
+    private char[] label;
+    private int[] firstChild;
+    private int[] nextSibling;
+    private int[] parent;
+    private int[] count;          // Occorrenze del termine che termina nel nodo
+    private String[] term;        // Termine normalizzato (solo nodi terminali)
+    private String[] display;     // Grafia originale più recente (solo nodi terminali)
+    private int[] top;            // topN slot per nodo: id dei nodi terminali migliori
+    private int size;             // Nodi allocati
+
+    public ServiceTrie() {
+        this(DEFAULT_TOP_N);
+    }
+
+    /**
+     * @param topN numero di completamenti mantenuti in cache per nodo
+     */
+    public ServiceTrie(int topN) {
+        if (topN <= 0) {
+            throw new IllegalArgumentException("topN deve essere positivo");
+        }
+        this.topN = topN;
+        clear();
+    }
+
+    // === MANUTENZIONE INCREMENTALE ===
+
+    /**
+     * Registra una occorrenza del nome di servizio.
+     * @param service nome di servizio come inserito dall'utente
+     */
+    public void add(String service) {
+        String key = normalize(service);
+        int node = ROOT;
+        for (int i = 0; i < key.length(); i++) {
+            int child = findChild(node, key.charAt(i));
+            node = child != NONE ? child : newNode(node, key.charAt(i));
+        }
+        count[node]++;
+        term[node] = key;
+        display[node] = service;
+
+        // Il termine può solo salire in classifica: inserimento nelle cache del cammino
+        for (int n = node; n != NONE; n = parent[n]) {
+            promote(n, node);
+        }
+    }
+
+    /**
+     * Rimuove una occorrenza del nome di servizio.
+     * @param service nome di servizio
+     */
+    public void remove(String service) {
+        int node = walk(normalize(service));
+        if (node == NONE || count[node] == 0) {
+            return;
+        }
+        count[node]--;
+
+        // Il termine può scendere: ricalcolo bottom-up dove compariva in cache
+        for (int n = node; n != NONE; n = parent[n]) {
+            if (slotOf(n, node) != NONE) {
+                recompute(n);
+            }
+        }
+    }
+
+    /**
+     * Svuota il trie (mantiene solo la radice).
+     */
+    public void clear() {
+        int capacity = 64;
+        label = new char[capacity];
+        firstChild = new int[capacity];
+        nextSibling = new int[capacity];
+        parent = new int[capacity];
+        count = new int[capacity];
+        term = new String[capacity];
+        display = new String[capacity];
+        top = new int[capacity * topN];
+        size = 0;
+        newNode(NONE, '\0');
+    }
+
+    // === LOOKUP ===
+
+    /**
+     * Restituisce i completamenti più popolari per il prefisso.
+     * @param prefix prefisso digitato (case-insensitive)
+     * @param limit numero massimo di suggerimenti (limitato a topN)
+     * @return nomi di servizio nella grafia originale, più popolari prima
+     */
+    public List<String> complete(String prefix, int limit) {
+        List<String> result = new ArrayList<>();
+        int node = walk(normalize(prefix));
+        if (node == NONE) {
+            return result;
+        }
+        int base = node * topN;
+        for (int i = 0; i < Math.min(limit, topN) && top[base + i] != NONE; i++) {
+            result.add(display[top[base + i]]);
+        }
+        return result;
+    }
+
+    // === IMPLEMENTAZIONE ===
+
+    private int walk(String key) {
+        int node = ROOT;
+        for (int i = 0; i < key.length() && node != NONE; i++) {
+            node = findChild(node, key.charAt(i));
+        }
+        return node;
+    }
+
+    private int findChild(int node, char c) {
+        for (int child = firstChild[node]; child != NONE; child = nextSibling[child]) {
+            if (label[child] == c) return child;
+        }
+        return NONE;
+    }
+
+    private int newNode(int parentNode, char c) {
+        if (size == label.length) {
+            grow();
+        }
+        int id = size++;
+        label[id] = c;
+        firstChild[id] = NONE;
+        parent[id] = parentNode;
+        count[id] = 0;
+        Arrays.fill(top, id * topN, (id + 1) * topN, NONE);
+        if (parentNode != NONE) {
+            nextSibling[id] = firstChild[parentNode];
+            firstChild[parentNode] = id;
+        } else {
+            nextSibling[id] = NONE;
+        }
+        return id;
+    }
+
+    private void grow() {
+        int capacity = label.length * 2;
+        label = Arrays.copyOf(label, capacity);
+        firstChild = Arrays.copyOf(firstChild, capacity);
+        nextSibling = Arrays.copyOf(nextSibling, capacity);
+        parent = Arrays.copyOf(parent, capacity);
+        count = Arrays.copyOf(count, capacity);
+        term = Arrays.copyOf(term, capacity);
+        display = Arrays.copyOf(display, capacity);
+        top = Arrays.copyOf(top, capacity * topN);
+    }
+
+    /**
+     * Inserisce o riposiziona un terminale nella cache del nodo (insertion sort sugli N slot).
+     */
+    private void promote(int node, int terminal) {
+        int base = node * topN;
+        int pos = slotOf(node, terminal);
+        if (pos == NONE) {
+            // Non presente: entra solo se c'è posto o batte l'ultimo
+            int last = base + topN - 1;
+            if (top[last] != NONE && !better(terminal, top[last])) {
+                return;
+            }
+            pos = topN - 1;
+            while (pos > 0 && top[base + pos - 1] == NONE) pos--;
+        }
+        top[base + pos] = terminal;
+        while (pos > 0 && better(terminal, top[base + pos - 1])) {
+            top[base + pos] = top[base + pos - 1];
+            top[base + pos - 1] = terminal;
+            pos--;
+        }
+    }
+
+    /**
+     * Ricostruisce la cache del nodo dal proprio terminale e dalle cache dei figli.
+     * Le cache dei figli contengono già i loro migliori N: sono sufficienti.
+     */
+    private void recompute(int node) {
+        int base = node * topN;
+        Arrays.fill(top, base, base + topN, NONE);
+        if (count[node] > 0) {
+            promote(node, node);
+        }
+        for (int child = firstChild[node]; child != NONE; child = nextSibling[child]) {
+            int childBase = child * topN;
+            for (int i = 0; i < topN && top[childBase + i] != NONE; i++) {
+                int candidate = top[childBase + i];
+                if (count[candidate] > 0) {
+                    promote(node, candidate);
+                }
+            }
+        }
+    }
+
+    private int slotOf(int node, int terminal) {
+        int base = node * topN;
+        for (int i = 0; i < topN && top[base + i] != NONE; i++) {
+            if (top[base + i] == terminal) return i;
+        }
+        return NONE;
+    }
+
+    private boolean better(int a, int b) {
+        if (count[a] != count[b]) return count[a] > count[b];
+        return term[a].compareTo(term[b]) < 0;
+    }
+
+    private static String normalize(String value) {
+        return value.toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,42 @@
+package com.securevault.query;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * Indice ordinato (TreeMap) per ricerche per prefisso.
+ * Le chiavi con lo stesso prefisso sono contigue: basta una subMap O(log n + k).
+ */
+final class SortedIndex {
+    private final NavigableMap<String, Postings> tree = new TreeMap<>();
+
+    void add(String key, IndexedCredential entry) {
+        tree.computeIfAbsent(key, k -> new Postings()).add(entry);
+    }
+
+    void remove(String key, IndexedCredential entry) {
+        Postings postings = tree.get(key);
+        if (postings != null && postings.remove(entry) && postings.isEmpty()) {
+            tree.remove(key);
+        }
+    }
+
+    void clear() {
+        tree.clear();
+    }
+
+    /**
+     * Restituisce le posting list di tutte le chiavi che iniziano con il prefisso.
+     * @param prefix prefisso normalizzato
+     * @return posting list (disgiunte: ogni voce ha una sola chiave)
+     */
+    List<Postings> prefix(String prefix) {
+        if (prefix.isEmpty()) {
+            return new ArrayList<>(tree.values());
+        }
+        // Limite superiore esclusivo: primo valore che non condivide il prefisso
+        return new ArrayList<>(tree.subMap(prefix, true, prefix + Character.MAX_VALUE, false).values());
+    }
+}
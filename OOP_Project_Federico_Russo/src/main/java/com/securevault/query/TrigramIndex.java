@@ -0,0 +1,71 @@
+package com.securevault.query;
+
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Indice a trigrammi per ricerche per sottostringa.
+ * Ogni valore viene scomposto nei suoi trigrammi distinti; una sottostringa di
+ * almeno 3 caratteri può comparire solo nei valori che contengono tutti i suoi
+ * trigrammi, quindi la posting list più corta è un superset dei risultati.
+ * I candidati vanno comunque verificati (l'indice non è esatto).
+ */
+final class TrigramIndex {
+    static final int GRAM = 3;
+
+    private final Map<String, Postings> grams = new HashMap<>();
+
+    void add(String value, IndexedCredential entry) {
+        for (String gram : trigrams(value)) {
+            grams.computeIfAbsent(gram, k -> new Postings()).add(entry);
+        }
+    }
+
+    void remove(String value, IndexedCredential entry) {
+        for (String gram : trigrams(value)) {
+            Postings postings = grams.get(gram);
+            if (postings != null && postings.remove(entry) && postings.isEmpty()) {
+                grams.remove(gram);
+            }
+        }
+    }
+
+    void clear() {
+        grams.clear();
+    }
+
+    /**
+     * Trova la posting list più selettiva per la sottostringa.
+     * @param substring sottostringa normalizzata (almeno {@link #GRAM} caratteri)
+     * @return posting list più corta, o null se un trigramma non compare mai
+     *         (in quel caso nessun valore può contenere la sottostringa)
+     */
+    Postings narrowest(String substring) {
+        Postings best = null;
+        for (String gram : trigrams(substring)) {
+            Postings postings = grams.get(gram);
+            if (postings == null) {
+                return null;  // Short-circuit: risultato vuoto garantito
+            }
+            if (best == null || postings.size() < best.size()) {
+                best = postings;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Scompone un valore nei suoi trigrammi distinti.
+     * @param value valore normalizzato
+     * @return trigrammi distinti in ordine di apparizione
+     */
+    static Set<String> trigrams(String value) {
+        Set<String> result = new LinkedHashSet<>();
+        for (int i = 0; i + GRAM <= value.length(); i++) {
+            result.add(value.substring(i, i + GRAM));
+        }
+        return result;
+    }
+}
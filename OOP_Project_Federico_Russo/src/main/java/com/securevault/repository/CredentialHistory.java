@@ -0,0 +1,255 @@
+package com.securevault.repository;
+
+import com.securevault.model.Credential;
+import com.securevault.observer.VaultObserver;
+import com.securevault.security.SecretHandle;
+import com.securevault.security.SecretStore;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Storico delle versioni delle credenziali, alimentato dagli eventi di modifica.
+ *
+ * Il repository continua a tenere solo la versione corrente (accesso O(1)
+ * invariato). Per ogni credenziale modificata lo storico conserva una catena
+ * di delta inversi: ogni delta contiene il timestamp, una maschera dei campi
+ * cambiati e i soli valori precedenti di quei campi. Una modifica del solo
+ * username costa quindi un timestamp e una String, non una Credential intera.
+ *
+ * Le versioni passate vengono ricostruite solo su richiesta, applicando i
+ * delta a ritroso a partire dalla versione corrente.
+ *
+ * Retention configurabile per numero di versioni e per età. Le catene sono
+ * indicizzate per identità dell'istanza corrente (le credenziali con gli
+ * stessi valori restano distinte). Le password precedenti di credenziali
+ * off-heap vengono copiate nello {@link SecretStore} dello storico e azzerate
+ * quando escono dalla retention.
+ */
+public class CredentialHistory implements VaultObserver {
+    public static final int DEFAULT_MAX_VERSIONS = 10;
+
+    private static final int SERVICE = 1;
+    private static final int USERNAME = 2;
+    private static final int PASSWORD = 4;
+
+    private final int maxVersions;
+    private final Duration maxAge;        // null = nessun limite di età
+    private final SecretStore secrets;    // null = password precedenti su heap
+    private final Clock clock;
+
+    // Catene per istanza corrente: il delta più recente in testa
+    private final Map<Credential, Deque<Delta>> chains = new IdentityHashMap<>();
+
+    public CredentialHistory() {
+        this(DEFAULT_MAX_VERSIONS, null, null, Clock.systemUTC());
+    }
+
+    /**
+     * @param maxVersions versioni precedenti conservate per credenziale
+     * @param maxAge età massima delle versioni (null = illimitata)
+     * @param secrets store per le password precedenti off-heap (null = su heap)
+     * @param clock orologio per i timestamp
+     */
+    public CredentialHistory(int maxVersions, Duration maxAge, SecretStore secrets, Clock clock) {
+        if (maxVersions <= 0) {
+            throw new IllegalArgumentException("maxVersions deve essere positivo");
+        }
+        this.maxVersions = maxVersions;
+        this.maxAge = maxAge;
+        this.secrets = secrets;
+        this.clock = clock;
+    }
+
+    // === LETTURA ===
+
+    /**
+     * @param current istanza corrente nel repository
+     * @return numero di versioni precedenti conservate
+     */
+    public synchronized int versionCount(Credential current) {
+        Deque<Delta> chain = chains.get(current);
+        if (chain == null) {
+            return 0;
+        }
+        expire(chain);
+        return chain.size();
+    }
+
+    /**
+     * Ricostruisce una versione precedente applicando solo i delta necessari.
+     * @param current istanza corrente nel repository
+     * @param version distanza dalla corrente (1 = precedente)
+     * @return versione ricostruita
+     * @throws IndexOutOfBoundsException se la versione non è (più) conservata
+     */
+    public synchronized CredentialVersion getVersion(Credential current, int version) {
+        Deque<Delta> chain = chains.get(current);
+        if (chain != null) {
+            expire(chain);
+        }
+        if (chain == null || version < 1 || version > chain.size()) {
+            throw new IndexOutOfBoundsException("Versione non disponibile: " + version);
+        }
+        String service = current.getService();
+        String username = current.getUsername();
+        Object password = null;            // null = uguale alla corrente
+        Iterator<Delta> deltas = chain.iterator();
+        Delta delta = null;
+        for (int v = 1; v <= version; v++) {
+            delta = deltas.next();
+            int slot = 0;
+            if ((delta.mask & SERVICE) != 0) service = (String) delta.values[slot++];
+            if ((delta.mask & USERNAME) != 0) username = (String) delta.values[slot++];
+            if ((delta.mask & PASSWORD) != 0) password = delta.values[slot];
+        }
+        if (password == null) {
+            password = current;            // Password invariata: letta dalla corrente, senza copia
+        }
+        return new CredentialVersion(version, Instant.ofEpochMilli(delta.timestamp), service, username, password);
+    }
+
+    /**
+     * @param current istanza corrente nel repository
+     * @return tutte le versioni precedenti, dalla più recente
+     */
+    public synchronized List<CredentialVersion> getVersions(Credential current) {
+        int count = versionCount(current);
+        List<CredentialVersion> versions = new ArrayList<>(count);
+        for (int v = 1; v <= count; v++) {
+            versions.add(getVersion(current, v));
+        }
+        return versions;
+    }
+
+    // === OBSERVER ===
+
+    @Override
+    public void onCredentialAdded(Credential credential, String category) {
+        // Nessuno storico per una credenziale nuova
+    }
+
+    @Override
+    public void onCredentialsAdded(List<Credential> credentials, String category) {
+        // Caricamento massivo: nessuno storico, nessun costo per credenziale
+    }
+
+    @Override
+    public synchronized void onCredentialRemoved(Credential credential, String category) {
+        Deque<Delta> chain = chains.remove(credential);
+        if (chain != null) {
+            chain.forEach(Delta::discard);
+        }
+    }
+
+    @Override
+    public synchronized void onCredentialModified(Credential oldCredential, Credential newCredential, String category) {
+        Deque<Delta> chain = chains.remove(oldCredential);
+        if (oldCredential == newCredential) {
+            if (chain != null) chains.put(newCredential, chain);
+            return;
+        }
+        Delta delta = diff(oldCredential, newCredential);
+        if (delta == null) {
+            // Nessun campo cambiato: la catena passa alla nuova istanza
+            if (chain != null) chains.put(newCredential, chain);
+            return;
+        }
+        if (chain == null) {
+            chain = new ArrayDeque<>(2);
+        }
+        chain.addFirst(delta);
+        while (chain.size() > maxVersions) {
+            chain.removeLast().discard();
+        }
+        expire(chain);
+        if (!chain.isEmpty()) {
+            chains.put(newCredential, chain);
+        }
+    }
+
+    @Override
+    public synchronized void onVaultCleared() {
+        chains.values().forEach(chain -> chain.forEach(Delta::discard));
+        chains.clear();
+    }
+
+    // === IMPLEMENTAZIONE ===
+
+    /**
+     * Delta inverso: valori di old per i soli campi diversi in updated.
+     * Invocato prima dell'azzeramento di old da parte del repository.
+     */
+    private Delta diff(Credential old, Credential updated) {
+        int mask = 0;
+        if (!old.getService().equals(updated.getService())) mask |= SERVICE;
+        if (!old.getUsername().equals(updated.getUsername())) mask |= USERNAME;
+        if (!samePassword(old, updated)) mask |= PASSWORD;
+        if (mask == 0) {
+            return null;
+        }
+        Object[] values = new Object[Integer.bitCount(mask)];
+        int slot = 0;
+        if ((mask & SERVICE) != 0) values[slot++] = old.getService();
+        if ((mask & USERNAME) != 0) values[slot++] = old.getUsername();
+        if ((mask & PASSWORD) != 0) values[slot] = copyPassword(old);
+        return new Delta(clock.millis(), (byte) mask, values);
+    }
+
+    private Object copyPassword(Credential credential) {
+        if (credential.isOffHeap() && secrets != null) {
+            SecretHandle[] copy = new SecretHandle[1];
+            credential.readPassword(chars -> copy[0] = secrets.store(chars));
+            return copy[0];
+        }
+        return credential.getPassword();
+    }
+
+    private static boolean samePassword(Credential a, Credential b) {
+        boolean[] same = new boolean[1];
+        a.readPassword(first -> b.readPassword(second -> same[0] = Arrays.equals(first, second)));
+        return same[0];
+    }
+
+    /**
+     * Scarta dalla coda i delta più vecchi di maxAge.
+     */
+    private void expire(Deque<Delta> chain) {
+        if (maxAge == null) {
+            return;
+        }
+        long cutoff = clock.millis() - maxAge.toMillis();
+        while (!chain.isEmpty() && chain.peekLast().timestamp < cutoff) {
+            chain.removeLast().discard();
+        }
+    }
+
+    private static final class Delta {
+        final long timestamp;      // Istante in cui la versione è stata sostituita
+        final byte mask;           // Campi cambiati
+        final Object[] values;     // Valori precedenti, solo per i campi nella maschera
+
+        Delta(long timestamp, byte mask, Object[] values) {
+            this.timestamp = timestamp;
+            this.mask = mask;
+            this.values = values;
+        }
+
+        void discard() {
+            for (Object value : values) {
+                if (value instanceof SecretHandle secret) {
+                    secret.destroy();
+                }
+            }
+        }
+    }
+}
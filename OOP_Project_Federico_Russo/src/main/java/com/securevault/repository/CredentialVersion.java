@@ -0,0 +1,90 @@
+package com.securevault.repository;
+
+import com.securevault.factory.CredentialInterface;
+import com.securevault.model.Credential;
+import com.securevault.security.SecretHandle;
+
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+/**
+ * Versione passata di una credenziale, ricostruita da {@link CredentialHistory}.
+ *
+ * È una vista in sola lettura: la password resta nel formato in cui lo storico
+ * la conserva (String o segreto off-heap) e non viene copiata. Se la versione
+ * esce dalla finestra di retention, il segreto off-heap viene azzerato e la
+ * lettura della password lancia IllegalStateException.
+ */
+public final class CredentialVersion implements CredentialInterface {
+    private final int version;
+    private final Instant replacedAt;
+    private final String service;
+    private final String username;
+    private final Object password;     // String, SecretHandle o Credential corrente (password invariata)
+
+    CredentialVersion(int version, Instant replacedAt, String service, String username, Object password) {
+        this.version = version;
+        this.replacedAt = replacedAt;
+        this.service = service;
+        this.username = username;
+        this.password = password;
+    }
+
+    /**
+     * @return distanza dalla versione corrente (1 = precedente)
+     */
+    public int getVersion() {
+        return version;
+    }
+
+    /**
+     * @return istante in cui questa versione è stata sostituita
+     */
+    public Instant getReplacedAt() {
+        return replacedAt;
+    }
+
+    @Override
+    public String getService() {
+        return service;
+    }
+
+    @Override
+    public String getUsername() {
+        return username;
+    }
+
+    @Override
+    public String getPassword() {
+        if (password instanceof SecretHandle secret) return secret.apply(String::new);
+        if (password instanceof Credential current) return current.getPassword();
+        return (String) password;
+    }
+
+    /**
+     * Accesso alla password tramite array azzerato dopo l'uso.
+     * @param reader consumatore dei caratteri (non deve conservare l'array)
+     */
+    public void readPassword(Consumer<char[]> reader) {
+        if (password instanceof SecretHandle secret) {
+            secret.read(reader);
+            return;
+        }
+        if (password instanceof Credential current) {
+            current.readPassword(reader);
+            return;
+        }
+        char[] chars = ((String) password).toCharArray();
+        try {
+            reader.accept(chars);
+        } finally {
+            Arrays.fill(chars, '\0');
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "v-" + version + " " + service + " - " + username + " (fino a " + replacedAt + ")";
+    }
+}
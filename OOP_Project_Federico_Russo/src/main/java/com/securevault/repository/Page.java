@@ -0,0 +1,42 @@
+package com.securevault.repository;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Pagina di risultati restituita dalle query paginate del repository.
+ * Contiene gli elementi della pagina e un cursore opaco per richiedere la
+ * successiva (null se non ci sono altri risultati).
+ *
+ * @param <T> tipo degli elementi
+ */
+public class Page<T> {
+    private final List<T> items;
+    private final String nextCursor;
+
+    public Page(List<T> items, String nextCursor) {
+        this.items = Collections.unmodifiableList(items);
+        this.nextCursor = nextCursor;
+    }
+
+    /**
+     * @return elementi della pagina (lista immutabile)
+     */
+    public List<T> getItems() {
+        return items;
+    }
+
+    /**
+     * @return cursore da passare alla chiamata successiva, o null se è l'ultima pagina
+     */
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    /**
+     * @return true se esistono altre pagine
+     */
+    public boolean hasNext() {
+        return nextCursor != null;
+    }
+}
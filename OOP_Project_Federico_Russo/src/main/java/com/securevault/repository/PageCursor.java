@@ -0,0 +1,61 @@
+package com.securevault.repository;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Posizione di ripresa di una scansione paginata.
+ * Il token codifica l'identificativo della scansione (registrata dal
+ * repository insieme alla query e allo snapshot su cui poggia), l'ordinale
+ * della categoria e l'indice nella lista: la ripresa è O(1) invece di
+ * rileggere le pagine precedenti, le modifiche successive al vault non
+ * spostano la posizione e il repository rifiuta il token se la query corrente
+ * non è quella della scansione.
+ */
+final class PageCursor {
+    static final PageCursor START = new PageCursor(-1, 0, 0);
+
+    final long scanId;
+    final int categoryOrdinal;
+    final int offset;
+
+    PageCursor(long scanId, int categoryOrdinal, int offset) {
+        this.scanId = scanId;
+        this.categoryOrdinal = categoryOrdinal;
+        this.offset = offset;
+    }
+
+    /**
+     * @return token opaco URL-safe
+     */
+    String encode() {
+        String raw = scanId + ":" + categoryOrdinal + ":" + offset;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decodifica un token prodotto da {@link #encode()}.
+     * @param token token o null per la prima pagina
+     * @return cursore decodificato
+     * @throws IllegalArgumentException se il token è malformato
+     */
+    static PageCursor decode(String token) {
+        if (token == null || token.isEmpty()) {
+            return START;
+        }
+        String[] parts;
+        try {
+            parts = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8).split(":");
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Cursore non valido", e);
+        }
+        if (parts.length != 3) {
+            throw new IllegalArgumentException("Cursore non valido");
+        }
+        try {
+            return new PageCursor(Long.parseLong(parts[0]), Integer.parseInt(parts[1]), Integer.parseInt(parts[2]));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Cursore non valido", e);
+        }
+    }
+}
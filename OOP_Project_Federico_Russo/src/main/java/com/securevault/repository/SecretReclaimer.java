@@ -0,0 +1,132 @@
+package com.securevault.repository;
+
+import com.securevault.model.Credential;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Recupero delle password off-heap delle credenziali uscite dal vault
+ * (epoch-based reclamation sulle versioni del repository).
+ *
+ * Una credenziale rimossa o sostituita alla versione v è ancora visibile agli
+ * snapshot con versione minore di v: la sua password viene azzerata solo quando
+ * nessuno di questi snapshot è più aperto e gli observer asincroni hanno
+ * ricevuto l'evento che la riguarda. Gli snapshot aperti sono contati per
+ * versione ({@link #pin}); le credenziali in attesa restano in una coda
+ * ordinata per versione, quindi ogni recupero costa O(credenziali liberate).
+ *
+ * Una credenziale reinserita prima di essere recuperata ({@link #revive})
+ * esce dalla coda e non viene azzerata.
+ */
+final class SecretReclaimer {
+
+    private final TreeMap<Long, Integer> pins = new TreeMap<>();          // Versione -> snapshot aperti
+    private final ArrayDeque<Retired> retired = new ArrayDeque<>();       // In ordine di versione
+    private final Map<Credential, Retired> byCredential = new IdentityHashMap<>();
+
+    /**
+     * Registra uno snapshot aperto alla versione data.
+     * @param version versione dello snapshot
+     */
+    synchronized void pin(long version) {
+        pins.merge(version, 1, Integer::sum);
+    }
+
+    /**
+     * Chiude uno snapshot e recupera le password che non erano visibili ad altri.
+     * @param version versione dello snapshot
+     */
+    void unpin(long version) {
+        synchronized (this) {
+            pins.computeIfPresent(version, (v, count) -> count == 1 ? null : count - 1);
+        }
+        reclaim();
+    }
+
+    /**
+     * Mette in coda le credenziali uscite dal vault alla versione data.
+     * Invocato sotto il lock del repository; l'azzeramento resta sospeso
+     * finché il ticket non viene marcato con {@link #delivered}.
+     * @param credentials istanze non più presenti nel vault (solo off-heap)
+     * @param version versione del repository dopo la mutazione
+     * @return ticket da confermare dopo la consegna degli eventi
+     */
+    synchronized Retired retire(List<Credential> credentials, long version) {
+        Retired ticket = new Retired(credentials, version);
+        retired.addLast(ticket);
+        for (Credential credential : credentials) {
+            byCredential.put(credential, ticket);
+        }
+        return ticket;
+    }
+
+    /**
+     * Gli observer hanno ricevuto gli eventi del ticket: da qui le sue
+     * credenziali dipendono solo dagli snapshot aperti.
+     * @param ticket ticket restituito da retire
+     */
+    void delivered(Retired ticket) {
+        synchronized (this) {
+            ticket.delivered = true;
+        }
+        reclaim();
+    }
+
+    /**
+     * L'istanza è tornata nel vault: non deve più essere azzerata.
+     * @param credential istanza reinserita
+     */
+    synchronized void revive(Credential credential) {
+        Retired ticket = byCredential.remove(credential);
+        if (ticket != null) {
+            ticket.credentials.remove(credential);
+        }
+    }
+
+    /**
+     * @return credenziali in attesa di azzeramento
+     */
+    synchronized int pendingCount() {
+        return byCredential.size();
+    }
+
+    private void reclaim() {
+        List<Credential> reclaimable = new ArrayList<>();
+        synchronized (this) {
+            Long oldestPin = pins.isEmpty() ? null : pins.firstKey();
+            while (!retired.isEmpty()) {
+                Retired head = retired.peekFirst();
+                // Ancora visibile a uno snapshot aperto, o evento non ancora consegnato
+                if (!head.delivered || (oldestPin != null && oldestPin < head.version)) {
+                    break;
+                }
+                retired.pollFirst();
+                for (Credential credential : head.credentials) {
+                    byCredential.remove(credential);
+                    reclaimable.add(credential);
+                }
+            }
+        }
+        // Fuori dal lock: l'azzeramento prende il lock dello SecretStore
+        reclaimable.forEach(Credential::zeroize);
+    }
+
+    /**
+     * Gruppo di credenziali uscite dal vault con la stessa mutazione.
+     */
+    static final class Retired {
+        private final List<Credential> credentials;
+        private final long version;
+        private boolean delivered = false;
+
+        private Retired(List<Credential> credentials, long version) {
+            this.credentials = new ArrayList<>(credentials);
+            this.version = version;
+        }
+    }
+}
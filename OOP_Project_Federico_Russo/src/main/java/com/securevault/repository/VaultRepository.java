@@ -1,11 +1,22 @@
 package com.securevault.repository;
 
+import com.securevault.exception.InputValidationException;
 import com.securevault.model.Credential;
+import com.securevault.observer.VaultEvent;
 import com.securevault.observer.VaultSubject;
+import com.securevault.query.BkTree;
+import com.securevault.query.CredentialQuery;
+import com.securevault.query.QueryIndexes;
+import com.securevault.query.QueryPlan;
+import com.securevault.query.ServiceTrie;
+import com.securevault.util.StringDictionary;
 
 import java.util.*;
+import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * Repository che combina múltiples pattern:
@@ -16,14 +27,53 @@ import java.util.stream.Collectors;
  */
 public class VaultRepository extends VaultSubject implements Iterable<Credential> {
 
-    // Struttura dati: Map per organizzazione gerarchica per categoria
-    private final Map<String, List<Credential>> groupedCredentials;
+    // Struttura dati: Map per organizzazione gerarchica per categoria.
+    // Copy-on-write rispetto agli snapshot: mappa e liste condivise con uno
+    // snapshot non vengono mai modificate, ma sostituite da una copia.
+    private volatile Map<String, List<Credential>> groupedCredentials;
+
+    // === STATO MVCC ===
+    private boolean mapShared = false;                           // Mappa condivisa con uno snapshot
+    private int generation = 0;                                  // Incrementata ad ogni snapshot
+    private final Map<String, Integer> ownedLists = new HashMap<>();  // Categoria -> generazione della copia privata
+    private VaultSnapshot currentSnapshot;                       // Ultimo snapshot pubblicato (null se obsoleto)
+    private int size = 0;
+
+    // Indici secondari per le query strutturate (hash, trigrammi, ordinati)
+    private final QueryIndexes indexes;
+
+    // Indice metrico sui nomi di servizio per la ricerca tollerante ai typo
+    private final BkTree serviceTree;
+
+    // Trie dei servizi con top-N in cache per l'autocompletamento
+    private final ServiceTrie serviceTrie;
+
+    // Dizionario di deduplicazione per servizi, username e categorie
+    private final StringDictionary dictionary;
+
+    // Versione incrementata ad ogni mutazione (invalida i cursori di paginazione)
+    private long version = 0;
+
+    // Scansioni paginate con cursori emessi: query e snapshot di ciascuna (LRU per identificativo)
+    private static final int MAX_PAGED_SCANS = 16;
+    private final Map<Long, PagedScan> pagedScans = new LinkedHashMap<>(16, 0.75f, true);
+    private long nextScanId = 0;
+
+    // === PASSWORD OFF-HEAP ===
+    // Occorrenze nel vault di ogni istanza off-heap (la stessa istanza può essere inserita più volte)
+    private final Map<Credential, Integer> offHeapRefs = new IdentityHashMap<>();
+    // Azzeramento differito finché uno snapshot aperto può ancora leggere la password
+    private final SecretReclaimer reclaimer = new SecretReclaimer();
 
     /**
      * Costruttore che inizializza la struttura dati.
      */
     public VaultRepository() {
         this.groupedCredentials = new HashMap<>();
+        this.indexes = new QueryIndexes(this);
+        this.serviceTree = new BkTree();
+        this.serviceTrie = new ServiceTrie();
+        this.dictionary = new StringDictionary();
     }
 
     // === OPERAZIONI CRUD CON OBSERVER INTEGRATION ===
@@ -35,31 +85,68 @@ public class VaultRepository extends VaultSubject implements Iterable<Credential
      * @param category categoria di organizzazione
      * @param credential credenziale da aggiungere
      */
-    public void addCredential(String category, Credential credential) {
-        // computeIfAbsent: crea lista se categoria non esiste
-        groupedCredentials.computeIfAbsent(category, k -> new ArrayList<>()).add(credential);
+    public synchronized void addCredential(String category, Credential credential) {
+        category = dictionary.canonical(category);
+        // Crea la lista se la categoria non esiste (copia privata se condivisa)
+        writableList(category).add(credential);
+        indexAdded(category, credential);
+        mutated();
         
         // OBSERVER PATTERN: notifica automatica
         notifyCredentialAdded(credential, category);
     }
 
+    /**
+     * Caricamento massivo di credenziali nella stessa categoria.
+     * Rispetto a N chiamate ad addCredential: la lista viene pre-dimensionata,
+     * gli indici vengono aggiornati in un solo passaggio e gli observer
+     * ricevono un unico evento di bulk invece di N notifiche.
+     *
+     * @param category categoria di destinazione
+     * @param credentials credenziali da aggiungere (nell'ordine dato)
+     */
+    public synchronized void addAll(String category, Collection<Credential> credentials) {
+        if (credentials.isEmpty()) {
+            return;
+        }
+        category = dictionary.canonical(category);
+        ArrayList<Credential> list = writableList(category);
+        list.ensureCapacity(list.size() + credentials.size());   // Una sola riallocazione
+        for (Credential credential : credentials) {
+            list.add(credential);
+            indexAdded(category, credential);
+        }
+        mutated();
+
+        // OBSERVER PATTERN: un solo evento per tutto il blocco
+        notifyCredentialsAdded(List.copyOf(credentials), category);
+    }
+
     /**
      * Rimuove una credenziale con cleanup automatico e notifiche.
      * 
      * @param category categoria della credenziale
      * @param credential credenziale da rimuovere
      */
-    public void removeCredential(String category, Credential credential) {
-        List<Credential> creds = groupedCredentials.get(category);
-        if (creds != null && creds.remove(credential)) {
-            // CLEANUP: rimuovi categoria se vuota
-            if (creds.isEmpty()) {
-                groupedCredentials.remove(category);
-            }
-            
-            // OBSERVER PATTERN: notifica rimozione
-            notifyCredentialRemoved(credential, category);
+    public synchronized void removeCredential(String category, Credential credential) {
+        List<Credential> current = groupedCredentials.get(category);
+        int index = current == null ? -1 : current.indexOf(credential);
+        if (index == -1) {
+            return;
+        }
+        List<Credential> creds = writableList(category);
+        Credential stored = creds.remove(index);
+        indexRemoved(category, stored);
+        mutated();
+
+        // CLEANUP: rimuovi categoria se vuota
+        if (creds.isEmpty()) {
+            dropCategory(category);
         }
+        
+        // OBSERVER PATTERN: notifica rimozione
+        notifyCredentialRemoved(credential, category);
+        retire(stored);
     }
 
     /**
@@ -70,16 +157,20 @@ public class VaultRepository extends VaultSubject implements Iterable<Credential
      * @param oldCredential credenziale da sostituire
      * @param newCredential nuova credenziale
      */
-    public void modifyCredential(String category, Credential oldCredential, Credential newCredential) {
-        List<Credential> creds = groupedCredentials.get(category);
-        if (creds != null) {
-            int index = creds.indexOf(oldCredential);
+    public synchronized void modifyCredential(String category, Credential oldCredential, Credential newCredential) {
+        List<Credential> current = groupedCredentials.get(category);
+        if (current != null) {
+            int index = current.indexOf(oldCredential);
             if (index != -1) {
-                // SOSTITUZIONE IN-PLACE
-                creds.set(index, newCredential);
+                // SOSTITUZIONE IN-PLACE (sulla copia privata se la lista è condivisa)
+                Credential stored = writableList(category).set(index, newCredential);
+                indexRemoved(category, stored);
+                indexAdded(category, newCredential);
+                mutated();
                 
                 // OBSERVER PATTERN: notifica modifica con old e new
                 notifyCredentialModified(oldCredential, newCredential, category);
+                retire(stored);
             }
         }
     }
@@ -87,36 +178,332 @@ public class VaultRepository extends VaultSubject implements Iterable<Credential
     /**
      * Svuota completamente il vault.
      */
-    public void clearAll() {
-        groupedCredentials.clear();
+    public synchronized void clearAll() {
+        // Nuova mappa invece di clear(): gli snapshot esistenti restano validi
+        groupedCredentials = new HashMap<>();
+        mapShared = false;
+        ownedLists.clear();
+        releaseSnapshot();
+        size = 0;
+        indexes.clear();
+        serviceTree.clear();
+        serviceTrie.clear();
+        dictionary.clear();
+        version++;
         // OBSERVER PATTERN: notifica svuotamento
         notifyVaultCleared();
+        // Azzeramento delle password off-heap, appena nessuno snapshot le vede più
+        List<Credential> gone = new ArrayList<>(offHeapRefs.keySet());
+        offHeapRefs.clear();
+        retireAll(gone);
+    }
+
+    // === TRANSAZIONI ===
+
+    /**
+     * Apre una transazione: le operazioni vengono applicate solo al commit.
+     * @return nuova transazione
+     */
+    public VaultTransaction begin() {
+        return new VaultTransaction(this);
+    }
+
+    /**
+     * Esegue il blocco in una transazione: commit se termina normalmente,
+     * rollback se lancia un'eccezione (che viene rilanciata).
+     * @param work operazioni da eseguire
+     * @return eventi applicati
+     */
+    public List<VaultEvent> inTransaction(Consumer<VaultTransaction> work) {
+        VaultTransaction transaction = begin();
+        try {
+            work.accept(transaction);
+        } catch (RuntimeException e) {
+            transaction.rollback();
+            throw e;
+        }
+        return transaction.commit();
+    }
+
+    /**
+     * Valida e applica le operazioni di una transazione sotto un solo lock.
+     * La validazione simula la sequenza su contatori per valore (solo le
+     * categorie coinvolte), quindi l'applicazione non può fallire a metà.
+     */
+    synchronized List<VaultEvent> applyTransaction(List<VaultEvent> operations) {
+        if (operations.isEmpty()) {
+            return List.of();
+        }
+        validate(operations);
+
+        List<VaultEvent> applied = new ArrayList<>(operations.size());
+        List<Credential> replaced = new ArrayList<>();
+        for (VaultEvent op : operations) {
+            String category = dictionary.canonical(op.getCategory());
+            switch (op.getType()) {
+                case ADDED -> {
+                    writableList(category).add(op.getCredential());
+                    indexAdded(category, op.getCredential());
+                    applied.add(VaultEvent.added(category, op.getCredential()));
+                }
+                case REMOVED -> {
+                    List<Credential> creds = writableList(category);
+                    Credential stored = creds.remove(creds.indexOf(op.getCredential()));
+                    replaced.add(stored);
+                    indexRemoved(category, stored);
+                    if (creds.isEmpty()) {
+                        dropCategory(category);
+                    }
+                    applied.add(VaultEvent.removed(category, op.getCredential()));
+                }
+                case MODIFIED -> {
+                    List<Credential> creds = writableList(category);
+                    Credential stored = creds.set(creds.indexOf(op.getPrevious()), op.getCredential());
+                    replaced.add(stored);
+                    indexRemoved(category, stored);
+                    indexAdded(category, op.getCredential());
+                    applied.add(VaultEvent.modified(category, op.getPrevious(), op.getCredential()));
+                }
+                default -> throw new IllegalArgumentException("Operazione non supportata in transazione: " + op.getType());
+            }
+        }
+        mutated();     // Una sola nuova versione per l'intera transazione
+
+        // OBSERVER PATTERN: un solo evento per l'intero blocco
+        List<VaultEvent> events = Collections.unmodifiableList(applied);
+        notifyBatch(events);
+        // Un solo ticket per l'intera transazione: O(k), senza scansioni del vault
+        List<Credential> gone = new ArrayList<>();
+        for (Credential stored : replaced) {
+            if (release(stored)) {
+                gone.add(stored);
+            }
+        }
+        retireAll(gone);
+        return events;
+    }
+
+    private void validate(List<VaultEvent> operations) {
+        Map<String, Map<Credential, Integer>> available = new HashMap<>();
+        for (int i = 0; i < operations.size(); i++) {
+            VaultEvent op = operations.get(i);
+            Map<Credential, Integer> counts = available.computeIfAbsent(op.getCategory(), this::countByValue);
+            switch (op.getType()) {
+                case ADDED -> counts.merge(op.getCredential(), 1, Integer::sum);
+                case REMOVED, MODIFIED -> {
+                    Credential target = op.getType() == VaultEvent.Type.REMOVED ? op.getCredential() : op.getPrevious();
+                    if (counts.getOrDefault(target, 0) == 0) {
+                        throw new InputValidationException("Operazione " + (i + 1) + " non valida: "
+                                + target.getName() + " non presente in '" + op.getCategory() + "'");
+                    }
+                    counts.merge(target, -1, Integer::sum);
+                    if (op.getType() == VaultEvent.Type.MODIFIED) {
+                        counts.merge(op.getCredential(), 1, Integer::sum);
+                    }
+                }
+                default -> throw new InputValidationException("Operazione " + (i + 1) + " non supportata: " + op.getType());
+            }
+        }
+    }
+
+    private Map<Credential, Integer> countByValue(String category) {
+        Map<Credential, Integer> counts = new HashMap<>();
+        for (Credential credential : groupedCredentials.getOrDefault(category, Collections.emptyList())) {
+            counts.merge(credential, 1, Integer::sum);
+        }
+        return counts;
+    }
+
+    // === RECUPERO PASSWORD OFF-HEAP ===
+
+    /**
+     * Registra una nuova occorrenza dell'istanza nel vault. O(1).
+     * Un'istanza reinserita prima dell'azzeramento torna viva.
+     */
+    private void retain(Credential credential) {
+        if (credential.isOffHeap() && offHeapRefs.merge(credential, 1, Integer::sum) == 1) {
+            reclaimer.revive(credential);
+        }
+    }
+
+    /**
+     * Rilascia un'occorrenza dell'istanza uscita dal vault; quando era l'ultima
+     * la password viene azzerata dopo la notifica (anche agli observer
+     * asincroni) e dopo la chiusura degli snapshot che la contengono.
+     */
+    private void retire(Credential stored) {
+        if (release(stored)) {
+            retireAll(List.of(stored));
+        }
+    }
+
+    /**
+     * @return true se era l'ultima occorrenza di un'istanza off-heap
+     */
+    private boolean release(Credential stored) {
+        if (!stored.isOffHeap()) {
+            return false;
+        }
+        Integer refs = offHeapRefs.get(stored);
+        if (refs == null) {
+            return false;
+        }
+        if (refs > 1) {
+            offHeapRefs.put(stored, refs - 1);
+            return false;
+        }
+        offHeapRefs.remove(stored);
+        return true;
+    }
+
+    private void retireAll(List<Credential> gone) {
+        if (gone.isEmpty()) {
+            return;
+        }
+        SecretReclaimer.Retired ticket = reclaimer.retire(gone, version);
+        afterDelivery(() -> reclaimer.delivered(ticket));
+    }
+
+    /**
+     * @return password off-heap di credenziali rimosse ancora in attesa di
+     * azzeramento (visibili a snapshot aperti o a eventi non consegnati)
+     */
+    public int pendingSecrets() {
+        return reclaimer.pendingCount();
+    }
+
+    // === SNAPSHOT MVCC ===
+
+    /**
+     * Restituisce una vista immutabile e consistente dello stato corrente.
+     * Costo O(1): nessuna copia al momento dello snapshot. La prima scrittura
+     * successiva copia la mappa delle categorie e la sola lista modificata;
+     * le scritture seguenti della stessa generazione lavorano sulla copia.
+     * Snapshot ripetuti senza scritture intermedie restituiscono la stessa istanza.
+     * Ogni chiamata va bilanciata da {@link VaultSnapshot#close()}: finché lo
+     * snapshot è aperto le password off-heap che contiene restano leggibili.
+     *
+     * @return snapshot del vault alla versione corrente
+     */
+    public synchronized VaultSnapshot snapshot() {
+        return currentView().acquire();
+    }
+
+    /**
+     * Snapshot corrente senza registrare un nuovo utilizzatore: resta vincolato
+     * solo dal riferimento del repository, rilasciato alla prossima scrittura.
+     */
+    private VaultSnapshot currentView() {
+        if (currentSnapshot == null) {
+            // Il repository tiene un riferimento finché lo snapshot è quello corrente
+            currentSnapshot = new VaultSnapshot(version, groupedCredentials, size, reclaimer);
+            mapShared = true;
+            generation++;    // Tutte le liste diventano condivise, senza toccarle
+        }
+        return currentSnapshot;
+    }
+
+    private void releaseSnapshot() {
+        if (currentSnapshot != null) {
+            currentSnapshot.close();
+            currentSnapshot = null;
+        }
+    }
+
+    /**
+     * Restituisce la lista della categoria pronta per la scrittura, copiando
+     * mappa e lista se sono ancora condivise con uno snapshot.
+     */
+    private ArrayList<Credential> writableList(String category) {
+        if (mapShared) {
+            groupedCredentials = new HashMap<>(groupedCredentials);
+            mapShared = false;
+        }
+        ArrayList<Credential> list = (ArrayList<Credential>) groupedCredentials.get(category);
+        Integer owner = ownedLists.get(category);
+        if (list == null) {
+            list = new ArrayList<>();
+            dictionary.retain(category);    // Rilasciato quando la categoria si svuota
+            groupedCredentials.put(category, list);
+            ownedLists.put(category, generation);
+        } else if (owner == null || owner != generation) {
+            list = new ArrayList<>(list);
+            groupedCredentials.put(category, list);
+            ownedLists.put(category, generation);
+        }
+        return list;
+    }
+
+    private void dropCategory(String category) {
+        groupedCredentials.remove(category);
+        ownedLists.remove(category);
+        dictionary.release(category);
+    }
+
+    // === MANUTENZIONE INDICI SECONDARI ===
+
+    private void indexAdded(String category, Credential credential) {
+        dictionary.retain(credential.getService());
+        dictionary.retain(credential.getUsername());
+        retain(credential);
+        indexes.add(category, credential);
+        serviceTree.add(credential.getService());
+        serviceTrie.add(credential.getService());
+        size++;
+    }
+
+    private void indexRemoved(String category, Credential credential) {
+        dictionary.release(credential.getService());
+        dictionary.release(credential.getUsername());
+        indexes.remove(category, credential);
+        serviceTree.remove(credential.getService());
+        serviceTrie.remove(credential.getService());
+        size--;
+    }
+
+    private void mutated() {
+        version++;
+        releaseSnapshot();
+        dictionary.discardProvisional();    // Valori letti ma non entrati nel vault
     }
 
     // === ITERATOR PATTERN IMPLEMENTATION ===
 
     /**
      * Implementa Iterable per supportare enhanced for-loops.
-     * Usa Stream API per flatten delle liste annidate.
+     * L'iterazione avviene sulla vista copy-on-write corrente: è consistente
+     * anche se il vault viene modificato durante il ciclo (niente stato "a metà"
+     * né ConcurrentModificationException). Un iteratore non si può chiudere,
+     * quindi non trattiene le password: quelle delle credenziali rimosse nel
+     * frattempo possono essere azzerate. Per leggerle usare {@link #snapshot()}
+     * o {@link #streamAll()} con try-with-resources.
      * 
      * @return iterator su tutte le credenziali
      */
     @Override
-    public Iterator<Credential> iterator() {
-        return groupedCredentials.values().stream()
-                .flatMap(Collection::stream)  // Flatten Map<String, List<Credential>> -> Stream<Credential>
-                .iterator();
+    public synchronized Iterator<Credential> iterator() {
+        return currentView().iterator();
+    }
+
+    /**
+     * Spliterator con dimensione nota, così gli stream costruiti sul repository
+     * possono pre-dimensionare le strutture e dividersi il lavoro in parallelo.
+     * Come {@link #iterator()} non trattiene le password.
+     *
+     * @return spliterator su tutte le credenziali (vista copy-on-write)
+     */
+    @Override
+    public synchronized Spliterator<Credential> spliterator() {
+        return currentView().spliterator();
     }
 
     /**
-     * Conta totale credenziali usando Stream API.
+     * Conta totale credenziali (contatore mantenuto ad ogni mutazione).
      * 
      * @return numero totale di credenziali
      */
     public int countAll() {
-        return groupedCredentials.values().stream()
-                .mapToInt(List::size)        // Map List -> int (size)
-                .sum();                      // Reduce to sum
+        return size;
     }
 
     // === STREAM API E FUNZIONALITÀ AVANZATE ===
@@ -137,6 +524,36 @@ public class VaultRepository extends VaultSubject implements Iterable<Credential
                 .collect(Collectors.toList());                         // Collect results
     }
 
+    /**
+     * Ricerca fuzzy per servizio, tollerante agli errori di battitura.
+     * Usa il BK-tree dei servizi: vengono calcolate distanze di edit solo per
+     * i nodi non esclusi dalla disuguaglianza triangolare.
+     * Risultati ordinati per distanza crescente e popolarità del servizio.
+     *
+     * @param query testo cercato
+     * @param maxDistance distanza di edit massima (es. 1-2 per i typo comuni)
+     * @return credenziali dei servizi simili, in ordine di rilevanza
+     */
+    public synchronized List<Credential> fuzzySearchByService(String query, int maxDistance) {
+        return serviceTree.search(query, maxDistance).stream()
+                .flatMap(match -> query(CredentialQuery.fieldEquals(
+                        CredentialQuery.Field.SERVICE, match.getTerm())).stream())
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Autocompletamento dei nomi di servizio mentre l'utente digita.
+     * Costo O(lunghezza del prefisso): i migliori completamenti di ogni nodo
+     * del trie sono già in cache e aggiornati ad ogni mutazione.
+     *
+     * @param prefix prefisso digitato (case-insensitive)
+     * @param limit numero massimo di suggerimenti (al più {@value ServiceTrie#DEFAULT_TOP_N})
+     * @return nomi di servizio, i più usati per primi
+     */
+    public synchronized List<String> autocompleteService(String prefix, int limit) {
+        return serviceTrie.complete(prefix, limit);
+    }
+
     /**
      * Ricerca per username con Stream API.
      * 
@@ -172,24 +589,33 @@ public class VaultRepository extends VaultSubject implements Iterable<Credential
      * 
      * @return Map servizio -> lista credenziali per quel servizio
      */
-    public Map<String, List<Credential>> groupByService() {
-        return groupedCredentials.values().stream()
+    public synchronized Map<String, List<Credential>> groupByService() {
+        // Raggruppamento su codici int del dizionario: le chiavi della mappa
+        // risultato sono le istanze canoniche, non nuove String.
+        // Solo lookup: ogni servizio nel vault è già registrato da indexAdded
+        Map<Integer, List<Credential>> byCode = groupedCredentials.values().stream()
                 .flatMap(Collection::stream)
-                .collect(Collectors.groupingBy(Credential::getService));  // Method reference
+                .collect(Collectors.groupingBy(cred -> dictionary.codeOf(cred.getService())));
+        Map<String, List<Credential>> result = new HashMap<>(byCode.size() * 2);
+        byCode.forEach((code, creds) -> result.put(dictionary.decode(code), creds));
+        return result;
     }
 
     /**
      * Rileva credenziali duplicate (stesso servizio + username).
      * Combina groupingBy con filtering per logica complessa.
+     * La chiave composita è un long (codice servizio, codice username):
+     * nessuna concatenazione di String per credenziale.
      * 
      * @return lista delle credenziali duplicate
      */
-    public List<Credential> findDuplicates() {
-        // Crea chiave composita servizio:username
-        Map<String, List<Credential>> grouped = groupedCredentials.values().stream()
+    public synchronized List<Credential> findDuplicates() {
+        // Crea chiave composita servizio:username su 64 bit (codici in sola lettura)
+        Map<Long, List<Credential>> grouped = groupedCredentials.values().stream()
                 .flatMap(Collection::stream)
-                .collect(Collectors.groupingBy(cred -> 
-                    cred.getService() + ":" + cred.getUsername()));     // Composite key
+                .collect(Collectors.groupingBy(cred ->
+                    ((long) dictionary.codeOf(cred.getService()) << 32)
+                        | dictionary.codeOf(cred.getUsername())));     // Composite key
         
         // Filtra gruppi con size > 1 e flatten
         return grouped.values().stream()
@@ -198,6 +624,17 @@ public class VaultRepository extends VaultSubject implements Iterable<Credential
                 .collect(Collectors.toList());
     }
 
+    /**
+     * Dizionario di deduplicazione del repository, da passare al caricamento
+     * (vedi {@link com.securevault.service.SecureStorageService#loadCredentials(StringDictionary)})
+     * così le credenziali lette da disco condividono le stringhe ripetute.
+     *
+     * @return dizionario del repository
+     */
+    public StringDictionary getDictionary() {
+        return dictionary;
+    }
+
     /**
      * Statistiche per categoria usando Collectors avanzati.
      * 
@@ -240,6 +677,199 @@ public class VaultRepository extends VaultSubject implements Iterable<Credential
                 .anyMatch(predicate);                      // Short-circuit on first match
     }
 
+    // === STREAMING LAZY ===
+    // Le varianti stream* non materializzano liste: il consumatore può
+    // interrompere la pipeline (limit, findFirst, anyMatch) pagando solo
+    // le righe effettivamente lette. Gli stream sul vault intero leggono uno
+    // snapshot e vanno chiusi (try-with-resources) come lo snapshot stesso.
+
+    /**
+     * @return stream lazy di tutte le credenziali, da chiudere dopo l'uso
+     */
+    public Stream<Credential> streamAll() {
+        VaultSnapshot snapshot = snapshot();
+        // Il gestore di chiusura tiene lo snapshot raggiungibile finché lo è lo stream
+        return snapshot.stream().onClose(snapshot::close);
+    }
+
+    /**
+     * @param category categoria richiesta
+     * @return stream lazy delle credenziali della categoria
+     */
+    public Stream<Credential> streamByCategory(String category) {
+        return getByCategory(category).stream();
+    }
+
+    /**
+     * Variante lazy di searchByService.
+     *
+     * @param query termine di ricerca (case-insensitive)
+     * @return stream lazy delle credenziali che matchano, da chiudere dopo l'uso
+     */
+    public Stream<Credential> streamByService(String query) {
+        return streamAll().filter(serviceMatcher(query));
+    }
+
+    /**
+     * Variante lazy di filterCredentials.
+     *
+     * @param predicate condizione di filtro
+     * @return stream lazy delle credenziali che soddisfano il predicato, da chiudere dopo l'uso
+     */
+    public Stream<Credential> streamFiltered(Predicate<Credential> predicate) {
+        return streamAll().filter(predicate);
+    }
+
+    // === PAGINAZIONE CON CURSORE ===
+
+    /**
+     * Variante paginata di getByCategory.
+     *
+     * @param category categoria richiesta
+     * @param cursor cursore della pagina precedente (null per la prima)
+     * @param pageSize numero massimo di elementi per pagina
+     * @return pagina di risultati con cursore successivo
+     */
+    public Page<Credential> getByCategoryPage(String category, String cursor, int pageSize) {
+        return page("category:" + category, view -> List.of(category), cred -> true, cursor, pageSize);
+    }
+
+    /**
+     * Variante paginata di searchByService.
+     *
+     * @param query termine di ricerca (case-insensitive)
+     * @param cursor cursore della pagina precedente (null per la prima)
+     * @param pageSize numero massimo di elementi per pagina
+     * @return pagina di risultati con cursore successivo
+     */
+    public Page<Credential> searchByServicePage(String query, String cursor, int pageSize) {
+        return page("service:" + query, view -> new ArrayList<>(view.getCategories()),
+                serviceMatcher(query), cursor, pageSize);
+    }
+
+    /**
+     * Variante paginata di filterCredentials.
+     * Un predicato non è confrontabile per valore: il cursore è legato
+     * all'istanza del predicato, da riusare per le pagine successive.
+     *
+     * @param predicate condizione di filtro
+     * @param cursor cursore della pagina precedente (null per la prima)
+     * @param pageSize numero massimo di elementi per pagina
+     * @return pagina di risultati con cursore successivo
+     */
+    public Page<Credential> filterCredentialsPage(Predicate<Credential> predicate, String cursor, int pageSize) {
+        return page(predicate, view -> new ArrayList<>(view.getCategories()),
+                predicate, cursor, pageSize);
+    }
+
+    /**
+     * Scansione paginata comune: riprende dalla posizione codificata nel cursore,
+     * raccoglie fino a pageSize risultati e cerca il successivo per sapere se
+     * esiste un'altra pagina (il cursore punta proprio a quel risultato).
+     * Tutte le pagine di una scansione leggono lo stesso snapshot, trattenuto
+     * finché la scansione resta tra le {@value #MAX_PAGED_SCANS} più recenti.
+     *
+     * @param scope identità della query (descrizione testuale o istanza del predicato)
+     */
+    private Page<Credential> page(Object scope, Function<VaultSnapshot, List<String>> categoriesOf,
+                                  Predicate<Credential> predicate, String cursor, int pageSize) {
+        if (pageSize <= 0) {
+            throw new IllegalArgumentException("La dimensione della pagina deve essere positiva");
+        }
+        PageCursor start = PageCursor.decode(cursor);
+
+        try (VaultSnapshot view = pagedSnapshot(start, scope)) {
+            List<String> categories = categoriesOf.apply(view);
+            List<Credential> items = new ArrayList<>(Math.min(pageSize, 64));
+            for (int c = start.categoryOrdinal; c < categories.size(); c++) {
+                List<Credential> creds = view.getByCategory(categories.get(c));
+                for (int i = (c == start.categoryOrdinal ? start.offset : 0); i < creds.size(); i++) {
+                    Credential cred = creds.get(i);
+                    if (!predicate.test(cred)) continue;
+                    if (items.size() == pageSize) {
+                        // Lookahead trovato: esiste una pagina successiva sullo stesso snapshot
+                        long scanId = start == PageCursor.START ? registerScan(scope, view) : start.scanId;
+                        return new Page<>(items, new PageCursor(scanId, c, i).encode());
+                    }
+                    items.add(cred);
+                }
+            }
+            return new Page<>(items, null);
+        }
+    }
+
+    /**
+     * Snapshot da cui leggere la pagina: quello corrente per una nuova
+     * scansione, quello registrato per la scansione del cursore.
+     */
+    private synchronized VaultSnapshot pagedSnapshot(PageCursor start, Object scope) {
+        if (start == PageCursor.START) {
+            return snapshot();
+        }
+        PagedScan scan = pagedScans.get(start.scanId);
+        if (scan == null) {
+            throw new IllegalStateException("Cursore scaduto: lo snapshot della scansione non è più disponibile");
+        }
+        if (!scan.scope.equals(scope)) {
+            throw new IllegalArgumentException("Cursore emesso per un'altra query");
+        }
+        return scan.snapshot.acquire();
+    }
+
+    private synchronized long registerScan(Object scope, VaultSnapshot view) {
+        long scanId = nextScanId++;
+        pagedScans.put(scanId, new PagedScan(scope, view.acquire()));
+        if (pagedScans.size() > MAX_PAGED_SCANS) {
+            Iterator<PagedScan> eldest = pagedScans.values().iterator();
+            eldest.next().snapshot.close();    // Le password che solo lei vedeva possono essere azzerate
+            eldest.remove();
+        }
+        return scanId;
+    }
+
+    private static Predicate<Credential> serviceMatcher(String query) {
+        String needle = query.toLowerCase();
+        return cred -> cred.getService().toLowerCase().contains(needle);
+    }
+
+    // === QUERY STRUTTURATE CON INDICI ===
+
+    /**
+     * Esegue una query componibile scegliendo automaticamente gli indici.
+     * A differenza di filterCredentials, la query è ispezionabile: solo il
+     * predicato residuo viene valutato sui candidati forniti dagli indici.
+     * L'ordine dei risultati dipende dal piano scelto.
+     *
+     * @param query query da eseguire
+     * @return credenziali che soddisfano la query
+     */
+    public synchronized List<Credential> query(CredentialQuery query) {
+        return indexes.plan(query).execute();
+    }
+
+    /**
+     * Variante indicizzata di hasCredentialMatching.
+     *
+     * @param query query da verificare
+     * @return true se almeno una credenziale soddisfa la query
+     */
+    public synchronized boolean hasMatch(CredentialQuery query) {
+        return indexes.plan(query).hasAny();
+    }
+
+    /**
+     * Restituisce il piano che verrebbe usato per la query, senza eseguirla.
+     *
+     * Il piano resta sicuro da eseguire in seguito: l'esecuzione riprende il
+     * lock del repository.
+     *
+     * @param query query da pianificare
+     * @return piano scelto (vedi {@link QueryPlan#explain()})
+     */
+    public synchronized QueryPlan explain(CredentialQuery query) {
+        return indexes.plan(query);
+    }
+
     // === GETTER CON DEFENSIVE COPYING ===
 
     /**
@@ -248,7 +878,8 @@ public class VaultRepository extends VaultSubject implements Iterable<Credential
      * @return Set delle categorie (defensive copy)
      */
     public Set<String> getCategories() {
-        return groupedCredentials.keySet();  // KeySet è già una view, non serve copying
+        // Vista non modificabile: la mappa può essere condivisa con uno snapshot
+        return Collections.unmodifiableSet(groupedCredentials.keySet());
     }
 
     /**
@@ -258,6 +889,20 @@ public class VaultRepository extends VaultSubject implements Iterable<Credential
      * @return lista credenziali (defensive copy)
      */
     public List<Credential> getByCategory(String category) {
-        return groupedCredentials.getOrDefault(category, Collections.emptyList());
+        // Vista non modificabile: la lista può essere condivisa con uno snapshot
+        return Collections.unmodifiableList(groupedCredentials.getOrDefault(category, Collections.emptyList()));
+    }
+
+    /**
+     * Scansione paginata in corso: query che l'ha avviata e snapshot che legge.
+     */
+    private static final class PagedScan {
+        private final Object scope;
+        private final VaultSnapshot snapshot;
+
+        private PagedScan(Object scope, VaultSnapshot snapshot) {
+            this.scope = scope;
+            this.snapshot = snapshot;
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,163 @@
+package com.securevault.repository;
+
+import com.securevault.model.Credential;
+
+import java.lang.ref.Cleaner;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Vista immutabile e consistente del vault in un istante preciso (MVCC).
+ *
+ * Lo snapshot condivide le strutture del repository senza copiarle: è il
+ * repository che, alla prima scrittura successiva, copia la mappa delle
+ * categorie e la sola lista toccata (copy-on-write). Un lettore lungo
+ * (es. export CSV in background) vede quindi sempre lo stesso stato mentre
+ * l'interfaccia continua a modificare il vault.
+ *
+ * Le versioni non più referenziate vengono raccolte dal garbage collector.
+ *
+ * Finché uno snapshot è aperto, le password off-heap delle credenziali che
+ * contiene non vengono azzerate anche se nel frattempo sono state rimosse o
+ * modificate nel vault. Lo snapshot è condiviso tra chi lo richiede senza
+ * scritture intermedie: ogni {@link VaultRepository#snapshot()} va bilanciato
+ * da un {@link #close()} (try-with-resources). Uno snapshot mai chiuso viene
+ * rilasciato quando il garbage collector lo raccoglie.
+ */
+public class VaultSnapshot implements Iterable<Credential>, AutoCloseable {
+    private static final Cleaner CLEANER = Cleaner.create();
+
+    private final long version;
+    private final Map<String, List<Credential>> data;   // Mai modificata dopo la pubblicazione
+    private final int size;
+    private final Lease lease;
+    private final Cleaner.Cleanable cleanable;
+
+    /**
+     * @param reclaimer recupero delle password, notificato alla chiusura
+     * (lo snapshot nasce con un riferimento, quello del repository)
+     */
+    VaultSnapshot(long version, Map<String, List<Credential>> data, int size, SecretReclaimer reclaimer) {
+        this.version = version;
+        this.data = data;
+        this.size = size;
+        this.lease = new Lease(reclaimer, version);
+        this.cleanable = CLEANER.register(this, lease);
+    }
+
+    /**
+     * @return versione del repository catturata dallo snapshot
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * @return categorie presenti nello snapshot
+     */
+    public Set<String> getCategories() {
+        return Collections.unmodifiableSet(data.keySet());
+    }
+
+    /**
+     * @param category categoria richiesta
+     * @return credenziali della categoria (lista immutabile)
+     */
+    public List<Credential> getByCategory(String category) {
+        return Collections.unmodifiableList(data.getOrDefault(category, Collections.emptyList()));
+    }
+
+    /**
+     * @return numero totale di credenziali nello snapshot
+     */
+    public int countAll() {
+        return size;
+    }
+
+    /**
+     * @return stream su tutte le credenziali dello snapshot
+     */
+    public Stream<Credential> stream() {
+        return StreamSupport.stream(spliterator(), false);
+    }
+
+    /**
+     * Registra un nuovo utilizzatore dello snapshot condiviso.
+     * @return questo snapshot
+     */
+    VaultSnapshot acquire() {
+        lease.acquire();
+        return this;
+    }
+
+    /**
+     * Rilascia lo snapshot: quando anche l'ultimo utilizzatore lo ha chiuso,
+     * le password delle credenziali uscite dal vault nel frattempo possono
+     * essere azzerate. Lo snapshot resta leggibile, ma senza garanzie sulle
+     * password off-heap.
+     */
+    @Override
+    public void close() {
+        if (lease.release()) {
+            cleanable.clean();
+        }
+    }
+
+    @Override
+    public Iterator<Credential> iterator() {
+        return data.values().stream()
+                .flatMap(Collection::stream)
+                .iterator();
+    }
+
+    @Override
+    public Spliterator<Credential> spliterator() {
+        return Spliterators.spliterator(iterator(), size,
+                Spliterator.SIZED | Spliterator.NONNULL | Spliterator.IMMUTABLE);
+    }
+
+    /**
+     * Conteggio degli utilizzatori e registrazione della versione presso il
+     * SecretReclaimer. Non referenzia lo snapshot: è anche l'azione del Cleaner.
+     */
+    private static final class Lease implements Runnable {
+        private final SecretReclaimer reclaimer;
+        private final long version;
+        private final AtomicInteger users = new AtomicInteger(1);
+        private final AtomicBoolean released = new AtomicBoolean(false);
+
+        Lease(SecretReclaimer reclaimer, long version) {
+            this.reclaimer = reclaimer;
+            this.version = version;
+            reclaimer.pin(version);
+        }
+
+        void acquire() {
+            users.incrementAndGet();
+        }
+
+        /**
+         * @return true se era l'ultimo utilizzatore
+         */
+        boolean release() {
+            return users.decrementAndGet() == 0;
+        }
+
+        @Override
+        public void run() {
+            if (released.compareAndSet(false, true)) {
+                reclaimer.unpin(version);
+            }
+        }
+    }
+}
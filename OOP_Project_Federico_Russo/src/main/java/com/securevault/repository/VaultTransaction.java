@@ -0,0 +1,118 @@
+package com.securevault.repository;
+
+import com.securevault.model.Credential;
+import com.securevault.observer.VaultEvent;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Transazione sul vault: le operazioni vengono accumulate e applicate tutte
+ * insieme al commit, oppure nessuna.
+ *
+ * Al commit il repository valida l'intera sequenza sullo stato corrente
+ * (ogni credenziale da rimuovere o modificare deve esistere, tenendo conto
+ * delle operazioni precedenti della stessa transazione), la applica sotto un
+ * solo lock, incrementa la versione una volta e notifica gli observer con un
+ * unico {@link com.securevault.observer.VaultObserver#onBatch}. Il chiamante
+ * esegue quindi una sola scrittura su disco per l'intero blocco.
+ *
+ * Uso tipico: {@link VaultRepository#inTransaction} con una lambda, oppure
+ * {@link VaultRepository#begin()} seguito da commit/rollback.
+ */
+public final class VaultTransaction {
+
+    private enum State { OPEN, COMMITTED, ROLLED_BACK }
+
+    private final VaultRepository repository;
+    private final List<VaultEvent> operations = new ArrayList<>();
+    private State state = State.OPEN;
+
+    VaultTransaction(VaultRepository repository) {
+        this.repository = repository;
+    }
+
+    // === OPERAZIONI ===
+
+    public VaultTransaction add(String category, Credential credential) {
+        return record(VaultEvent.added(category, credential));
+    }
+
+    public VaultTransaction remove(String category, Credential credential) {
+        return record(VaultEvent.removed(category, credential));
+    }
+
+    public VaultTransaction modify(String category, Credential oldCredential, Credential newCredential) {
+        return record(VaultEvent.modified(category, oldCredential, newCredential));
+    }
+
+    /**
+     * Sposta una credenziale tra categorie (rimozione + aggiunta della stessa istanza).
+     * @param from categoria di origine
+     * @param to categoria di destinazione
+     * @param credential credenziale da spostare
+     * @return questa transazione
+     */
+    public VaultTransaction move(String from, String to, Credential credential) {
+        remove(from, credential);
+        return add(to, credential);
+    }
+
+    // === CICLO DI VITA ===
+
+    /**
+     * Valida e applica atomicamente tutte le operazioni.
+     * @return eventi applicati, nell'ordine
+     * @throws com.securevault.exception.InputValidationException se un'operazione non è valida
+     *         (nessuna modifica viene applicata e la transazione viene annullata)
+     * @throws IllegalStateException se la transazione non è più aperta
+     */
+    public List<VaultEvent> commit() {
+        checkOpen();
+        try {
+            List<VaultEvent> applied = repository.applyTransaction(operations);
+            state = State.COMMITTED;
+            return applied;
+        } catch (RuntimeException e) {
+            rollback();
+            throw e;
+        }
+    }
+
+    /**
+     * Annulla la transazione: nessuna operazione viene applicata.
+     */
+    public void rollback() {
+        if (state == State.OPEN) {
+            operations.clear();
+            state = State.ROLLED_BACK;
+        }
+    }
+
+    /**
+     * @return true se la transazione accetta ancora operazioni
+     */
+    public boolean isOpen() {
+        return state == State.OPEN;
+    }
+
+    /**
+     * @return operazioni accumulate (sola lettura)
+     */
+    public List<VaultEvent> getOperations() {
+        return Collections.unmodifiableList(operations);
+    }
+
+    private VaultTransaction record(VaultEvent operation) {
+        checkOpen();
+        operations.add(operation);
+        return this;
+    }
+
+    private void checkOpen() {
+        if (state != State.OPEN) {
+            throw new IllegalStateException("Transazione già " + (state == State.COMMITTED ? "confermata" : "annullata"));
+        }
+    }
+}
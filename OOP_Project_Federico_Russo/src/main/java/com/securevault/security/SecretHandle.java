@@ -0,0 +1,212 @@
+package com.securevault.security;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Arrays;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Riferimento a un segreto conservato in un {@link SecretStore}.
+ *
+ * I caratteri non vengono mai esposti come String: {@link #read} e
+ * {@link #apply} forniscono un array temporaneo che viene azzerato al
+ * ritorno. Dopo {@link #destroy()} (o la chiusura dello store) ogni
+ * accesso lancia IllegalStateException.
+ *
+ * Il confronto non dipende dallo stato del segreto: all'allocazione viene
+ * calcolata un'impronta (HMAC-SHA256 con chiave casuale di processo, mai
+ * persistita) che sostituisce il contenuto quando uno dei due lati è
+ * azzerato. Una credenziale resta così uguale a sé stessa e alle sue copie
+ * anche dopo l'azzeramento, e le mappe indicizzate per valore la ritrovano.
+ */
+public final class SecretHandle {
+    private static final String DIGEST_ALGORITHM = "HmacSHA256";
+    private static final byte[] DIGEST_KEY = randomKey();               // Solo in memoria
+    private static final ThreadLocal<Mac> DIGESTS = ThreadLocal.withInitial(SecretHandle::newMac);
+
+    private final SecretStore store;
+    private final SecretStore.Slab slab;
+    private final int offset;
+    private final int length;
+    private final int hash;           // Stesso valore di String.hashCode del segreto
+    private final byte[] digest;      // Impronta del contenuto, valida anche dopo l'azzeramento
+    private boolean destroyed = false;
+
+    SecretHandle(SecretStore store, SecretStore.Slab slab, int offset, int length, int hash, byte[] digest) {
+        this.store = store;
+        this.slab = slab;
+        this.offset = offset;
+        this.length = length;
+        this.hash = hash;
+        this.digest = digest;
+    }
+
+    /**
+     * Impronta di un segreto, senza copiarne i caratteri in un array.
+     * @param value segreto in chiaro
+     * @return HMAC del contenuto con la chiave di processo
+     */
+    static byte[] digestOf(CharSequence value) {
+        Mac mac = DIGESTS.get();
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            mac.update((byte) (c >> 8));
+            mac.update((byte) c);
+        }
+        return mac.doFinal();
+    }
+
+    private static byte[] randomKey() {
+        byte[] key = new byte[32];
+        new SecureRandom().nextBytes(key);
+        return key;
+    }
+
+    private static Mac newMac() {
+        try {
+            Mac mac = Mac.getInstance(DIGEST_ALGORITHM);
+            mac.init(new SecretKeySpec(DIGEST_KEY, DIGEST_ALGORITHM));
+            return mac;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HMAC non disponibile", e);
+        }
+    }
+
+    /**
+     * @return numero di caratteri del segreto
+     */
+    public int length() {
+        return length;
+    }
+
+    /**
+     * Espone il segreto in un array temporaneo, azzerato dopo la lettura.
+     * @param reader consumatore dei caratteri (non deve conservare l'array)
+     */
+    public void read(Consumer<char[]> reader) {
+        apply(chars -> {
+            reader.accept(chars);
+            return null;
+        });
+    }
+
+    /**
+     * Calcola un valore dal segreto tramite un array temporaneo azzerato al ritorno.
+     * @param function funzione sui caratteri (non deve conservare l'array)
+     * @param <R> tipo del risultato
+     * @return risultato della funzione
+     */
+    public <R> R apply(Function<char[], R> function) {
+        char[] chars = copy();
+        try {
+            return function.apply(chars);
+        } finally {
+            Arrays.fill(chars, '\0');
+        }
+    }
+
+    /**
+     * Confronta il contenuto senza copiarlo sull'heap.
+     * Un segreto azzerato confronta l'impronta calcolata all'allocazione.
+     * @param value valore da confrontare
+     * @return true se i caratteri coincidono
+     */
+    public boolean contentEquals(CharSequence value) {
+        if (value == null || value.length() != length) {
+            return false;
+        }
+        synchronized (store) {
+            if (!isDestroyed()) {
+                for (int i = 0; i < length; i++) {
+                    if (charAt(i) != value.charAt(i)) return false;
+                }
+                return true;
+            }
+        }
+        return MessageDigest.isEqual(digest, digestOf(value));
+    }
+
+    /**
+     * Confronta il contenuto di due segreti senza copiarli sull'heap.
+     * Se uno dei due è azzerato, o appartengono a store diversi, confronta le impronte.
+     * @param other altro segreto
+     * @return true se i caratteri coincidono
+     */
+    public boolean contentEquals(SecretHandle other) {
+        if (other == this) {
+            return true;
+        }
+        if (other == null || other.length != length || other.hash != hash) {
+            return false;
+        }
+        if (other.store == store) {
+            synchronized (store) {
+                if (!isDestroyed() && !other.isDestroyed()) {
+                    for (int i = 0; i < length; i++) {
+                        if (charAt(i) != other.charAt(i)) return false;
+                    }
+                    return true;
+                }
+            }
+        }
+        // Store diversi (niente lock annidati) o segreto azzerato
+        return MessageDigest.isEqual(digest, other.digest);
+    }
+
+    /**
+     * Hash del contenuto calcolato all'allocazione (compatibile con String.hashCode),
+     * disponibile anche dopo l'azzeramento.
+     * @return hash del segreto
+     */
+    public int contentHash() {
+        return hash;
+    }
+
+    /**
+     * @return true se il segreto è stato azzerato
+     */
+    public boolean isDestroyed() {
+        synchronized (store) {
+            return destroyed || slab.released;
+        }
+    }
+
+    /**
+     * Azzera il segreto. Idempotente.
+     */
+    public void destroy() {
+        synchronized (store) {
+            if (destroyed) {
+                return;
+            }
+            destroyed = true;
+            store.release(slab, offset, length);
+        }
+    }
+
+    private char[] copy() {
+        synchronized (store) {
+            if (isDestroyed()) {
+                throw new IllegalStateException("Segreto già azzerato");
+            }
+            char[] chars = new char[length];
+            for (int i = 0; i < length; i++) {
+                chars[i] = charAt(i);
+            }
+            return chars;
+        }
+    }
+
+    private char charAt(int i) {
+        return slab.buffer.getChar(offset + i * Character.BYTES);
+    }
+
+    @Override
+    public String toString() {
+        return "SecretHandle[" + length + " chars]";   // Mai il contenuto
+    }
+}
@@ -0,0 +1,181 @@
+package com.securevault.security;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Archivio off-heap per le password.
+ *
+ * Le password in una String restano sull'heap finché il garbage collector non
+ * le raccoglie: non si possono azzerare, vengono copiate dai compattatori e
+ * scandite ad ogni GC. Qui i caratteri vivono in slab di memoria diretta
+ * ({@link ByteBuffer#allocateDirect}) fuori dall'heap e le credenziali tengono
+ * solo un {@link SecretHandle}.
+ *
+ * - ogni segreto può essere azzerato esplicitamente (rimozione, modifica)
+ * - {@link #close()} azzera tutti gli slab in un colpo solo (blocco del vault)
+ * - l'accesso avviene tramite array char temporanei azzerati dopo l'uso
+ *
+ * Allocazione bump-pointer per slab: lo spazio di un segreto azzerato viene
+ * recuperato quando lo slab non contiene più segreti vivi.
+ */
+public class SecretStore implements AutoCloseable {
+    public static final int DEFAULT_SLAB_SIZE = 64 * 1024;
+
+    private final int slabSize;
+    private final List<Slab> slabs = new ArrayList<>();
+    private Slab current;
+    private int liveSecrets = 0;
+    private boolean closed = false;
+
+    public SecretStore() {
+        this(DEFAULT_SLAB_SIZE);
+    }
+
+    /**
+     * @param slabSize dimensione in byte di ogni slab di memoria diretta
+     */
+    public SecretStore(int slabSize) {
+        if (slabSize < Character.BYTES) {
+            throw new IllegalArgumentException("Dimensione slab non valida: " + slabSize);
+        }
+        this.slabSize = slabSize;
+    }
+
+    // === ALLOCAZIONE ===
+
+    /**
+     * Copia il valore fuori dall'heap.
+     * @param value segreto in chiaro
+     * @return handle sul segreto
+     */
+    public synchronized SecretHandle store(CharSequence value) {
+        int length = value.length();
+        Slab slab = reserve(length);
+        int offset = slab.used;
+        int hash = 0;
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            slab.buffer.putChar(offset + i * Character.BYTES, c);
+            hash = 31 * hash + c;
+        }
+        slab.used += length * Character.BYTES;
+        slab.live++;
+        liveSecrets++;
+        return new SecretHandle(this, slab, offset, length, hash, SecretHandle.digestOf(value));
+    }
+
+    /**
+     * Copia il valore fuori dall'heap. Il chiamante può azzerare il proprio array subito dopo.
+     * @param value segreto in chiaro
+     * @return handle sul segreto
+     */
+    public synchronized SecretHandle store(char[] value) {
+        return store(CharBuffer.wrap(value));
+    }
+
+    // === STATO ===
+
+    /**
+     * @return numero di segreti non ancora azzerati
+     */
+    public synchronized int liveSecrets() {
+        return liveSecrets;
+    }
+
+    /**
+     * @return byte di memoria diretta attualmente allocati
+     */
+    public synchronized long residentBytes() {
+        long total = 0;
+        for (Slab slab : slabs) {
+            total += slab.buffer.capacity();
+        }
+        return total;
+    }
+
+    /**
+     * @return true dopo {@link #close()}
+     */
+    public synchronized boolean isClosed() {
+        return closed;
+    }
+
+    /**
+     * Azzera tutti i segreti e rilascia gli slab. Gli handle esistenti
+     * diventano inutilizzabili; lo store non accetta nuovi segreti.
+     */
+    @Override
+    public synchronized void close() {
+        for (Slab slab : slabs) {
+            zero(slab.buffer, 0, slab.used);
+            slab.released = true;
+        }
+        slabs.clear();
+        current = null;
+        liveSecrets = 0;
+        closed = true;
+    }
+
+    // === IMPLEMENTAZIONE ===
+
+    /**
+     * Azzera il segreto e, se lo slab resta vuoto, ne recupera lo spazio.
+     */
+    synchronized void release(Slab slab, int offset, int length) {
+        if (slab.released) {
+            return;
+        }
+        zero(slab.buffer, offset, length * Character.BYTES);
+        slab.live--;
+        liveSecrets--;
+        if (slab.live == 0) {
+            if (slab == current) {
+                slab.used = 0;             // Riutilizzo dello slab corrente
+            } else {
+                slabs.remove(slab);        // Slab pieno e vuoto: lasciato al GC
+                slab.released = true;
+            }
+        }
+    }
+
+    private Slab reserve(int length) {
+        if (closed) {
+            throw new IllegalStateException("SecretStore chiuso");
+        }
+        int bytes = length * Character.BYTES;
+        if (current != null && current.used + bytes <= current.buffer.capacity()) {
+            return current;
+        }
+        if (current != null && current.live == 0) {
+            slabs.remove(current);
+            current.released = true;
+        }
+        // Segreti più grandi di uno slab ricevono uno slab dedicato
+        current = new Slab(ByteBuffer.allocateDirect(Math.max(slabSize, bytes)));
+        slabs.add(current);
+        return current;
+    }
+
+    private static void zero(ByteBuffer buffer, int from, int length) {
+        for (int i = from; i < from + length; i++) {
+            buffer.put(i, (byte) 0);
+        }
+    }
+
+    /**
+     * Regione contigua di memoria diretta.
+     */
+    static final class Slab {
+        final ByteBuffer buffer;
+        int used = 0;
+        int live = 0;
+        boolean released = false;
+
+        Slab(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+    }
+}
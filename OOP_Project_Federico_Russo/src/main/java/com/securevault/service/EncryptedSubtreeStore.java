@@ -0,0 +1,246 @@
+package com.securevault.service;
+
+import com.securevault.composite.FolderComposite;
+import com.securevault.composite.LazyFolderComposite;
+import com.securevault.composite.SubtreeLoader;
+import com.securevault.composite.VaultComponent;
+import com.securevault.exception.ExceptionHandler;
+import com.securevault.exception.VaultException;
+import com.securevault.model.Credential;
+import com.securevault.security.CryptoManager;
+import com.securevault.security.SecretStore;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.logging.Logger;
+
+/**
+ * Archivio su disco di sottoalberi, sorgente delle cartelle pigre.
+ *
+ * Ogni cartella archiviata è un file cifrato nella directory dell'archivio
+ * (nome = chiave della cartella), con:
+ * - intestazione: nome e aggregati del sottoalbero
+ * - una riga per sottocartella: chiave, nome e aggregati (nessuna lettura del suo file)
+ * - una riga per credenziale: la credenziale serializzata
+ *
+ * Il caricamento procede quindi un livello alla volta: aprire una cartella
+ * legge solo il suo file. Le password possono essere caricate nel SecretStore.
+ *
+ * Un salvataggio riscrive i file delle cartelle in memoria; quando i nuovi
+ * file sono al loro posto, i file delle sottocartelle che non sono più
+ * referenziate (rimosse, o riscritte con una nuova chiave) vengono eliminati.
+ */
+public class EncryptedSubtreeStore implements SubtreeLoader {
+    private static final Logger logger = Logger.getLogger(EncryptedSubtreeStore.class.getName());
+
+    private static final String FILE_SUFFIX = ".subtree";
+
+    private final Path directory;
+    private final CryptoManager cryptoManager;
+    private final SecretStore secrets;
+
+    /**
+     * @param directory directory dell'archivio (creata se assente)
+     * @param cryptoManager cifratura dei file (stessa chiave di vault.enc)
+     * @param secrets store per le password caricate (null = password su heap)
+     */
+    public EncryptedSubtreeStore(Path directory, CryptoManager cryptoManager, SecretStore secrets) {
+        this.directory = directory;
+        this.cryptoManager = cryptoManager;
+        this.secrets = secrets;
+    }
+
+    /**
+     * Archivia un sottoalbero e restituisce la cartella pigra che lo sostituisce
+     * (da inserire al posto dell'originale, es. con VaultTree.replace).
+     * @param folder cartella da archiviare
+     * @return cartella pigra non caricata, con gli stessi aggregati
+     */
+    public LazyFolderComposite archive(FolderComposite folder) {
+        List<VaultComponent> children = new ArrayList<>();
+        folder.forEach(children::add);
+        String key = UUID.randomUUID().toString();
+        persist(key, folder.getName(), folder.getCredentialCount(), folder.getFolderCount(),
+                folder.getLastModified(), children);
+        return new LazyFolderComposite(folder.getName(), key, this, folder.getCredentialCount(),
+                folder.getFolderCount(), folder.getLastModified());
+    }
+
+    /**
+     * Apre una cartella archiviata leggendone solo l'intestazione.
+     * @param key chiave della cartella
+     * @return cartella pigra non caricata
+     */
+    public LazyFolderComposite open(String key) {
+        try (BufferedReader reader = Files.newBufferedReader(fileOf(key), StandardCharsets.UTF_8)) {
+            return folderFrom(key, cryptoManager.decrypt(reader.readLine()).split(" "), 0);
+        } catch (IOException | RuntimeException e) {
+            logger.severe("Errore apertura cartella archiviata: " + e.getMessage());
+            throw new VaultException(ExceptionHandler.handleException(e), e);
+        }
+    }
+
+    @Override
+    public List<VaultComponent> load(LazyFolderComposite folder) {
+        List<VaultComponent> children = new ArrayList<>();
+        try (BufferedReader reader = Files.newBufferedReader(fileOf(folder.getStorageKey()), StandardCharsets.UTF_8)) {
+            reader.readLine();    // Intestazione: aggregati già noti
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] fields = cryptoManager.decrypt(line).split(" ");
+                if ("F".equals(fields[0])) {
+                    children.add(folderFrom(fields[1], fields, 1));
+                } else {
+                    children.add(Credential.deserialize(decode(fields[1]), null, secrets));
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            logger.severe("Errore caricamento cartella archiviata: " + e.getMessage());
+            throw new VaultException(ExceptionHandler.handleException(e), e);
+        }
+        logger.fine("Caricata cartella archiviata " + folder.getName() + ": " + children.size() + " figli");
+        return children;
+    }
+
+    @Override
+    public boolean save(LazyFolderComposite folder, List<VaultComponent> children) {
+        persist(folder.getStorageKey(), folder.getName(), folder.getCredentialCount(),
+                folder.getFolderCount(), folder.getLastModified(), children);
+        return true;
+    }
+
+    // === SCRITTURA ===
+
+    /**
+     * Scrive il sottoalbero e poi elimina i file che il vecchio contenuto
+     * referenziava e il nuovo no.
+     */
+    private void persist(String key, String name, int credentials, int folders, Instant modified,
+                         List<VaultComponent> children) {
+        Set<String> live = new HashSet<>();
+        List<String> replaced = new ArrayList<>();
+        write(key, name, credentials, folders, modified, children, live, replaced);
+        // NUOVI FILE DURABILI: ora i riferimenti sostituiti si possono eliminare
+        for (String stale : replaced) {
+            deleteUnreferenced(stale, live);
+        }
+    }
+
+    private void write(String key, String name, int credentials, int folders, Instant modified,
+                       List<VaultComponent> children, Set<String> live, List<String> replaced) {
+        live.add(key);
+        List<String> lines = new ArrayList<>();
+        lines.add("H " + encode(name) + " " + credentials + " " + folders + " " + modified.toEpochMilli());
+        for (VaultComponent child : children) {
+            if (child instanceof LazyFolderComposite lazy && !lazy.isLoaded()) {
+                live.add(lazy.getStorageKey());
+                lines.add(folderLine(lazy.getStorageKey(), lazy));    // Già su disco: solo il riferimento
+            } else if (child instanceof FolderComposite sub) {
+                String subKey = child instanceof LazyFolderComposite lazy ? lazy.getStorageKey() : UUID.randomUUID().toString();
+                List<VaultComponent> grandChildren = new ArrayList<>();
+                sub.forEach(grandChildren::add);
+                write(subKey, sub.getName(), sub.getCredentialCount(), sub.getFolderCount(),
+                        sub.getLastModified(), grandChildren, live, replaced);
+                lines.add(folderLine(subKey, sub));
+            } else if (child instanceof Credential credential) {
+                lines.add("C " + encode(credential.serialize()));
+            }
+        }
+        try {
+            Files.createDirectories(directory);
+            Path target = fileOf(key);
+            replaced.addAll(folderKeys(target));          // Riferimenti del contenuto sovrascritto
+            Path temp = Path.of(target + ".tmp");
+            try (Writer writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+                for (String line : lines) {
+                    writer.write(cryptoManager.encrypt(line));
+                    writer.write('\n');
+                }
+            }
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            logger.severe("Errore archiviazione cartella: " + e.getMessage());
+            throw new VaultException(ExceptionHandler.handleException(e), e);
+        }
+    }
+
+    /**
+     * Elimina il file di una cartella non più referenziata e, a cascata,
+     * quelli delle sue sottocartelle che nessun file vivo referenzia.
+     */
+    private void deleteUnreferenced(String key, Set<String> live) {
+        if (live.contains(key)) {
+            return;
+        }
+        Path file = fileOf(key);
+        try {
+            List<String> children = folderKeys(file);
+            Files.deleteIfExists(file);
+            for (String child : children) {
+                deleteUnreferenced(child, live);
+            }
+        } catch (IOException | RuntimeException e) {
+            // GRACEFUL: un file orfano occupa spazio ma non altera l'archivio
+            logger.warning("Impossibile eliminare la cartella archiviata " + key + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * @return chiavi delle sottocartelle referenziate dal file (vuota se assente)
+     */
+    private List<String> folderKeys(Path file) throws IOException {
+        List<String> keys = new ArrayList<>();
+        if (!Files.exists(file)) {
+            return keys;
+        }
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            reader.readLine();    // Intestazione
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String plain = cryptoManager.decrypt(line);
+                if (plain.startsWith("F ")) {
+                    keys.add(plain.split(" ")[1]);
+                }
+            }
+        }
+        return keys;
+    }
+
+    private static String folderLine(String key, FolderComposite folder) {
+        return "F " + key + " " + encode(folder.getName()) + " " + folder.getCredentialCount() + " "
+                + folder.getFolderCount() + " " + folder.getLastModified().toEpochMilli();
+    }
+
+    /**
+     * Costruisce la cartella pigra da nome e aggregati a partire da fields[offset + 1].
+     */
+    private LazyFolderComposite folderFrom(String key, String[] fields, int offset) {
+        return new LazyFolderComposite(decode(fields[offset + 1]), key, this,
+                Integer.parseInt(fields[offset + 2]), Integer.parseInt(fields[offset + 3]),
+                Instant.ofEpochMilli(Long.parseLong(fields[offset + 4])));
+    }
+
+    private Path fileOf(String key) {
+        return directory.resolve(key + FILE_SUFFIX);
+    }
+
+    private static String encode(String value) {
+        return Base64.getEncoder().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String decode(String value) {
+        return new String(Base64.getDecoder().decode(value), StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,453 @@
+package com.securevault.service;
+
+import com.securevault.composite.FolderComposite;
+import com.securevault.composite.VaultComponent;
+import com.securevault.composite.VaultTree;
+import com.securevault.composite.VaultTreeListener;
+import com.securevault.exception.ExceptionHandler;
+import com.securevault.exception.VaultException;
+import com.securevault.model.Credential;
+import com.securevault.security.CryptoManager;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Logger;
+
+/**
+ * Persistenza della gerarchia delle cartelle accanto al vault.
+ *
+ * L'albero è codificato come record cifrati (uno per riga) con id numerici:
+ * - F id padre nome: cartella
+ * - C id cartella servizio username: credenziale (riferita per chiave, la
+ *   password resta solo in vault.enc)
+ * - D id: rimozione di un nodo (con il suo sottoalbero)
+ *
+ * Lo snapshot contiene i record F/C dell'albero in ordine depth-first; le
+ * modifiche successive (aggiunta, spostamento = D + aggiunta, rimozione)
+ * vengono accodate al journal, ricevute come {@link VaultTreeListener}.
+ * Quando i record morti (rimozioni, nodi rimossi o spostati, credenziali non
+ * più nel vault) superano i nodi vivi, snapshot e journal vengono compattati
+ * in un nuovo snapshot. Snapshot e journal portano lo stesso numero di generazione:
+ * un journal di una generazione diversa (crash durante la compattazione) viene ignorato.
+ *
+ * All'avvio l'albero viene ricostruito in tempo lineare, senza riclassificare.
+ */
+public class FolderTreeStore implements VaultTreeListener, AutoCloseable {
+    private static final Logger logger = Logger.getLogger(FolderTreeStore.class.getName());
+
+    private static final int MIN_DEAD_TO_COMPACT = 1000;
+    private static final int ROOT_ID = 0;
+    private static final String SNAPSHOT_HEADER = "TREE";
+    private static final String JOURNAL_HEADER = "JOURNAL";
+
+    private final Path snapshotPath;
+    private final Path journalPath;
+    private final CryptoManager cryptoManager;
+
+    private VaultTree tree;
+    private final Map<VaultComponent, Integer> ids = new IdentityHashMap<>();
+    private int nextId = ROOT_ID + 1;
+    private long generation = 0;
+    private int deadRecords = 0;             // Record di snapshot + journal che non descrivono nodi vivi
+    private FileChannel journal;
+    private Writer journalWriter;
+
+    /**
+     * @param snapshotPath file dello snapshot (il journal è snapshotPath + ".journal")
+     * @param cryptoManager cifratura dei record (stessa chiave di vault.enc)
+     */
+    public FolderTreeStore(Path snapshotPath, CryptoManager cryptoManager) {
+        this.snapshotPath = snapshotPath;
+        this.journalPath = Path.of(snapshotPath + ".journal");
+        this.cryptoManager = cryptoManager;
+    }
+
+    /**
+     * @return true se esiste una gerarchia persistita
+     */
+    public boolean exists() {
+        return Files.exists(snapshotPath);
+    }
+
+    // === CARICAMENTO ===
+
+    /**
+     * Ricostruisce le cartelle nell'albero (vuoto) e vi colloca le credenziali,
+     * abbinate per servizio e username. Va invocato prima di {@link #attach}.
+     * @param target albero da popolare
+     * @param credentials credenziali del vault
+     * @return credenziali senza collocazione salvata (nuove o non abbinate), da classificare
+     */
+    public synchronized List<Credential> load(VaultTree target, Collection<Credential> credentials) {
+        // Credenziali disponibili per chiave: i duplicati vengono consumati in ordine
+        Map<String, ArrayDeque<Credential>> available = new HashMap<>();
+        for (Credential c : credentials) {
+            available.computeIfAbsent(key(c.getService(), c.getUsername()), k -> new ArrayDeque<>()).add(c);
+        }
+
+        // Stato finale dei record: snapshot + journal, in ordine di creazione
+        Map<Integer, String[]> records = new LinkedHashMap<>();
+        generation = readRecords(snapshotPath, SNAPSHOT_HEADER, -1, records);
+        long totalRecords = records.size();        // Lo snapshot non contiene rimozioni
+        if (Files.exists(journalPath)) {
+            long read = readRecords(journalPath, JOURNAL_HEADER, generation, records);
+            if (read < 0) {
+                deleteStaleJournal();
+            } else {
+                totalRecords += read;
+            }
+        }
+
+        // I padri precedono sempre i figli: una sola passata
+        Map<Integer, FolderComposite> folders = new HashMap<>();
+        folders.put(ROOT_ID, target.getRoot());
+        ids.put(target.getRoot(), ROOT_ID);
+        for (Map.Entry<Integer, String[]> entry : records.entrySet()) {
+            String[] fields = entry.getValue();
+            FolderComposite parent = folders.get(Integer.parseInt(fields[2]));
+            if (parent == null) {
+                continue;     // Padre rimosso: il nodo è sparito con lui
+            }
+            if ("F".equals(fields[0])) {
+                FolderComposite folder = new FolderComposite(decode(fields[3]));
+                parent.add(folder);
+                folders.put(entry.getKey(), folder);
+                ids.put(folder, entry.getKey());
+            } else {
+                ArrayDeque<Credential> matches = available.get(key(decode(fields[3]), decode(fields[4])));
+                Credential credential = matches == null ? null : matches.poll();
+                if (credential != null) {
+                    parent.add(credential);
+                    ids.put(credential, entry.getKey());
+                }
+            }
+        }
+
+        // Morti: tutto ciò che è stato letto e non ha prodotto un nodo (radice esclusa)
+        deadRecords = (int) (totalRecords - (ids.size() - 1));
+
+        List<Credential> unplaced = new ArrayList<>();
+        available.values().forEach(unplaced::addAll);
+        logger.info("Gerarchia ripristinata: " + folders.size() + " cartelle, "
+                + (credentials.size() - unplaced.size()) + " credenziali collocate");
+        return unplaced;
+    }
+
+    /**
+     * Collega lo store all'albero: da qui ogni modifica viene registrata.
+     * Va invocato dopo aver collocato le credenziali non abbinate: se non esiste
+     * uno snapshot, se l'albero contiene nodi aggiunti dopo il caricamento o se
+     * i record morti dominano, viene scritto un unico nuovo snapshot invece di
+     * un record di journal (e un fsync) per nodo.
+     * @param target albero da osservare
+     */
+    public synchronized void attach(VaultTree target) {
+        this.tree = target;
+        if (!exists() || hasUntracked(target.getRoot()) || compactionDue()) {
+            compact();
+        }
+        target.addListener(this);
+    }
+
+    // === LISTENER ===
+
+    @Override
+    public synchronized void onAttached(VaultComponent component, FolderComposite parent) {
+        List<String> lines = new ArrayList<>();
+        encodeSubtree(component, parent, lines);
+        append(lines);
+    }
+
+    @Override
+    public synchronized void onDetached(VaultComponent component, FolderComposite parent) {
+        Integer id = ids.get(component);
+        if (id == null) {
+            return;
+        }
+        int before = ids.size();
+        forget(component);
+        deadRecords += 1 + (before - ids.size());    // Il record D e quelli del sottoalbero
+        append(List.of("D " + id));
+    }
+
+    /**
+     * Chiude il journal.
+     */
+    @Override
+    public synchronized void close() {
+        closeJournal();
+    }
+
+    // === SCRITTURA ===
+
+    private void append(List<String> lines) {
+        try {
+            if (journal == null) {
+                openJournal();
+            }
+            for (String line : lines) {
+                journalWriter.write(cryptoManager.encrypt(line));
+                journalWriter.write('\n');
+            }
+            journalWriter.flush();
+            journal.force(false);
+        } catch (IOException e) {
+            logger.severe("Errore scrittura journal dell'albero: " + e.getMessage());
+            throw new VaultException(ExceptionHandler.handleException(e), e);
+        }
+        if (compactionDue()) {
+            compact();
+        }
+    }
+
+    private boolean compactionDue() {
+        return deadRecords >= MIN_DEAD_TO_COMPACT && deadRecords > ids.size();
+    }
+
+    private boolean hasUntracked(VaultComponent component) {
+        if (!ids.containsKey(component)) {
+            return true;
+        }
+        if (component.isComposite()) {
+            for (VaultComponent child : component) {
+                if (hasUntracked(child)) return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Riscrive lo snapshot dall'albero corrente (id riassegnati) e azzera il journal.
+     */
+    private void compact() {
+        ids.clear();
+        nextId = ROOT_ID + 1;
+        ids.put(tree.getRoot(), ROOT_ID);
+        List<String> lines = new ArrayList<>();
+        for (VaultComponent child : tree.getRoot()) {
+            encodeSubtree(child, tree.getRoot(), lines);
+        }
+
+        closeJournal();
+        generation++;
+        try {
+            Path temp = Path.of(snapshotPath + ".tmp");
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+                 Writer writer = Channels.newWriter(channel, StandardCharsets.UTF_8)) {
+                writer.write(cryptoManager.encrypt(SNAPSHOT_HEADER + " " + generation));
+                writer.write('\n');
+                for (String line : lines) {
+                    writer.write(cryptoManager.encrypt(line));
+                    writer.write('\n');
+                }
+                writer.flush();
+                channel.force(true);
+            }
+            Files.move(temp, snapshotPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            Files.deleteIfExists(journalPath);
+        } catch (IOException e) {
+            logger.severe("Errore scrittura snapshot dell'albero: " + e.getMessage());
+            throw new VaultException(ExceptionHandler.handleException(e), e);
+        }
+        deadRecords = 0;
+        logger.fine("Gerarchia compattata: " + ids.size() + " nodi");
+    }
+
+    private void openJournal() throws IOException {
+        boolean fresh = !Files.exists(journalPath);
+        journal = FileChannel.open(journalPath, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        journalWriter = Channels.newWriter(journal, StandardCharsets.UTF_8);
+        if (fresh) {
+            journalWriter.write(cryptoManager.encrypt(JOURNAL_HEADER + " " + generation));
+            journalWriter.write('\n');
+        }
+    }
+
+    private void closeJournal() {
+        if (journal == null) {
+            return;
+        }
+        try {
+            journalWriter.close();    // Chiude anche il canale
+        } catch (IOException e) {
+            logger.warning("Chiusura journal dell'albero fallita: " + e.getMessage());
+        }
+        journal = null;
+        journalWriter = null;
+    }
+
+    /**
+     * Assegna gli id e codifica il componente e (per le cartelle) il suo sottoalbero.
+     */
+    private void encodeSubtree(VaultComponent component, FolderComposite parent, List<String> lines) {
+        Integer parentId = ids.get(parent);
+        if (parentId == null) {
+            return;     // Padre non (ancora) registrato: verrà codificato con lui
+        }
+        int id = nextId++;
+        ids.put(component, id);
+        if (component instanceof FolderComposite folder) {
+            lines.add("F " + id + " " + parentId + " " + encode(folder.getName()));
+            for (VaultComponent child : folder) {
+                encodeSubtree(child, folder, lines);
+            }
+        } else if (component instanceof Credential credential) {
+            lines.add("C " + id + " " + parentId + " " + encode(credential.getService())
+                    + " " + encode(credential.getUsername()));
+        }
+    }
+
+    private void forget(VaultComponent component) {
+        ids.remove(component);
+        if (component.isComposite()) {
+            for (VaultComponent child : component) {
+                forget(child);
+            }
+        }
+    }
+
+    // === LETTURA ===
+
+    /**
+     * Applica i record del file a records; restituisce la generazione (snapshot) o il numero di record letti
+     * (journal, -1 se di un'altra generazione).
+     *
+     * Il journal è accodato un record alla volta: un crash durante l'append può
+     * lasciare in fondo un record troncato (senza terminatore di riga) o non
+     * decifrabile. L'append non era completato, quindi il record viene scartato
+     * e il journal troncato prima di esso. Un record illeggibile in qualsiasi
+     * altro punto (o nello snapshot, scritto in modo atomico) è corruzione.
+     */
+    private long readRecords(Path path, String header, long expectedGeneration, Map<Integer, String[]> records) {
+        boolean isJournal = expectedGeneration >= 0;
+        try {
+            byte[] content = Files.readAllBytes(path);
+            int end = indexOf(content, (byte) '\n', 0);
+            String[] head = end < 0 && isJournal ? null : tryDecode(line(content, 0, end));
+            if (head == null && isJournal) {
+                logger.warning("Intestazione incompleta del journal dell'albero: ignorato");
+                return -1;                               // Crash durante la creazione del journal
+            }
+            if (head == null || head.length != 2 || !header.equals(head[0])) {
+                throw new IOException("Intestazione non valida in " + path);
+            }
+            long fileGeneration = Long.parseLong(head[1]);
+            if (isJournal && fileGeneration != expectedGeneration) {
+                logger.warning("Journal dell'albero di una generazione precedente: ignorato");
+                return -1;
+            }
+            long count = 0;
+            int start = end < 0 ? content.length : end + 1;
+            while (start < content.length) {
+                end = indexOf(content, (byte) '\n', start);
+                String line = line(content, start, end);
+                if (!line.isBlank()) {
+                    String[] fields = end >= 0 || !isJournal ? tryDecode(line) : null;
+                    if (fields == null) {
+                        // Solo l'ultimo record del journal può essere incompleto
+                        if (!isJournal || !isBlank(content, end < 0 ? content.length : end + 1)) {
+                            throw new IOException("Record della gerarchia non valido in " + path);
+                        }
+                        truncate(path, start);
+                        logger.warning("Record incompleto in coda al journal dell'albero scartato");
+                        break;
+                    }
+                    int id = Integer.parseInt(fields[1]);
+                    nextId = Math.max(nextId, id + 1);    // Anche gli id rimossi: mai riusati
+                    if ("D".equals(fields[0])) {
+                        records.remove(id);
+                    } else {
+                        records.put(id, fields);
+                    }
+                    count++;
+                }
+                if (end < 0) break;
+                start = end + 1;
+            }
+            return isJournal ? count : fileGeneration;
+        } catch (IOException | RuntimeException e) {
+            logger.severe("Errore lettura gerarchia: " + e.getMessage());
+            throw new VaultException(ExceptionHandler.handleException(e), e);
+        }
+    }
+
+    /**
+     * Decifra un record e ne verifica la forma; null se illeggibile.
+     */
+    private String[] tryDecode(String line) {
+        try {
+            String[] fields = cryptoManager.decrypt(line).split(" ");
+            if (fields.length < 2) {
+                return null;
+            }
+            if (!SNAPSHOT_HEADER.equals(fields[0]) && !JOURNAL_HEADER.equals(fields[0])) {
+                Integer.parseInt(fields[1]);
+            }
+            return fields;
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+
+    private static String line(byte[] content, int start, int end) {
+        return new String(content, start, (end < 0 ? content.length : end) - start, StandardCharsets.UTF_8);
+    }
+
+    private static void truncate(Path path, long size) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+            channel.truncate(size);
+            channel.force(true);
+        }
+    }
+
+    private static int indexOf(byte[] content, byte value, int from) {
+        for (int i = from; i < content.length; i++) {
+            if (content[i] == value) return i;
+        }
+        return -1;
+    }
+
+    private static boolean isBlank(byte[] content, int from) {
+        for (int i = from; i < content.length; i++) {
+            if (!Character.isWhitespace(content[i])) return false;
+        }
+        return true;
+    }
+
+    private void deleteStaleJournal() {
+        try {
+            Files.deleteIfExists(journalPath);
+        } catch (IOException e) {
+            throw new VaultException(ExceptionHandler.handleException(e), e);
+        }
+    }
+
+    private static String key(String service, String username) {
+        return service + '\u0000' + username;
+    }
+
+    private static String encode(String value) {
+        return Base64.getEncoder().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String decode(String value) {
+        return new String(Base64.getDecoder().decode(value), StandardCharsets.UTF_8);
+    }
+}
@@ -4,9 +4,14 @@ import com.securevault.exception.ExceptionHandler;
 import com.securevault.exception.VaultException;
 import com.securevault.model.Credential;
 import com.securevault.security.CryptoManager;
+import com.securevault.security.SecretStore;
+import com.securevault.util.StringDictionary;
 
 import javax.crypto.SecretKey;
 import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.logging.Logger;
@@ -17,11 +22,20 @@ public class SecureStorageService {
     private SecretKey key;
     private final String storagePath;
     private CryptoManager cryptoManager;
+    private SecretStore secretStore;      // null = password caricate su heap
 
     public SecureStorageService(String storagePath) {
         this.storagePath = storagePath;
     }
 
+    /**
+     * Le credenziali caricate da ora in poi terranno la password nello store off-heap.
+     * @param secretStore store delle password (null = password su heap)
+     */
+    public void setSecretStore(SecretStore secretStore) {
+        this.secretStore = secretStore;
+    }
+
     public void setEncryptionKey(SecretKey key) {
         this.key = key;
         this.cryptoManager = new CryptoManager(key);
@@ -53,6 +67,15 @@ public class SecureStorageService {
     }
 
     public List<Credential> loadCredentials() {
+        return loadCredentials(null);
+    }
+
+    /**
+     * Carica le credenziali deduplicando servizi e username ripetuti.
+     * @param dictionary dizionario del repository di destinazione (null = nessuna deduplicazione)
+     * @return credenziali decifrate
+     */
+    public List<Credential> loadCredentials(StringDictionary dictionary) {
         List<Credential> list = new ArrayList<>();
         File file = new File(storagePath);
         if (!file.exists()) return list;
@@ -63,7 +86,7 @@ public class SecureStorageService {
                 try {
                     // Decrittografa la riga
                     String decryptedLine = cryptoManager.decrypt(line.trim());
-                    list.add(Credential.deserialize(decryptedLine));
+                    list.add(Credential.deserialize(decryptedLine, dictionary, secretStore));
                 } catch (Exception e) {
                     logger.warning("Riga non decrittografabile ignorata: " + e.getMessage());
                 }
@@ -75,18 +98,39 @@ public class SecureStorageService {
         return list;
     }
 
+    /**
+     * Riscrive l'intero vault in modo atomico: il contenuto viene scritto e
+     * sincronizzato su un file temporaneo che poi sostituisce vault.enc con
+     * un rename. Un crash a metà scrittura lascia intatto il vault precedente,
+     * quindi una transazione del repository corrisponde a una sola scrittura durevole.
+     * @param creds credenziali da salvare
+     */
     public void overwriteAll(List<Credential> creds) {
-        try (PrintWriter writer = new PrintWriter(new FileWriter(storagePath, false))) {
+        Path target = Path.of(storagePath).toAbsolutePath();
+        Path temp = target.resolveSibling(target.getFileName() + ".tmp");
+        try (FileOutputStream fos = new FileOutputStream(temp.toFile(), false);
+             PrintWriter writer = new PrintWriter(new BufferedWriter(new OutputStreamWriter(fos)))) {
             for (Credential c : creds) {
                 // Crittografa ogni riga prima di salvarla
                 String serializedCred = c.serialize();
                 String encryptedLine = cryptoManager.encrypt(serializedCred);
                 writer.println(encryptedLine);
             }
+            writer.flush();
+            if (writer.checkError()) {
+                throw new IOException("Scrittura del file temporaneo fallita");
+            }
+            fos.getFD().sync();     // Durabilità prima del rename
         } catch (Exception e) {
             logger.severe("Errore scrittura vault: " + e.getMessage());
             throw new VaultException(ExceptionHandler.handleException(e), e);
         }
+        try {
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            logger.severe("Errore sostituzione vault: " + e.getMessage());
+            throw new VaultException(ExceptionHandler.handleException(e), e);
+        }
     }
 
     public void saveCredential(Credential cred) {
@@ -0,0 +1,556 @@
+package com.securevault.service;
+
+import com.securevault.exception.ExceptionHandler;
+import com.securevault.exception.VaultException;
+import com.securevault.model.Credential;
+import com.securevault.observer.VaultEvent;
+import com.securevault.observer.VaultObserver;
+import com.securevault.repository.VaultRepository;
+import com.securevault.repository.VaultSnapshot;
+import com.securevault.security.CryptoManager;
+import com.securevault.security.SecretStore;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Persistenza event-sourced del vault.
+ *
+ * Ogni callback di {@link VaultObserver} diventa un record cifrato in un log
+ * append-only (un record per riga, con numero di sequenza e timestamp): lo
+ * stato del repository è derivabile dal log e l'audit trail completo è
+ * gratuito. Il log è la fonte di verità del vault: vault.enc serve solo come
+ * sorgente della migrazione iniziale. Ogni {@code snapshotInterval} eventi il
+ * log passa a un nuovo segmento e uno snapshot cifrato dello stato (da
+ * {@link VaultRepository#snapshot()}, O(1)) viene scritto su un thread dedicato,
+ * fuori dal lock del repository.
+ *
+ * All'avvio si carica lo snapshot e si riapplica solo il segmento successivo:
+ * il tempo di ripartenza resta limitato dall'intervallo di snapshot, non
+ * dalla lunghezza della storia. I segmenti precedenti restano su disco come audit trail.
+ * Se lo snapshot in background non arriva su disco (crash) si riparte dal
+ * precedente: i segmenti intermedi sono ancora presenti.
+ *
+ * Layout della directory:
+ * - snapshot.dat: snapshot corrente (scritto su file temporaneo + rename atomico)
+ * - events-NNNNNNNNNNNNNNNNNNNN.log: segmenti del log, nominati dalla prima sequenza
+ */
+public class VaultEventStore implements VaultObserver, AutoCloseable {
+    private static final Logger logger = Logger.getLogger(VaultEventStore.class.getName());
+
+    public static final int DEFAULT_SNAPSHOT_INTERVAL = 500;
+
+    private static final String SNAPSHOT_FILE = "snapshot.dat";
+    private static final String SEGMENT_PREFIX = "events-";
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final String SNAPSHOT_HEADER = "SNAPSHOT";
+    private static final String SEPARATOR = ".";
+
+    private final Path directory;
+    private final CryptoManager cryptoManager;
+    private final int snapshotInterval;
+
+    private VaultRepository repository;      // Impostato da attach
+    private FileChannel segment;             // Segmento attivo
+    private Writer segmentWriter;
+    private long sequence = 0;               // Ultima sequenza scritta
+    private int eventsSinceSnapshot = 0;
+    private ExecutorService snapshotWriter;  // Snapshot periodici, creato al primo uso
+
+    /**
+     * Record del log: evento con sequenza e istante di scrittura.
+     */
+    public static final class LoggedEvent {
+        private final long sequence;
+        private final Instant timestamp;
+        private final VaultEvent event;
+
+        LoggedEvent(long sequence, Instant timestamp, VaultEvent event) {
+            this.sequence = sequence;
+            this.timestamp = timestamp;
+            this.event = event;
+        }
+
+        public long getSequence() {
+            return sequence;
+        }
+
+        public Instant getTimestamp() {
+            return timestamp;
+        }
+
+        public VaultEvent getEvent() {
+            return event;
+        }
+    }
+
+    /**
+     * @param directory directory del log (creata se assente)
+     * @param cryptoManager cifratura dei record (stessa chiave di vault.enc)
+     * @param snapshotInterval eventi tra due snapshot
+     */
+    public VaultEventStore(Path directory, CryptoManager cryptoManager, int snapshotInterval) {
+        if (snapshotInterval <= 0) {
+            throw new IllegalArgumentException("snapshotInterval deve essere positivo");
+        }
+        this.directory = directory;
+        this.cryptoManager = cryptoManager;
+        this.snapshotInterval = snapshotInterval;
+    }
+
+    // === AVVIO ===
+
+    /**
+     * @return true se esiste uno stato persistito (snapshot o log)
+     */
+    public boolean exists() {
+        return Files.exists(directory.resolve(SNAPSHOT_FILE)) || !segments().isEmpty();
+    }
+
+    /**
+     * Ricostruisce il repository: snapshot più coda del log.
+     * Va invocato su un repository vuoto, prima di {@link #attach}: gli eventi
+     * di ripristino non vengono riscritti nel log.
+     * @param target repository da popolare
+     * @param secrets store per le password (null = password su heap)
+     * @return numero di eventi riapplicati dopo lo snapshot
+     */
+    public synchronized int restore(VaultRepository target, SecretStore secrets) {
+        long snapshotSequence = loadSnapshot(target, secrets);
+        sequence = snapshotSequence;
+
+        List<LoggedEvent> tail = readEvents(snapshotSequence, target, secrets);
+        List<VaultEvent> pending = new ArrayList<>();
+        for (LoggedEvent logged : tail) {
+            if (logged.event.getType() == VaultEvent.Type.CLEARED) {
+                applyAll(target, pending);
+                target.clearAll();
+            } else {
+                pending.add(logged.event);
+            }
+            sequence = logged.sequence;
+        }
+        applyAll(target, pending);
+        eventsSinceSnapshot = tail.size();
+        logger.info("Vault ripristinato: snapshot #" + snapshotSequence + " + " + tail.size() + " eventi");
+        return tail.size();
+    }
+
+    /**
+     * Collega lo store al repository: da qui in poi ogni modifica viene registrata.
+     * Se non esiste ancora uno snapshot, ne scrive subito uno (migrazione da vault.enc).
+     * @param target repository da osservare
+     */
+    public synchronized void attach(VaultRepository target) {
+        this.repository = target;
+        if (!Files.exists(directory.resolve(SNAPSHOT_FILE))) {
+            try (VaultSnapshot snapshot = target.snapshot()) {
+                writeSnapshot(snapshot, sequence);
+            }
+            closeSegment();
+            eventsSinceSnapshot = 0;
+        }
+        target.addObserver(this);
+    }
+
+    // === LETTURA AUDIT TRAIL ===
+
+    /**
+     * Legge l'intero log, tutti i segmenti inclusi (audit trail).
+     * @return eventi registrati in ordine di sequenza
+     */
+    public synchronized List<LoggedEvent> readLog() {
+        return readEvents(0, null, null);
+    }
+
+    /**
+     * @return ultima sequenza scritta
+     */
+    public synchronized long getSequence() {
+        return sequence;
+    }
+
+    // === OBSERVER ===
+
+    @Override
+    public void onCredentialAdded(Credential credential, String category) {
+        append(List.of(VaultEvent.added(category, credential)));
+    }
+
+    @Override
+    public void onCredentialsAdded(List<Credential> credentials, String category) {
+        append(credentials.stream()
+                .map(c -> VaultEvent.added(category, c))
+                .collect(Collectors.toList()));
+    }
+
+    @Override
+    public void onCredentialRemoved(Credential credential, String category) {
+        append(List.of(VaultEvent.removed(category, credential)));
+    }
+
+    @Override
+    public void onCredentialModified(Credential oldCredential, Credential newCredential, String category) {
+        append(List.of(VaultEvent.modified(category, oldCredential, newCredential)));
+    }
+
+    @Override
+    public void onVaultCleared() {
+        append(List.of(VaultEvent.cleared()));
+    }
+
+    @Override
+    public void onBatch(List<VaultEvent> events) {
+        append(events);    // Una sola scrittura durevole per la transazione
+    }
+
+    /**
+     * Attende lo snapshot in corso e chiude il segmento attivo.
+     */
+    @Override
+    public void close() {
+        ExecutorService writer;
+        synchronized (this) {
+            writer = snapshotWriter;
+            snapshotWriter = null;
+            closeSegment();
+        }
+        if (writer != null) {
+            writer.shutdown();
+            try {
+                if (!writer.awaitTermination(1, TimeUnit.MINUTES)) {
+                    logger.warning("Snapshot del vault non completato alla chiusura");
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    // === SCRITTURA ===
+
+    /**
+     * Aggiunge i record al segmento attivo con un solo fsync.
+     * Invocato dentro il lock del repository: le password sono ancora leggibili.
+     * Allo scadere dell'intervallo ruota il segmento e cattura lo snapshot (O(1));
+     * la scrittura dello snapshot avviene fuori dal lock.
+     */
+    private synchronized void append(List<VaultEvent> events) {
+        if (events.isEmpty()) {
+            return;
+        }
+        try {
+            if (segment == null) {
+                openSegment(sequence + 1);
+            }
+            long now = System.currentTimeMillis();
+            for (VaultEvent event : events) {
+                sequence++;
+                segmentWriter.write(cryptoManager.encrypt(encodeEvent(sequence, now, event)));
+                segmentWriter.write('\n');
+            }
+            segmentWriter.flush();
+            segment.force(false);
+        } catch (IOException e) {
+            logger.severe("Errore scrittura log eventi: " + e.getMessage());
+            throw new VaultException(ExceptionHandler.handleException(e), e);
+        }
+        eventsSinceSnapshot += events.size();
+        if (eventsSinceSnapshot >= snapshotInterval && repository != null) {
+            // Nuovo segmento: la coda da riapplicare parte da qui
+            closeSegment();
+            eventsSinceSnapshot = 0;
+            VaultSnapshot snapshot = repository.snapshot();    // Resta aperto fino alla scrittura
+            long atSequence = sequence;
+            snapshotWriter().execute(() -> {
+                try (snapshot) {
+                    writeSnapshot(snapshot, atSequence);
+                } catch (VaultException e) {
+                    // Il log resta completo: il prossimo snapshot riproverà
+                    logger.warning("Snapshot alla sequenza " + atSequence + " non scritto");
+                }
+            });
+        }
+    }
+
+    private ExecutorService snapshotWriter() {
+        if (snapshotWriter == null) {
+            snapshotWriter = Executors.newSingleThreadExecutor(task -> {
+                Thread thread = new Thread(task, "vault-snapshot");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        return snapshotWriter;
+    }
+
+    /**
+     * Scrive lo snapshot dello stato alla sequenza data (file temporaneo + rename atomico).
+     */
+    private void writeSnapshot(VaultSnapshot snapshot, long atSequence) {
+        try {
+            Files.createDirectories(directory);
+            Path target = directory.resolve(SNAPSHOT_FILE);
+            Path temp = directory.resolve(SNAPSHOT_FILE + ".tmp");
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+                 Writer writer = Channels.newWriter(channel, StandardCharsets.UTF_8)) {
+                writer.write(cryptoManager.encrypt(SNAPSHOT_HEADER + SEPARATOR + atSequence + SEPARATOR + snapshot.countAll()));
+                writer.write('\n');
+                for (String category : snapshot.getCategories()) {
+                    for (Credential credential : snapshot.getByCategory(category)) {
+                        writer.write(cryptoManager.encrypt(encode(category) + SEPARATOR + encode(credential.serialize())));
+                        writer.write('\n');
+                    }
+                }
+                writer.flush();
+                channel.force(true);
+            }
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            logger.info("Snapshot del vault scritto alla sequenza " + atSequence);
+        } catch (IOException e) {
+            logger.severe("Errore scrittura snapshot: " + e.getMessage());
+            throw new VaultException(ExceptionHandler.handleException(e), e);
+        }
+    }
+
+    private void openSegment(long firstSequence) throws IOException {
+        Files.createDirectories(directory);
+        Path path = directory.resolve(String.format("%s%020d%s", SEGMENT_PREFIX, firstSequence, SEGMENT_SUFFIX));
+        segment = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        segmentWriter = Channels.newWriter(segment, StandardCharsets.UTF_8);
+    }
+
+    private void closeSegment() {
+        if (segment == null) {
+            return;
+        }
+        try {
+            segmentWriter.close();    // Chiude anche il canale
+        } catch (IOException e) {
+            logger.warning("Chiusura segmento del log fallita: " + e.getMessage());
+        }
+        segment = null;
+        segmentWriter = null;
+    }
+
+    // === LETTURA ===
+
+    private long loadSnapshot(VaultRepository target, SecretStore secrets) {
+        Path path = directory.resolve(SNAPSHOT_FILE);
+        if (!Files.exists(path)) {
+            return 0;
+        }
+        try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            String[] header = cryptoManager.decrypt(reader.readLine()).split("\\.");
+            if (header.length != 3 || !SNAPSHOT_HEADER.equals(header[0])) {
+                throw new IOException("Intestazione dello snapshot non valida");
+            }
+            Map<String, List<Credential>> byCategory = new LinkedHashMap<>();
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] fields = cryptoManager.decrypt(line).split("\\.", -1);
+                String category = decode(fields[0]);
+                byCategory.computeIfAbsent(category, c -> new ArrayList<>())
+                        .add(Credential.deserialize(decode(fields[1]), target.getDictionary(), secrets));
+            }
+            byCategory.forEach(target::addAll);
+            return Long.parseLong(header[1]);
+        } catch (IOException | RuntimeException e) {
+            logger.severe("Errore lettura snapshot: " + e.getMessage());
+            throw new VaultException(ExceptionHandler.handleException(e), e);
+        }
+    }
+
+    /**
+     * Legge i record con sequenza successiva a afterSequence, saltando i
+     * segmenti interamente precedenti senza decifrarli.
+     *
+     * Un crash durante append può lasciare in fondo al segmento più recente un
+     * record troncato (senza terminatore di riga) o non decifrabile: l'append
+     * non era completato, quindi il record viene scartato e, durante il
+     * ripristino, il segmento viene troncato prima di esso. Un record illeggibile
+     * in qualsiasi altro punto del log è corruzione e fa fallire la lettura.
+     */
+    private List<LoggedEvent> readEvents(long afterSequence, VaultRepository target, SecretStore secrets) {
+        List<Path> segments = segments();
+        List<LoggedEvent> events = new ArrayList<>();
+        for (int i = 0; i < segments.size(); i++) {
+            if (i + 1 < segments.size() && firstSequence(segments.get(i + 1)) <= afterSequence + 1) {
+                continue;     // Il segmento successivo parte già dopo lo snapshot
+            }
+            boolean newest = i == segments.size() - 1;
+            try {
+                byte[] content = Files.readAllBytes(segments.get(i));
+                int start = 0;
+                while (start < content.length) {
+                    int end = indexOf(content, (byte) '\n', start);
+                    String line = new String(content, start, (end < 0 ? content.length : end) - start, StandardCharsets.UTF_8);
+                    if (!line.isBlank()) {
+                        LoggedEvent logged = null;
+                        if (end >= 0 || !newest) {
+                            logged = tryDecodeEvent(line, target, secrets);
+                        }
+                        if (logged == null) {
+                            // Solo l'ultimo record del segmento più recente può essere incompleto
+                            if (!newest || !isBlank(content, end < 0 ? content.length : end + 1)) {
+                                throw new VaultException("Record del log non valido in " + segments.get(i).getFileName());
+                            }
+                            if (target != null) {
+                                truncate(segments.get(i), start);
+                            }
+                            logger.warning("Record incompleto in coda a " + segments.get(i).getFileName() + " scartato");
+                            break;
+                        }
+                        if (logged.sequence > afterSequence) {
+                            events.add(logged);
+                        }
+                    }
+                    if (end < 0) break;
+                    start = end + 1;
+                }
+            } catch (IOException e) {
+                logger.severe("Errore lettura log eventi: " + e.getMessage());
+                throw new VaultException(ExceptionHandler.handleException(e), e);
+            }
+        }
+        return events;
+    }
+
+    private LoggedEvent tryDecodeEvent(String line, VaultRepository target, SecretStore secrets) {
+        try {
+            return decodeEvent(cryptoManager.decrypt(line), target, secrets);
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+
+    private static void truncate(Path segmentPath, long size) throws IOException {
+        try (FileChannel channel = FileChannel.open(segmentPath, StandardOpenOption.WRITE)) {
+            channel.truncate(size);
+            channel.force(true);
+        }
+    }
+
+    private static int indexOf(byte[] content, byte value, int from) {
+        for (int i = from; i < content.length; i++) {
+            if (content[i] == value) return i;
+        }
+        return -1;
+    }
+
+    private static boolean isBlank(byte[] content, int from) {
+        for (int i = from; i < content.length; i++) {
+            if (!Character.isWhitespace(content[i])) return false;
+        }
+        return true;
+    }
+
+    private List<Path> segments() {
+        if (!Files.isDirectory(directory)) {
+            return List.of();
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(p -> p.getFileName().toString().startsWith(SEGMENT_PREFIX))
+                    .sorted()     // Nomi a larghezza fissa: ordine lessicografico = ordine di sequenza
+                    .collect(Collectors.toList());
+        } catch (IOException e) {
+            throw new VaultException(ExceptionHandler.handleException(e), e);
+        }
+    }
+
+    private static long firstSequence(Path segmentPath) {
+        String name = segmentPath.getFileName().toString();
+        return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+    }
+
+    private static void applyAll(VaultRepository target, List<VaultEvent> events) {
+        if (events.isEmpty()) {
+            return;
+        }
+        // Una transazione per blocco: un solo evento verso gli observer già registrati
+        target.inTransaction(tx -> {
+            for (VaultEvent event : events) {
+                switch (event.getType()) {
+                    case ADDED -> tx.add(event.getCategory(), event.getCredential());
+                    case REMOVED -> tx.remove(event.getCategory(), event.getCredential());
+                    case MODIFIED -> tx.modify(event.getCategory(), event.getPrevious(), event.getCredential());
+                    default -> throw new IllegalStateException("Evento inatteso: " + event.getType());
+                }
+            }
+        });
+        // Le copie deserializzate per individuare le credenziali uscite non entrano
+        // nel vault: le loro password off-heap vanno liberate subito
+        for (VaultEvent event : events) {
+            switch (event.getType()) {
+                case REMOVED -> event.getCredential().zeroize();
+                case MODIFIED -> event.getPrevious().zeroize();
+                default -> { }
+            }
+        }
+        events.clear();
+    }
+
+    // === FORMATO DEI RECORD ===
+    // sequenza.timestamp.TIPO.categoria.credenziale.precedente (campi testuali in Base64)
+
+    private static String encodeEvent(long sequence, long timestamp, VaultEvent event) {
+        String category = event.getCategory() == null ? "" : encode(event.getCategory());
+        String credential = event.getCredential() == null ? "" : encode(event.getCredential().serialize());
+        String previous = event.getPrevious() == null ? "" : encode(event.getPrevious().serialize());
+        return sequence + SEPARATOR + timestamp + SEPARATOR + event.getType() + SEPARATOR
+                + category + SEPARATOR + credential + SEPARATOR + previous;
+    }
+
+    private static LoggedEvent decodeEvent(String record, VaultRepository target, SecretStore secrets) {
+        String[] fields = record.split("\\.", -1);
+        if (fields.length != 6) {
+            throw new VaultException("Record del log non valido");
+        }
+        long sequence = Long.parseLong(fields[0]);
+        Instant timestamp = Instant.ofEpochMilli(Long.parseLong(fields[1]));
+        VaultEvent.Type type = VaultEvent.Type.valueOf(fields[2]);
+        if (type == VaultEvent.Type.CLEARED) {
+            return new LoggedEvent(sequence, timestamp, VaultEvent.cleared());
+        }
+        String category = decode(fields[3]);
+        Credential credential = Credential.deserialize(decode(fields[4]),
+                target == null ? null : target.getDictionary(), secrets);
+        VaultEvent event = switch (type) {
+            case ADDED -> VaultEvent.added(category, credential);
+            case REMOVED -> VaultEvent.removed(category, credential);
+            default -> VaultEvent.modified(category,
+                    Credential.deserialize(decode(fields[5]), target == null ? null : target.getDictionary(), secrets),
+                    credential);
+        };
+        return new LoggedEvent(sequence, timestamp, event);
+    }
+
+    private static String encode(String value) {
+        return Base64.getEncoder().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String decode(String value) {
+        return new String(Base64.getDecoder().decode(value), StandardCharsets.UTF_8);
+    }
+}
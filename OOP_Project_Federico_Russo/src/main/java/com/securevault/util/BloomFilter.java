@@ -0,0 +1,273 @@
+package com.securevault.util;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/**
+ * Filtro di Bloom su chiavi hash a 64 bit, con celle impacchettate in long[].
+ *
+ * Risponde "forse presente" o "sicuramente assente": una risposta negativa
+ * (il caso più frequente) costa k accessi in memoria, senza toccare la
+ * struttura costosa che il filtro protegge (corpus su disco, scansione del vault).
+ *
+ * Due varianti:
+ * - standard: 1 bit per cella, solo inserimenti
+ * - counting: contatori da 4 bit (16 per long), supporta le rimozioni
+ *   per la manutenzione incrementale; un contatore saturo (15) non viene
+ *   più decrementato, a costo di un possibile falso positivo permanente
+ *
+ * Dimensionamento classico: m = -n ln(p) / ln(2)^2 celle, k = m/n ln(2) hash,
+ * derivati dalla chiave con double hashing.
+ */
+public class BloomFilter {
+    private static final int MAGIC = 0x53564246;        // "SVBF"
+    private static final int FORMAT_VERSION = 1;
+    private static final int COUNTER_MAX = 15;
+
+    private final int cellBits;        // 1 oppure 4
+    private final int hashes;
+    private final long cells;
+    private final long[] data;
+    private long count = 0;            // Chiavi inserite (meno le rimosse)
+    private long tag = 0;              // Identificativo della sorgente, salvato con il filtro
+
+    private BloomFilter(int cellBits, int hashes, long cells, long[] data) {
+        this.cellBits = cellBits;
+        this.hashes = hashes;
+        this.cells = cells;
+        this.data = data;
+    }
+
+    /**
+     * @param expectedInsertions numero di chiavi previsto
+     * @param falsePositiveRate probabilità di falso positivo desiderata (0..1)
+     * @return filtro standard (1 bit per cella, senza rimozioni)
+     */
+    public static BloomFilter create(long expectedInsertions, double falsePositiveRate) {
+        return sized(1, expectedInsertions, falsePositiveRate);
+    }
+
+    /**
+     * @param expectedInsertions numero di chiavi previsto
+     * @param falsePositiveRate probabilità di falso positivo desiderata (0..1)
+     * @return filtro counting (contatori da 4 bit, con rimozioni)
+     */
+    public static BloomFilter createCounting(long expectedInsertions, double falsePositiveRate) {
+        return sized(4, expectedInsertions, falsePositiveRate);
+    }
+
+    private static BloomFilter sized(int cellBits, long expectedInsertions, double falsePositiveRate) {
+        if (falsePositiveRate <= 0 || falsePositiveRate >= 1) {
+            throw new IllegalArgumentException("Tasso di falsi positivi non valido: " + falsePositiveRate);
+        }
+        long n = Math.max(1, expectedInsertions);
+        long m = Math.max(64, (long) Math.ceil(-n * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2))));
+        int k = Math.max(1, (int) Math.round((double) m / n * Math.log(2)));
+        int cellsPerWord = Long.SIZE / cellBits;
+        long words = (m + cellsPerWord - 1) / cellsPerWord;
+        if (words > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Filtro troppo grande: " + m + " celle");
+        }
+        return new BloomFilter(cellBits, k, words * cellsPerWord, new long[(int) words]);
+    }
+
+    // === OPERAZIONI ===
+
+    /**
+     * @param key hash a 64 bit della chiave (uniformemente distribuito)
+     */
+    public void add(long key) {
+        long h2 = secondHash(key);
+        for (int i = 0; i < hashes; i++) {
+            long cell = Math.floorMod(key + i * h2, cells);
+            if (cellBits == 1) {
+                data[(int) (cell >>> 6)] |= 1L << cell;
+            } else {
+                int counter = counter(cell);
+                if (counter < COUNTER_MAX) setCounter(cell, counter + 1);
+            }
+        }
+        count++;
+    }
+
+    /**
+     * Rimuove una chiave inserita in precedenza (solo filtri counting).
+     * @param key hash a 64 bit della chiave
+     */
+    public void remove(long key) {
+        if (cellBits == 1) {
+            throw new UnsupportedOperationException("Rimozione non supportata da un filtro standard");
+        }
+        long h2 = secondHash(key);
+        for (int i = 0; i < hashes; i++) {
+            long cell = Math.floorMod(key + i * h2, cells);
+            int counter = counter(cell);
+            if (counter > 0 && counter < COUNTER_MAX) setCounter(cell, counter - 1);
+        }
+        count = Math.max(0, count - 1);
+    }
+
+    /**
+     * @param key hash a 64 bit della chiave
+     * @return false se la chiave è sicuramente assente
+     */
+    public boolean mightContain(long key) {
+        long h2 = secondHash(key);
+        for (int i = 0; i < hashes; i++) {
+            long cell = Math.floorMod(key + i * h2, cells);
+            boolean set = cellBits == 1
+                    ? (data[(int) (cell >>> 6)] & (1L << cell)) != 0
+                    : counter(cell) > 0;
+            if (!set) return false;    // Uscita anticipata: il caso comune
+        }
+        return true;
+    }
+
+    /**
+     * Svuota il filtro mantenendo il dimensionamento.
+     */
+    public void clear() {
+        Arrays.fill(data, 0L);
+        count = 0;
+    }
+
+    // === STATO ===
+
+    /**
+     * @return chiavi presenti (inserite meno rimosse)
+     */
+    public long count() {
+        return count;
+    }
+
+    /**
+     * @return true se supporta le rimozioni
+     */
+    public boolean isCounting() {
+        return cellBits > 1;
+    }
+
+    /**
+     * @return occupazione del filtro in byte
+     */
+    public long sizeInBytes() {
+        return (long) data.length * Long.BYTES;
+    }
+
+    /**
+     * @return identificativo della sorgente da cui il filtro è stato costruito
+     */
+    public long getTag() {
+        return tag;
+    }
+
+    /**
+     * Associa al filtro un identificativo della sorgente (es. dimensione e
+     * data di modifica del file), usato al caricamento per scartare filtri non aggiornati.
+     * @param tag identificativo
+     */
+    public void setTag(long tag) {
+        this.tag = tag;
+    }
+
+    // === PERSISTENZA ===
+
+    /**
+     * Identificativo dello stato di un file (dimensione e data di modifica):
+     * un filtro salvato con un tag diverso non è più allineato alla sua sorgente.
+     * @param source file sorgente (es. vault.enc)
+     * @return tag del file, 0 se non esiste o non è leggibile
+     */
+    public static long fileTag(Path source) {
+        try {
+            if (!Files.exists(source)) return 0L;
+            return Files.size(source) * 31 + Files.getLastModifiedTime(source).toMillis();
+        } catch (IOException e) {
+            return 0L;
+        }
+    }
+
+    /**
+     * @param out stream di destinazione (non viene chiuso)
+     * @throws IOException in caso di errore di scrittura
+     */
+    public void writeTo(OutputStream out) throws IOException {
+        DataOutputStream dos = new DataOutputStream(out);
+        dos.writeInt(MAGIC);
+        dos.writeInt(FORMAT_VERSION);
+        dos.writeInt(cellBits);
+        dos.writeInt(hashes);
+        dos.writeLong(cells);
+        dos.writeLong(count);
+        dos.writeLong(tag);
+        dos.writeInt(data.length);
+        for (long word : data) {
+            dos.writeLong(word);
+        }
+        dos.flush();
+    }
+
+    /**
+     * @param in stream sorgente (non viene chiuso)
+     * @return filtro letto
+     * @throws IOException se lo stream non contiene un filtro valido
+     */
+    public static BloomFilter readFrom(InputStream in) throws IOException {
+        DataInputStream dis = new DataInputStream(in);
+        if (dis.readInt() != MAGIC || dis.readInt() != FORMAT_VERSION) {
+            throw new IOException("Formato del filtro di Bloom non riconosciuto");
+        }
+        int cellBits = dis.readInt();
+        int hashes = dis.readInt();
+        long cells = dis.readLong();
+        long count = dis.readLong();
+        long tag = dis.readLong();
+        int words = dis.readInt();
+        if ((cellBits != 1 && cellBits != 4) || hashes <= 0 || words < 0
+                || cells != (long) words * (Long.SIZE / cellBits)) {
+            throw new IOException("Intestazione del filtro di Bloom non valida");
+        }
+        long[] data = new long[words];
+        for (int i = 0; i < words; i++) {
+            data[i] = dis.readLong();
+        }
+        BloomFilter filter = new BloomFilter(cellBits, hashes, cells, data);
+        filter.count = count;
+        filter.tag = tag;
+        return filter;
+    }
+
+    // === IMPLEMENTAZIONE ===
+
+    private int counter(long cell) {
+        int word = (int) (cell >>> 4);
+        int shift = (int) (cell & 15) << 2;
+        return (int) (data[word] >>> shift) & 0xF;
+    }
+
+    private void setCounter(long cell, int value) {
+        int word = (int) (cell >>> 4);
+        int shift = (int) (cell & 15) << 2;
+        data[word] = (data[word] & ~(0xFL << shift)) | ((long) value << shift);
+    }
+
+    /**
+     * Secondo hash per il double hashing: mix della chiave (finalizer di
+     * MurmurHash3), dispari per visitare celle distinte.
+     */
+    private static long secondHash(long key) {
+        long h = key;
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h | 1;
+    }
+}
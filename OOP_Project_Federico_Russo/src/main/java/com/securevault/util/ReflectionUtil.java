@@ -8,6 +8,8 @@ import com.securevault.security.EncryptionStrategy;
 import javax.crypto.SecretKey;
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.Properties;
 
 /**
@@ -18,6 +20,7 @@ import java.util.Properties;
 public class ReflectionUtil {
     private static final String CONFIG = "config.properties";           // File di configurazione
     private static final String PROP_KEY = "encryption.strategy";       // Chiave per la strategia
+    private static Properties config;                                    // Caricato al primo accesso
 
     /**
      * Carica dinamicamente una EncryptionStrategy dal file config.properties.
@@ -33,19 +36,8 @@ public class ReflectionUtil {
      * @throws VaultException se il caricamento fallisce
      */
     public static EncryptionStrategy loadStrategy(SecretKey vaultKey) {
-        Properties props = new Properties();
-
         // 1. CARICAMENTO CONFIGURAZIONE
-        try (InputStream in = Thread.currentThread()
-                                    .getContextClassLoader()
-                                    .getResourceAsStream(CONFIG)) {
-            if (in != null) {
-                props.load(in);
-            }
-            // Se file non esiste, props rimane vuoto e si usa il default
-        } catch (IOException e) {
-            throw new VaultException(ExceptionHandler.handleException(e), e);
-        }
+        Properties props = loadConfig();
 
         // 2. LETTURA NOME CLASSE (con fallback)
         String className = props.getProperty(PROP_KEY, AesStrategy.class.getName());
@@ -68,4 +60,55 @@ public class ReflectionUtil {
             throw new VaultException(ExceptionHandler.handleException(e), e);
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Legge una proprietà dal file config.properties.
+     * @param key chiave della proprietà
+     * @param defaultValue valore se la chiave (o il file) manca
+     * @return valore configurato o default
+     * @throws VaultException se il file esiste ma non è leggibile
+     */
+    public static String getConfigProperty(String key, String defaultValue) {
+        return loadConfig().getProperty(key, defaultValue);
+    }
+
+    /**
+     * Legge tutte le proprietà con un prefisso comune (es. regole numerate).
+     * @param prefix prefisso delle chiavi
+     * @return mappa suffisso -> valore (vuota se nessuna chiave o file mancante)
+     * @throws VaultException se il file esiste ma non è leggibile
+     */
+    public static Map<String, String> getConfigProperties(String prefix) {
+        Properties props = loadConfig();
+        Map<String, String> result = new HashMap<>();
+        for (String key : props.stringPropertyNames()) {
+            if (key.startsWith(prefix)) {
+                result.put(key.substring(prefix.length()), props.getProperty(key));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Carica config.properties una sola volta e condivide il risultato
+     * fra tutte le letture successive.
+     */
+    private static synchronized Properties loadConfig() {
+        if (config != null) {
+            return config;
+        }
+        Properties props = new Properties();
+        try (InputStream in = Thread.currentThread()
+                                    .getContextClassLoader()
+                                    .getResourceAsStream(CONFIG)) {
+            if (in != null) {
+                props.load(in);
+            }
+            // Se file non esiste, props rimane vuoto e si usa il default
+        } catch (IOException e) {
+            throw new VaultException(ExceptionHandler.handleException(e), e);
+        }
+        config = props;
+        return props;
+    }
+}
@@ -0,0 +1,154 @@
+package com.securevault.util;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Dizionario di stringhe con deduplicazione (string interning locale).
+ *
+ * Servizi ("gmail", "github"), username (spesso la stessa e-mail) e categorie
+ * si ripetono su molte credenziali. Il dizionario associa ad ogni valore
+ * distinto un codice int e una istanza canonica condivisa:
+ * - le credenziali caricate condividono le stesse String invece di copie
+ * - raggruppamenti e ricerca duplicati lavorano su int invece che su String
+ * - String.equals tra istanze canoniche si risolve con il confronto di riferimento
+ *
+ * A differenza di String.intern() il dizionario è limitato al repository che
+ * lo possiede e viene liberato insieme a lui. I valori usati dalle credenziali
+ * del vault sono contati ({@link #retain}/{@link #release}): quando l'ultima
+ * credenziale che li usa esce dal vault il codice viene liberato e riusato,
+ * quindi il dizionario non cresce con la storia delle modifiche.
+ * Le letture devono usare {@link #codeOf}, che non registra nulla.
+ * {@link #canonical} (valori appena deserializzati) non crea codici: un
+ * valore non ancora nel dizionario resta provvisorio, condiviso fino al primo
+ * {@link #retain} che lo registra o a {@link #discardProvisional}.
+ * Non è thread-safe: va usato sotto il lock del repository.
+ */
+public class StringDictionary {
+    public static final int ABSENT = -1;
+
+    private final Map<String, Integer> codes = new HashMap<>();
+    private final List<String> values = new ArrayList<>();
+    private final List<Integer> references = new ArrayList<>();   // Per codice
+    private final ArrayDeque<Integer> freeCodes = new ArrayDeque<>();
+    private final Map<String, String> provisional = new HashMap<>();  // Istanze condivise senza codice
+
+    /**
+     * Restituisce il codice del valore, registrandolo se nuovo.
+     * @param value valore da codificare
+     * @return codice int (>= 0)
+     */
+    public int encode(String value) {
+        Integer code = codes.get(value);
+        if (code == null) {
+            code = freeCodes.isEmpty() ? values.size() : freeCodes.pop();
+            codes.put(value, code);
+            if (code == values.size()) {
+                values.add(value);
+                references.add(0);
+            } else {
+                values.set(code, value);
+            }
+        }
+        return code;
+    }
+
+    /**
+     * Registra un riferimento al valore (una credenziale che lo usa).
+     * @param value valore usato
+     * @return codice int (>= 0)
+     */
+    public int retain(String value) {
+        Integer existing = codes.get(value);
+        int code = existing != null ? existing : encode(provisional.getOrDefault(value, value));
+        if (existing == null) {
+            provisional.remove(value);
+        }
+        references.set(code, references.get(code) + 1);
+        return code;
+    }
+
+    /**
+     * Rilascia un riferimento; all'ultimo il codice viene liberato.
+     * @param value valore non più usato da una credenziale
+     */
+    public void release(String value) {
+        Integer code = codes.get(value);
+        if (code == null) {
+            return;
+        }
+        int remaining = references.get(code) - 1;
+        if (remaining > 0) {
+            references.set(code, remaining);
+            return;
+        }
+        codes.remove(value);
+        values.set(code, null);
+        references.set(code, 0);
+        freeCodes.push(code);
+    }
+
+    /**
+     * Restituisce l'istanza canonica del valore senza registrarlo: se il valore
+     * non ha un codice, la prima istanza vista resta provvisoria e viene
+     * condivisa dalle successive.
+     * @param value valore (anche appena allocato, es. da split)
+     * @return istanza condivisa uguale a value
+     */
+    public String canonical(String value) {
+        Integer code = codes.get(value);
+        if (code != null) {
+            return values.get(code);
+        }
+        String shared = provisional.putIfAbsent(value, value);
+        return shared != null ? shared : value;
+    }
+
+    /**
+     * Dimentica le istanze provvisorie mai registrate da retain
+     * (valori letti ma non entrati nel vault).
+     */
+    public void discardProvisional() {
+        if (!provisional.isEmpty()) {
+            provisional.clear();
+        }
+    }
+
+    /**
+     * @param code codice ottenuto da encode
+     * @return valore canonico
+     */
+    public String decode(int code) {
+        return values.get(code);
+    }
+
+    /**
+     * Cerca il codice senza registrare il valore.
+     * @param value valore cercato
+     * @return codice o {@link #ABSENT}
+     */
+    public int codeOf(String value) {
+        return codes.getOrDefault(value, ABSENT);
+    }
+
+    /**
+     * @return numero di valori distinti registrati
+     */
+    public int size() {
+        return codes.size();
+    }
+
+    /**
+     * Svuota il dizionario.
+     */
+    public void clear() {
+        codes.clear();
+        values.clear();
+        references.clear();
+        freeCodes.clear();
+        provisional.clear();
+    }
+}
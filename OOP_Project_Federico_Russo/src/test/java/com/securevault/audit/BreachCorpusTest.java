@@ -0,0 +1,89 @@
+package com.securevault.audit;
+
+import com.securevault.factory.CredentialFactory;
+import com.securevault.factory.CredentialInterface;
+import com.securevault.model.Credential;
+import com.securevault.repository.VaultRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BreachCorpusTest {
+
+    @TempDir
+    Path tempDir;
+
+    private Path writeCorpus(int recordBytes, String... passwords) throws Exception {
+        MessageDigest sha1 = MessageDigest.getInstance("SHA-1");
+        List<byte[]> digests = new ArrayList<>();
+        for (String p : passwords) {
+            digests.add(Arrays.copyOf(sha1.digest(p.getBytes(StandardCharsets.UTF_8)), recordBytes));
+        }
+        // Filler per popolare più bucket
+        for (int i = 0; i < 5000; i++) {
+            digests.add(Arrays.copyOf(sha1.digest(("filler" + i).getBytes(StandardCharsets.UTF_8)), recordBytes));
+        }
+        digests.sort(Arrays::compareUnsigned);
+        byte[] file = new byte[digests.size() * recordBytes];
+        for (int i = 0; i < digests.size(); i++) {
+            System.arraycopy(digests.get(i), 0, file, i * recordBytes, recordBytes);
+        }
+        Path path = tempDir.resolve("corpus-" + recordBytes + ".bin");
+        Files.write(path, file);
+        return path;
+    }
+
+    @Test
+    void testLookupFullAndTruncatedDigests() throws Exception {
+        for (int width : new int[] {BreachCorpus.SHA1_BYTES, 8}) {
+            try (BreachCorpus corpus = BreachCorpus.open(writeCorpus(width, "123456", "password", "àccentè"), width)) {
+                assertEquals(5003, corpus.size());
+                assertTrue(corpus.contains("123456".toCharArray()));
+                assertTrue(corpus.contains("àccentè".toCharArray()));
+                assertTrue(corpus.contains("filler4999".toCharArray()));
+                assertFalse(corpus.contains("Xk9#mQ2!vL7z".toCharArray()));
+
+                // Con pre-filtro di Bloom le risposte non cambiano
+                corpus.setPrefilter(corpus.buildPrefilter(0.01));
+                assertTrue(corpus.contains("123456".toCharArray()));
+                assertTrue(corpus.contains("filler4999".toCharArray()));
+                assertFalse(corpus.contains("Xk9#mQ2!vL7z".toCharArray()));
+            }
+        }
+    }
+
+    @Test
+    void testMalformedCorpusIsRejected() throws IOException {
+        Path path = tempDir.resolve("bad.bin");
+        Files.write(path, new byte[21]);
+        assertThrows(IOException.class, () -> BreachCorpus.open(path));
+    }
+
+    @Test
+    void testFactoryHookAndVaultScan() throws Exception {
+        try (BreachCorpus corpus = BreachCorpus.open(writeCorpus(BreachCorpus.SHA1_BYTES, "qwerty"))) {
+            List<CredentialInterface> flagged = new ArrayList<>();
+            CredentialFactory factory = new CredentialFactory();
+            factory.setBreachCheck(corpus, flagged::add);
+
+            Credential weak = (Credential) factory.create("forum", "me", "qwerty");
+            Credential strong = (Credential) factory.create("bank", "me", "Xk9#mQ2!vL7z");
+            assertEquals(List.of(weak), flagged);
+
+            VaultRepository repository = new VaultRepository();
+            repository.addCredential("Default", weak);
+            repository.addCredential("Default", strong);
+            assertEquals(List.of(weak), corpus.scan(repository.snapshot()));
+        }
+    }
+}
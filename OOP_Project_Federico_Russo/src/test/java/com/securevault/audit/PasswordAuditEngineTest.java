@@ -0,0 +1,96 @@
+package com.securevault.audit;
+
+import com.securevault.model.Credential;
+import com.securevault.repository.VaultRepository;
+import com.securevault.security.SecretStore;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PasswordAuditEngineTest {
+
+    @Test
+    void testStrengthEstimatorPenalizesPatterns() {
+        PasswordStrengthEstimator estimator = new PasswordStrengthEstimator();
+
+        double common = estimator.entropyBits("P4ssw0rd2024".toCharArray());
+        double random = estimator.entropyBits("t9#Kq!vX2m@L".toCharArray());
+
+        assertTrue(common < random);
+        assertEquals(PasswordStrengthEstimator.Strength.VERY_WEAK, estimator.classify(common));
+        assertEquals(PasswordStrengthEstimator.Strength.STRONG, estimator.classify(random));
+        assertEquals(0.0, estimator.entropyBits(new char[0]));
+    }
+
+    @Test
+    void testReuseWeakAndStaleFindings() {
+        Clock start = Clock.fixed(Instant.parse("2024-01-01T00:00:00Z"), ZoneOffset.UTC);
+        PasswordAuditEngine engine = new PasswordAuditEngine(Duration.ofDays(90), start);
+        VaultRepository repository = new VaultRepository();
+        repository.addObserver(engine);
+
+        repository.addCredential("Default", new Credential("gmail", "me", "Xk9#mQ2!vL7z"));
+        repository.addCredential("Default", new Credential("github", "me", "Xk9#mQ2!vL7z"));
+        repository.addCredential("Default", new Credential("forum", "me", "qwerty"));
+
+        AuditReport report = engine.report();
+        assertEquals(3, report.size());
+        assertEquals(2, report.count(CredentialFinding.Issue.REUSED));
+        assertEquals(1, report.count(CredentialFinding.Issue.WEAK));
+        assertEquals("forum", report.getFindings().get(0).getCredential().getService());
+        assertEquals(0, report.count(CredentialFinding.Issue.STALE));
+
+        // Rimuovendo un duplicato il riuso sparisce senza ri-analisi
+        repository.removeCredential("Default", new Credential("github", "me", "Xk9#mQ2!vL7z"));
+        AuditReport afterRemoval = engine.report();
+        assertEquals(0, afterRemoval.getReanalyzed());
+        assertEquals(0, afterRemoval.count(CredentialFinding.Issue.REUSED));
+    }
+
+    @Test
+    void testRemovingEqualOffHeapDuplicatesLeavesNoFinding() {
+        SecretStore secrets = new SecretStore();
+        PasswordAuditEngine engine = new PasswordAuditEngine();
+        VaultRepository repository = new VaultRepository();
+        repository.addObserver(engine);
+        Credential first = new Credential("forum", "me", secrets.store("qwerty"));
+        Credential second = new Credential("forum", "me", secrets.store("qwerty"));
+        repository.addCredential("Default", first);
+        repository.addCredential("Default", second);
+        assertEquals(1, engine.report().count(CredentialFinding.Issue.WEAK));
+
+        repository.removeCredential("Default", first);          // Password azzerata: chiave della voce
+        repository.removeCredential("Default", second);
+
+        assertEquals(0, repository.countAll());
+        assertEquals(0, engine.report().size());
+    }
+
+    @Test
+    void testIncrementalReauditOnlyTouchesChangedEntries() {
+        PasswordAuditEngine engine = new PasswordAuditEngine();
+        VaultRepository repository = new VaultRepository();
+        repository.addObserver(engine);
+
+        List<Credential> bulk = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            bulk.add(new Credential("service" + i, "user" + i, "pw-" + i + "-Zx#"));
+        }
+        repository.addAll("Default", bulk);
+        assertEquals(1000, engine.report().getReanalyzed());
+
+        Credential old = bulk.get(10);
+        repository.modifyCredential("Default", old, new Credential(old.getService(), old.getUsername(), "new-Secret-99"));
+
+        AuditReport report = engine.report();
+        assertEquals(1, report.getReanalyzed());
+        assertEquals(1000, report.size());
+    }
+}
@@ -0,0 +1,47 @@
+package com.securevault.audit;
+
+import com.securevault.model.Credential;
+import com.securevault.repository.VaultRepository;
+import com.securevault.security.CryptoManager;
+import com.securevault.util.BloomFilter;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.crypto.SecretKey;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PasswordReuseFilterTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testReuseDetectionFollowsRepositoryMutations() throws Exception {
+        SecretKey key = CryptoManager.generateKey();
+        VaultRepository repository = new VaultRepository();
+        PasswordReuseFilter filter = new PasswordReuseFilter(key, 0.01, 10);
+        repository.addObserver(filter);
+
+        Credential gmail = new Credential("gmail", "me", "shared-Pw1");
+        repository.addCredential("Default", gmail);
+        repository.addCredential("Default", new Credential("bank", "me", "unique-Pw2"));
+
+        assertEquals(List.of(gmail), filter.findReuses("shared-Pw1".toCharArray(), repository.snapshot()));
+        assertTrue(filter.findReuses("never-used".toCharArray(), repository.snapshot()).isEmpty());
+
+        repository.removeCredential("Default", gmail);
+        assertTrue(filter.findReuses("shared-Pw1".toCharArray(), repository.snapshot()).isEmpty());
+
+        // Persistenza: il tag scarta i filtri non allineati
+        Path path = tempDir.resolve("vault.bloom");
+        filter.save(path, 5L);
+        PasswordReuseFilter reloaded = new PasswordReuseFilter(key, 0.01, 10);
+        assertFalse(reloaded.load(path, 6L));
+        assertTrue(reloaded.load(path, 5L));
+        assertEquals(1, reloaded.size());
+        assertEquals(0L, BloomFilter.fileTag(tempDir.resolve("missing.enc")));
+    }
+}
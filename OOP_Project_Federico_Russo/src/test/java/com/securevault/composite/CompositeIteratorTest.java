@@ -5,7 +5,11 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.Timeout;
 import static org.junit.jupiter.api.Assertions.*;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.StreamSupport;
 
 class CompositeIteratorTest {
     private FolderComposite root;
@@ -70,4 +74,54 @@ class CompositeIteratorTest {
         // Test passed - il pattern Iterator funziona di base
         assertTrue(true, "Iterator pattern funziona correttamente");
     }
-}
\ No newline at end of file
+
+    @Test
+    @Timeout(value = 2, unit = TimeUnit.SECONDS)
+    void testIteratorVisitsWholeTreeDepthFirst() {
+        List<String> names = new ArrayList<>();
+        iterator.forEachRemaining(c -> names.add(c.getName()));
+        assertEquals(List.of("Social", "Facebook - user1", "Work", "Slack - user2"), names);
+    }
+
+    @Test
+    @Timeout(value = 10, unit = TimeUnit.SECONDS)
+    void testParallelSpliteratorMatchesIteratorOrder() {
+        FolderComposite big = new FolderComposite("Big");
+        for (int f = 0; f < 50; f++) {
+            FolderComposite folder = new FolderComposite("F" + f);
+            FolderComposite nested = new FolderComposite("N" + f);
+            folder.add(nested);
+            for (int c = 0; c < 200; c++) {
+                (c % 2 == 0 ? folder : nested).add(new Credential("svc" + f + "-" + c, "u", "p"));
+            }
+            big.add(folder);
+        }
+
+        List<VaultComponent> sequential = new ArrayList<>();
+        new CompositeIterator(big.iterator()).forEachRemaining(sequential::add);
+        assertEquals(50 * 202, sequential.size());
+
+        List<VaultComponent> parallel = StreamSupport.stream(big.subtreeSpliterator(), true)
+                .collect(Collectors.toList());
+        assertEquals(sequential, parallel);    // ORDERED: stesso ordine depth-first
+
+        long leaves = StreamSupport.stream(big.subtreeSpliterator(), true)
+                .filter(c -> !c.isComposite())
+                .count();
+        assertEquals(50 * 200, leaves);
+    }
+
+    @Test
+    void testSpliteratorSplitsSingleFolder() {
+        FolderComposite wrapper = new FolderComposite("Wrapper");
+        wrapper.add(root);
+        var spliterator = wrapper.subtreeSpliterator();
+        var prefix = spliterator.trySplit();
+        assertNotNull(prefix);
+
+        List<String> names = new ArrayList<>();
+        prefix.forEachRemaining(c -> names.add(c.getName()));
+        spliterator.forEachRemaining(c -> names.add(c.getName()));
+        assertEquals(List.of("Root", "Social", "Facebook - user1", "Work", "Slack - user2"), names);
+    }
+}
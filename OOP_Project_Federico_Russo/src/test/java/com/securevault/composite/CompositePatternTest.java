@@ -4,6 +4,9 @@ import com.securevault.model.Credential;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import static org.junit.jupiter.api.Assertions.*;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
 
 class CompositePatternTest {
     private FolderComposite root;
@@ -57,4 +60,33 @@ class CompositePatternTest {
         // Should be empty after removal
         assertFalse(social.iterator().hasNext());
     }
-}
\ No newline at end of file
+
+    @Test
+    void testSubtreeAggregatesPropagateToAncestors() {
+        Clock early = Clock.fixed(Instant.parse("2024-01-01T00:00:00Z"), ZoneOffset.UTC);
+        Clock late = Clock.fixed(Instant.parse("2024-06-01T00:00:00Z"), ZoneOffset.UTC);
+        FolderComposite top = new FolderComposite("Top", early);
+        FolderComposite middle = new FolderComposite("Middle", early);
+        FolderComposite leafFolder = new FolderComposite("Leaf", late);
+        top.add(middle);
+        middle.add(leafFolder);
+        assertEquals(Instant.parse("2024-01-01T00:00:00Z"), top.getLastModified());
+
+        leafFolder.add(credential);
+        leafFolder.add(new Credential("Slack", "user", "pass"));
+        assertEquals(2, top.getCredentialCount());
+        assertEquals(2, top.getFolderCount());
+        assertEquals(Instant.parse("2024-06-01T00:00:00Z"), top.getLastModified());
+
+        // Spostamento: aggregati tolti da un ramo e aggiunti all'altro
+        top.add(leafFolder);
+        assertEquals(0, middle.getCredentialCount());
+        assertEquals(2, top.getCredentialCount());
+        assertEquals(2, top.getFolderCount());
+
+        leafFolder.remove(credential);
+        top.remove(middle);
+        assertEquals(1, top.getCredentialCount());
+        assertEquals(1, top.getFolderCount());
+    }
+}
@@ -0,0 +1,53 @@
+package com.securevault.composite;
+
+import com.securevault.model.Credential;
+import com.securevault.query.AhoCorasick;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+class CredentialCategorizerTest {
+
+    @Test
+    void testAutomatonFindsAllOverlappingPatterns() {
+        AhoCorasick automaton = new AhoCorasick(List.of("he", "she", "his", "hers"));
+        List<Integer> found = new ArrayList<>();
+        automaton.match("uSHErs", found::add);
+        assertEquals(List.of(1, 0, 3), found);    // she, he (suffisso), hers
+        assertTrue(automaton.matchesAny("this"));
+        assertFalse(automaton.matchesAny("xyz"));
+    }
+
+    @Test
+    void testFirstMatchingRuleWins() {
+        CredentialCategorizer categorizer = CredentialCategorizer.fromProperties(Map.of(
+                "10", "service:book -> Social",
+                "2", "username~@azienda\\.it$ -> Work/Azienda",
+                "3", "service:git -> Dev"), "Work");
+
+        assertEquals("Social", categorizer.categorize(new Credential("Facebook", "me@gmail.com", "p")));
+        assertEquals("Work/Azienda", categorizer.categorize(new Credential("Facebook", "me@AZIENDA.it", "p")));
+        assertEquals("Dev", categorizer.categorize(new Credential("GitHub", "me", "p")));
+        assertEquals("Work", categorizer.categorize(new Credential("Slack", "me", "p")));
+    }
+
+    @Test
+    void testManyRulesClassifyInSinglePass() {
+        List<CredentialCategorizer.Rule> rules = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            rules.add(CredentialCategorizer.Rule.contains(CredentialCategorizer.Field.SERVICE, "svc" + i + "x", "F" + i));
+        }
+        CredentialCategorizer categorizer = new CredentialCategorizer(rules, "Other");
+        assertEquals("F42", categorizer.categorize(new Credential("my-svc42x-app", "u", "p")));
+        assertEquals("Other", categorizer.categorize(new Credential("svc42", "u", "p")));
+    }
+
+    @Test
+    void testInvalidRulesAreRejected() {
+        assertThrows(IllegalArgumentException.class, () -> CredentialCategorizer.Rule.parse("service:book"));
+        assertThrows(IllegalArgumentException.class, () -> CredentialCategorizer.Rule.parse("password:x -> A"));
+        assertThrows(IllegalArgumentException.class, () -> CredentialCategorizer.Rule.parse("service~([ -> A"));
+    }
+}
@@ -0,0 +1,94 @@
+package com.securevault.composite;
+
+import com.securevault.model.Credential;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+class LazyFolderCompositeTest {
+    private final Map<String, List<VaultComponent>> disk = new HashMap<>();
+    private final List<String> loads = new ArrayList<>();
+    private SubtreeLoader loader;
+
+    @BeforeEach
+    void setUp() {
+        loader = new SubtreeLoader() {
+            @Override
+            public List<VaultComponent> load(LazyFolderComposite folder) {
+                loads.add(folder.getStorageKey());
+                return new ArrayList<>(disk.get(folder.getStorageKey()));
+            }
+
+            @Override
+            public boolean save(LazyFolderComposite folder, List<VaultComponent> children) {
+                disk.put(folder.getStorageKey(), new ArrayList<>(children));
+                return true;
+            }
+        };
+        for (int year = 2018; year < 2022; year++) {
+            List<VaultComponent> credentials = new ArrayList<>();
+            for (int i = 0; i < 10; i++) {
+                credentials.add(new Credential("svc" + year + "-" + i, "u", "p"));
+            }
+            disk.put("y" + year, credentials);
+        }
+    }
+
+    private LazyFolderComposite archive(int year) {
+        return new LazyFolderComposite(String.valueOf(year), "y" + year, loader, 10, 0, Instant.EPOCH);
+    }
+
+    @Test
+    void testChildrenLoadedOnFirstAccessOnly() {
+        VaultTree tree = new VaultTree("Vault");
+        LazyFolderComposite folder = archive(2018);
+        tree.getRoot().add(folder);
+
+        assertEquals(10, tree.getRoot().getCredentialCount());   // Aggregati senza caricamento
+        assertTrue(loads.isEmpty());
+        assertFalse(folder.isLoaded());
+
+        assertEquals(10, folder.childCount());
+        folder.forEach(c -> { });
+        assertEquals(List.of("y2018"), loads);
+        assertNotNull(tree.folderOf(folder.iterator().next()));  // Figli caricati indicizzati
+    }
+
+    @Test
+    void testLeastRecentlyUsedFoldersEvictedUnderBudget() {
+        LazyFolderCache cache = new LazyFolderCache(25);
+        FolderComposite root = new FolderComposite("Archivio");
+        List<LazyFolderComposite> years = new ArrayList<>();
+        for (int year = 2018; year < 2022; year++) {
+            LazyFolderComposite folder = archive(year);
+            cache.register(folder);
+            root.add(folder);
+            years.add(folder);
+        }
+
+        years.get(0).expand();
+        years.get(1).expand();
+        years.get(0).iterator();          // 2018 usata più di recente di 2019
+        years.get(2).expand();            // 30 nodi > 25: esce 2019
+        assertTrue(years.get(0).isLoaded());
+        assertFalse(years.get(1).isLoaded());
+        assertTrue(years.get(2).isLoaded());
+        assertEquals(20, cache.residentNodes());
+        assertEquals(40, root.getCredentialCount());
+
+        // Una cartella modificata viene salvata prima del rilascio
+        Credential added = new Credential("nuovo", "u", "p");
+        years.get(2).add(added);
+        years.get(3).expand();
+        years.get(0).expand();
+        years.get(1).expand();
+        assertFalse(years.get(2).isLoaded());
+        assertTrue(disk.get("y2020").contains(added));
+        assertEquals(41, root.getCredentialCount());
+    }
+}
@@ -0,0 +1,64 @@
+package com.securevault.composite;
+
+import com.securevault.model.Credential;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+class ParallelVisitorExecutorTest {
+    private FolderComposite root;
+
+    @BeforeEach
+    void setUp() {
+        root = new FolderComposite("Vault");
+        for (int f = 0; f < 8; f++) {
+            FolderComposite folder = new FolderComposite("F" + f);
+            FolderComposite nested = new FolderComposite("N" + f);
+            folder.add(nested);
+            for (int c = 0; c < 500; c++) {
+                (c % 2 == 0 ? folder : nested).add(new Credential("svc" + f + "-" + c, "user" + (c % 7), "p"));
+            }
+            root.add(folder);
+        }
+    }
+
+    @Test
+    void testParallelSearchMatchesSequentialOrder() {
+        VaultVisitor<List<VaultComponent>> search = VaultVisitor.search(c -> c.getName().endsWith("user3"));
+        List<VaultComponent> sequential = root.accept(search);
+        List<VaultComponent> parallel = new ParallelVisitorExecutor(new ForkJoinPool(4), 100).execute(root, search);
+        assertFalse(sequential.isEmpty());
+        assertEquals(sequential, parallel);
+    }
+
+    @Test
+    void testFolderResultsCombineLikeSequentialVisit() {
+        VaultVisitor<Integer> counter = new VaultVisitor<>() {
+            @Override
+            public Integer identity() {
+                return 0;
+            }
+
+            @Override
+            public Integer visitLeaf(VaultComponent leaf) {
+                return 1;
+            }
+
+            @Override
+            public Integer combine(Integer left, Integer right) {
+                return left + right;
+            }
+
+            @Override
+            public Integer visitFolder(FolderComposite folder, Integer childrenResult) {
+                return childrenResult + 1000;    // Le cartelle pesano 1000
+            }
+        };
+        ForkJoinPool pool = new ForkJoinPool(4);
+        assertEquals(4000 + 17 * 1000, new ParallelVisitorExecutor(pool, 100).execute(root, counter));
+        assertEquals(root.accept(counter), new ParallelVisitorExecutor(pool, 100).execute(root, counter));
+        assertEquals(1, new ParallelVisitorExecutor(pool, 100).execute(root.iterator().next().iterator().next().iterator().next(), counter));
+    }
+}
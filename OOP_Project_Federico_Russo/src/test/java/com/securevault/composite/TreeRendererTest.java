@@ -0,0 +1,91 @@
+package com.securevault.composite;
+
+import com.securevault.model.Credential;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+
+class TreeRendererTest {
+    private static final String NL = System.lineSeparator();
+    private FolderComposite root;
+
+    @BeforeEach
+    void setUp() {
+        root = new FolderComposite("Vault");
+        FolderComposite social = new FolderComposite("Social");
+        FolderComposite games = new FolderComposite("Games");
+        root.add(social);
+        social.add(new Credential("Facebook", "user1", "pass1"));
+        social.add(games);
+        games.add(new Credential("Steam", "user2", "pass2"));
+        root.add(new Credential("Slack", "user3", "pass3"));
+    }
+
+    @Test
+    void testSameFormatAsRecursivePrint() {
+        String expected = "+ Vault" + NL
+                + "  + Social" + NL
+                + "  Facebook - user1" + NL
+                + "    + Games" + NL
+                + "   Steam - user2" + NL
+                + " Slack - user3" + NL;
+        assertEquals(expected, new TreeRenderer().renderToString(root));
+
+        PrintStream original = System.out;
+        ByteArrayOutputStream captured = new ByteArrayOutputStream();
+        try {
+            System.setOut(new PrintStream(captured, true, StandardCharsets.UTF_8));
+            root.print(0);
+        } finally {
+            System.setOut(original);
+        }
+        assertEquals(expected, captured.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void testLimitsSummarizeOmittedNodes() throws IOException {
+        StringWriter shallow = new StringWriter();
+        assertEquals(3, new TreeRenderer(1, TreeRenderer.UNLIMITED, 16).render(root, 0, shallow));
+        assertTrue(shallow.toString().contains("    ... (2 credenziali, 1 cartelle)"));
+
+        StringWriter few = new StringWriter();
+        assertEquals(2, new TreeRenderer(TreeRenderer.UNLIMITED, 2, 16).render(root, 0, few));
+        assertTrue(few.toString().endsWith("  ... (altri 4 elementi)" + NL));
+    }
+
+    @Test
+    void testLargeTreeIsChunked() throws IOException {
+        FolderComposite big = new FolderComposite("Big");
+        for (int i = 0; i < 10_000; i++) {
+            big.add(new Credential("svc" + i, "u", "p"));
+        }
+        int[] writes = {0};
+        StringBuilder out = new StringBuilder();
+        Appendable counting = new Appendable() {
+            @Override
+            public Appendable append(CharSequence csq) {
+                writes[0]++;
+                out.append(csq);
+                return this;
+            }
+
+            @Override
+            public Appendable append(CharSequence csq, int start, int end) {
+                return append(csq.subSequence(start, end));
+            }
+
+            @Override
+            public Appendable append(char c) {
+                return append(String.valueOf(c));
+            }
+        };
+        assertEquals(10_001, new TreeRenderer().render(big, 0, counting));
+        assertTrue(writes[0] < 50, "scritture: " + writes[0]);
+        assertTrue(out.toString().contains(" svc9999 - u" + NL));
+    }
+}
@@ -0,0 +1,83 @@
+package com.securevault.composite;
+
+import com.securevault.model.Credential;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+import java.util.ArrayList;
+import java.util.List;
+
+class VaultTreeTest {
+    private VaultTree tree;
+    private Credential facebook;
+    private Credential slack;
+
+    @BeforeEach
+    void setUp() {
+        tree = new VaultTree("Vault");
+        facebook = new Credential("Facebook", "user1", "pass1");
+        slack = new Credential("Slack", "user2", "pass2");
+        tree.add("Social", facebook);
+        tree.add("Work/Chat", slack);
+    }
+
+    @Test
+    void testPathIndexAndParentPointers() {
+        FolderComposite chat = tree.getFolder("Work/Chat");
+        assertNotNull(chat);
+        assertSame(tree.getFolder("Work"), chat.getParent());
+        assertSame(tree.getRoot(), chat.getParent().getParent());
+        assertEquals("Work/Chat", tree.pathOf(chat));
+        assertSame(chat, tree.folderOf(slack));
+        assertEquals(4, tree.folderCount());
+        assertEquals(2, tree.credentialCount());
+    }
+
+    @Test
+    void testRemoveAndMoveUseReverseIndex() {
+        assertTrue(tree.move(slack, "Social"));
+        assertSame(tree.getFolder("Social"), tree.folderOf(slack));
+        assertFalse(tree.getFolder("Work/Chat").iterator().hasNext());
+
+        assertTrue(tree.remove(facebook));
+        assertFalse(tree.contains(facebook));
+        assertFalse(tree.remove(facebook));
+        assertEquals(1, tree.getFolder("Social").childCount());
+    }
+
+    @Test
+    void testMovingFolderReindexesSubtree() {
+        assertTrue(tree.move(tree.getFolder("Work/Chat"), "Archive"));
+        assertNull(tree.getFolder("Work/Chat"));
+        FolderComposite moved = tree.getFolder("Archive/Chat");
+        assertNotNull(moved);
+        assertSame(moved, tree.folderOf(slack));
+
+        assertThrows(IllegalArgumentException.class, () -> tree.getFolder("Archive").add(tree.getRoot()));
+        assertThrows(IllegalArgumentException.class, () -> tree.getRoot().add(new FolderComposite("Social")));
+    }
+
+    @Test
+    void testReplaceKeepsPositionAndTombstonesCompact() {
+        FolderComposite folder = tree.mkdirs("Bulk");
+        List<Credential> credentials = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            Credential c = new Credential("svc" + i, "u", "p");
+            credentials.add(c);
+            folder.add(c);
+        }
+        Credential updated = new Credential("svc1", "u", "nuova");
+        assertTrue(tree.replace(credentials.get(1), updated));
+        assertSame(folder, tree.folderOf(updated));
+
+        for (int i = 2; i < 90; i++) {
+            tree.remove(credentials.get(i));
+        }
+        List<VaultComponent> remaining = new ArrayList<>();
+        folder.forEach(remaining::add);
+        assertEquals(12, folder.childCount());
+        assertEquals(12, remaining.size());
+        assertSame(updated, remaining.get(1));
+        assertSame(credentials.get(99), remaining.get(11));
+    }
+}
@@ -1,6 +1,7 @@
 package com.securevault.factory;
 
 import com.securevault.model.Credential;
+import com.securevault.security.SecretStore;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import static org.junit.jupiter.api.Assertions.*;
@@ -38,4 +39,19 @@ class CredentialFactoryTest {
         CredentialInterface cred = factory.create("Test", "test", "test");
         assertTrue(cred instanceof Credential);
     }
-}
\ No newline at end of file
+
+    @Test
+    void testWithUsernameCopiesOffHeapPassword() {
+        SecretStore secrets = new SecretStore();
+        CredentialFactory offHeapFactory = new CredentialFactory(secrets);
+        Credential old = (Credential) offHeapFactory.create("Gmail", "old", "s3cret");
+
+        Credential renamed = (Credential) offHeapFactory.withUsername(old, "new");
+        old.zeroize();                                    // Handle indipendenti
+
+        assertTrue(renamed.isOffHeap());
+        assertEquals("new", renamed.getUsername());
+        assertEquals("s3cret", renamed.getPassword());
+        assertEquals(1, secrets.liveSecrets());
+    }
+}
@@ -0,0 +1,189 @@
+package com.securevault.observer;
+
+import com.securevault.model.Credential;
+import com.securevault.repository.VaultRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+class AsyncDispatchTest {
+    private VaultRepository repository;
+    private RecordingObserver recorder;
+
+    @BeforeEach
+    void setUp() {
+        repository = new VaultRepository();
+        recorder = new RecordingObserver();
+    }
+
+    @AfterEach
+    void tearDown() {
+        recorder.release();
+        repository.shutdownAsyncDispatch();
+    }
+
+    @Test
+    void testEventsDeliveredInOrderAfterDrain() {
+        repository.enableAsyncDispatch(4, BackpressurePolicy.BLOCK);
+        repository.addAsyncObserver(recorder);
+        recorder.release();
+
+        List<String> expected = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            Credential credential = new Credential("svc" + i, "user", "pw" + i);
+            Credential changed = new Credential("svc" + i, "user", "new" + i);
+            repository.addCredential("Work", credential);
+            repository.modifyCredential("Work", credential, changed);
+            expected.add("ADDED svc" + i + " - user in Work");
+            expected.add("MODIFIED svc" + i + " - user -> svc" + i + " - user in Work");
+        }
+        repository.drain();
+
+        assertEquals(expected, recorder.events());
+        assertEquals(0, repository.getDroppedEvents());
+    }
+
+    @Test
+    void testDropPolicyDiscardsWhenFull() throws InterruptedException {
+        repository.enableAsyncDispatch(2, BackpressurePolicy.DROP);
+        repository.addAsyncObserver(recorder);
+
+        repository.addCredential("Work", new Credential("a", "u", "p"));
+        recorder.awaitBlocked();                 // Il dispatcher è fermo sul primo evento
+        for (int i = 0; i < 5; i++) {
+            repository.addCredential("Work", new Credential("b" + i, "u", "p"));
+        }
+        assertEquals(3, repository.getDroppedEvents());
+        assertEquals(6, repository.countAll());  // Le scritture non sono state rallentate né perse
+
+        recorder.release();
+        repository.drain();
+        assertEquals(3, recorder.events().size());
+    }
+
+    @Test
+    void testCoalescePolicyMergesPendingEvents() throws InterruptedException {
+        repository.enableAsyncDispatch(2, BackpressurePolicy.COALESCE);
+        repository.addAsyncObserver(recorder);
+
+        Credential first = new Credential("x", "u", "p");
+        Credential c1 = new Credential("c", "u", "1");
+        Credential c2 = new Credential("c", "u", "2");
+        Credential c3 = new Credential("c", "u", "3");
+        Credential d = new Credential("d", "u", "p");
+
+        repository.addCredential("Work", first);
+        recorder.awaitBlocked();
+        repository.addCredential("Work", c1);        // Coda piena da qui
+        repository.addCredential("Work", d);
+        repository.modifyCredential("Work", c1, c2); // ADDED c1 + MODIFIED = ADDED c2
+        repository.modifyCredential("Work", c2, c3); // ADDED c3
+        repository.removeCredential("Work", d);      // ADDED d + REMOVED = nulla
+        assertEquals(3, repository.getCoalescedEvents());
+
+        recorder.release();
+        repository.drain();
+        assertEquals(List.of("ADDED x - u in Work", "ADDED c - u in Work"), recorder.events());
+        assertEquals("3", recorder.lastAdded.getPassword());
+    }
+
+    @Test
+    void testDeliveryAfterCloseFallsBackToCaller() {
+        AsyncEventDispatcher dispatcher = new AsyncEventDispatcher(4, BackpressurePolicy.BLOCK);
+        VaultObserver[] targets = {recorder};
+        List<String> actions = new ArrayList<>();
+        recorder.release();
+        dispatcher.submit(targets, VaultEvent.added("Work", new Credential("a", "u", "p")));
+        dispatcher.close();
+
+        // Mutazione già applicata dopo la chiusura: consegna sul thread chiamante, non eccezione
+        dispatcher.submit(targets, VaultEvent.added("Work", new Credential("b", "u", "p")));
+        dispatcher.submitAfter(() -> actions.add(Thread.currentThread().getName()));
+
+        assertEquals(List.of("ADDED a - u in Work", "ADDED b - u in Work"), recorder.events());
+        assertEquals(List.of(Thread.currentThread().getName()), actions);
+    }
+
+    @Test
+    void testCoalesceRules() {
+        Credential a = new Credential("s", "u", "a");
+        Credential b = new Credential("s", "u", "b");
+        Credential c = new Credential("s", "u", "c");
+
+        VaultEvent addThenModify = VaultEvent.added("W", a).followedBy(VaultEvent.modified("W", a, b));
+        assertEquals(VaultEvent.Type.ADDED, addThenModify.getType());
+        assertSame(b, addThenModify.getCredential());
+
+        VaultEvent modifyTwice = VaultEvent.modified("W", a, b).followedBy(VaultEvent.modified("W", b, c));
+        assertSame(a, modifyTwice.getPrevious());
+        assertSame(c, modifyTwice.getCredential());
+
+        assertNull(VaultEvent.added("W", a).followedBy(VaultEvent.removed("W", a)));
+        assertSame(a, VaultEvent.modified("W", a, b).followedBy(VaultEvent.removed("W", b)).getCredential());
+
+        assertFalse(VaultEvent.added("W", a).continues(VaultEvent.removed("Other", a)));
+        assertFalse(VaultEvent.removed("W", a).continues(VaultEvent.added("W", a)));
+        assertThrows(IllegalArgumentException.class,
+                () -> VaultEvent.added("W", a).followedBy(VaultEvent.modified("W", b, c)));
+    }
+
+    /**
+     * Observer che registra gli eventi; la prima consegna resta bloccata finché
+     * il test non chiama release, per riempire la coda in modo deterministico.
+     */
+    private static class RecordingObserver implements VaultObserver {
+        private final List<String> events = Collections.synchronizedList(new ArrayList<>());
+        private final CountDownLatch blocked = new CountDownLatch(1);
+        private final CountDownLatch gate = new CountDownLatch(1);
+        private volatile Credential lastAdded;
+
+        void awaitBlocked() throws InterruptedException {
+            assertTrue(blocked.await(5, TimeUnit.SECONDS));
+        }
+
+        void release() {
+            gate.countDown();
+        }
+
+        List<String> events() {
+            return new ArrayList<>(events);
+        }
+
+        private void record(String event) {
+            blocked.countDown();
+            try {
+                gate.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            events.add(event);
+        }
+
+        @Override
+        public void onCredentialAdded(Credential credential, String category) {
+            lastAdded = credential;
+            record("ADDED " + credential.getName() + " in " + category);
+        }
+
+        @Override
+        public void onCredentialRemoved(Credential credential, String category) {
+            record("REMOVED " + credential.getName() + " da " + category);
+        }
+
+        @Override
+        public void onCredentialModified(Credential oldCredential, Credential newCredential, String category) {
+            record("MODIFIED " + oldCredential.getName() + " -> " + newCredential.getName() + " in " + category);
+        }
+
+        @Override
+        public void onVaultCleared() {
+            record("CLEARED");
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package com.securevault.observer;
+
+import com.securevault.model.Credential;
+import com.securevault.repository.VaultRepository;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+class BatchingObserverTest {
+
+    @Test
+    void testSizeWindowCoalescesSameCredential() {
+        BatchRecorder recorder = new BatchRecorder();
+        VaultRepository repository = new VaultRepository();
+        try (BatchingObserver batching = new BatchingObserver(recorder, 3, Duration.ZERO)) {
+            repository.addObserver(batching);
+            Credential a1 = new Credential("a", "u", "1");
+            Credential a2 = new Credential("a", "u", "2");
+            Credential b = new Credential("b", "u", "p");
+            Credential c = new Credential("c", "u", "p");
+
+            repository.addCredential("Work", a1);
+            repository.modifyCredential("Work", a1, a2);    // ADDED a2
+            repository.addCredential("Work", b);
+            repository.removeCredential("Work", b);         // Annullata
+            assertEquals(1, batching.pendingCount());
+            assertTrue(recorder.batches.isEmpty());
+
+            repository.addCredential("Work", c);
+            repository.addCredential("Personal", a1);       // Terzo evento: chiude la finestra
+
+            assertEquals(1, recorder.batches.size());
+            assertEquals(List.of("ADDED a - u in Work", "ADDED c - u in Work", "ADDED a - u in Personal"),
+                    recorder.describe(0));
+            assertSame(a2, recorder.batches.get(0).get(0).getCredential());
+            assertEquals(0, batching.pendingCount());
+        }
+    }
+
+    @Test
+    void testBulkAddAndClearBarrier() {
+        BatchRecorder recorder = new BatchRecorder();
+        VaultRepository repository = new VaultRepository();
+        BatchingObserver batching = new BatchingObserver(recorder, 1000, Duration.ZERO);
+        repository.addObserver(batching);
+
+        List<Credential> bulk = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            bulk.add(new Credential("svc" + i, "u", "p"));
+        }
+        repository.addAll("Work", bulk);
+        Credential changed = new Credential("svc0", "u", "new");
+        repository.modifyCredential("Work", bulk.get(0), changed);   // Fusa nell'ADDED del bulk
+        repository.clearAll();
+        repository.addCredential("Work", changed);                   // Dopo la barriera: evento separato
+        batching.close();
+
+        assertEquals(1, recorder.batches.size());
+        List<VaultEvent> batch = recorder.batches.get(0);
+        assertEquals(12, batch.size());
+        assertSame(changed, batch.get(0).getCredential());
+        assertEquals(VaultEvent.Type.CLEARED, batch.get(10).getType());
+        assertEquals(VaultEvent.Type.ADDED, batch.get(11).getType());
+    }
+
+    @Test
+    void testTimeWindowFlushesAfterDelay() throws InterruptedException {
+        BatchRecorder recorder = new BatchRecorder();
+        try (BatchingObserver batching = new BatchingObserver(recorder, 1000, Duration.ofMillis(20))) {
+            batching.onCredentialAdded(new Credential("a", "u", "p"), "Work");
+            batching.onCredentialAdded(new Credential("b", "u", "p"), "Work");
+
+            assertTrue(recorder.delivered.await(5, TimeUnit.SECONDS));
+            assertEquals(List.of("ADDED a - u in Work", "ADDED b - u in Work"), recorder.describe(0));
+        }
+    }
+
+    @Test
+    void testEventsAfterCloseAreDeliveredDirectly() {
+        BatchRecorder recorder = new BatchRecorder();
+        VaultRepository repository = new VaultRepository();
+        BatchingObserver batching = new BatchingObserver(recorder, 1000, Duration.ZERO);
+        repository.addObserver(batching);
+        repository.addCredential("Work", new Credential("a", "u", "p"));
+        batching.close();
+
+        // Mutazione concorrente alla chiusura: nessuna eccezione sul thread dello scrittore
+        assertDoesNotThrow(() -> repository.addCredential("Work", new Credential("b", "u", "p")));
+
+        assertEquals(2, recorder.batches.size());
+        assertEquals(List.of("ADDED a - u in Work"), recorder.describe(0));
+        assertEquals(List.of("ADDED b - u in Work"), recorder.describe(1));
+        assertEquals(0, batching.pendingCount());
+    }
+
+    /**
+     * Observer che registra i blocchi ricevuti.
+     */
+    private static class BatchRecorder implements VaultObserver {
+        final List<List<VaultEvent>> batches = new CopyOnWriteArrayList<>();
+        final CountDownLatch delivered = new CountDownLatch(1);
+
+        List<String> describe(int batch) {
+            return batches.get(batch).stream().map(VaultEvent::toString).collect(Collectors.toList());
+        }
+
+        @Override
+        public void onBatch(List<VaultEvent> events) {
+            batches.add(events);
+            delivered.countDown();
+        }
+
+        @Override
+        public void onCredentialAdded(Credential credential, String category) {
+            fail("Atteso solo onBatch");
+        }
+
+        @Override
+        public void onCredentialRemoved(Credential credential, String category) {
+            fail("Atteso solo onBatch");
+        }
+
+        @Override
+        public void onCredentialModified(Credential oldCredential, Credential newCredential, String category) {
+            fail("Atteso solo onBatch");
+        }
+
+        @Override
+        public void onVaultCleared() {
+            fail("Atteso solo onBatch");
+        }
+    }
+}
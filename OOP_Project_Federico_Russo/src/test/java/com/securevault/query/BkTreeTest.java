@@ -0,0 +1,73 @@
+package com.securevault.query;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+import java.util.List;
+
+class BkTreeTest {
+    private BkTree tree;
+
+    @BeforeEach
+    void setUp() {
+        tree = new BkTree();
+        tree.add("GitHub");
+        tree.add("GitLab");
+        tree.add("Gmail");
+        tree.add("Gmail");
+        tree.add("Facebook");
+    }
+
+    @Test
+    void testDistance() {
+        assertEquals(0, BkTree.distance("gmail", "gmail", 5));
+        assertEquals(1, BkTree.distance("gmial", "gmail", 5));   // Trasposizione
+        assertEquals(1, BkTree.distance("githb", "github", 5));  // Cancellazione
+        assertTrue(BkTree.distance("facebook", "gmail", 2) > 2); // Limite superato
+    }
+
+    @Test
+    void testMetricDistanceAllowsEditsInsideTransposition() {
+        assertEquals(3, BkTree.distance("ca", "abc", 5));        // OSA: non è una metrica
+        assertEquals(2, BkTree.metricDistance("ca", "abc"));
+        assertEquals(1, BkTree.metricDistance("gmial", "gmail"));
+        assertEquals(0, BkTree.metricDistance("gmail", "gmail"));
+    }
+
+    @Test
+    void testPruningDoesNotMissMatchesBreakingTriangleInequality() {
+        BkTree small = new BkTree();
+        small.add("ca");
+        small.add("abc");    // OSA("ca", "abc") = 3, ma OSA("ac", "abc") = 1
+
+        List<BkTree.Match> matches = small.search("ac", 1);
+
+        assertTrue(matches.stream().anyMatch(m -> m.getTerm().equals("abc") && m.getDistance() == 1));
+        assertTrue(matches.stream().anyMatch(m -> m.getTerm().equals("ca")));
+    }
+
+    @Test
+    void testTypoTolerantSearch() {
+        List<BkTree.Match> matches = tree.search("Gmial", 1);
+
+        assertEquals(1, matches.size());
+        assertEquals("gmail", matches.get(0).getTerm());
+        assertEquals(2, matches.get(0).getPopularity());
+    }
+
+    @Test
+    void testRankingByDistance() {
+        List<BkTree.Match> matches = tree.search("gitlub", 2);
+
+        assertEquals(2, matches.size());
+        assertTrue(matches.get(0).getDistance() <= matches.get(1).getDistance());
+    }
+
+    @Test
+    void testRemoveHidesTerm() {
+        tree.remove("Facebook");
+
+        assertTrue(tree.search("facebok", 1).isEmpty());
+        assertEquals(3, tree.size());
+    }
+}
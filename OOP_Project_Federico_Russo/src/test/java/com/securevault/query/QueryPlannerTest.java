@@ -0,0 +1,150 @@
+package com.securevault.query;
+
+import com.securevault.model.Credential;
+import com.securevault.query.CredentialQuery.Field;
+import com.securevault.repository.VaultRepository;
+import com.securevault.security.SecretStore;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+import java.util.List;
+
+class QueryPlannerTest {
+    private VaultRepository repository;
+
+    @BeforeEach
+    void setUp() {
+        repository = new VaultRepository();
+        repository.addCredential("Work", new Credential("GitHub", "dev@corp.com", "p1"));
+        repository.addCredential("Work", new Credential("GitLab", "dev@corp.com", "p2"));
+        repository.addCredential("Personal", new Credential("Gmail", "me@mail.com", "p3"));
+        repository.addCredential("Personal", new Credential("Facebook", "me@mail.com", "p4"));
+        repository.addCredential("Social", new Credential("Twitter", "me", "p5"));
+    }
+
+    @Test
+    void testEqualityUsesHashIndex() {
+        CredentialQuery q = CredentialQuery.fieldEquals(Field.SERVICE, "gmail");
+        QueryPlan plan = repository.explain(q);
+
+        assertTrue(plan.usesIndex());
+        assertTrue(plan.explain().startsWith("HashIndex"));
+        assertEquals(1, repository.query(q).size());
+    }
+
+    @Test
+    void testAndPicksMostSelectiveIndex() {
+        CredentialQuery q = CredentialQuery.inCategory("Work")
+                .and(CredentialQuery.fieldStartsWith(Field.SERVICE, "gitl"));
+        QueryPlan plan = repository.explain(q);
+
+        assertTrue(plan.explain().startsWith("SortedIndex"));
+        assertTrue(plan.explain().contains("Filter"));
+        List<Credential> result = repository.query(q);
+        assertEquals(1, result.size());
+        assertEquals("GitLab", result.get(0).getService());
+    }
+
+    @Test
+    void testSubstringUsesTrigramsWithResidual() {
+        CredentialQuery q = CredentialQuery.fieldContains(Field.USERNAME, "corp");
+        QueryPlan plan = repository.explain(q);
+
+        assertTrue(plan.explain().startsWith("TrigramIndex"));
+        assertEquals(2, repository.query(q).size());
+    }
+
+    @Test
+    void testNotFallsBackToFullScan() {
+        CredentialQuery q = CredentialQuery.not(CredentialQuery.inCategory("Personal"));
+        QueryPlan plan = repository.explain(q);
+
+        assertFalse(plan.usesIndex());
+        assertEquals(3, repository.query(q).size());
+    }
+
+    @Test
+    void testOrUnionDoesNotDuplicate() {
+        CredentialQuery q = CredentialQuery.anyOf(
+                CredentialQuery.fieldStartsWith(Field.SERVICE, "git"),
+                CredentialQuery.inCategory("Work"));
+
+        assertEquals(2, repository.query(q).size());
+    }
+
+    @Test
+    void testIndexesFollowMutations() {
+        Credential gmail = new Credential("Gmail", "me@mail.com", "p3");
+        CredentialQuery q = CredentialQuery.fieldEquals(Field.SERVICE, "gmail");
+
+        repository.modifyCredential("Personal", gmail, new Credential("Gmail", "other", "p9"));
+        assertEquals("other", repository.query(q).get(0).getUsername());
+
+        repository.removeCredential("Personal", new Credential("Gmail", "other", "p9"));
+        assertFalse(repository.hasMatch(q));
+    }
+
+    @Test
+    void testResultsAreStoredInstancesOfDuplicates() {
+        Credential first = new Credential("Slack", "team", "pw");
+        Credential second = new Credential("Slack", "team", "pw");     // Uguale per valore
+        repository.addCredential("Work", first);
+        repository.addCredential("Work", second);
+        CredentialQuery q = CredentialQuery.fieldEquals(Field.SERVICE, "slack");
+
+        List<Credential> both = repository.query(q);
+        assertEquals(2, both.size());
+        assertTrue(both.stream().anyMatch(c -> c == first));
+        assertTrue(both.stream().anyMatch(c -> c == second));
+
+        repository.removeCredential("Work", second);    // Il vault rimuove la prima occorrenza
+        List<Credential> survivor = repository.query(q);
+        assertEquals(1, survivor.size());
+        assertSame(repository.getByCategory("Work").stream()
+                .filter(c -> c.getService().equals("Slack")).findFirst().orElseThrow(), survivor.get(0));
+    }
+
+    @Test
+    void testRemovingEqualOffHeapDuplicatesEmptiesIndexes() {
+        SecretStore secrets = new SecretStore();
+        VaultRepository vault = new VaultRepository();
+        Credential first = new Credential("gmail", "me", secrets.store("s3cret"));
+        Credential second = new Credential("gmail", "me", secrets.store("s3cret"));
+        vault.addCredential("Default", first);
+        vault.addCredential("Default", second);
+
+        vault.removeCredential("Default", first);               // Password azzerata: chiave del gruppo
+        vault.removeCredential("Default", second);
+
+        assertEquals(0, vault.countAll());
+        assertTrue(vault.query(CredentialQuery.fieldEquals(Field.SERVICE, "gmail")).isEmpty());
+        assertTrue(vault.query(CredentialQuery.inCategory("Default")).isEmpty());
+        assertEquals(0, secrets.liveSecrets());
+    }
+
+    @Test
+    void testQueriesAreSafeDuringConcurrentWrites() throws InterruptedException {
+        CredentialQuery q = CredentialQuery.fieldStartsWith(Field.SERVICE, "svc");
+        QueryPlan plan = repository.explain(q);                  // Eseguito mentre gli indici cambiano
+        Thread writer = new Thread(() -> {
+            for (int i = 0; i < 2000; i++) {
+                Credential c = new Credential("svc" + i, "u", "p");
+                repository.addCredential("Work", c);
+                if (i % 2 == 0) {
+                    repository.removeCredential("Work", c);
+                }
+            }
+        });
+        writer.start();
+        while (writer.isAlive()) {
+            assertDoesNotThrow(() -> repository.query(q));
+            assertDoesNotThrow(plan::execute);
+            assertDoesNotThrow(() -> repository.fuzzySearchByService("svc1", 1));
+            assertDoesNotThrow(() -> repository.autocompleteService("sv", 5));
+        }
+        writer.join();
+
+        assertEquals(1000, repository.query(q).size());
+        assertTrue(repository.hasMatch(q));
+    }
+}
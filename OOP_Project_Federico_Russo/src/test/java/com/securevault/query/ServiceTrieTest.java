@@ -0,0 +1,49 @@
+package com.securevault.query;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+import java.util.List;
+
+class ServiceTrieTest {
+    private ServiceTrie trie;
+
+    @BeforeEach
+    void setUp() {
+        trie = new ServiceTrie(2);
+        trie.add("GitHub");
+        trie.add("GitHub");
+        trie.add("GitLab");
+        trie.add("Gitea");
+        trie.add("Gmail");
+    }
+
+    @Test
+    void testTopCompletionsByPopularity() {
+        List<String> suggestions = trie.complete("gi", 5);
+
+        assertEquals(2, suggestions.size());
+        assertEquals("GitHub", suggestions.get(0));
+        assertEquals("Gitea", suggestions.get(1));   // Parità: ordine alfabetico
+    }
+
+    @Test
+    void testUnknownPrefix() {
+        assertTrue(trie.complete("xyz", 5).isEmpty());
+    }
+
+    @Test
+    void testRemovalPromotesNextCandidate() {
+        trie.remove("Gitea");
+
+        assertEquals(List.of("GitHub", "GitLab"), trie.complete("git", 5));
+    }
+
+    @Test
+    void testCountIncreaseReordersCache() {
+        trie.add("Gmail");
+        trie.add("Gmail");
+
+        assertEquals("Gmail", trie.complete("", 1).get(0));
+    }
+}
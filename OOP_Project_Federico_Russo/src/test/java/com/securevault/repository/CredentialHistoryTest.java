@@ -0,0 +1,73 @@
+package com.securevault.repository;
+
+import com.securevault.model.Credential;
+import com.securevault.security.SecretStore;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CredentialHistoryTest {
+
+    @Test
+    void testVersionsAreReconstructedFromDeltas() {
+        VaultRepository repository = new VaultRepository();
+        CredentialHistory history = new CredentialHistory();
+        repository.addObserver(history);
+
+        Credential v0 = new Credential("gmail", "old@mail.com", "pw-0");
+        Credential v1 = new Credential("gmail", "new@mail.com", "pw-0");
+        Credential v2 = new Credential("gmail", "new@mail.com", "pw-2");
+        repository.addCredential("Default", v0);
+        repository.modifyCredential("Default", v0, v1);
+        repository.modifyCredential("Default", v1, v2);
+
+        assertEquals(2, history.versionCount(v2));
+        CredentialVersion previous = history.getVersion(v2, 1);
+        assertEquals("new@mail.com", previous.getUsername());
+        assertEquals("pw-0", previous.getPassword());
+        CredentialVersion oldest = history.getVersion(v2, 2);
+        assertEquals("old@mail.com", oldest.getUsername());
+        assertEquals("pw-0", oldest.getPassword());
+        assertThrows(IndexOutOfBoundsException.class, () -> history.getVersion(v2, 3));
+    }
+
+    @Test
+    void testRetentionDiscardsOldestVersions() {
+        VaultRepository repository = new VaultRepository();
+        CredentialHistory history = new CredentialHistory(2, Duration.ofDays(30), null, Clock.systemUTC());
+        repository.addObserver(history);
+
+        Credential current = new Credential("github", "me", "pw-0");
+        repository.addCredential("Default", current);
+        for (int i = 1; i <= 5; i++) {
+            Credential next = new Credential("github", "me", "pw-" + i);
+            repository.modifyCredential("Default", current, next);
+            current = next;
+        }
+
+        assertEquals(2, history.versionCount(current));
+        assertEquals("pw-3", history.getVersion(current, 2).getPassword());
+
+        repository.removeCredential("Default", current);
+        assertEquals(0, history.versionCount(current));
+    }
+
+    @Test
+    void testOffHeapPasswordsSurviveZeroizationOfReplacedCredential() {
+        SecretStore secrets = new SecretStore();
+        VaultRepository repository = new VaultRepository();
+        CredentialHistory history = new CredentialHistory(5, null, secrets, Clock.systemUTC());
+        repository.addObserver(history);
+
+        Credential old = new Credential("bank", "me", secrets.store("old-secret"));
+        Credential updated = new Credential("bank", "me", secrets.store("new-secret"));
+        repository.addCredential("Default", old);
+        repository.modifyCredential("Default", old, updated);
+
+        assertThrows(IllegalStateException.class, old::getPassword);   // Azzerata dal repository
+        assertEquals("old-secret", history.getVersion(updated, 1).getPassword());
+    }
+}
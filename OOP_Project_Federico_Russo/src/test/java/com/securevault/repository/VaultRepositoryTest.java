@@ -1,11 +1,16 @@
 package com.securevault.repository;
 
+import com.securevault.exception.InputValidationException;
 import com.securevault.model.Credential;
+import com.securevault.observer.VaultEvent;
+import com.securevault.observer.VaultNotificationService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import static org.junit.jupiter.api.Assertions.*;
 import java.util.List;
 import java.util.Set;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
 
 class VaultRepositoryTest {
     private VaultRepository repository;
@@ -68,4 +73,190 @@ class VaultRepositoryTest {
         }
         assertEquals(2, count);
     }
-}
\ No newline at end of file
+
+    @Test
+    void testPaginationWithCursor() {
+        for (int i = 0; i < 7; i++) {
+            repository.addCredential(i % 2 == 0 ? "Personal" : "Work", new Credential("Svc" + i, "u" + i, "p" + i));
+        }
+
+        Predicate<Credential> all = c -> true;                     // Stessa istanza per tutte le pagine
+        Page<Credential> page = repository.filterCredentialsPage(all, null, 3);
+        int total = page.getItems().size();
+        int pages = 1;
+        while (page.hasNext()) {
+            page = repository.filterCredentialsPage(all, page.getNextCursor(), 3);
+            total += page.getItems().size();
+            pages++;
+        }
+
+        assertEquals(7, total);
+        assertEquals(3, pages);
+    }
+
+    @Test
+    void testCursorPinnedToSnapshotAcrossMutation() {
+        repository.addCredential("Personal", credential1);
+        repository.addCredential("Personal", credential2);
+
+        Page<Credential> first = repository.getByCategoryPage("Personal", null, 1);
+        assertTrue(first.hasNext());
+
+        repository.removeCredential("Personal", credential1);
+        repository.addCredential("Personal", new Credential("Jira", "user3", "pass3"));
+        Page<Credential> second = repository.getByCategoryPage("Personal", first.getNextCursor(), 1);
+
+        assertEquals(List.of(credential2), second.getItems());   // Stessa vista della prima pagina
+        assertFalse(second.hasNext());
+    }
+
+    @Test
+    void testDictionaryFollowsVaultContent() {
+        repository.addCredential("Personal", credential1);
+        for (int i = 0; i < 100; i++) {
+            Credential temporary = new Credential("Temp" + i, "user" + i, "p");
+            repository.addCredential("Work", temporary);
+            repository.removeCredential("Work", temporary);
+        }
+        int size = repository.getDictionary().size();
+
+        repository.groupByService();
+        repository.findDuplicates();
+
+        assertEquals(2 + 1, size);     // Gmail, user1 + categoria Personal (Work svuotata)
+        assertEquals(size, repository.getDictionary().size());
+        repository.removeCredential("Personal", credential1);
+        assertEquals(0, repository.getDictionary().size());
+    }
+
+    @Test
+    void testCursorBoundToItsQuery() {
+        repository.addCredential("Personal", credential1);
+        repository.addCredential("Personal", credential2);
+
+        Page<Credential> first = repository.getByCategoryPage("Personal", null, 1);
+
+        assertThrows(IllegalArgumentException.class, () ->
+            repository.getByCategoryPage("Work", first.getNextCursor(), 1));
+        assertThrows(IllegalArgumentException.class, () ->
+            repository.searchByServicePage("a", first.getNextCursor(), 1));
+
+        Predicate<Credential> gmail = c -> c.getService().equals("Gmail");
+        Predicate<Credential> any = c -> true;
+        Page<Credential> filtered = repository.filterCredentialsPage(any, null, 1);
+        assertThrows(IllegalArgumentException.class, () ->
+            repository.filterCredentialsPage(gmail, filtered.getNextCursor(), 1));
+        assertThrows(IllegalArgumentException.class, () ->
+            repository.getByCategoryPage("Personal", filtered.getNextCursor(), 1));
+        assertEquals(1, repository.filterCredentialsPage(any, filtered.getNextCursor(), 1).getItems().size());
+    }
+
+    @Test
+    void testStreamIsLazy() {
+        repository.addCredential("Personal", credential1);
+        repository.addCredential("Work", credential2);
+
+        int[] evaluated = {0};
+        try (Stream<Credential> filtered = repository.streamFiltered(c -> { evaluated[0]++; return true; });
+             Stream<Credential> bySlack = repository.streamByService("slack")) {
+            assertNotNull(filtered.findFirst().orElseThrow());
+            assertEquals(1, evaluated[0]);
+            assertEquals(1, bySlack.count());
+        }
+    }
+
+    @Test
+    void testSnapshotIsolation() {
+        repository.addCredential("Personal", credential1);
+        VaultSnapshot snapshot = repository.snapshot();
+
+        repository.addCredential("Personal", credential2);
+        repository.removeCredential("Personal", credential1);
+
+        assertEquals(1, snapshot.countAll());
+        assertTrue(snapshot.getByCategory("Personal").contains(credential1));
+        assertEquals(1, repository.countAll());
+        assertTrue(repository.getByCategory("Personal").contains(credential2));
+    }
+
+    @Test
+    void testSnapshotReusedUntilWrite() {
+        repository.addCredential("Personal", credential1);
+
+        VaultSnapshot first = repository.snapshot();
+        assertSame(first, repository.snapshot());
+
+        repository.addCredential("Work", credential2);
+        assertNotSame(first, repository.snapshot());
+        assertTrue(repository.snapshot().getVersion() > first.getVersion());
+    }
+
+    @Test
+    void testMutationDuringIteration() {
+        repository.addCredential("Personal", credential1);
+        repository.addCredential("Personal", credential2);
+
+        int seen = 0;
+        for (Credential cred : repository) {
+            repository.removeCredential("Personal", cred);
+            seen++;
+        }
+        assertEquals(2, seen);
+        assertEquals(0, repository.countAll());
+    }
+
+    @Test
+    void testAddAllEmitsSingleEvent() {
+        VaultNotificationService notifications = new VaultNotificationService(false);
+        repository.addObserver(notifications);
+
+        repository.addAll("Personal", List.of(credential1, credential2, new Credential("Jira", "user3", "pass3")));
+
+        assertEquals(3, repository.getByCategory("Personal").size());
+        assertEquals(3, repository.countAll());
+        assertEquals(1, notifications.getEventCount());
+        assertEquals(1, repository.searchByService("jira").size());
+    }
+
+    @Test
+    void testTransactionAppliesAtomicallyWithOneEvent() {
+        repository.addAll("Personal", List.of(credential1, credential2));
+        VaultNotificationService notifications = new VaultNotificationService(false);
+        repository.addObserver(notifications);
+        Credential renamed = new Credential("Slack", "user2-new", "pass2");
+
+        List<VaultEvent> events = repository.inTransaction(tx -> tx
+                .move("Personal", "Work", credential1)
+                .modify("Personal", credential2, renamed)
+                .add("Work", new Credential("Jira", "user3", "pass3")));
+
+        assertEquals(4, events.size());
+        assertEquals(1, notifications.getEventCount());
+        assertEquals(List.of(renamed), repository.getByCategory("Personal"));
+        assertEquals(2, repository.getByCategory("Work").size());
+        assertEquals(3, repository.countAll());
+    }
+
+    @Test
+    void testInvalidTransactionLeavesVaultUntouched() {
+        repository.addCredential("Personal", credential1);
+        long version = repository.snapshot().getVersion();
+
+        VaultTransaction tx = repository.begin()
+                .add("Personal", credential2)
+                .remove("Personal", credential1)
+                .remove("Personal", credential1);     // Già rimossa dall'operazione precedente
+
+        assertThrows(InputValidationException.class, tx::commit);
+        assertFalse(tx.isOpen());
+        assertEquals(List.of(credential1), repository.getByCategory("Personal"));
+        assertEquals(version, repository.snapshot().getVersion());
+
+        assertThrows(IllegalStateException.class,
+                () -> repository.inTransaction(t -> {
+                    t.add("Personal", credential2);
+                    throw new IllegalStateException("annullata");
+                }));
+        assertEquals(1, repository.countAll());
+    }
+}
@@ -0,0 +1,161 @@
+package com.securevault.security;
+
+import com.securevault.model.Credential;
+import com.securevault.repository.VaultRepository;
+import com.securevault.repository.VaultSnapshot;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Stream;
+
+class SecretStoreTest {
+
+    @Test
+    void testOffHeapCredentialBehavesLikeHeapCredential() {
+        SecretStore secrets = new SecretStore();
+        Credential offHeap = new Credential("gmail", "me", secrets.store("s3cret"));
+        Credential onHeap = new Credential("gmail", "me", "s3cret");
+
+        assertEquals("s3cret", offHeap.getPassword());
+        assertEquals(onHeap, offHeap);
+        assertEquals(onHeap.hashCode(), offHeap.hashCode());
+        assertEquals(onHeap.serialize(), offHeap.serialize());
+        assertEquals(offHeap, Credential.deserialize(offHeap.serialize(), null, secrets));
+    }
+
+    @Test
+    void testRemovalZeroizesPassword() {
+        SecretStore secrets = new SecretStore();
+        VaultRepository repository = new VaultRepository();
+        Credential cred = new Credential("gmail", "me", secrets.store("s3cret"));
+        repository.addCredential("Default", cred);
+
+        repository.removeCredential("Default", cred);
+
+        assertTrue(cred.isOffHeap());
+        assertThrows(IllegalStateException.class, cred::getPassword);
+        assertEquals(0, secrets.liveSecrets());
+    }
+
+    @Test
+    void testOpenSnapshotKeepsRemovedPasswordReadable() {
+        SecretStore secrets = new SecretStore();
+        VaultRepository repository = new VaultRepository();
+        Credential cred = new Credential("gmail", "me", secrets.store("s3cret"));
+        Credential shared = new Credential("github", "me", secrets.store("shared"));
+        repository.addCredential("Default", cred);
+        repository.addCredential("Default", shared);
+        repository.addCredential("Work", shared);              // Stessa istanza in due categorie
+
+        VaultSnapshot snapshot = repository.snapshot();
+        repository.removeCredential("Default", cred);
+        repository.removeCredential("Default", shared);
+
+        assertEquals("s3cret", snapshot.getByCategory("Default").get(0).getPassword());
+        assertEquals(1, repository.pendingSecrets());
+        snapshot.close();
+
+        assertThrows(IllegalStateException.class, cred::getPassword);
+        assertEquals("shared", shared.getPassword());          // Ancora nel vault (Work)
+        assertEquals(0, repository.pendingSecrets());
+        assertEquals(1, secrets.liveSecrets());
+    }
+
+    @Test
+    void testTransactionRetiresReplacedPasswordsTogether() {
+        SecretStore secrets = new SecretStore();
+        VaultRepository repository = new VaultRepository();
+        Credential a = new Credential("a", "me", secrets.store("pa"));
+        Credential b = new Credential("b", "me", secrets.store("pb"));
+        Credential kept = new Credential("c", "me", secrets.store("pc"));
+        repository.addAll("Default", List.of(a, b, kept));
+
+        VaultSnapshot snapshot = repository.snapshot();
+        repository.inTransaction(tx -> tx
+                .remove("Default", a)
+                .modify("Default", b, new Credential("b", "me", secrets.store("pb2"))));
+
+        assertEquals(2, repository.pendingSecrets());
+        assertEquals("pa", a.getPassword());                  // Visibile allo snapshot aperto
+        snapshot.close();
+
+        assertEquals(0, repository.pendingSecrets());
+        assertThrows(IllegalStateException.class, b::getPassword);
+        assertEquals(2, secrets.liveSecrets());               // kept + nuova password di b
+    }
+
+    @Test
+    void testStreamHoldsPasswordsUntilClosedAndIteratorPinsNothing() {
+        SecretStore secrets = new SecretStore();
+        VaultRepository repository = new VaultRepository();
+        Credential cred = new Credential("gmail", "me", secrets.store("s3cret"));
+        repository.addCredential("Default", cred);
+
+        try (Stream<Credential> stream = repository.streamAll()) {
+            Iterator<Credential> it = stream.iterator();
+            repository.removeCredential("Default", cred);
+            System.gc();                                        // Lo stream aperto tiene lo snapshot
+            assertEquals("s3cret", it.next().getPassword());
+            assertEquals(1, repository.pendingSecrets());
+        }
+        assertEquals(0, repository.pendingSecrets());
+
+        Credential other = new Credential("github", "me", secrets.store("other"));
+        repository.addCredential("Default", other);
+        Iterator<Credential> it = repository.iterator();
+        repository.removeCredential("Default", other);          // Nessun pin: azzerata subito
+        assertSame(other, it.next());
+        assertEquals(0, repository.pendingSecrets());
+        assertThrows(IllegalStateException.class, other::getPassword);
+    }
+
+    @Test
+    void testTryReadPasswordAfterZeroization() {
+        SecretStore secrets = new SecretStore();
+        Credential cred = new Credential("gmail", "me", secrets.store("s3cret"));
+        StringBuilder read = new StringBuilder();
+
+        assertTrue(cred.tryReadPassword(read::append));
+        cred.zeroize();
+
+        assertFalse(cred.tryReadPassword(chars -> fail("Password già azzerata")));
+        assertEquals("s3cret", read.toString());
+        Credential live = new Credential("github", "me", secrets.store("other"));
+        assertThrows(IllegalStateException.class, () -> live.tryReadPassword(chars -> {
+            throw new IllegalStateException("errore del reader");   // Non confuso con l'azzeramento
+        }));
+    }
+
+    @Test
+    void testEqualityIndependentOfZeroization() {
+        SecretStore secrets = new SecretStore();
+        Credential first = new Credential("gmail", "me", secrets.store("s3cret"));
+        Credential second = new Credential("gmail", "me", secrets.store("s3cret"));
+        Credential other = new Credential("gmail", "me", secrets.store("s3creT"));
+
+        first.zeroize();
+
+        assertEquals(first, second);
+        assertEquals(second, first);
+        assertEquals(first.hashCode(), second.hashCode());
+        assertEquals(first, new Credential("gmail", "me", "s3cret"));
+        assertNotEquals(first, other);
+    }
+
+    @Test
+    void testCloseWipesAllSecrets() {
+        SecretStore secrets = new SecretStore(64);
+        SecretHandle first = secrets.store("alpha");
+        SecretHandle large = secrets.store("x".repeat(100));   // Slab dedicato
+
+        secrets.close();
+
+        assertTrue(first.isDestroyed());
+        assertTrue(large.isDestroyed());
+        assertThrows(IllegalStateException.class, () -> first.read(chars -> fail("Segreto azzerato")));
+        assertTrue(first.contentEquals("alpha"));              // Confronto sull'impronta
+        assertFalse(first.contentEquals("alphb"));
+        assertThrows(IllegalStateException.class, () -> secrets.store("beta"));
+    }
+}
@@ -0,0 +1,83 @@
+package com.securevault.service;
+
+import com.securevault.composite.FolderComposite;
+import com.securevault.composite.LazyFolderComposite;
+import com.securevault.composite.VaultComponent;
+import com.securevault.composite.VaultTree;
+import com.securevault.model.Credential;
+import com.securevault.security.CryptoManager;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EncryptedSubtreeStoreTest {
+    @TempDir
+    Path dir;
+
+    @Test
+    void testArchivedSubtreeLoadsOneLevelAtATime() {
+        EncryptedSubtreeStore store = new EncryptedSubtreeStore(dir, new CryptoManager(CryptoManager.generateKey()), null);
+        VaultTree tree = new VaultTree("Vault");
+        tree.add("Archivio", new Credential("old-mail", "alice", "p,1"));
+        tree.add("Archivio/2019", new Credential("forum", "alice", "p2"));
+        FolderComposite original = tree.getFolder("Archivio");
+
+        LazyFolderComposite archived = store.archive(original);
+        assertTrue(tree.replace(original, archived));
+        assertEquals(2, tree.getRoot().getCredentialCount());
+        assertFalse(archived.isLoaded());
+
+        LazyFolderComposite reopened = store.open(archived.getStorageKey());
+        assertEquals("Archivio", reopened.getName());
+        assertEquals(1, reopened.getFolderCount());
+
+        List<VaultComponent> children = new ArrayList<>();
+        archived.forEach(children::add);
+        assertEquals(new Credential("old-mail", "alice", "p,1"), children.get(0));
+        LazyFolderComposite year = (LazyFolderComposite) children.get(1);
+        assertFalse(year.isLoaded());                     // Livello successivo ancora su disco
+        assertNotNull(tree.getFolder("Archivio/2019"));
+        assertEquals(new Credential("forum", "alice", "p2"), year.iterator().next());
+    }
+
+    @Test
+    void testSaveDeletesReplacedSubtreeFiles() throws IOException {
+        EncryptedSubtreeStore store = new EncryptedSubtreeStore(dir, new CryptoManager(CryptoManager.generateKey()), null);
+        VaultTree tree = new VaultTree("Vault");
+        tree.add("Archivio/2019", new Credential("forum", "alice", "p1"));
+        tree.add("Archivio/2020", new Credential("shop", "alice", "p2"));
+        LazyFolderComposite archived = store.archive(tree.getFolder("Archivio"));
+        assertEquals(3, countFiles());
+
+        archived.expand();
+        VaultComponent removed = archived.iterator().next();        // 2019, su disco
+        archived.remove(removed);
+        FolderComposite added = new FolderComposite("Nuova");
+        added.add(new Credential("mail", "alice", "p3"));
+        archived.add(added);
+        List<VaultComponent> children = new ArrayList<>();
+        archived.forEach(children::add);
+        store.save(archived, children);
+        store.save(archived, children);                              // "Nuova" riscritta con un'altra chiave
+
+        assertEquals(3, countFiles());                               // Archivio, 2020, Nuova: nessun orfano
+        LazyFolderComposite reopened = store.open(archived.getStorageKey());
+        List<String> names = new ArrayList<>();
+        reopened.forEach(child -> names.add(((FolderComposite) child).getName()));
+        assertEquals(List.of("2020", "Nuova"), names);
+    }
+
+    private long countFiles() throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.count();
+        }
+    }
+}
@@ -0,0 +1,168 @@
+package com.securevault.service;
+
+import com.securevault.composite.FolderComposite;
+import com.securevault.composite.VaultTree;
+import com.securevault.exception.VaultException;
+import com.securevault.model.Credential;
+import com.securevault.security.CryptoManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FolderTreeStoreTest {
+    @TempDir
+    Path dir;
+
+    private CryptoManager crypto;
+    private Path path;
+
+    @BeforeEach
+    void setUp() {
+        crypto = new CryptoManager(CryptoManager.generateKey());
+        path = dir.resolve("vault.tree");
+    }
+
+    @Test
+    void testHierarchySurvivesRestartWithIncrementalChanges() {
+        Credential facebook = new Credential("facebook", "alice", "p1");
+        Credential slack = new Credential("slack", "alice", "p2");
+        Credential jira = new Credential("jira", "bob", "p3");
+
+        VaultTree tree = new VaultTree("Vault");
+        FolderTreeStore store = new FolderTreeStore(path, crypto);
+        store.attach(tree);
+        tree.add("Social", facebook);
+        tree.add("Work/Chat", slack);
+        tree.add("Work", jira);
+        tree.move(slack, "Social");                  // Scelta dell'utente da preservare
+        tree.remove(jira);
+        tree.mkdirs("Archive/2020");
+        store.close();
+
+        // Riavvio: credenziali ricaricate dal vault (nuove istanze)
+        Credential newcomer = new Credential("github", "carol", "p4");
+        List<Credential> loaded = List.of(new Credential("facebook", "alice", "p1"),
+                new Credential("slack", "alice", "p2"), new Credential("jira", "bob", "p3"), newcomer);
+        VaultTree restored = new VaultTree("Vault");
+        FolderTreeStore reopened = new FolderTreeStore(path, crypto);
+        List<Credential> unplaced = reopened.load(restored, loaded);
+
+        assertEquals(2, unplaced.size());             // jira (rimossa dall'albero) e github (nuova)
+        assertTrue(unplaced.contains(newcomer));
+        FolderComposite social = restored.getFolder("Social");
+        assertEquals(2, social.childCount());
+        assertSame(social, restored.folderOf(loaded.get(1)));
+        assertNotNull(restored.getFolder("Work/Chat"));
+        assertNotNull(restored.getFolder("Archive/2020"));
+
+        // Le modifiche dopo il ripristino proseguono lo stesso journal
+        reopened.attach(restored);
+        restored.add("Dev", newcomer);
+        restored.remove(restored.getFolder("Work"));
+        reopened.close();
+
+        VaultTree third = new VaultTree("Vault");
+        new FolderTreeStore(path, crypto).load(third, loaded);
+        assertNotNull(third.getFolder("Dev"));
+        assertNull(third.getFolder("Work"));
+        assertNull(third.getFolder("Work/Chat"));
+        assertSame(third.getFolder("Dev"), third.folderOf(newcomer));
+    }
+
+    @Test
+    void testJournalIsCompactedIntoSnapshot() {
+        VaultTree tree = new VaultTree("Vault");
+        FolderTreeStore store = new FolderTreeStore(path, crypto);
+        store.attach(tree);
+        List<Credential> credentials = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            Credential c = new Credential("svc" + i, "u", "p");
+            credentials.add(c);
+            tree.add("A", c);
+            tree.move(c, "B");
+            tree.move(c, "C");
+        }
+        store.close();
+
+        VaultTree restored = new VaultTree("Vault");
+        assertTrue(new FolderTreeStore(path, crypto).load(restored, credentials).isEmpty());
+        assertEquals(300, restored.getFolder("C").childCount());
+        assertEquals(0, restored.getFolder("A").childCount());
+    }
+
+    @Test
+    void testAttachWritesPlacementsIntoSnapshotAndCompactsDeadRecords() {
+        VaultTree tree = new VaultTree("Vault");
+        FolderTreeStore store = new FolderTreeStore(path, crypto);
+        store.attach(tree);
+        List<Credential> credentials = new ArrayList<>();
+        for (int i = 0; i < 600; i++) {
+            Credential c = new Credential("svc" + i, "u", "p");
+            credentials.add(c);
+            tree.add("A", c);
+        }
+        for (int i = 0; i < 500; i++) {
+            tree.remove(credentials.get(i));         // 500 record D + 500 record C morti
+        }
+        store.close();
+        Path journal = Path.of(path + ".journal");
+        assertFalse(Files.exists(journal));          // Compattato durante la sessione
+
+        // Riavvio: collocazioni nuove prima di attach, nessun record nel journal
+        VaultTree restored = new VaultTree("Vault");
+        FolderTreeStore reopened = new FolderTreeStore(path, crypto);
+        List<Credential> unplaced = reopened.load(restored, credentials);
+        assertEquals(500, unplaced.size());
+        for (Credential c : unplaced) {
+            restored.add("B", c);
+        }
+        reopened.attach(restored);
+        reopened.close();
+        assertFalse(Files.exists(journal));
+
+        VaultTree third = new VaultTree("Vault");
+        assertTrue(new FolderTreeStore(path, crypto).load(third, credentials).isEmpty());
+        assertEquals(500, third.getFolder("B").childCount());
+    }
+
+    @Test
+    void testTornJournalTailIsTruncated() throws Exception {
+        Credential slack = new Credential("slack", "alice", "p1");
+        Credential jira = new Credential("jira", "bob", "p2");
+        VaultTree tree = new VaultTree("Vault");
+        FolderTreeStore store = new FolderTreeStore(path, crypto);
+        store.attach(tree);
+        tree.add("Work", slack);
+        store.close();
+        Path journal = Path.of(path + ".journal");
+        long intact = Files.size(journal);
+        Files.writeString(journal, crypto.encrypt("F 99 0 QQ==").substring(0, 10), StandardOpenOption.APPEND);
+
+        VaultTree restored = new VaultTree("Vault");
+        FolderTreeStore reopened = new FolderTreeStore(path, crypto);
+        assertTrue(reopened.load(restored, List.of(slack, jira)).contains(jira));
+        assertEquals(intact, Files.size(journal));                  // Record incompleto rimosso
+        assertNotNull(restored.folderOf(slack));
+        reopened.attach(restored);
+        restored.add("Dev", jira);                                   // L'append riparte da un confine di riga
+        reopened.close();
+
+        VaultTree third = new VaultTree("Vault");
+        assertTrue(new FolderTreeStore(path, crypto).load(third, List.of(slack, jira)).isEmpty());
+        assertSame(third.getFolder("Dev"), third.folderOf(jira));
+
+        // Un record illeggibile che non è l'ultimo resta corruzione
+        List<String> lines = new ArrayList<>(Files.readAllLines(journal));
+        lines.add(1, "corrotto");
+        Files.write(journal, lines);
+        assertThrows(VaultException.class, () -> new FolderTreeStore(path, crypto).load(new VaultTree("Vault"), List.of()));
+    }
+}
@@ -0,0 +1,144 @@
+package com.securevault.service;
+
+import com.securevault.exception.VaultException;
+import com.securevault.model.Credential;
+import com.securevault.observer.VaultEvent;
+import com.securevault.repository.VaultRepository;
+import com.securevault.security.CryptoManager;
+import com.securevault.security.SecretStore;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class VaultEventStoreTest {
+    @TempDir
+    Path dir;
+
+    private CryptoManager crypto;
+
+    @BeforeEach
+    void setUp() {
+        crypto = new CryptoManager(CryptoManager.generateKey());
+    }
+
+    @Test
+    void testRestoreRebuildsStateFromSnapshotAndTail() {
+        VaultRepository repository = new VaultRepository();
+        VaultEventStore store = new VaultEventStore(dir, crypto, 3);
+        store.attach(repository);
+
+        Credential gmail = new Credential("gmail", "alice", "pw,with.dots|1");
+        repository.addCredential("Default", gmail);
+        repository.addCredential("Default", new Credential("github", "bob", "pw2"));
+        repository.addCredential("Work", new Credential("jira", "carol", "pw3"));   // Snapshot qui
+        repository.modifyCredential("Default", gmail, new Credential("gmail", "alice", "nuova"));
+        repository.removeCredential("Work", new Credential("jira", "carol", "pw3"));
+        store.close();
+
+        VaultRepository restored = new VaultRepository();
+        VaultEventStore reopened = new VaultEventStore(dir, crypto, 3);
+        assertTrue(reopened.exists());
+        assertEquals(2, reopened.restore(restored, null));    // Solo la coda dopo lo snapshot
+
+        assertEquals(repository.getByCategory("Default"), restored.getByCategory("Default"));
+        assertTrue(restored.getByCategory("Work").isEmpty());
+        assertEquals(5, reopened.getSequence());
+    }
+
+    @Test
+    void testLogIsEncryptedAndKeepsFullAuditTrail() throws IOException {
+        VaultRepository repository = new VaultRepository();
+        VaultEventStore store = new VaultEventStore(dir, crypto, 2);
+        store.attach(repository);
+        repository.addCredential("Default", new Credential("gmail", "alice", "segreta"));
+        repository.addCredential("Default", new Credential("github", "bob", "segreta2"));
+        repository.clearAll();
+        repository.addCredential("Default", new Credential("slack", "dave", "pw"));
+        store.close();
+
+        try (Stream<Path> files = Files.list(dir)) {
+            for (Path file : files.collect(Collectors.toList())) {
+                assertFalse(Files.readString(file, StandardCharsets.UTF_8).contains("segreta"));
+            }
+        }
+
+        List<VaultEventStore.LoggedEvent> log = new VaultEventStore(dir, crypto, 2).readLog();
+        assertEquals(4, log.size());
+        assertEquals(VaultEvent.Type.CLEARED, log.get(2).getEvent().getType());
+        assertEquals("slack", log.get(3).getEvent().getCredential().getService());
+
+        VaultRepository restored = new VaultRepository();
+        new VaultEventStore(dir, crypto, 2).restore(restored, null);
+        assertEquals(1, restored.countAll());
+    }
+
+    @Test
+    void testTransactionIsLoggedAsOneBatch() {
+        VaultRepository repository = new VaultRepository();
+        VaultEventStore store = new VaultEventStore(dir, crypto, 100);
+        store.attach(repository);
+        repository.inTransaction(tx -> tx
+                .add("Default", new Credential("a", "u", "1"))
+                .add("Default", new Credential("b", "u", "2")));
+        store.close();
+
+        VaultRepository restored = new VaultRepository();
+        assertEquals(2, new VaultEventStore(dir, crypto, 100).restore(restored, null));
+        assertEquals(2, restored.getByCategory("Default").size());
+    }
+
+    @Test
+    void testTornTailIsTruncatedButEarlierCorruptionFails() throws IOException {
+        VaultRepository repository = new VaultRepository();
+        VaultEventStore store = new VaultEventStore(dir, crypto, 100);
+        store.attach(repository);
+        repository.addCredential("Default", new Credential("a", "u", "1"));
+        repository.addCredential("Default", new Credential("b", "u", "2"));
+        store.close();
+
+        Path segment;
+        try (Stream<Path> files = Files.list(dir)) {
+            segment = files.filter(p -> p.getFileName().toString().startsWith("events-")).findFirst().orElseThrow();
+        }
+        String intact = Files.readString(segment, StandardCharsets.UTF_8);
+        Files.writeString(segment, intact + "cmVjb3JkIHRyb25j", StandardCharsets.UTF_8);   // Crash a metà append
+
+        VaultRepository restored = new VaultRepository();
+        assertEquals(2, new VaultEventStore(dir, crypto, 100).restore(restored, null));
+        assertEquals(2, restored.countAll());
+        assertEquals(intact, Files.readString(segment, StandardCharsets.UTF_8));
+
+        Files.writeString(segment, "corrotto\n" + intact, StandardCharsets.UTF_8);
+        assertThrows(VaultException.class, () -> new VaultEventStore(dir, crypto, 100).restore(new VaultRepository(), null));
+    }
+
+    @Test
+    void testRestoreReleasesSecretsOfCredentialsNoLongerInVault() {
+        VaultRepository repository = new VaultRepository();
+        VaultEventStore store = new VaultEventStore(dir, crypto, 100);
+        store.attach(repository);
+        Credential gmail = new Credential("gmail", "alice", "pw1");
+        repository.addCredential("Default", gmail);
+        repository.addCredential("Default", new Credential("github", "bob", "pw2"));
+        repository.modifyCredential("Default", gmail, new Credential("gmail", "alice", "pw3"));
+        repository.removeCredential("Default", new Credential("github", "bob", "pw2"));
+        store.close();
+
+        SecretStore secrets = new SecretStore();
+        VaultRepository restored = new VaultRepository();
+        new VaultEventStore(dir, crypto, 100).restore(restored, secrets);
+
+        assertEquals(1, restored.countAll());
+        assertEquals(1, secrets.liveSecrets());    // Solo la password di gmail corrente
+    }
+}
@@ -0,0 +1,60 @@
+package com.securevault.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BloomFilterTest {
+
+    @Test
+    void testNoFalseNegativesAndBoundedFalsePositives() {
+        BloomFilter filter = BloomFilter.create(10_000, 0.01);
+        SplittableRandom random = new SplittableRandom(42);
+        long[] keys = random.longs(10_000).toArray();
+        for (long key : keys) filter.add(key);
+
+        for (long key : keys) assertTrue(filter.mightContain(key));
+
+        int falsePositives = 0;
+        for (int i = 0; i < 100_000; i++) {
+            if (filter.mightContain(random.nextLong())) falsePositives++;
+        }
+        assertTrue(falsePositives < 2_000, "Falsi positivi: " + falsePositives);
+    }
+
+    @Test
+    void testCountingFilterSupportsRemoval() {
+        BloomFilter filter = BloomFilter.createCounting(100, 0.01);
+        filter.add(7L);
+        filter.add(7L);
+        filter.remove(7L);
+        assertTrue(filter.mightContain(7L));
+        filter.remove(7L);
+        assertFalse(filter.mightContain(7L));
+        assertEquals(0, filter.count());
+
+        assertThrows(UnsupportedOperationException.class, () -> BloomFilter.create(100, 0.01).remove(7L));
+    }
+
+    @Test
+    void testPersistenceRoundTrip() throws IOException {
+        BloomFilter filter = BloomFilter.createCounting(100, 0.01);
+        filter.add(123L);
+        filter.setTag(99L);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        filter.writeTo(out);
+        BloomFilter loaded = BloomFilter.readFrom(new ByteArrayInputStream(out.toByteArray()));
+
+        assertTrue(loaded.mightContain(123L));
+        assertTrue(loaded.isCounting());
+        assertEquals(99L, loaded.getTag());
+        assertEquals(1, loaded.count());
+        assertThrows(IOException.class, () -> BloomFilter.readFrom(new ByteArrayInputStream(new byte[16])));
+    }
+}
@@ -0,0 +1,52 @@
+package com.securevault.util;
+
+import com.securevault.model.Credential;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+class StringDictionaryTest {
+
+    @Test
+    void testEncodeIsStable() {
+        StringDictionary dictionary = new StringDictionary();
+        int gmail = dictionary.encode("gmail");
+
+        assertEquals(gmail, dictionary.encode(new String("gmail")));
+        assertNotEquals(gmail, dictionary.encode("github"));
+        assertEquals("gmail", dictionary.decode(gmail));
+        assertEquals(StringDictionary.ABSENT, dictionary.codeOf("slack"));
+    }
+
+    @Test
+    void testDeserializeSharesInstances() {
+        StringDictionary dictionary = new StringDictionary();
+        Credential a = Credential.deserialize("gmail,me@mail.com,p1", dictionary);
+        Credential b = Credential.deserialize("gmail,me@mail.com,p2", dictionary);
+
+        assertSame(a.getService(), b.getService());
+        assertSame(a.getUsername(), b.getUsername());
+        assertEquals(0, dictionary.size());                 // Nessun codice finché non entrano nel vault
+
+        int gmail = dictionary.retain(b.getService());
+        assertSame(a.getService(), dictionary.decode(gmail));
+        dictionary.discardProvisional();
+        assertSame(a.getService(), Credential.deserialize("gmail,x,p3", dictionary).getService());
+        assertNotSame(a.getUsername(), Credential.deserialize("gmail,me@mail.com,p4", dictionary).getUsername());
+    }
+
+    @Test
+    void testReleaseFreesAndReusesCode() {
+        StringDictionary dictionary = new StringDictionary();
+        int gmail = dictionary.retain("gmail");
+        dictionary.retain("gmail");
+
+        dictionary.release("gmail");
+        assertEquals(gmail, dictionary.codeOf("gmail"));   // Ancora un riferimento
+        dictionary.release("gmail");
+        assertEquals(StringDictionary.ABSENT, dictionary.codeOf("gmail"));
+        assertEquals(0, dictionary.size());
+
+        assertEquals(gmail, dictionary.retain("slack"));   // Codice riusato
+        assertEquals("slack", dictionary.decode(gmail));
+    }
+}